@@ -0,0 +1,93 @@
+package com.bookiescrape.app.excel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks saving a workbook of many league sheets when only some of them
+ * have changed, serializing every sheet on the writing thread versus
+ * serializing the changed sheets concurrently, ahead of the rest.
+ *
+ * @author Jonathan Henly
+ * @see WorkbookSaveBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChangedSheetsSaveBenchmark {
+    
+    @Param({ "12" })
+    public int sheets;
+    
+    @Param({ "1", "4", "12" })
+    public int changed;
+    
+    @Param({ "1000" })
+    public int rows;
+    
+    @Param({ "40" })
+    public int cols;
+    
+    private Path source;
+    private Path target;
+    private XSSFWorkbook workbook;
+    private List<String> changedSheets;
+    
+    @Setup
+    public void setUp() throws IOException {
+        source = Files.createTempFile("changed-sheets", ".xlsx");
+        Files.delete(source);
+        GeneratedWorkbooks.write(source, sheets, rows, cols);
+        
+        try (InputStream in = Files.newInputStream(source)) {
+            workbook = new XSSFWorkbook(in);
+        }
+        target = Files.createTempFile("changed-sheets-target", ".xlsx");
+        
+        changedSheets = new ArrayList<>(changed);
+        for (int i = 0; i < changed; i++) {
+            changedSheets.add(GeneratedWorkbooks.sheet(i));
+        }
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        workbook.close();
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(target);
+    }
+    
+    @Benchmark
+    public long saveEverySheet() throws IOException {
+        return WorkbookSaver.save(workbook, target).bytesWritten();
+    }
+    
+    @Benchmark
+    public long saveChangedSheets() throws IOException {
+        return WorkbookSaver.save(workbook, target,
+            WorkbookSaver.Compression.DEFAULT, changedSheets).bytesWritten();
+    }
+    
+}
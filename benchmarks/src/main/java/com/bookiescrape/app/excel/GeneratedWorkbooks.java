@@ -0,0 +1,97 @@
+package com.bookiescrape.app.excel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+/**
+ * Generates odds workbooks for benchmarking.
+ * <p>
+ * The generated sheet is laid out like a bookie-scrape sheet, a header row of
+ * bookie names followed by one row per team, with the team's name in the
+ * first column and each bookie's odds in the remaining columns.
+ *
+ * @author Jonathan Henly
+ */
+final class GeneratedWorkbooks {
+    
+    /** The name of the generated sheet. */
+    static final String SHEET = "Odds";
+    
+    private GeneratedWorkbooks() {}
+    
+    /**
+     * Writes a generated workbook.
+     * 
+     * @param file
+     *             - the file to write, must not exist
+     * @param rows
+     *             - the number of team rows, not counting the header row
+     * @param cols
+     *             - the number of columns, including the team name column
+     * @throws IOException
+     *                     if the workbook cannot be written
+     */
+    static void write(Path file, int rows, int cols) throws IOException {
+        write(file, 1, rows, cols);
+    }
+    
+    /**
+     * Writes a generated workbook with several identically laid out sheets,
+     * named by {@link #sheet(int)}.
+     * 
+     * @param file
+     *             - the file to write, must not exist
+     * @param sheets
+     *             - the number of sheets
+     * @param rows
+     *             - the number of team rows, not counting the header row
+     * @param cols
+     *             - the number of columns, including the team name column
+     * @throws IOException
+     *                     if the workbook cannot be written
+     */
+    static void write(Path file, int sheets, int rows, int cols)
+        throws IOException {
+        try (XSSFWorkbook wb = new XSSFWorkbook();
+            OutputStream out = Files.newOutputStream(file)) {
+            for (int i = 0; i < sheets; i++) {
+                fill(wb.createSheet(sheet(i)), rows, cols);
+            }
+            
+            wb.write(out);
+        }
+    }
+    
+    /**
+     * @param index
+     *              - the index of a generated sheet
+     * @return the name of the generated sheet, {@link #SHEET} for the first
+     */
+    static String sheet(int index) {
+        return (index == 0) ? SHEET : SHEET + " " + (index + 1);
+    }
+    
+    /* fills a sheet with a header row and rows of odds */
+    private static void fill(Sheet sheet, int rows, int cols) {
+        Row header = sheet.createRow(0);
+        header.createCell(0).setCellValue("Team");
+        for (int c = 1; c < cols; c++) {
+            header.createCell(c).setCellValue("Bookie " + c);
+        }
+        
+        for (int r = 1; r <= rows; r++) {
+            Row row = sheet.createRow(r);
+            row.createCell(0).setCellValue("Team " + r);
+            for (int c = 1; c < cols; c++) {
+                row.createCell(c).setCellValue(1.5 + (r * c) % 100 / 100.0);
+            }
+        }
+    }
+    
+}
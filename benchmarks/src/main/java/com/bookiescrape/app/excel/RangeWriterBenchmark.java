@@ -0,0 +1,124 @@
+package com.bookiescrape.app.excel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bookiescrape.app.excel.CellRange.RangeType;
+
+/**
+ * Benchmarks {@link WorkbookWriter.RangeWriter#writeRange()}, through
+ * {@link WorkbookWriter#forRange(CellRange)}, for every writable
+ * {@link RangeType}, writing strings that are parsed as doubles, writing
+ * a {@code double[]} directly, and rewriting an unchanged {@code double[]}
+ * while skipping unchanged cells.
+ * <p>
+ * Open row and open column ranges are only supported by the reader, so they
+ * are not benchmarked here. The workbook is reopened for every iteration so
+ * styles and cells created by earlier iterations don't pile up.
+ *
+ * @author Jonathan Henly
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RangeWriterBenchmark {
+    
+    @Param({ "CELL", "ROW", "COL", "ROW_COL" })
+    public RangeType type;
+    
+    @Param({ "30" })
+    public int size;
+    
+    private Path file;
+    private WorkbookWriter writer;
+    private CellRange range;
+    private List<String> values;
+    private double[] numbers;
+    
+    @Setup(Level.Trial)
+    public void createWorkbook() throws IOException {
+        file = Files.createTempFile("range-writer", ".xlsx");
+        Files.delete(file);
+        GeneratedWorkbooks.write(file, 0, 0);
+        
+        range = rangeOf(type, size);
+        values = new ArrayList<>(range.numCells());
+        numbers = new double[range.numCells()];
+        for (int i = 0; i < range.numCells(); i++) {
+            numbers[i] = 1.5 + i % 100 / 100.0;
+            values.add(Double.toString(numbers[i]));
+        }
+    }
+    
+    @Setup(Level.Iteration)
+    public void openWriter() throws IOException {
+        writer = WorkbookFactory.newWorkbookWriter(file.toString());
+    }
+    
+    @TearDown(Level.Iteration)
+    public void closeWriter() throws IOException {
+        // closing discards the written cells, the file is never saved
+        writer.close();
+    }
+    
+    @TearDown(Level.Trial)
+    public void deleteWorkbook() throws IOException {
+        Files.deleteIfExists(file);
+    }
+    
+    @Benchmark
+    public void writeRange() {
+        writer.forRange(range).dataIsDouble().withFormat("0.00")
+            .in(GeneratedWorkbooks.SHEET).write(values);
+    }
+    
+    @Benchmark
+    public void writeTypedRange() {
+        writer.forRange(range).withFormat("0.00").in(GeneratedWorkbooks.SHEET)
+            .write(numbers);
+    }
+    
+    @Benchmark
+    public int writeUnchangedRange() {
+        // after the first call every cell already holds its value and style
+        writer.setSkipUnchangedCells(true);
+        return writer.forRange(range).withFormat("0.00")
+            .in(GeneratedWorkbooks.SHEET).write(numbers);
+    }
+    
+    /* a size by size range, or a size long row or column range */
+    private static CellRange rangeOf(RangeType type, int size) {
+        switch (type) {
+            case CELL:
+                return CellRange.cell(1, 1);
+            case ROW:
+                return CellRange.rowRange(1, 1, size);
+            case COL:
+                return CellRange.colRange(1, 1, size);
+            default:
+                return CellRange.range(1, size, 1, size);
+        }
+    }
+    
+}
@@ -0,0 +1,75 @@
+package com.bookiescrape.app.excel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks opening a large generated workbook just to read its row of
+ * bookie names, which is what the mediator does for every sheet that keeps its
+ * bookie order, with both a {@link WorkbookReader} and an
+ * {@link EventWorkbookReader}.
+ *
+ * @author Jonathan Henly
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkbookOpenBenchmark {
+    
+    @Param({ "5000" })
+    public int rows;
+    
+    @Param({ "40" })
+    public int cols;
+    
+    private Path file;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("workbook-open", ".xlsx");
+        Files.delete(file);
+        GeneratedWorkbooks.write(file, rows, cols);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+    
+    @Benchmark
+    public List<String> openAndReadBookieRow() throws IOException {
+        try (WorkbookReader r = WorkbookFactory
+            .newWorkbookReader(file.toString())) {
+            return r.forOpenRowRange(0, 1).in(GeneratedWorkbooks.SHEET).read();
+        }
+    }
+    
+    @Benchmark
+    public List<String> eventReadBookieRow() throws IOException {
+        try (EventWorkbookReader r = WorkbookFactory
+            .newEventWorkbookReader(file.toString())) {
+            return r.forOpenRowRange(0, 1).in(GeneratedWorkbooks.SHEET).read();
+        }
+    }
+    
+}
@@ -0,0 +1,98 @@
+package com.bookiescrape.app.excel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bookiescrape.app.excel.CellRange.RangeType;
+
+/**
+ * Benchmarks {@link WorkbookReader} range reads on a large generated
+ * workbook, for every {@link RangeType}, as strings and as doubles.
+ *
+ * @author Jonathan Henly
+ * @see WorkbookOpenBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkbookReaderBenchmark {
+    
+    @Param({ "CELL", "ROW", "OPEN_ROW", "COL", "OPEN_COL", "ROW_COL" })
+    public RangeType type;
+    
+    @Param({ "5000" })
+    public int rows;
+    
+    @Param({ "40" })
+    public int cols;
+    
+    private Path file;
+    private WorkbookReader reader;
+    private CellRange range;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("workbook-reader", ".xlsx");
+        Files.delete(file);
+        GeneratedWorkbooks.write(file, rows, cols);
+        
+        reader = WorkbookFactory.newWorkbookReader(file.toString());
+        range = rangeOf(type);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        reader.close();
+        Files.deleteIfExists(file);
+    }
+    
+    @Benchmark
+    public List<String> readRange() {
+        return reader.forRange(range).in(GeneratedWorkbooks.SHEET).read();
+    }
+    
+    @Benchmark
+    public double[] readDoubles() {
+        return reader.forRange(range).in(GeneratedWorkbooks.SHEET)
+            .readDoubles();
+    }
+    
+    /* ranges over the generated sheet, column 0 holds the team names */
+    private CellRange rangeOf(RangeType type) {
+        switch (type) {
+            case CELL:
+                return CellRange.cell(rows / 2, cols / 2);
+            case ROW:
+                return CellRange.rowRange(rows / 2, 1, cols - 1);
+            case OPEN_ROW:
+                return CellRange.openRowRange(rows / 2, 1);
+            case COL:
+                return CellRange.colRange(cols / 2, 1, rows);
+            case OPEN_COL:
+                return CellRange.openColRange(0, 1);
+            default:
+                return CellRange.range(1, rows, 1, cols - 1);
+        }
+    }
+    
+}
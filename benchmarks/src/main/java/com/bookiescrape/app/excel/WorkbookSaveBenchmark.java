@@ -0,0 +1,75 @@
+package com.bookiescrape.app.excel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks atomically saving a large generated workbook with each
+ * {@link WorkbookSaver.Compression} level.
+ *
+ * @author Jonathan Henly
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkbookSaveBenchmark {
+    
+    @Param({ "DEFAULT", "FAST", "NONE" })
+    public WorkbookSaver.Compression compression;
+    
+    @Param({ "5000" })
+    public int rows;
+    
+    @Param({ "40" })
+    public int cols;
+    
+    private Path source;
+    private Path target;
+    private XSSFWorkbook workbook;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        source = Files.createTempFile("workbook-save", ".xlsx");
+        Files.delete(source);
+        GeneratedWorkbooks.write(source, rows, cols);
+        
+        try (InputStream in = Files.newInputStream(source)) {
+            workbook = new XSSFWorkbook(in);
+        }
+        target = Files.createTempFile("workbook-save-target", ".xlsx");
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        workbook.close();
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(target);
+    }
+    
+    @Benchmark
+    public long save() throws IOException {
+        return WorkbookSaver.save(workbook, target, compression).bytesWritten();
+    }
+    
+}
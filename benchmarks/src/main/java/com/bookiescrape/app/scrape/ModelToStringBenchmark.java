@@ -0,0 +1,66 @@
+package com.bookiescrape.app.scrape;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link Match#toString()} and {@link DateGroup#toString()}, which
+ * the scraper calls to log every scraped date group.
+ *
+ * @author Jonathan Henly
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModelToStringBenchmark {
+    
+    @Param({ "10", "30" })
+    public int bookies;
+    
+    @Param({ "50" })
+    public int matches;
+    
+    private Match match;
+    private DateGroup dateGroup;
+    
+    @Setup
+    public void setUp() {
+        dateGroup = new DateGroup("Sunday, October 18");
+        
+        for (int m = 0; m < matches; m++) {
+            int rot = 101 + 2 * m;
+            Match match = Match.createMatch(bookies).homeRot(rot)
+                .awayRot(rot + 1).time("1:00 PM").home("Home " + rot)
+                .away("Away " + rot).url("/match/" + rot)
+                .opener("44.5", "1.91").build();
+            
+            for (int b = 0; b < bookies; b++) {
+                match.setBookieOdds(b, "4" + (b % 10) + ".5", "1.9" + (b % 10));
+            }
+            dateGroup.addMatch(match);
+        }
+        
+        match = dateGroup.getMatch(0);
+    }
+    
+    @Benchmark
+    public String matchToString() { return match.toString(); }
+    
+    @Benchmark
+    public String dateGroupToString() { return dateGroup.toString(); }
+    
+}
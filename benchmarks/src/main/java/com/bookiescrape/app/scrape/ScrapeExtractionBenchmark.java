@@ -0,0 +1,101 @@
+package com.bookiescrape.app.scrape;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+
+/**
+ * Benchmarks extracting date groups and matches from a saved odds page, both
+ * from an HtmlUnit DOM with {@link Scraper}'s extraction methods and straight
+ * from the page's bytes with {@link RawOddsParser}.
+ * <p>
+ * {@code extractFromDom} loads the page once per trial, so it only measures
+ * extraction, while {@code loadAndExtractFromDom} also has HtmlUnit parse the
+ * page into a DOM, which is what {@code parseRawHtml} should be compared to.
+ * The page has ten bookies, one carousel page's worth.
+ *
+ * @author Jonathan Henly
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScrapeExtractionBenchmark {
+    
+    @Param({ "2", "8" })
+    public int dateGroups;
+    
+    @Param({ "15" })
+    public int matchesPerGroup;
+    
+    private byte[] html;
+    private URL url;
+    private WebClient client;
+    private HtmlPage page;
+    private Scraper scraper;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path file = OddsPageFixture.write(dateGroups, matchesPerGroup, 10);
+        html = OddsPageFixture.html(dateGroups, matchesPerGroup, 10)
+            .getBytes(StandardCharsets.UTF_8);
+        
+        client = new WebClient();
+        client.getOptions().setJavaScriptEnabled(false);
+        client.getOptions().setCssEnabled(false);
+        url = file.toUri().toURL();
+        page = client.getPage(url);
+        
+        scraper = new Scraper();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scraper.close();
+        client.close();
+    }
+    
+    @Benchmark
+    public List<DateGroup> extractFromDom() {
+        return scraper.scrapeLoadedPage(page);
+    }
+    
+    @Benchmark
+    public List<DateGroup> loadAndExtractFromDom() throws IOException {
+        HtmlPage loaded = client.getPage(url);
+        try {
+            return scraper.scrapeLoadedPage(loaded);
+        } finally {
+            loaded.cleanUp();
+        }
+    }
+    
+    @Benchmark
+    public RawOddsParser.Result parseRawHtml() throws IOException {
+        return RawOddsParser.parse(new ByteArrayInputStream(html), "UTF-8");
+    }
+    
+}
@@ -0,0 +1,226 @@
+package com.bookiescrape.app;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.prefs.BackingStoreException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bookiescrape.app.config.RequiredSettingNotFoundException;
+import com.bookiescrape.app.config.Settings;
+import com.bookiescrape.app.config.UserSettings;
+import com.bookiescrape.app.sample.Mediator;
+import com.bookiescrape.app.sample.ScrapeScheduler;
+
+
+/**
+ * Headless entry point, runs scrape cycles without JavaFX or the system tray.
+ * <p>
+ * Loads the user's {@link Settings} and runs a {@link Mediator} scrape cycle
+ * once every {@link Settings#getAutoScrapeInterval()} minutes, on a
+ * {@link ScrapeScheduler}, until the process is stopped. The first cycle is
+ * due an interval after the last scrape, and the start of each cycle is saved
+ * as the last scrape. If the interval is zero, or {@code --once} is passed, a
+ * single cycle is run and the process exits. This
+ * class never touches a JavaFX or AWT class, so no display is needed and
+ * neither toolkit is loaded.
+ * <p>
+ * Logging is configured by {@code log4j-headless.xml}, which logs to
+ * {@code ./log/bookie-scrape.log}, unless the {@code log4j.configuration}
+ * system property says otherwise.
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ * java -cp bookie-scrape.jar com.bookiescrape.app.HeadlessMain
+ *     [--properties &lt;file&gt;] [--excel &lt;file&gt;] [--once]
+ *     [--fixed-delay] [--queue-overruns]
+ *     [--stagger &lt;seconds&gt;] [--jitter &lt;seconds&gt;]
+ * </pre>
+ *
+ * With neither {@code --properties} nor {@code --excel}, the settings are
+ * loaded from the user's preferences, like the GUI does. Cycles run at a
+ * fixed rate, and cycles missed while one overran are skipped, unless
+ * {@code --fixed-delay} or {@code --queue-overruns} are passed. Within a
+ * cycle, the start of each sheet's scrape is staggered by
+ * {@value #DEF_STAGGER_SECONDS} seconds, plus up to
+ * {@value #DEF_JITTER_SECONDS} seconds of random jitter, by default.
+ *
+ * @author Jonathan Henly
+ */
+public final class HeadlessMain {
+    
+    static {
+        // both must be set before the first logger is created
+        System.setProperty("java.awt.headless", "true");
+        if (System.getProperty("log4j.configuration") == null) {
+            System.setProperty("log4j.configuration", "log4j-headless.xml");
+        }
+    }
+    
+    private static final Logger LOG =
+        LoggerFactory.getLogger(HeadlessMain.class);
+    
+    private static final String USAGE = "usage: HeadlessMain"
+        + " [--properties <file>] [--excel <file>] [--once]"
+        + " [--fixed-delay] [--queue-overruns]"
+        + " [--stagger <seconds>] [--jitter <seconds>]";
+    
+    /* default spread of each cycle's sheet scrapes, same as the GUI's */
+    private static final long DEF_STAGGER_SECONDS =
+        Mediator.DEF_STAGGER_MILLIS / 1_000L;
+    private static final long DEF_JITTER_SECONDS =
+        Mediator.DEF_JITTER_MILLIS / 1_000L;
+    
+    /* exit statuses */
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_CYCLE_FAILED = 1;
+    private static final int EXIT_USAGE = 2;
+    private static final int EXIT_NO_SETTINGS = 3;
+    
+    private HeadlessMain() {}
+    
+    /**
+     * Entry point of the headless application.
+     *
+     * @param args
+     *             - command line arguments, see the class documentation
+     */
+    public static void main(String[] args) {
+        String propertiesFile = null;
+        String excelFile = null;
+        boolean once = false;
+        ScrapeScheduler.Mode mode = ScrapeScheduler.Mode.FIXED_RATE;
+        ScrapeScheduler.Overrun overrun = ScrapeScheduler.Overrun.SKIP;
+        long stagger = DEF_STAGGER_SECONDS;
+        long jitter = DEF_JITTER_SECONDS;
+        
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--properties":
+                    if (++i == args.length) { exitWithUsage(); }
+                    propertiesFile = args[i];
+                    break;
+                case "--excel":
+                    if (++i == args.length) { exitWithUsage(); }
+                    excelFile = args[i];
+                    break;
+                case "--once":
+                    once = true;
+                    break;
+                case "--fixed-delay":
+                    mode = ScrapeScheduler.Mode.FIXED_DELAY;
+                    break;
+                case "--queue-overruns":
+                    overrun = ScrapeScheduler.Overrun.QUEUE;
+                    break;
+                case "--stagger":
+                    if (++i == args.length) { exitWithUsage(); }
+                    stagger = parseSeconds(args[i]);
+                    break;
+                case "--jitter":
+                    if (++i == args.length) { exitWithUsage(); }
+                    jitter = parseSeconds(args[i]);
+                    break;
+                default:
+                    exitWithUsage();
+            }
+        }
+        
+        Settings settings = null;
+        try {
+            settings = UserSettings.loadUserSettings(propertiesFile, excelFile);
+        } catch (RequiredSettingNotFoundException | IOException
+            | BackingStoreException e) {
+            LOG.error("could not load settings", e);
+        }
+        // loading both a properties file and an Excel file isn't supported
+        if (settings == null) {
+            LOG.error("no settings loaded, exiting");
+            System.exit(EXIT_NO_SETTINGS);
+            return;
+        }
+        
+        Mediator mediator = new Mediator(settings);
+        mediator.setStagger(TimeUnit.SECONDS.toMillis(stagger),
+            TimeUnit.SECONDS.toMillis(jitter));
+        int interval = settings.getAutoScrapeInterval();
+        
+        if (once || interval <= 0) {
+            LOG.info("running a single scrape cycle");
+            long started = System.currentTimeMillis();
+            boolean succeeded = runCycle(mediator);
+            saveLastScrapeTime(started);
+            System.exit(succeeded ? EXIT_OK : EXIT_CYCLE_FAILED);
+            return;
+        }
+        
+        ScrapeScheduler scheduler = new ScrapeScheduler(
+            () -> runCycle(mediator), TimeUnit.MINUTES.toMillis(interval));
+        scheduler.setMode(mode);
+        scheduler.setOverrun(overrun);
+        scheduler.setLastScrapeTime(settings.getLastScrapeTime());
+        scheduler.setLastScrapeStore(UserSettings::saveLastScrapeTime);
+        
+        // let a running cycle finish saving the workbook before exiting
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            LOG.info("shutting down, waiting for any running scrape cycle");
+            scheduler.close();
+        }, "scrape-shutdown"));
+        
+        scheduler.start();
+        LOG.info("scraping every {} minute(s), next scrape at {}", interval,
+            Instant.ofEpochMilli(scheduler.getStats().nextRunMillis()));
+        
+        try {
+            scheduler.awaitTermination();
+        } catch (InterruptedException ie) {
+            scheduler.close();
+        }
+    }
+    
+    /* runs a cycle and logs how it went */
+    private static boolean runCycle(Mediator mediator) {
+        long start = System.nanoTime();
+        boolean succeeded = mediator.runScrapeCycle();
+        long millis = (System.nanoTime() - start) / 1_000_000L;
+        if (succeeded) {
+            LOG.info("scrape cycle finished in {} ms", millis);
+        } else {
+            LOG.warn("scrape cycle finished with failures in {} ms", millis);
+        }
+        
+        return succeeded;
+    }
+    
+    /* saves the last scrape time of a single cycle run */
+    private static void saveLastScrapeTime(long millis) {
+        try {
+            UserSettings.saveLastScrapeTime(millis);
+        } catch (BackingStoreException | IOException e) {
+            LOG.warn("could not save the last scrape time", e);
+        }
+    }
+    
+    /* parses a non-negative number of seconds, or exits with usage */
+    private static long parseSeconds(String arg) {
+        try {
+            long seconds = Long.parseLong(arg);
+            if (seconds >= 0) { return seconds; }
+        } catch (NumberFormatException nfe) {
+            // falls through to usage
+        }
+        
+        exitWithUsage();
+        return 0;
+    }
+    
+    /* prints usage and exits */
+    private static void exitWithUsage() {
+        System.err.println(USAGE);
+        System.exit(EXIT_USAGE);
+    }
+    
+} // class HeadlessMain
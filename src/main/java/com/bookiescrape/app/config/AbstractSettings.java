@@ -102,6 +102,10 @@ public abstract class AbstractSettings implements Settings {
         protected String sheetName;
         /** sheet's url to scrape */
         protected String scrapeUrl;
+        /** whether to scrape the sheet's raw html before using a browser */
+        protected boolean scrapeRawHtml;
+        /** whether to scrape the sheet's carousel pages concurrently */
+        protected boolean prefetchCarousel;
         /** the sheet's title */
         protected String sheetTitle;
         /** the sheet's row index to put the sheet's title */
@@ -138,6 +142,20 @@ public abstract class AbstractSettings implements Settings {
         @Override
         public String getScrapeUrl() { return scrapeUrl; }
         
+        /**
+         * @return {@code true} if the sheet's raw html should be scraped first,
+         *         otherwise {@code false}
+         */
+        @Override
+        public boolean scrapeRawHtml() { return scrapeRawHtml; }
+        
+        /**
+         * @return {@code true} if the sheet's carousel pages should be scraped
+         *         concurrently, otherwise {@code false}
+         */
+        @Override
+        public boolean prefetchCarousel() { return prefetchCarousel; }
+        
         /**
          * @return the sheet's title
          */
@@ -138,6 +138,31 @@ public interface Settings {
          */
         String getScrapeUrl();
         
+        /**
+         * Gets whether the sheet's url should first be scraped by streaming
+         * its raw html, instead of loading it in a browser.
+         * <p>
+         * If the raw html does not hold everything needed, then the sheet's url
+         * is scraped by loading it in a browser anyway.
+         * 
+         * @return {@code true} if the sheet's raw html should be scraped first,
+         *         otherwise {@code false}
+         */
+        boolean scrapeRawHtml();
+        
+        /**
+         * Gets whether the sheet's bookie carousel pages should be scraped
+         * concurrently, each in its own browser, instead of clicking through
+         * them one at a time.
+         * <p>
+         * If a carousel page can't be scraped that way, then the carousel is
+         * clicked through anyway.
+         * 
+         * @return {@code true} if the sheet's carousel pages should be scraped
+         *         concurrently, otherwise {@code false}
+         */
+        boolean prefetchCarousel();
+        
         /**
          * Gets the sheet's title.
          * 
@@ -25,6 +25,8 @@ enum SettingsKey {
     
     /* - individual sheet settings keys - */
     SCRAPE_URL("/scrape_url"), // no default, throw exception if not found
+    SCRAPE_RAW_HTML("/scrape_raw_html", false), // def false means use browser
+    PREFETCH_CAROUSEL("/prefetch_carousel", false), // def false means click through
     SHEET_TITLE("/sheet/title"), // no default
     TITLE_ROW("/sheet/title_row", 0), //
     TITLE_COL("/sheet/title_col", 0), //
@@ -8,8 +8,10 @@ import static com.bookiescrape.app.config.SettingsKey.KEEP_ORDER;
 import static com.bookiescrape.app.config.SettingsKey.LAUNCH_ON_START;
 import static com.bookiescrape.app.config.SettingsKey.OPENER;
 import static com.bookiescrape.app.config.SettingsKey.OPENER_COL;
+import static com.bookiescrape.app.config.SettingsKey.PREFETCH_CAROUSEL;
 import static com.bookiescrape.app.config.SettingsKey.ROWS_SIZETOFIT;
 import static com.bookiescrape.app.config.SettingsKey.SCRAPE_INTERVAL;
+import static com.bookiescrape.app.config.SettingsKey.SCRAPE_RAW_HTML;
 import static com.bookiescrape.app.config.SettingsKey.SCRAPE_URL;
 import static com.bookiescrape.app.config.SettingsKey.SETTINGS_LAST_UPDATE;
 import static com.bookiescrape.app.config.SettingsKey.SHEET_FONT;
@@ -205,6 +207,8 @@ class UserPreferences extends AbstractSettings {
         
         // if no url then default, will be handled later in mediator
         sp.scrapeUrl = getStrSheetPreference(sheetName, SCRAPE_URL);
+        sp.scrapeRawHtml = getBoolSheetPreference(sheetName, SCRAPE_RAW_HTML);
+        sp.prefetchCarousel = getBoolSheetPreference(sheetName, PREFETCH_CAROUSEL);
         
         sp.sheetTitle = getStrSheetPreference(sheetName, SHEET_TITLE);
         sp.titleRow = getIntSheetPreference(sheetName, TITLE_ROW);
@@ -9,8 +9,10 @@ import static com.bookiescrape.app.config.SettingsKey.LAST_SCRAPE;
 import static com.bookiescrape.app.config.SettingsKey.LAUNCH_ON_START;
 import static com.bookiescrape.app.config.SettingsKey.OPENER;
 import static com.bookiescrape.app.config.SettingsKey.OPENER_COL;
+import static com.bookiescrape.app.config.SettingsKey.PREFETCH_CAROUSEL;
 import static com.bookiescrape.app.config.SettingsKey.ROWS_SIZETOFIT;
 import static com.bookiescrape.app.config.SettingsKey.SCRAPE_INTERVAL;
+import static com.bookiescrape.app.config.SettingsKey.SCRAPE_RAW_HTML;
 import static com.bookiescrape.app.config.SettingsKey.SCRAPE_URL;
 import static com.bookiescrape.app.config.SettingsKey.SETTINGS_LAST_UPDATE;
 import static com.bookiescrape.app.config.SettingsKey.SHEET_FONT;
@@ -415,6 +417,8 @@ final class UserProperties extends AbstractSettings {
         
         // if no url then default, will be handled later in mediator
         sp.scrapeUrl = getStrPropOrDefault(sheetName, SCRAPE_URL);
+        sp.scrapeRawHtml = getBoolPropOrDefault(sheetName, SCRAPE_RAW_HTML);
+        sp.prefetchCarousel = getBoolPropOrDefault(sheetName, PREFETCH_CAROUSEL);
         
         sp.sheetTitle = getStrPropOrDefault(sheetName, SHEET_TITLE);
         sp.titleRow = getIntPropOrDefault(sheetName, TITLE_ROW);
@@ -1,12 +1,17 @@
 package com.bookiescrape.app.config;
 
 import static com.bookiescrape.app.config.SettingsKey.EXCEL_FILE_PATH;
+import static com.bookiescrape.app.config.SettingsKey.LAST_SCRAPE;
 import static com.bookiescrape.app.config.SettingsKey.SETTINGS_LAST_UPDATE;
 
 import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map.Entry;
@@ -452,6 +457,53 @@ public final class UserSettings {
         getUserPreferences().putBoolean(key.key(), value);
     }
     
+    /**
+     * Saves the time of the last scrape, right away, without staging it or
+     * applying any staged changes.
+     * <p>
+     * With preferences, the time is flushed to the backing store. With a
+     * properties file, the properties are written to a temporary file that
+     * then replaces the properties file in a single atomic move, so a crash
+     * mid-write never leaves a truncated properties file behind.
+     * 
+     * @param millis
+     *               - when the last scrape started, in milliseconds since the
+     *               epoch
+     * @throws BackingStoreException
+     *                               if the preferences can't be flushed
+     * @throws IOException
+     *                               if the properties file can't be written
+     */
+    public static synchronized void saveLastScrapeTime(long millis) throws BackingStoreException, IOException {
+        if (usingPreferences) {
+            Preferences prefs = getUserPreferences();
+            prefs.putLong(LAST_SCRAPE.key(), millis);
+            prefs.flush();
+            return;
+        }
+        
+        Properties props = getUserProperties();
+        if (props == null) { return; }
+        props.setProperty(LAST_SCRAPE.key(), Long.toString(millis));
+        
+        // the internal default properties file is a resource, it can't be written
+        String curPropsFile = getCurrentPropertiesFilePath();
+        if (curPropsFile == null || curPropsFile.equals(UserProperties.DEFAULT_PROPERTIES_FILE)) { return; }
+        
+        Path target = Paths.get(curPropsFile).toAbsolutePath();
+        // the temporary file must be on the same file store for the move to be atomic
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tmp)) {
+                props.store(writer,
+                    "Created by an automated properties " + "writer, only edit if you know what you're doing.");
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+    
     /**
      * Applies all queued settings changes.
      * <p>
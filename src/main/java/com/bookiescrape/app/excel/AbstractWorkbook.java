@@ -3,10 +3,14 @@ package com.bookiescrape.app.excel;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.Iterator;
 import java.util.Objects;
 
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
@@ -22,9 +26,40 @@ public abstract class AbstractWorkbook implements AutoCloseable {
     protected XSSFWorkbook workbook;
     protected String pathToWorkbook;
     
+    /* false if the workbook is shared, and closed by whoever opened it */
+    private boolean ownsWorkbook = true;
     
+    
+    /**
+     * Opens a workbook that can be saved, see
+     * {@link #AbstractWorkbook(String, boolean)}.
+     *
+     * @param excelFilePath - path to the Excel workbook file
+     * @throws FileNotFoundException if the specified file does not exist
+     * @throws IOException if an I/O error occurs
+     */
     protected AbstractWorkbook(String excelFilePath)
     throws FileNotFoundException, IOException
+    {
+        this(excelFilePath, false);
+    }
+    
+    /**
+     * Opens the Excel workbook at the specified file path.
+     * <p>
+     * A read only workbook is opened directly from its file, and can not be
+     * saved. Otherwise, the workbook is read into memory, so the file is never
+     * written to by Apache POI when the workbook is closed, it's only ever
+     * replaced, atomically, when the workbook is saved.
+     *
+     * @param excelFilePath - path to the Excel workbook file
+     * @param readOnly - {@code true} if the workbook will only be read from
+     * @throws FileNotFoundException if the specified file does not exist
+     * @throws IOException if an I/O error occurs
+     * @see WorkbookSaver
+     */
+    protected AbstractWorkbook(String excelFilePath, boolean readOnly)
+    throws FileNotFoundException, IOException
     {
         Objects.requireNonNull(excelFilePath);
 
@@ -40,7 +75,8 @@ public abstract class AbstractWorkbook implements AutoCloseable {
         }
 
         try {
-            workbook = new XSSFWorkbook(excelFile);
+            workbook = readOnly ? openReadOnly(excelFile)
+                : openInMemory(excelFile);
             pathToWorkbook = excelFilePath;
         } catch (InvalidFormatException ife) {
             ife.printStackTrace();
@@ -48,6 +84,42 @@ public abstract class AbstractWorkbook implements AutoCloseable {
 
     }
     
+    /**
+     * Wraps an already opened workbook, for subclasses that open or create
+     * the underlying workbook themselves.
+     * <p>
+     * The wrapped workbook is not closed by {@link #close()}, it's up to the
+     * caller that opened it to close it.
+     *
+     * @param workbook - the opened workbook
+     * @param excelFilePath - path to the Excel workbook file
+     */
+    protected AbstractWorkbook(XSSFWorkbook workbook, String excelFilePath) {
+        this.workbook = Objects.requireNonNull(workbook);
+        pathToWorkbook = Objects.requireNonNull(excelFilePath);
+        ownsWorkbook = false;
+    }
+    
+    /* opens a read only package, closing it never writes to the file */
+    private static XSSFWorkbook openReadOnly(File excelFile)
+    throws InvalidFormatException, IOException
+    {
+        OPCPackage pkg = OPCPackage.open(excelFile, PackageAccess.READ);
+        try {
+            return new XSSFWorkbook(pkg);
+        } catch (IOException | RuntimeException e) {
+            pkg.revert();
+            throw e;
+        }
+    }
+    
+    /* reads a workbook into memory, so its file isn't held open */
+    private static XSSFWorkbook openInMemory(File excelFile) throws IOException {
+        try (InputStream in = Files.newInputStream(excelFile.toPath())) {
+            return new XSSFWorkbook(in);
+        }
+    }
+    
     /**
      *
      */
@@ -136,7 +208,7 @@ public abstract class AbstractWorkbook implements AutoCloseable {
      */
     @Override
     public void close() throws IOException {
-        workbook.close();
+        if (ownsWorkbook && workbook != null) { workbook.close(); }
         
         // null out workbook to ensure isOpen and throwIfClosed work
         workbook = null;
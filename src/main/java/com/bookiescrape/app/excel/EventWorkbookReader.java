@@ -0,0 +1,591 @@
+package com.bookiescrape.app.excel;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.bookiescrape.app.excel.CellRange.RangeType;
+
+
+/**
+ * Read only Excel workbook reader backed by Apache POI's XSSF event model.
+ * <p>
+ * Unlike {@link WorkbookReader}, this class never builds a DOM of the
+ * workbook. Each range query makes a single SAX pass over only the requested
+ * sheet's part, which stops as soon as the range's last row has been read.
+ * Shared strings are streamed too, and only as far as the largest shared
+ * string index a query has needed.
+ * <p>
+ * Range values are returned as strings, in the same way as
+ * {@code WorkbookReader}, i.e. numbers as {@code Double.toString(double)},
+ * formula cells as their formula, and missing cells as empty strings.
+ * <p>
+ * Open ended ranges end at the last cell of the row, for
+ * {@link RangeType#OPEN_ROW OPEN_ROW} ranges, or at the last row of the sheet,
+ * for {@link RangeType#OPEN_COL OPEN_COL} ranges.
+ *
+ * @author Jonathan Henly
+ * @see WorkbookReader
+ */
+public class EventWorkbookReader implements AutoCloseable {
+    
+    /* private members */
+    private OPCPackage pkg;
+    private XSSFReader xssfReader;
+    private final String pathToWorkbook;
+    
+    /* shared strings read so far, and whether all of them have been read */
+    private final List<String> sharedStrings = new ArrayList<>();
+    private boolean readAllSharedStrings;
+    
+    
+    /* opens an Excel workbook from the passed in file path */
+    EventWorkbookReader(String excelFilePath) throws IOException {
+        Objects.requireNonNull(excelFilePath);
+        
+        File excelFile = new File(excelFilePath);
+        if (!excelFile.exists()) {
+            throw new FileNotFoundException(
+                String.format("the file '%s' does not exist", excelFilePath));
+        }
+        
+        if (excelFile.isDirectory()) {
+            throw new IllegalArgumentException(String.format(
+                "specified Excel file '%s' is a directory", excelFilePath));
+        }
+        
+        try {
+            pkg = OPCPackage.open(excelFile, PackageAccess.READ);
+            xssfReader = new XSSFReader(pkg);
+        } catch (OpenXML4JException oe) {
+            if (pkg != null) { pkg.revert(); }
+            throw new IOException("unable to open Excel workbook '"
+                + excelFilePath + "'", oe);
+        }
+        
+        pathToWorkbook = excelFilePath;
+    }
+    
+    /**
+     * @return the path of the Excel workbook this reader reads from
+     */
+    public String getPath() { return pathToWorkbook; }
+    
+    /**
+     * Checks if the Excel workbook contains a sheet with the specified name.
+     *
+     * @param sheetName - the name of the sheet to query
+     * @return {@code true} if the Excel workbook contains a sheet named
+     *         {@code sheetName}, otherwise {@code false}
+     * @throws IOException if an I/O error occurs
+     * @throws NullPointerException if {@link #close()} has been called on this
+     *         reader
+     */
+    public boolean hasSheet(String sheetName) throws IOException {
+        XSSFReader.SheetIterator it = sheetIterator();
+        while (it.hasNext()) {
+            it.next().close();
+            if (it.getSheetName().equals(sheetName)) { return true; }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Starts a query of the specified range of cells.
+     *
+     * @param range - the range of cells to read
+     * @return a builder used to specify the sheet to read the range from
+     */
+    public RangeReaderBuilder forRange(CellRange range) {
+        return new RangeReaderBuilder(Objects.requireNonNull(range));
+    }
+    
+    /**
+     * Starts a query of the cells in a row, from a starting column index to
+     * the last cell in the row.
+     *
+     * @param row - the index of the row to read
+     * @param start - the column index to start reading from
+     * @return a builder used to specify the sheet to read the range from
+     */
+    public RangeReaderBuilder forOpenRowRange(int row, int start) {
+        return forRange(CellRange.openRowRange(row, start));
+    }
+    
+    /**
+     * Starts a query of the cells in a column, from a starting row index to
+     * the last row in the sheet.
+     *
+     * @param col - the index of the column to read
+     * @param start - the row index to start reading from
+     * @return a builder used to specify the sheet to read the range from
+     */
+    public RangeReaderBuilder forOpenColRange(int col, int start) {
+        return forRange(CellRange.openColRange(col, start));
+    }
+    
+    /**
+     * Builder used to specify which sheet a range is read from.
+     *
+     * @author Jonathan Henly
+     */
+    public class RangeReaderBuilder {
+        private final CellRange range;
+        private String nameOfSheet;
+        
+        private RangeReaderBuilder(CellRange range) { this.range = range; }
+        
+        /**
+         * Specifies the sheet to read the range from.
+         *
+         * @param sheetName - the name of the sheet to read the range from
+         * @return {@code this}, in order to chain builder calls
+         */
+        public RangeReaderBuilder in(String sheetName) {
+            nameOfSheet = Objects.requireNonNull(sheetName);
+            return this;
+        }
+        
+        /**
+         * Reads the values from the range of cells in the specified sheet.
+         *
+         * @return a {@code List<String>} of the cell values read from the
+         *         range, in row major order
+         * @throws IOException if an I/O error occurs
+         * @throws SheetNotFoundException if the workbook does not contain the
+         *         specified sheet
+         * @throws NullPointerException if {@code in(sheetName)} was not called
+         *         or {@link #close()} has been called on this reader
+         */
+        public List<String> read() throws IOException {
+            if (nameOfSheet == null) {
+                throw new NullPointerException(
+                    "sheet is null, you probably forgot to call "
+                        + "'in(sheetName)'");
+            }
+            
+            return readRange(nameOfSheet, range);
+        }
+    }
+    
+    /**
+     * Closes this reader and the underlying workbook file.
+     */
+    @Override
+    public void close() {
+        if (pkg == null) { return; }
+        
+        // opened read only, so there's nothing to save
+        pkg.revert();
+        pkg = null;
+        xssfReader = null;
+    }
+    
+    /**
+     * @return {@code true} if this reader has not been closed, otherwise
+     *         {@code false}
+     */
+    public boolean isOpen() { return pkg != null; }
+    
+    /* finds the sheet's part and makes a single pass over it */
+    private List<String> readRange(String sheetName, CellRange range)
+        throws IOException
+    {
+        XSSFReader.SheetIterator it = sheetIterator();
+        while (it.hasNext()) {
+            try (InputStream in = it.next()) {
+                if (it.getSheetName().equals(sheetName)) {
+                    RangeHandler handler = new RangeHandler(range);
+                    parse(in, handler);
+                    
+                    return resolveSharedStrings(handler);
+                }
+            }
+        }
+        
+        throw new SheetNotFoundException(sheetName);
+    }
+    
+    /* replaces the handler's shared string indexes with their strings */
+    private List<String> resolveSharedStrings(RangeHandler handler)
+        throws IOException
+    {
+        List<String> values = handler.values;
+        if (handler.maxSharedString < 0) { return values; }
+        
+        readSharedStringsUpTo(handler.maxSharedString);
+        
+        for (int i = 0, n = values.size(); i < n; i++) {
+            int index = handler.sharedIndexes.get(i);
+            if (index >= 0) {
+                values.set(i,
+                    (index < sharedStrings.size()) ? sharedStrings.get(index)
+                        : "");
+            }
+        }
+        
+        return values;
+    }
+    
+    /* streams the shared strings part, until it has read the index */
+    private void readSharedStringsUpTo(int index) throws IOException {
+        if (index < sharedStrings.size() || readAllSharedStrings) { return; }
+        
+        sharedStrings.clear();
+        SharedStringsHandler handler =
+            new SharedStringsHandler(sharedStrings, index);
+        
+        try (InputStream in = xssfReader.getSharedStringsData()) {
+            // a workbook without any strings has no shared strings part
+            if (in != null) { parse(in, handler); }
+        } catch (OpenXML4JException oe) {
+            throw new IOException("unable to read shared strings", oe);
+        }
+        
+        readAllSharedStrings = !handler.stopped;
+    }
+    
+    /* helper that throws if closed and gets an iterator over sheet parts */
+    private XSSFReader.SheetIterator sheetIterator() throws IOException {
+        if (!isOpen()) {
+            throw new NullPointerException("workbook is null, you may be"
+                + " trying to use an " + getClass()
+                + " instance method after calling its 'close()' method.");
+        }
+        
+        try {
+            return (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+        } catch (OpenXML4JException oe) {
+            throw new IOException("unable to read workbook sheets", oe);
+        }
+    }
+    
+    /* parses an xml part, a handler can stop parsing early via StopParsing */
+    private static void parse(InputStream in, DefaultHandler handler)
+        throws IOException
+    {
+        try {
+            XMLReader reader = XMLHelper.newXMLReader();
+            reader.setContentHandler(handler);
+            reader.parse(new InputSource(in));
+        } catch (StopParsing done) {
+            // handler has everything it needs
+        } catch (SAXException | ParserConfigurationException e) {
+            throw new IOException("unable to parse Excel workbook part", e);
+        }
+    }
+    
+    /* thrown by handlers to stop parsing the rest of a part */
+    private static final class StopParsing extends SAXException {
+        private static final long serialVersionUID = 1L;
+        
+        StopParsing() { super("stop parsing"); }
+    }
+    
+    /**
+     * SAX handler that collects the values of a range of cells from a sheet
+     * part, in row major order.
+     * <p>
+     * Rows and cells are in ascending order in a sheet part, so missing rows
+     * and cells are filled in with empty strings as they are skipped over.
+     */
+    private static final class RangeHandler extends DefaultHandler {
+        /* range bounds, open ends are Integer.MAX_VALUE */
+        private final int rs, re, cs, ce;
+        private final boolean openRow;
+        
+        /* collected values, and their shared string index or -1 */
+        private final List<String> values = new ArrayList<>();
+        private final List<Integer> sharedIndexes = new ArrayList<>();
+        private int maxSharedString = -1;
+        
+        /* position in the sheet part */
+        private int row = -1;
+        private int col = -1;
+        private boolean rowInRange;
+        private int nextRow;
+        private int nextCol;
+        
+        /* current cell */
+        private String cellType;
+        private final StringBuilder value = new StringBuilder();
+        private final StringBuilder formula = new StringBuilder();
+        private final StringBuilder inline = new StringBuilder();
+        private StringBuilder text;
+        
+        RangeHandler(CellRange range) {
+            RangeType type = range.type();
+            
+            rs = range.rowStart();
+            re = (type == RangeType.OPEN_COL) ? Integer.MAX_VALUE
+                : range.rowEnd();
+            cs = range.colStart();
+            ce = (type == RangeType.OPEN_ROW) ? Integer.MAX_VALUE
+                : range.colEnd();
+            openRow = (type == RangeType.OPEN_ROW);
+            
+            nextRow = rs;
+        }
+        
+        @Override
+        public void startElement(String uri, String localName, String qName,
+            Attributes atts) throws SAXException
+        {
+            switch (localName) {
+                case "row":
+                    String r = atts.getValue("r");
+                    row = (r == null) ? row + 1 : Integer.parseInt(r) - 1;
+                    col = -1;
+                    startRow();
+                    break;
+                
+                case "c":
+                    String ref = atts.getValue("r");
+                    col = (ref == null) ? col + 1
+                        : new CellReference(ref).getCol();
+                    cellType = atts.getValue("t");
+                    value.setLength(0);
+                    formula.setLength(0);
+                    inline.setLength(0);
+                    break;
+                
+                case "v":
+                    text = value;
+                    break;
+                
+                case "f":
+                    text = formula;
+                    break;
+                
+                case "t":
+                    // inline string text, in an <is> element
+                    text = inline;
+                    break;
+                
+                default:
+                    break;
+            }
+        }
+        
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (text != null && rowInRange) { text.append(ch, start, length); }
+        }
+        
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v":
+                case "f":
+                case "t":
+                    text = null;
+                    break;
+                
+                case "c":
+                    if (rowInRange && col >= cs && col <= ce) { endCell(); }
+                    break;
+                
+                case "row":
+                    if (rowInRange) { endRow(); }
+                    break;
+                
+                default:
+                    break;
+            }
+        }
+        
+        @Override
+        public void endDocument() { fillMissingRows(); }
+        
+        /* fills skipped rows, or stops once past the range's last row */
+        private void startRow() throws StopParsing {
+            if (row > re) {
+                fillMissingRows();
+                throw new StopParsing();
+            }
+            
+            rowInRange = (row >= rs);
+            if (!rowInRange) { return; }
+            
+            // an open row range only ever reads its first row
+            if (!openRow) {
+                while (nextRow < row) {
+                    fillRow();
+                    nextRow += 1;
+                }
+            }
+            nextCol = cs;
+        }
+        
+        /* adds the current cell's value, after blanks for skipped cells */
+        private void endCell() {
+            fillTo(col);
+            
+            if ("s".equals(cellType) && formula.length() == 0
+                && value.length() > 0) {
+                int index = Integer.parseInt(value.toString().trim());
+                add(null, index);
+                maxSharedString = Math.max(maxSharedString, index);
+            } else {
+                add(cellValue(), -1);
+            }
+            
+            nextCol = col + 1;
+        }
+        
+        /* pads the current row out to the range's last column */
+        private void endRow() {
+            if (!openRow) { fillTo(ce + 1); }
+            
+            nextRow = row + 1;
+            rowInRange = false;
+        }
+        
+        /* pads rows that are in the range but not in the sheet part */
+        private void fillMissingRows() {
+            if (openRow || re == Integer.MAX_VALUE) { return; }
+            
+            while (nextRow <= re) {
+                fillRow();
+                nextRow += 1;
+            }
+        }
+        
+        /* adds a row of blanks */
+        private void fillRow() {
+            for (int c = cs; c <= ce; c++) {
+                add("", -1);
+            }
+        }
+        
+        /* adds blanks up to, but not including, a column */
+        private void fillTo(int colEnd) {
+            for (; nextCol < colEnd; nextCol++) {
+                add("", -1);
+            }
+        }
+        
+        private void add(String val, int sharedIndex) {
+            values.add(val);
+            sharedIndexes.add(sharedIndex);
+        }
+        
+        /* the current cell's value, as WorkbookReader would read it */
+        private String cellValue() {
+            if (formula.length() > 0) { return formula.toString(); }
+            
+            String v = value.toString();
+            if (cellType == null || cellType.equals("n")) {
+                return v.isEmpty() ? ""
+                    : Double.toString(Double.parseDouble(v));
+            }
+            
+            switch (cellType) {
+                case "inlineStr":
+                    return inline.toString();
+                
+                case "b":
+                    return Boolean.toString(v.equals("1"));
+                
+                case "e":
+                    return "Error Cell: " + FormulaError.forString(v).getCode();
+                
+                default: // "str", or "s" without an index
+                    return v;
+            }
+        }
+    }
+    
+    /**
+     * SAX handler that reads shared strings, in order, until it has read a
+     * specified index.
+     */
+    private static final class SharedStringsHandler extends DefaultHandler {
+        private final List<String> strings;
+        private final int lastIndex;
+        private final StringBuilder item = new StringBuilder();
+        private boolean inText;
+        private boolean inPhonetic;
+        private boolean stopped;
+        
+        SharedStringsHandler(List<String> strings, int lastIndex) {
+            this.strings = strings;
+            this.lastIndex = lastIndex;
+        }
+        
+        @Override
+        public void startElement(String uri, String localName, String qName,
+            Attributes atts)
+        {
+            switch (localName) {
+                case "si":
+                    item.setLength(0);
+                    break;
+                
+                case "rPh":
+                    // phonetic runs aren't part of the string's value
+                    inPhonetic = true;
+                    break;
+                
+                case "t":
+                    inText = !inPhonetic;
+                    break;
+                
+                default:
+                    break;
+            }
+        }
+        
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inText) { item.append(ch, start, length); }
+        }
+        
+        @Override
+        public void endElement(String uri, String localName, String qName)
+            throws SAXException
+        {
+            switch (localName) {
+                case "t":
+                    inText = false;
+                    break;
+                
+                case "rPh":
+                    inPhonetic = false;
+                    break;
+                
+                case "si":
+                    strings.add(item.toString());
+                    if (strings.size() > lastIndex) {
+                        stopped = true;
+                        throw new StopParsing();
+                    }
+                    break;
+                
+                default:
+                    break;
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,265 @@
+package com.bookiescrape.app.excel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.poi.ooxml.POIXMLDocumentPart;
+import org.apache.poi.ooxml.POIXMLDocumentPart.RelationPart;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+
+/**
+ * Commits a workbook's changed sheets to their package parts, serializing
+ * them concurrently, ahead of {@link XSSFWorkbook#write(OutputStream)}.
+ * <p>
+ * Apache POI serializes every sheet of a workbook, one after the other, each
+ * time the workbook is written, whether or not the sheet has changed. Before a
+ * save, this class serializes each changed sheet's XML on its own thread, then
+ * copies the results into the sheets' package parts on the calling thread, as
+ * the package itself is not thread safe, and marks only those sheets as
+ * committed. Every other sheet is left for POI to commit itself, so no sheet
+ * is ever written without having been serialized. The workbook part, shared
+ * strings and styles are also committed by POI itself, as they can change
+ * when any sheet changes.
+ * <p>
+ * Sheets created since the workbook was loaded are always serialized here.
+ * Every sheet must be unmarked with {@link #reset(XSSFWorkbook)} once the
+ * workbook has been written, otherwise later writes would skip them.
+ * <p>
+ * POI does not expose a sheet's serialization, so it's called reflectively.
+ * If it can't be, or a reflective call fails, every sheet is left unmarked
+ * and POI commits them all as usual.
+ *
+ * @author Jonathan Henly
+ */
+final class SheetCommitter {
+    
+    /* XSSFSheet#write(OutputStream), serializes a sheet's XML */
+    private static final Method WRITE =
+        find(XSSFSheet.class, "write", OutputStream.class);
+    /* POIXMLDocumentPart#onSave(Set), commits a part and its child parts */
+    private static final Method ON_SAVE =
+        find(POIXMLDocumentPart.class, "onSave", Set.class);
+    
+    // don't instantiate this class
+    private SheetCommitter() {}
+    
+    /**
+     * Commits the changed sheets of a workbook concurrently, and marks them
+     * as committed.
+     *
+     * @param workbook - the workbook about to be written
+     * @param changedSheets - the names of the sheets that may have changed
+     *        since the workbook was loaded or last written
+     * @return the number of sheets serialized, {@code 0} if they are all left
+     *         for POI to commit
+     * @throws IOException if an I/O error occurs serializing a sheet
+     */
+    static int commitChanged(XSSFWorkbook workbook,
+                             Collection<String> changedSheets)
+        throws IOException
+    {
+        if (WRITE == null || ON_SAVE == null) { return 0; }
+        
+        List<XSSFSheet> changed = new ArrayList<>();
+        for (Sheet s : workbook) {
+            XSSFSheet sheet = (XSSFSheet) s;
+            
+            if (changedSheets.contains(sheet.getSheetName())
+                || !hasContent(sheet.getPackagePart())) {
+                changed.add(sheet);
+            }
+        }
+        
+        try {
+            byte[][] xml = serializeConcurrently(changed);
+            
+            // the package isn't thread safe, so only touch it from this thread
+            Set<PackagePart> saved = new HashSet<>();
+            for (int i = 0; i < xml.length; i++) {
+                commit(changed.get(i), xml[i], saved);
+            }
+        } catch (ReflectiveOperationException roe) {
+            // let POI commit every sheet, including any already committed
+            reset(workbook);
+            return 0;
+        }
+        
+        // only the serialized sheets, POI commits the rest itself
+        for (XSSFSheet sheet : changed) {
+            sheet.setCommitted(true);
+        }
+        
+        return changed.size();
+    }
+    
+    /**
+     * Unmarks every sheet of a workbook, so the next write commits them.
+     *
+     * @param workbook - the workbook that was written
+     */
+    static void reset(XSSFWorkbook workbook) {
+        for (Sheet sheet : workbook) {
+            ((XSSFSheet) sheet).setCommitted(false);
+        }
+    }
+    
+    /* serializes the first sheet on the caller, and the rest on workers */
+    private static byte[][] serializeConcurrently(List<XSSFSheet> sheets)
+        throws IOException, ReflectiveOperationException
+    {
+        byte[][] xml = new byte[sheets.size()][];
+        if (sheets.isEmpty()) { return xml; }
+        
+        int workers = Math.min(sheets.size() - 1,
+            Runtime.getRuntime().availableProcessors() - 1);
+        ExecutorService pool = (workers > 0)
+            ? Executors.newFixedThreadPool(workers, new WorkerFactory())
+            : null;
+        
+        try {
+            List<Future<byte[]>> futures = new ArrayList<>(sheets.size() - 1);
+            for (int i = 1; i < sheets.size(); i++) {
+                XSSFSheet sheet = sheets.get(i);
+                
+                if (pool == null) {
+                    xml[i] = serialize(sheet);
+                } else {
+                    futures.add(pool.submit(() -> serialize(sheet)));
+                }
+            }
+            
+            xml[0] = serialize(sheets.get(0));
+            
+            for (int i = 0; i < futures.size(); i++) {
+                xml[i + 1] = await(futures.get(i));
+            }
+        } finally {
+            if (pool != null) { pool.shutdownNow(); }
+        }
+        
+        return xml;
+    }
+    
+    /* serializes a sheet's XML, only touches the sheet itself */
+    private static byte[] serialize(XSSFSheet sheet)
+        throws IOException, ReflectiveOperationException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 16);
+        invoke(WRITE, sheet, out);
+        
+        return out.toByteArray();
+    }
+    
+    /* replaces a sheet part's content, then commits the sheet's child parts */
+    private static void commit(XSSFSheet sheet, byte[] xml,
+                               Set<PackagePart> saved)
+        throws IOException, ReflectiveOperationException
+    {
+        PackagePart part = sheet.getPackagePart();
+        part.clear();
+        try (OutputStream out = part.getOutputStream()) {
+            out.write(xml);
+        }
+        saved.add(part);
+        
+        // i.e. comments and drawings, which POI commits along with the sheet
+        for (RelationPart rp : sheet.getRelationParts()) {
+            POIXMLDocumentPart child = rp.getDocumentPart();
+            
+            if (!saved.contains(child.getPackagePart())) {
+                invoke(ON_SAVE, child, saved);
+            }
+        }
+    }
+    
+    /* invokes a reflected method, rethrowing what it threw, reflective
+     * failures are thrown as ReflectiveOperationExceptions */
+    private static void invoke(Method method, Object target, Object arg)
+        throws IOException, ReflectiveOperationException
+    {
+        try {
+            method.invoke(target, arg);
+        } catch (InvocationTargetException ite) {
+            Throwable cause = ite.getCause();
+            if (cause instanceof IOException) { throw (IOException) cause; }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } catch (IllegalArgumentException | SecurityException e) {
+            throw new ReflectiveOperationException(e);
+        }
+    }
+    
+    /* waits for a sheet's serialization, rethrowing what it threw */
+    private static byte[] await(Future<byte[]> future)
+        throws IOException, ReflectiveOperationException
+    {
+        try {
+            return future.get();
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof IOException) { throw (IOException) cause; }
+            if (cause instanceof ReflectiveOperationException) {
+                throw (ReflectiveOperationException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                "interrupted serializing sheets");
+        }
+    }
+    
+    /* whether a part was loaded with, or has been committed, content */
+    private static boolean hasContent(PackagePart part) {
+        // the size of a part still in the loaded zip is -1, i.e. unknown
+        return part != null && part.getSize() != 0;
+    }
+    
+    /* looks up a non public POI method, null if it isn't accessible */
+    private static Method find(Class<?> type, String name, Class<?> param) {
+        try {
+            Method method = type.getDeclaredMethod(name, param);
+            method.setAccessible(true);
+            return method;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+    
+    /* names worker threads and makes sure they don't keep the JVM alive */
+    private static class WorkerFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "sheet-commit-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+    
+}
@@ -0,0 +1,162 @@
+package com.bookiescrape.app.excel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Objects;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+
+/**
+ * A {@link WorkbookWriter} that streams rows to disk, via Apache POI's
+ * {@link SXSSFWorkbook}, instead of keeping every written row in memory.
+ * <p>
+ * Only the last {@code rowWindow} rows written to each sheet are kept in
+ * memory, older rows are flushed to a temporary file and written out when the
+ * workbook is saved. This keeps the heap flat no matter how many rows are
+ * written, which makes this writer suited to append heavy sheets, like odds
+ * history sheets, that are written top to bottom.
+ * <p>
+ * Ranges are written with the same builder API as {@code WorkbookWriter},
+ * i.e. {@code forRange(range).in(sheetName).write(data)}, with the following
+ * differences:
+ * <ul>
+ * <li>a sheet that does not exist is created by {@code in(sheetName)}</li>
+ * <li>rows that have been flushed can no longer be written to, doing so
+ * throws an {@code IllegalArgumentException}, so ranges should be written in
+ * row order</li>
+ * <li>columns can not be auto sized, as that requires every row</li>
+ * </ul>
+ * <p>
+ * If the workbook file already exists it is used as a template, its rows are
+ * kept and new rows can be appended after each sheet's last row. The template
+ * itself is loaded into memory, so for the flattest heap start a new file.
+ *
+ * @author Jonathan Henly
+ */
+public class StreamingWorkbookWriter extends WorkbookWriter {
+    /** The default number of rows, per sheet, kept in memory. */
+    public static final int DEFAULT_ROW_WINDOW =
+        SXSSFWorkbook.DEFAULT_WINDOW_SIZE;
+    
+    /* private members */
+    private SXSSFWorkbook streaming;
+    
+    
+    /* opens or creates a streaming workbook at the passed in file path */
+    StreamingWorkbookWriter(String excelFilePath, int rowWindow)
+    throws IOException
+    {
+        this(openTemplate(excelFilePath), excelFilePath, rowWindow);
+    }
+    
+    /* wraps the template in a streaming workbook */
+    private StreamingWorkbookWriter(XSSFWorkbook template, String excelFilePath,
+                                    int rowWindow)
+    {
+        super(template, excelFilePath);
+        
+        if (rowWindow < 1) {
+            throw new IllegalArgumentException(
+                "row window must be greater than zero, but was " + rowWindow);
+        }
+        
+        streaming = new SXSSFWorkbook(template, rowWindow);
+        streaming.setCompressTempFiles(true);
+    }
+    
+    /* loads an existing workbook file, or creates an empty workbook */
+    private static XSSFWorkbook openTemplate(String excelFilePath)
+    throws IOException
+    {
+        Objects.requireNonNull(excelFilePath);
+        
+        File excelFile = new File(excelFilePath);
+        if (excelFile.isDirectory()) {
+            throw new IllegalArgumentException(String.format(
+                "specified Excel file '%s' is a directory", excelFilePath));
+        }
+        
+        if (!excelFile.exists()) { return new XSSFWorkbook(); }
+        
+        // read through a stream so the file isn't held open while saving
+        try (InputStream in = Files.newInputStream(excelFile.toPath())) {
+            return new XSSFWorkbook(in);
+        }
+    }
+    
+    /**
+     * Atomically writes the streamed workbook, including every flushed row,
+     * to the specified file.
+     * <p>
+     * <b>Note:</b> streamed workbooks are always saved with the default
+     * compression level.
+     *
+     * @param fileName - path of the file to write the workbook to
+     * @return the number of bytes written and how long the save took
+     * @throws IOException if an I/O error occurs, in which case the file is
+     *         left untouched
+     */
+    @Override
+    public WorkbookSaver.SaveStats saveChangesToWorkbook(String fileName)
+        throws IOException
+    {
+        throwIfClosed(); // throw NPE if close() has been called
+        
+        return WorkbookSaver.save(streaming, Paths.get(fileName));
+    }
+    
+    /**
+     * Always throws, auto sizing columns requires every row of a sheet to be
+     * in memory.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void autoSizeColumns(String sheetName, int lastColumnIndex) {
+        throw new UnsupportedOperationException(
+            "a streaming workbook writer can not auto size columns");
+    }
+    
+    /**
+     * Gets the streaming sheet with the specified name, creating it if the
+     * workbook does not contain it.
+     *
+     * @param sheetName - the name of the workbook sheet to retrieve
+     * @return the streaming sheet with the specified name
+     * @throws NullPointerException if {@link #close()} has been called on this
+     *         workbook
+     */
+    @Override
+    protected Sheet getSheetFromWorkbook(String sheetName) {
+        throwIfClosed(); // throw NPE if close() has been called
+        
+        Sheet sheet = streaming.getSheet(sheetName);
+        return (sheet != null) ? sheet : streaming.createSheet(sheetName);
+    }
+    
+    /**
+     * Closes this writer and deletes the temporary files holding its flushed
+     * rows, rows that have not been saved are lost.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        if (streaming == null) { return; }
+        
+        try {
+            streaming.dispose();
+            streaming.close(); // also closes the template workbook
+        } finally {
+            streaming = null;
+            workbook = null;
+        }
+    }
+    
+}
@@ -0,0 +1,219 @@
+package com.bookiescrape.app.excel;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFDataFormat;
+import org.apache.poi.xssf.usermodel.XSSFFont;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+
+/**
+ * Workbook scoped cache of the cell styles and fonts handed out to
+ * {@link WorkbookWriter.RangeWriterBuilder}s.
+ * <p>
+ * Every cell style and font created in a workbook adds a record to the
+ * workbook's {@code styles.xml}, and Excel limits how many cell styles a
+ * workbook can hold. This cache makes sure each distinct combination of font
+ * name, font size, bold, italic, alignment and data format is only ever
+ * created once, no matter how many ranges, or sheets, are written with it.
+ * <p>
+ * On a cache miss, the workbook's existing fonts and cell styles are searched
+ * for a match before a new one is created, so reopening and rewriting a
+ * workbook does not add a new set of styles each time.
+ *
+ * @author Jonathan Henly
+ */
+final class StyleCache {
+    
+    /**
+     * The attributes a {@code RangeWriterBuilder} can specify, used as the key
+     * of a cached cell style.
+     */
+    static final class Key {
+        private final String fontName;
+        private final short fontSize;
+        private final boolean bold;
+        private final boolean italic;
+        private final HorizontalAlignment hAlign;
+        private final VerticalAlignment vAlign;
+        private final String format;
+        
+        /**
+         * @param fontName - the name of the font
+         * @param fontSize - the font size, in points
+         * @param bold - whether the font is bold
+         * @param italic - whether the font is italic
+         * @param hAlign - the horizontal alignment
+         * @param vAlign - the vertical alignment
+         * @param format - the data format, i.e. {@code "General"},
+         *        {@code "0.00"}, etc.
+         */
+        Key(String fontName, int fontSize, boolean bold, boolean italic,
+            HorizontalAlignment hAlign, VerticalAlignment vAlign, String format)
+        {
+            this.fontName = Objects.requireNonNull(fontName);
+            this.fontSize = (short) fontSize;
+            this.bold = bold;
+            this.italic = italic;
+            this.hAlign = Objects.requireNonNull(hAlign);
+            this.vAlign = Objects.requireNonNull(vAlign);
+            this.format = Objects.requireNonNull(format);
+        }
+        
+        /* the part of this key that identifies a font */
+        private FontKey fontKey() {
+            return new FontKey(fontName, fontSize, bold, italic);
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) { return true; }
+            if (!(obj instanceof Key)) { return false; }
+            
+            Key o = (Key) obj;
+            return fontSize == o.fontSize && bold == o.bold
+                && italic == o.italic && hAlign == o.hAlign
+                && vAlign == o.vAlign && fontName.equals(o.fontName)
+                && format.equals(o.format);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(fontName, fontSize, bold, italic, hAlign,
+                vAlign, format);
+        }
+    }
+    
+    /* the font attributes of a key */
+    private static final class FontKey {
+        private final String name;
+        private final short size;
+        private final boolean bold;
+        private final boolean italic;
+        
+        FontKey(String name, short size, boolean bold, boolean italic) {
+            this.name = name;
+            this.size = size;
+            this.bold = bold;
+            this.italic = italic;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) { return true; }
+            if (!(obj instanceof FontKey)) { return false; }
+            
+            FontKey o = (FontKey) obj;
+            return size == o.size && bold == o.bold && italic == o.italic
+                && name.equals(o.name);
+        }
+        
+        @Override
+        public int hashCode() { return Objects.hash(name, size, bold, italic); }
+    }
+    
+    /* private members */
+    private final XSSFWorkbook workbook;
+    private final XSSFDataFormat dataFormat;
+    private final Map<Key, XSSFCellStyle> styles = new HashMap<>();
+    private final Map<FontKey, XSSFFont> fonts = new HashMap<>();
+    
+    
+    /**
+     * @param workbook - the workbook to create cell styles and fonts in
+     */
+    StyleCache(XSSFWorkbook workbook) {
+        this.workbook = Objects.requireNonNull(workbook);
+        dataFormat = workbook.createDataFormat();
+    }
+    
+    /**
+     * Gets the cell style with the attributes of the specified key, creating
+     * it only if neither this cache nor the workbook already has one.
+     *
+     * @param key - the attributes of the cell style to get
+     * @return a cell style shared by every caller using an equal key
+     */
+    XSSFCellStyle get(Key key) {
+        XSSFCellStyle style = styles.get(key);
+        if (style == null) {
+            style = findOrCreateStyle(key, font(key.fontKey()));
+            styles.put(key, style);
+        }
+        
+        return style;
+    }
+    
+    /**
+     * @return the number of distinct cell styles handed out by this cache
+     */
+    int size() { return styles.size(); }
+    
+    /* gets a cached font, or finds or creates one in the workbook */
+    private XSSFFont font(FontKey key) {
+        XSSFFont font = fonts.get(key);
+        if (font != null) { return font; }
+        
+        font = workbook.findFont(key.bold, XSSFFont.DEFAULT_FONT_COLOR,
+            (short) (key.size * Font.TWIPS_PER_POINT), key.name, key.italic,
+            false, Font.SS_NONE, Font.U_NONE);
+        
+        if (font == null) {
+            font = workbook.createFont();
+            font.setFontName(key.name);
+            font.setFontHeightInPoints(key.size);
+            font.setColor(Font.COLOR_NORMAL);
+            font.setBold(key.bold);
+            font.setItalic(key.italic);
+            font.setUnderline(Font.U_NONE);
+            font.setTypeOffset(Font.SS_NONE);
+            font.setStrikeout(false);
+        }
+        
+        fonts.put(key, font);
+        return font;
+    }
+    
+    /* searches the workbook for a plain cell style matching key and font */
+    private XSSFCellStyle findOrCreateStyle(Key key, XSSFFont font) {
+        short format = dataFormat.getFormat(key.format);
+        
+        for (int i = 0, n = workbook.getNumCellStyles(); i < n; i++) {
+            XSSFCellStyle s = workbook.getCellStyleAt(i);
+            
+            if (s.getFontIndex() == font.getIndex()
+                && s.getAlignment() == key.hAlign
+                && s.getVerticalAlignment() == key.vAlign
+                && s.getDataFormat() == format && isPlain(s)) {
+                return s;
+            }
+        }
+        
+        XSSFCellStyle style = workbook.createCellStyle();
+        style.setFont(font);
+        style.setAlignment(key.hAlign);
+        style.setVerticalAlignment(key.vAlign);
+        style.setDataFormat(format);
+        
+        return style;
+    }
+    
+    /* whether a style has nothing set that a range writer can't specify */
+    private static boolean isPlain(XSSFCellStyle s) {
+        return s.getFillPattern() == FillPatternType.NO_FILL
+            && s.getBorderTop() == BorderStyle.NONE
+            && s.getBorderBottom() == BorderStyle.NONE
+            && s.getBorderLeft() == BorderStyle.NONE
+            && s.getBorderRight() == BorderStyle.NONE && !s.getWrapText()
+            && s.getIndention() == 0 && s.getRotation() == 0;
+    }
+    
+}
@@ -37,6 +37,37 @@ public final class WorkbookFactory {
         return new WorkbookReader(workbookFilePath);
     }
     
+    /**
+     * Opens a read only, event based, Excel workbook reader with the specified
+     * workbook file path.
+     * <p>
+     * Unlike {@link #newWorkbookReader(String)}, the workbook is not loaded
+     * into memory, only the parts of the workbook needed to answer range
+     * queries are read.
+     *
+     * @param workbookFilePath - path to the Excel file
+     * @return a new event based Excel workbook reader instance
+     * @throws IOException if an I/O error occurs
+     * @throws FileNotFoundException if the specified file path does not exist
+     */
+    public static EventWorkbookReader newEventWorkbookReader(String workbookFilePath) throws IOException, FileNotFoundException {
+        return new EventWorkbookReader(workbookFilePath);
+    }
+    
+    /**
+     * Opens a session with the Excel workbook at the specified file path, that
+     * serves reads and writes for every sheet and commits them all at once.
+     *
+     * @param workbookFilePath - path to the Excel workbook file
+     * @return a new workbook session, the workbook itself is opened on first
+     *         use
+     * @throws FileNotFoundException if the specified file path does not exist
+     * @see WorkbookSession
+     */
+    public static WorkbookSession openWorkbookSession(String workbookFilePath) throws FileNotFoundException {
+        return new WorkbookSession(workbookFilePath);
+    }
+    
     /**
      * Opens an Excel workbook writer with the specified file path.
      *
@@ -48,6 +79,38 @@ public final class WorkbookFactory {
         return new WorkbookWriter(workbookFilePath);
     }
     
+    /**
+     * Opens a streaming Excel workbook writer with the specified file path,
+     * keeping the default number of rows per sheet in memory.
+     * <p>
+     * The file does not have to exist, it's created when the writer is saved.
+     *
+     * @param workbookFilePath - path to the Excel workbook file
+     * @return a new streaming Excel workbook writer instance
+     * @throws IOException if an I/O error occurs
+     * @see StreamingWorkbookWriter#DEFAULT_ROW_WINDOW
+     */
+    public static StreamingWorkbookWriter newStreamingWorkbookWriter(String workbookFilePath) throws IOException {
+        return newStreamingWorkbookWriter(workbookFilePath, StreamingWorkbookWriter.DEFAULT_ROW_WINDOW);
+    }
+    
+    /**
+     * Opens a streaming Excel workbook writer with the specified file path,
+     * keeping, at most, {@code rowWindow} rows per sheet in memory.
+     * <p>
+     * The file does not have to exist, it's created when the writer is saved.
+     *
+     * @param workbookFilePath - path to the Excel workbook file
+     * @param rowWindow - the number of rows, per sheet, to keep in memory
+     * @return a new streaming Excel workbook writer instance
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if {@code rowWindow} is less than one
+     */
+    public static StreamingWorkbookWriter newStreamingWorkbookWriter(String workbookFilePath, int rowWindow)
+        throws IOException {
+        return new StreamingWorkbookWriter(workbookFilePath, rowWindow);
+    }
+    
     /**
      * Creates a new Excel file at the specified file path and opens an Excel
      * workbook writer with the newly created workbook.
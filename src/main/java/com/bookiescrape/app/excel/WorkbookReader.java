@@ -3,7 +3,6 @@ package com.bookiescrape.app.excel;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.List;
 
 import org.apache.poi.ss.usermodel.Cell;
@@ -12,6 +11,8 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
+import com.bookiescrape.app.excel.CellRange.RangeType;
+
 
 /**
  * Wrapper class for Apache POI's {@link XSSFWorkbook} class.
@@ -26,7 +27,12 @@ public class WorkbookReader extends AbstractWorkbook implements AutoCloseable {
     
     /* opens an Excel workbook from the passed in file path */
     WorkbookReader(String excelFilePath) throws IOException {
-        super(excelFilePath);
+        super(excelFilePath, true);
+    }
+    
+    /* wraps an already opened workbook, used by WorkbookSession */
+    WorkbookReader(XSSFWorkbook workbook, String excelFilePath) {
+        super(workbook, excelFilePath);
     }
     
     
@@ -162,6 +168,60 @@ public class WorkbookReader extends AbstractWorkbook implements AutoCloseable {
          * @return a {@code List<String>} of the cell values read from the range
          */
         public List<String> read() {
+            throwNPEIfSheetOrNameOfSheetAreNull();
+            
+            return (new RangeReader(this)).readRange();
+        }
+        
+        /**
+         * Reads the numeric values from a range of cells in a specified sheet
+         * in this workbook, without converting them to strings.
+         * <p>
+         * Blank, missing and non-numeric cells are read as {@code NaN}, and
+         * formula cells are read as their cached numeric result.
+         *
+         * @return the values read from the range, in row major order
+         */
+        public double[] readDoubles() {
+            throwNPEIfSheetOrNameOfSheetAreNull();
+            
+            return (new RangeReader(this)).readDoubles();
+        }
+        
+        /**
+         * Reads the numeric values from a range of cells in a specified sheet
+         * in this workbook, as integers, without converting them to strings.
+         * <p>
+         * Numeric values are truncated towards zero. Blank, missing and
+         * non-numeric cells are read as {@code missing}.
+         *
+         * @param missing - the value to read from cells that are not numeric
+         * @return the values read from the range, in row major order
+         */
+        public int[] readInts(int missing) {
+            throwNPEIfSheetOrNameOfSheetAreNull();
+            
+            return (new RangeReader(this)).readInts(missing);
+        }
+        
+        /**
+         * Reads the numeric values from a range of cells in a specified sheet
+         * in this workbook into a block, {@code block[r][c]} holds the value
+         * of the range's {@code r}th row and {@code c}th column.
+         * <p>
+         * Blank, missing and non-numeric cells are read as {@code NaN}, like
+         * {@link #readDoubles()}.
+         *
+         * @return a block with one array per row in the range
+         */
+        public double[][] readDoubleBlock() {
+            throwNPEIfSheetOrNameOfSheetAreNull();
+            
+            return (new RangeReader(this)).readDoubleBlock();
+        }
+        
+        /* helper that checks for null in sheet or sheetName */
+        private void throwNPEIfSheetOrNameOfSheetAreNull() {
             if (sheet == null) {
                 if (nameOfSheet == null) {
                     throw new NullPointerException(
@@ -173,7 +233,6 @@ public class WorkbookReader extends AbstractWorkbook implements AutoCloseable {
                             + "'");
                 }
             }
-            return (new RangeReader(this)).readRange();
         }
         
     }
@@ -247,9 +306,10 @@ public class WorkbookReader extends AbstractWorkbook implements AutoCloseable {
             List<String> list = new ArrayList<>();
             
             Row rs = sheet.getRow(range.rowStart());
+            // getLastCellNum() is one past the index of the last cell
             int end = rs.getLastCellNum();
             
-            for (int c = range.colStart(); c <= end; c++) {
+            for (int c = range.colStart(); c < end; c++) {
                 Cell cell = rs.getCell(c);
                 list.add(getCellValueAsString(cell));
             }
@@ -276,15 +336,12 @@ public class WorkbookReader extends AbstractWorkbook implements AutoCloseable {
             List<String> list = new ArrayList<>();
             
             int column = range.colStart();
-            Iterator<Row> ri = sheet.iterator();
-            // iterate to starting row
-            for (int count = 0; count < range.rowStart(); count++) {
-                ri.next();
-            }
-            // read column from each row, until no more rows
-            while (ri.hasNext()) {
-                Row cur = ri.next();
-                list.add(cur.getCell(column).getStringCellValue());
+            // index rows directly, missing rows are read as empty strings
+            for (int r = range.rowStart(), n = sheet.getLastRowNum(); r <= n;
+                r++) {
+                Row cur = sheet.getRow(r);
+                Cell cell = (cur == null) ? null : cur.getCell(column);
+                list.add(getCellValueAsString(cell));
             }
             
             return list;
@@ -307,6 +364,110 @@ public class WorkbookReader extends AbstractWorkbook implements AutoCloseable {
             return list;
         }
         
+        /* reads a range's numbers in row major order, NaN where missing */
+        protected double[] readDoubles() {
+            int rows = numRows();
+            int cols = numCols();
+            double[] values = new double[Math.max(0, rows * cols)];
+            
+            for (int r = 0; r < rows; r++) {
+                readRowInto(sheet.getRow(range.rowStart() + r), values,
+                    r * cols, cols);
+            }
+            
+            return values;
+        }
+        
+        /* reads a range's numbers in row major order, missing where missing */
+        protected int[] readInts(int missing) {
+            int rows = numRows();
+            int cols = numCols();
+            int[] values = new int[Math.max(0, rows * cols)];
+            int colStart = range.colStart();
+            
+            for (int r = 0; r < rows; r++) {
+                Row row = sheet.getRow(range.rowStart() + r);
+                
+                for (int c = 0; c < cols; c++) {
+                    double d = (row == null) ? Double.NaN
+                        : getCellValueAsDouble(row.getCell(colStart + c));
+                    values[r * cols + c] = Double.isNaN(d) ? missing : (int) d;
+                }
+            }
+            
+            return values;
+        }
+        
+        /* reads a range's numbers into one array per row, NaN where missing */
+        protected double[][] readDoubleBlock() {
+            int rows = numRows();
+            int cols = Math.max(0, numCols());
+            double[][] block = new double[Math.max(0, rows)][cols];
+            
+            for (int r = 0; r < rows; r++) {
+                readRowInto(sheet.getRow(range.rowStart() + r), block[r], 0,
+                    cols);
+            }
+            
+            return block;
+        }
+        
+        /* reads cols cells of a row, from colStart, into values at offset */
+        private void readRowInto(Row row, double[] values, int offset,
+                                 int cols)
+        {
+            if (row == null) {
+                Arrays.fill(values, offset, offset + cols, Double.NaN);
+                return;
+            }
+            
+            int colStart = range.colStart();
+            for (int c = 0; c < cols; c++) {
+                Cell cell = row.getCell(colStart + c);
+                values[offset + c] = getCellValueAsDouble(cell);
+            }
+        }
+        
+        /* the number of rows in the range, resolving open ended ranges */
+        private int numRows() {
+            if (range.type() == RangeType.OPEN_COL) {
+                return sheet.getLastRowNum() - range.rowStart() + 1;
+            }
+            
+            return range.numRows();
+        }
+        
+        /* the number of cols in the range, resolving open ended ranges */
+        private int numCols() {
+            if (range.type() == RangeType.OPEN_ROW) {
+                Row row = sheet.getRow(range.rowStart());
+                // getLastCellNum() is one past the index of the last cell
+                return (row == null) ? 0
+                    : row.getLastCellNum() - range.colStart();
+            }
+            
+            return range.numCols();
+        }
+        
+        /* helper method for typed read* methods, NaN if not a number */
+        private double getCellValueAsDouble(Cell cell) {
+            if (cell == null) { return Double.NaN; }
+            
+            switch (cell.getCellType()) {
+                case NUMERIC:
+                    return cell.getNumericCellValue();
+                
+                case FORMULA:
+                    CellType cached = cell.getCachedFormulaResultType();
+                    return (cached == CellType.NUMERIC)
+                        ? cell.getNumericCellValue()
+                        : Double.NaN;
+                
+                default:
+                    return Double.NaN;
+            }
+        }
+        
         /* helper method for read* methods */
         private String getCellValueAsString(Cell cell) {
             if (cell == null) { return ""; }
@@ -332,7 +493,7 @@ public class WorkbookReader extends AbstractWorkbook implements AutoCloseable {
                 case ERROR:
                     byte error = cell.getErrorCellValue();
                     return "Error Cell: " + error;
-                    
+                
                 // only time we reach here is when cell is _NONE, which is only
                 // used internally by POI
                 default:
@@ -360,8 +521,8 @@ public class WorkbookReader extends AbstractWorkbook implements AutoCloseable {
         return forRange(CellRange.openRowRange(row, start));
     }
     
-    public RangeReaderBuilder forOpenColRange(int row, int start) {
-        return forRange(CellRange.openRowRange(row, start));
+    public RangeReaderBuilder forOpenColRange(int col, int start) {
+        return forRange(CellRange.openColRange(col, start));
     }
     
     
@@ -0,0 +1,239 @@
+package com.bookiescrape.app.excel;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.zip.Deflater;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+
+/**
+ * Saves workbooks to disk atomically, so a crash or a failed write never
+ * leaves a corrupt workbook file behind.
+ * <p>
+ * A workbook is first written, through a large buffer, to a temporary file
+ * next to the target file. The temporary file is then forced to disk and
+ * atomically moved over the target file. Until the move, the target file is
+ * untouched, and after the move it holds the complete new workbook.
+ * <p>
+ * The zip entries of an {@link XSSFWorkbook} can also be written with a
+ * faster, or no, compression level, see {@link Compression}. And when only
+ * some sheets of a loaded {@code XSSFWorkbook} have changed, see
+ * {@link #save(XSSFWorkbook, Path, Compression, Collection)}, the changed
+ * sheets are serialized concurrently, ahead of the rest.
+ *
+ * @author Jonathan Henly
+ */
+public final class WorkbookSaver {
+    
+    /**
+     * The deflate level used for the zip entries of a saved workbook.
+     * <p>
+     * Only {@code XSSFWorkbook}s honor this setting, streaming workbooks are
+     * always saved with the default level.
+     *
+     * @author Jonathan Henly
+     */
+    public enum Compression {
+        /** Apache POI's default deflate level, the smallest files. */
+        DEFAULT(Deflater.DEFAULT_COMPRESSION),
+        /** The fastest deflate level, slightly larger files. */
+        FAST(Deflater.BEST_SPEED),
+        /** Entries are stored without compression, the fastest save. */
+        NONE(Deflater.NO_COMPRESSION);
+        
+        private final int level;
+        
+        Compression(int level) { this.level = level; }
+    }
+    
+    /**
+     * The outcome of saving a workbook.
+     *
+     * @author Jonathan Henly
+     */
+    public static final class SaveStats {
+        private final Path path;
+        private final long bytesWritten;
+        private final long durationNanos;
+        
+        SaveStats(Path path, long bytesWritten, long durationNanos) {
+            this.path = path;
+            this.bytesWritten = bytesWritten;
+            this.durationNanos = durationNanos;
+        }
+        
+        /** @return the path the workbook was saved to */
+        public Path path() { return path; }
+        
+        /** @return the size of the saved workbook file, in bytes */
+        public long bytesWritten() { return bytesWritten; }
+        
+        /** @return how long the save took, in milliseconds */
+        public long durationMillis() { return durationNanos / 1_000_000L; }
+        
+        /* used by sessions, to sum the time spent saving */
+        long durationNanos() { return durationNanos; }
+        
+        @Override
+        public String toString() {
+            return String.format("saved %d bytes to '%s' in %d ms",
+                bytesWritten, path, durationMillis());
+        }
+    }
+    
+    /* workbooks are hundreds of KB to tens of MB, so use a large buffer */
+    private static final int BUFFER_SIZE = 1 << 20;
+    
+    // don't instantiate this class
+    private WorkbookSaver() {}
+    
+    /**
+     * Atomically saves a workbook to the specified file, using the default
+     * compression level.
+     *
+     * @param workbook - the workbook to save
+     * @param target - the file to save the workbook to
+     * @return the number of bytes written and how long the save took
+     * @throws IOException if an I/O error occurs, in which case the target
+     *         file is left untouched
+     */
+    public static SaveStats save(Workbook workbook, Path target)
+        throws IOException
+    {
+        return save(workbook, target, Compression.DEFAULT);
+    }
+    
+    /**
+     * Atomically saves a workbook to the specified file.
+     *
+     * @param workbook - the workbook to save
+     * @param target - the file to save the workbook to
+     * @param compression - the deflate level of the workbook's zip entries
+     * @return the number of bytes written and how long the save took
+     * @throws IOException if an I/O error occurs, in which case the target
+     *         file is left untouched
+     */
+    public static SaveStats save(Workbook workbook, Path target,
+                                 Compression compression)
+        throws IOException
+    {
+        Objects.requireNonNull(workbook);
+        Objects.requireNonNull(compression);
+        
+        long start = System.nanoTime();
+        Path file = target.toAbsolutePath();
+        Path dir = file.getParent();
+        
+        // temp file in the same directory, so it can be atomically moved
+        Path tmp = Files.createTempFile(dir, "." + file.getFileName(), ".tmp");
+        try {
+            long bytes = writeAndForce(workbook, tmp, compression);
+            moveAtomically(tmp, file);
+            forceDirectory(dir);
+            
+            return new SaveStats(file, bytes, System.nanoTime() - start);
+        } finally {
+            // only still exists if something went wrong
+            Files.deleteIfExists(tmp);
+        }
+    }
+    
+    /**
+     * Atomically saves a workbook, serializing the sheets that have changed
+     * since it was loaded or last saved concurrently, ahead of the rest.
+     * <p>
+     * The changed sheets, and sheets created since the workbook was loaded,
+     * are serialized concurrently, one per thread, before the workbook is
+     * written. Every other sheet is still serialized by the write itself, one
+     * after the other, as usual, so a sheet that changed without being named
+     * in {@code changedSheets} still has its changes saved. No sheet is
+     * skipped, this only moves the changed sheets' serialization off the
+     * writing thread.
+     *
+     * @param workbook - the workbook to save
+     * @param target - the file to save the workbook to
+     * @param compression - the deflate level of the workbook's zip entries
+     * @param changedSheets - the names of every sheet that may have changed
+     * @return the number of bytes written and how long the save took
+     * @throws IOException if an I/O error occurs, in which case the target
+     *         file is left untouched
+     */
+    public static SaveStats save(XSSFWorkbook workbook, Path target,
+                                 Compression compression,
+                                 Collection<String> changedSheets)
+        throws IOException
+    {
+        Objects.requireNonNull(changedSheets);
+        
+        try {
+            SheetCommitter.commitChanged(workbook, changedSheets);
+            return save(workbook, target, compression);
+        } finally {
+            // let the next save decide afresh which sheets to serialize
+            SheetCommitter.reset(workbook);
+        }
+    }
+    
+    /* writes the workbook to a file and forces it to disk */
+    private static long writeAndForce(Workbook workbook, Path tmp,
+                                      Compression compression)
+        throws IOException
+    {
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            OutputStream out = new BufferedOutputStream(
+                Channels.newOutputStream(ch), BUFFER_SIZE);
+            
+            if (compression != Compression.DEFAULT
+                && workbook instanceof XSSFWorkbook) {
+                // POI writes into a zip stream it's handed, instead of its own
+                ZipArchiveOutputStream zos = new ZipArchiveOutputStream(out);
+                zos.setLevel(compression.level);
+                workbook.write(zos);
+                zos.flush();
+            } else {
+                workbook.write(out);
+                out.flush();
+            }
+            
+            ch.force(true);
+            return ch.size();
+        }
+    }
+    
+    /* moves source over target, atomically if the file system allows it */
+    private static void moveAtomically(Path source, Path target)
+        throws IOException
+    {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException anse) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    /* forces a directory's entries to disk, so the move survives a crash */
+    private static void forceDirectory(Path dir) {
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException ioe) {
+            // not every platform can open a directory, the move still happened
+        }
+    }
+    
+}
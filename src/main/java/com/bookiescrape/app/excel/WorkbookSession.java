@@ -0,0 +1,277 @@
+package com.bookiescrape.app.excel;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+
+/**
+ * A single run's session with an Excel workbook, that serves reads and writes
+ * for every sheet and commits every change at once.
+ * <p>
+ * The workbook is opened lazily and at most once per kind of access. Range
+ * reads made before anything is written are served by an
+ * {@link EventWorkbookReader}, so a session that only reads never loads the
+ * workbook into memory. The first call to {@link #writer()} loads the workbook
+ * once, and from then on every read and write, for every sheet, goes through
+ * that one workbook, so reads see uncommitted writes.
+ * <p>
+ * Changes are only written to the workbook file by {@link #commit()}, closing
+ * a session without committing discards them. The time spent opening and
+ * saving the workbook is recorded, see {@link #openMillis()} and
+ * {@link #saveMillis()}.
+ * <p>
+ * <b>Note:</b> the {@code WorkbookWriter} returned by {@link #writer()} is
+ * owned by this session, closing it has no effect on the session.
+ *
+ * @author Jonathan Henly
+ */
+public final class WorkbookSession implements AutoCloseable {
+    
+    /* private members */
+    private final String pathToWorkbook;
+    private EventWorkbookReader events;
+    private XSSFWorkbook workbook;
+    private WorkbookReader reader;
+    private WorkbookWriter writer;
+    private boolean closed;
+    
+    private long openNanos;
+    private long saveNanos;
+    private long savedBytes;
+    private WorkbookSaver.Compression compression =
+        WorkbookSaver.Compression.DEFAULT;
+    
+    
+    /* creates a session, the workbook is opened on first use */
+    WorkbookSession(String excelFilePath) throws FileNotFoundException {
+        Objects.requireNonNull(excelFilePath);
+        
+        File excelFile = new File(excelFilePath);
+        if (!excelFile.exists()) {
+            throw new FileNotFoundException(
+                String.format("the file '%s' does not exist", excelFilePath));
+        }
+        
+        if (excelFile.isDirectory()) {
+            throw new IllegalArgumentException(String.format(
+                "specified Excel file '%s' is a directory", excelFilePath));
+        }
+        
+        pathToWorkbook = excelFilePath;
+    }
+    
+    /**
+     * @return the path of this session's Excel workbook
+     */
+    public String getPath() { return pathToWorkbook; }
+    
+    /**
+     * Starts a query of the specified range of cells.
+     *
+     * @param range - the range of cells to read
+     * @return a builder used to specify the sheet to read the range from
+     */
+    public RangeReaderBuilder forRange(CellRange range) {
+        return new RangeReaderBuilder(Objects.requireNonNull(range));
+    }
+    
+    /**
+     * Starts a query of the cells in a row, from a starting column index to
+     * the last cell in the row.
+     *
+     * @param row - the index of the row to read
+     * @param start - the column index to start reading from
+     * @return a builder used to specify the sheet to read the range from
+     */
+    public RangeReaderBuilder forOpenRowRange(int row, int start) {
+        return forRange(CellRange.openRowRange(row, start));
+    }
+    
+    /**
+     * Builder used to specify which sheet a range is read from.
+     *
+     * @author Jonathan Henly
+     */
+    public class RangeReaderBuilder {
+        private final CellRange range;
+        private String nameOfSheet;
+        
+        private RangeReaderBuilder(CellRange range) { this.range = range; }
+        
+        /**
+         * Specifies the sheet to read the range from.
+         *
+         * @param sheetName - the name of the sheet to read the range from
+         * @return {@code this}, in order to chain builder calls
+         */
+        public RangeReaderBuilder in(String sheetName) {
+            nameOfSheet = Objects.requireNonNull(sheetName);
+            return this;
+        }
+        
+        /**
+         * Reads the values from the range of cells in the specified sheet.
+         *
+         * @return a {@code List<String>} of the cell values read from the
+         *         range, in row major order
+         * @throws IOException if an I/O error occurs opening the workbook
+         * @throws SheetNotFoundException if the workbook does not contain the
+         *         specified sheet
+         * @throws IllegalStateException if the session has been closed
+         */
+        public List<String> read() throws IOException {
+            if (nameOfSheet == null) {
+                throw new NullPointerException(
+                    "sheet is null, you probably forgot to call "
+                        + "'in(sheetName)'");
+            }
+            
+            throwIfClosed();
+            
+            if (workbook != null) {
+                return reader.forRange(range).in(nameOfSheet).read();
+            }
+            
+            return events().forRange(range).in(nameOfSheet).read();
+        }
+    }
+    
+    /**
+     * Gets the writer shared by every sheet in this session, loading the
+     * workbook if this is the first write.
+     *
+     * @return the session's workbook writer
+     * @throws IOException if an I/O error occurs opening the workbook
+     * @throws IllegalStateException if the session has been closed
+     */
+    public WorkbookWriter writer() throws IOException {
+        throwIfClosed();
+        
+        if (writer == null) {
+            load();
+            writer = new WorkbookWriter(workbook, pathToWorkbook);
+        }
+        
+        return writer;
+    }
+    
+    /**
+     * Specifies the compression level used when committing this session.
+     *
+     * @param compression - the deflate level of the workbook's zip entries,
+     *        {@link WorkbookSaver.Compression#DEFAULT DEFAULT} by default
+     */
+    public void setSaveCompression(WorkbookSaver.Compression compression) {
+        this.compression = Objects.requireNonNull(compression);
+    }
+    
+    /**
+     * Atomically writes every change made through this session to the
+     * workbook file.
+     * <p>
+     * If nothing has been written then the workbook file is left untouched.
+     *
+     * @throws IOException if an I/O error occurs, in which case the workbook
+     *         file is left untouched
+     * @throws IllegalStateException if the session has been closed
+     * @see WorkbookSaver
+     */
+    public void commit() throws IOException {
+        throwIfClosed();
+        if (writer == null) { return; }
+        
+        // the workbook was read into memory, so it's safe to replace its file
+        writer.setSaveCompression(compression);
+        WorkbookSaver.SaveStats stats = writer.saveChangesToWorkbook();
+        
+        saveNanos += stats.durationNanos();
+        savedBytes = stats.bytesWritten();
+    }
+    
+    /**
+     * @return the time spent opening the workbook, in milliseconds
+     */
+    public long openMillis() { return openNanos / 1_000_000L; }
+    
+    /**
+     * @return the time spent saving the workbook, in milliseconds
+     */
+    public long saveMillis() { return saveNanos / 1_000_000L; }
+    
+    /**
+     * @return the size of the workbook file, in bytes, written by the last
+     *         commit, or {@code 0} if nothing has been committed
+     */
+    public long savedBytes() { return savedBytes; }
+    
+    /**
+     * Closes this session, discarding any changes that have not been
+     * committed.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) { return; }
+        closed = true;
+        
+        closeEvents();
+        if (workbook != null) {
+            workbook.close();
+            workbook = null;
+        }
+    }
+    
+    /* lazily opens the event reader, used until the workbook is loaded */
+    private EventWorkbookReader events() throws IOException {
+        if (events == null) {
+            long start = System.nanoTime();
+            events = new EventWorkbookReader(pathToWorkbook);
+            openNanos += System.nanoTime() - start;
+        }
+        
+        return events;
+    }
+    
+    /* loads the workbook into memory, once */
+    private void load() throws IOException {
+        if (workbook != null) { return; }
+        
+        // release the event reader's hold on the file before writing to it
+        closeEvents();
+        
+        long start = System.nanoTime();
+        // read through a stream so the file isn't held open while saving
+        try (InputStream in = Files.newInputStream(new File(pathToWorkbook)
+            .toPath())) {
+            workbook = new XSSFWorkbook(in);
+        }
+        openNanos += System.nanoTime() - start;
+        
+        reader = new WorkbookReader(workbook, pathToWorkbook);
+    }
+    
+    /* helper that closes the event reader if it's open */
+    private void closeEvents() {
+        if (events != null) {
+            events.close();
+            events = null;
+        }
+    }
+    
+    /* helper that throws if close() has been called on this session */
+    private void throwIfClosed() {
+        if (closed) {
+            throw new IllegalStateException(
+                "this workbook session has been closed.");
+        }
+    }
+    
+}
@@ -1,23 +1,32 @@
 package com.bookiescrape.app.excel;
 
-import java.io.BufferedOutputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.HorizontalAlignment;
 import org.apache.poi.ss.usermodel.IgnoredErrorType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Row.MissingCellPolicy;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.VerticalAlignment;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.xssf.usermodel.XSSFCell;
-import org.apache.poi.xssf.usermodel.XSSFCellStyle;
-import org.apache.poi.xssf.usermodel.XSSFDataFormat;
-import org.apache.poi.xssf.usermodel.XSSFFont;
-import org.apache.poi.xssf.usermodel.XSSFRow;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTCell;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.STCellType;
+
+import com.bookiescrape.app.scrape.Bookie;
+import com.bookiescrape.app.scrape.DateGroup;
 
 
 /**
@@ -25,40 +34,151 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
  * <p>
  * The main purpose of this class is to alter an Excel workbook file. This class
  * also includes multiple helper functions.
+ * <p>
+ * Every cell a write sets or restyles is counted as dirty, see
+ * {@link #getDirtyCellCount(String)}. With
+ * {@link #setSkipUnchangedCells(boolean)}, writes compare each cell's current
+ * value and style to the ones being written and leave unchanged cells alone,
+ * so rewriting a mostly unchanged range only dirties the cells that differ.
  *
  * @author Jonathan Henly
  */
 public class WorkbookWriter extends AbstractWorkbook {
     /* private members */
-    private XSSFSheet currentSheet;
+    private Sheet currentSheet;
+    private final StyleCache styles;
+    private final Map<String, Integer> dirtyCells = new HashMap<>();
+    private boolean skipUnchanged;
+    private WorkbookSaver.Compression compression =
+        WorkbookSaver.Compression.DEFAULT;
     
     /* opens an Excel workbook from the passed in file path */
     WorkbookWriter(String excelFilePath) throws IOException {
         super(excelFilePath);
+        
+        styles = new StyleCache(workbook);
+    }
+    
+    /* wraps an opened workbook, used by StreamingWorkbookWriter and sessions */
+    WorkbookWriter(XSSFWorkbook workbook, String excelFilePath) {
+        super(workbook, excelFilePath);
+        
+        styles = new StyleCache(workbook);
     }
     
     /**
-     * @throws IOException
+     * Specifies the compression level used when saving this workbook.
+     *
+     * @param compression - the deflate level of the workbook's zip entries,
+     *        {@link WorkbookSaver.Compression#DEFAULT DEFAULT} by default
      */
-    public void saveChangesToWorkbook() throws IOException {
-        saveChangesToWorkbook(pathToWorkbook);
+    public void setSaveCompression(WorkbookSaver.Compression compression) {
+        this.compression = Objects.requireNonNull(compression);
     }
     
     /**
-     * @param differentExcelFileName
-     * @throws IOException
+     * Specifies whether writes leave cells that already hold the value and
+     * style being written untouched.
+     * <p>
+     * When {@code true}, a save with no dirty cells, to the file this workbook
+     * was opened from, leaves the file untouched.
+     *
+     * @param skip - {@code true} to only write cells that change, by default
+     *        {@code false}
      */
-    public void saveChangesToWorkbook(String fileName) throws IOException {
-        String test = "src/test/resources/excel/Test.xlsx";
-        
-        BufferedOutputStream bos =
-            new BufferedOutputStream(new FileOutputStream(test));
+    public void setSkipUnchangedCells(boolean skip) { skipUnchanged = skip; }
+    
+    /**
+     * Gets the number of cells in a sheet dirtied by writes since this
+     * workbook was opened, or last saved.
+     *
+     * @param sheetName - the name of the sheet
+     * @return the number of cells written to or restyled in the sheet
+     */
+    public int getDirtyCellCount(String sheetName) {
+        return dirtyCells.getOrDefault(sheetName, 0);
+    }
+    
+    /**
+     * Gets the number of cells, in every sheet, dirtied by writes since this
+     * workbook was opened, or last saved.
+     *
+     * @return the number of cells written to or restyled
+     */
+    public int getDirtyCellCount() {
+        int total = 0;
+        for (int count : dirtyCells.values()) {
+            total += count;
+        }
         
-        workbook.write(bos);
+        return total;
+    }
+    
+    /**
+     * @return the compression level used when saving this workbook
+     */
+    protected WorkbookSaver.Compression getSaveCompression() {
+        return compression;
+    }
+    
+    /**
+     * Atomically saves this workbook over the file it was opened from.
+     *
+     * @return the number of bytes written and how long the save took
+     * @throws IOException if an I/O error occurs, in which case the workbook
+     *         file is left untouched
+     * @see WorkbookSaver
+     */
+    public WorkbookSaver.SaveStats saveChangesToWorkbook() throws IOException {
+        return saveChangesToWorkbook(pathToWorkbook);
+    }
+    
+    /**
+     * Atomically saves this workbook to the specified file.
+     * <p>
+     * The sheets with dirty cells, or resized columns, since this workbook
+     * was opened, or last saved, are serialized concurrently, ahead of the
+     * rest. The other sheets are still serialized by the write itself. If
+     * unchanged cells are skipped and no sheet has changed, then saving over
+     * the file this workbook was opened from leaves the file untouched.
+     *
+     * @param fileName - path of the file to save this workbook to
+     * @return the number of bytes written and how long the save took
+     * @throws IOException if an I/O error occurs, in which case the file is
+     *         left untouched
+     * @see WorkbookSaver
+     */
+    public WorkbookSaver.SaveStats saveChangesToWorkbook(String fileName)
+        throws IOException
+    {
+        throwIfClosed(); // throw NPE if close() has been called
+        
+        Path target = Paths.get(fileName);
+        if (skipUnchanged && dirtyCells.isEmpty() && isOwnFile(target)) {
+            // nothing to write, don't touch the file for those watching it
+            return new WorkbookSaver.SaveStats(target.toAbsolutePath(),
+                Files.size(target), 0L);
+        }
         
-        bos.flush();
+        WorkbookSaver.SaveStats stats = WorkbookSaver.save(workbook, target,
+            compression, dirtyCells.keySet());
+        dirtyCells.clear();
         
-        bos.close();
+        return stats;
+    }
+    
+    /* whether a path is the existing file this workbook was opened from */
+    private boolean isOwnFile(Path target) throws IOException {
+        return Files.exists(target)
+            && Files.isSameFile(target, Paths.get(pathToWorkbook));
+    }
+    
+    /* notes cells dirtied in a sheet, so the sheet is serialized ahead of
+     * the rest on save */
+    private void markDirty(Sheet sheet, int cells) {
+        if (cells > 0) {
+            dirtyCells.merge(sheet.getSheetName(), cells, Integer::sum);
+        }
     }
     
     /**
@@ -101,16 +221,23 @@ public class WorkbookWriter extends AbstractWorkbook {
     /**
      * @author Jonathan Henly
      */
-    protected class RangeWriterBuilder {
+    public class RangeWriterBuilder {
         private static final String DEF_DATA_FORMAT = "General";
+        private static final String DEF_FONT_NAME = "Calibri";
+        private static final int DEF_FONT_SIZE = 11;
         private WorkbookWriter ref;
         private CellRange range;
-        private XSSFSheet sheet;
+        private Sheet sheet;
         private String nameOfSheet;
         
-        private XSSFCellStyle cellStyle;
-        private XSSFDataFormat dataFormat;
-        private XSSFFont font;
+        /* style attributes, resolved to a shared cell style on write */
+        private String format = DEF_DATA_FORMAT;
+        private String fontName = DEF_FONT_NAME;
+        private int fontSize = DEF_FONT_SIZE;
+        private boolean bold;
+        private boolean italic;
+        private HorizontalAlignment hAlign = HorizontalAlignment.GENERAL;
+        private VerticalAlignment vAlign = VerticalAlignment.BOTTOM;
         private DataType dtype;
         
         
@@ -122,11 +249,6 @@ public class WorkbookWriter extends AbstractWorkbook {
             this.ref = ref;
             this.range = range;
             
-            cellStyle = ref.workbook.createCellStyle();
-            dataFormat = ref.workbook.createDataFormat();
-            cellStyle.setDataFormat(dataFormat.getFormat(DEF_DATA_FORMAT));
-            
-            font = createDefaultFont();
             dtype = DataType.STRING;
         }
         
@@ -135,7 +257,7 @@ public class WorkbookWriter extends AbstractWorkbook {
          * @param sheet - the sheet that the specified cell range pertains to
          * @param range - the range of cells to operate on
          */
-        protected RangeWriterBuilder(WorkbookWriter ref, XSSFSheet sheet,
+        protected RangeWriterBuilder(WorkbookWriter ref, Sheet sheet,
                                      CellRange range)
         {
             this(ref, range);
@@ -143,21 +265,6 @@ public class WorkbookWriter extends AbstractWorkbook {
             this.sheet = sheet;
         }
         
-        /* method used by constructor */
-        private XSSFFont createDefaultFont() {
-            XSSFFont f = ref.workbook.createFont();
-            f.setFontName("Calibri");
-            f.setFontHeightInPoints((short) 11);
-            f.setColor(Font.COLOR_NORMAL);
-            f.setBold(false);
-            f.setItalic(false);
-            f.setUnderline(Font.U_NONE);
-            f.setTypeOffset(Font.SS_NONE);
-            f.setStrikeout(false);
-            
-            return f;
-        }
-        
         /**
          * Signals that the data to be written is of type string.
          *
@@ -197,8 +304,10 @@ public class WorkbookWriter extends AbstractWorkbook {
             CellRangeAddress region = new CellRangeAddress(range.rowStart(),
                 range.rowEnd(), range.colStart(), range.colEnd());
             
-            sheet.addIgnoredErrors(region,
-                IgnoredErrorType.NUMBER_STORED_AS_TEXT);
+            if (sheet instanceof XSSFSheet) {
+                ((XSSFSheet) sheet).addIgnoredErrors(region,
+                    IgnoredErrorType.NUMBER_STORED_AS_TEXT);
+            }
         }
         
         /**
@@ -209,7 +318,7 @@ public class WorkbookWriter extends AbstractWorkbook {
          * @return {@code this}, in order to chain builder calls
          */
         public RangeWriterBuilder hAlign(HorizontalAlignment hAlign) {
-            cellStyle.setAlignment(hAlign);
+            this.hAlign = hAlign;
             return this;
         }
         
@@ -221,7 +330,7 @@ public class WorkbookWriter extends AbstractWorkbook {
          * @return {@code this}, in order to chain builder calls
          */
         public RangeWriterBuilder vAlign(VerticalAlignment vAlign) {
-            cellStyle.setVerticalAlignment(vAlign);
+            this.vAlign = vAlign;
             return this;
         }
         
@@ -235,7 +344,7 @@ public class WorkbookWriter extends AbstractWorkbook {
          * @return {@code this}, in order to chain builder calls
          */
         public RangeWriterBuilder withFormat(String format) {
-            cellStyle.setDataFormat(dataFormat.getFormat(format));
+            this.format = format;
             return this;
         }
         
@@ -248,7 +357,7 @@ public class WorkbookWriter extends AbstractWorkbook {
          * @return {@code this}, in order to chain builder calls
          */
         public RangeWriterBuilder setFontName(String fontName) {
-            font.setFontName(fontName);
+            this.fontName = fontName;
             return this;
         }
         
@@ -261,7 +370,7 @@ public class WorkbookWriter extends AbstractWorkbook {
          * @return {@code this}, in order to chain builder calls
          */
         public RangeWriterBuilder setFontSize(int fontSize) {
-            font.setFontHeightInPoints((short) fontSize);
+            this.fontSize = fontSize;
             return this;
         }
         
@@ -274,7 +383,7 @@ public class WorkbookWriter extends AbstractWorkbook {
          * @return {@code this}, in order to chain builder calls
          */
         public RangeWriterBuilder useBoldFont(boolean bold) {
-            font.setBold(bold);
+            this.bold = bold;
             return this;
         }
         
@@ -287,7 +396,7 @@ public class WorkbookWriter extends AbstractWorkbook {
          * @return {@code this}, in order to chain builder calls
          */
         public RangeWriterBuilder useItalicFont(boolean italic) {
-            font.setItalic(italic);
+            this.italic = italic;
             return this;
         }
         
@@ -301,18 +410,20 @@ public class WorkbookWriter extends AbstractWorkbook {
          */
         public RangeWriterBuilder in(String sheetName) {
             nameOfSheet = sheetName;
-            XSSFSheet load = (XSSFSheet) ref.getSheetFromWorkbook(sheetName);
-            sheet = load;
+            sheet = ref.getSheetFromWorkbook(sheetName);
             return this;
         }
         
         /**
-         *
+         * Auto sizes the columns of the range in the specified sheet, which
+         * marks the sheet as changed.
          */
         public void autoSizeColumns() {
             throwNPEIfSheetOrNameOfSheetAreNull();
             
             (new RangeWriter(sheet, range)).autoSizeColumns();
+            // no cells are dirtied, but the sheet still changed
+            ref.dirtyCells.putIfAbsent(sheet.getSheetName(), 0);
         }
         
         /**
@@ -321,14 +432,138 @@ public class WorkbookWriter extends AbstractWorkbook {
          *
          * @param whatToWrite {@code List<String>} of the data to write to the
          *        specified range of cells.
+         * @return the number of cells dirtied
          */
-        public void write(List<String> whatToWrite) {
+        public int write(List<String> whatToWrite) {
             throwNPEIfSheetOrNameOfSheetAreNull();
             
-            cellStyle.setFont(font);
+            return dirtied((new RangeWriter(sheet, range, whatToWrite,
+                cellStyle(), dtype)).writeRange());
+        }
+        
+        /**
+         * Writes numbers, in row major order, to a range of cells in a
+         * specified sheet in this workbook.
+         * <p>
+         * Values are set directly, without being converted to and parsed from
+         * strings, so {@link #dataIsDouble()} and the like have no effect.
+         * Cells whose value is {@code NaN} are left blank.
+         *
+         * @param values - the numbers to write, at least one per cell
+         * @return the number of cells dirtied
+         * @throws IllegalArgumentException if there are fewer values than cells
+         *         in the range
+         */
+        public int write(double[] values) {
+            throwNPEIfSheetOrNameOfSheetAreNull();
+            throwIfFewerValuesThanCells(values.length);
             
-            (new RangeWriter(sheet, range, whatToWrite, cellStyle, dtype))
-                .writeRange();
+            return dirtied((new RangeWriter(sheet, range, cellStyle()))
+                .writeRange(values));
+        }
+        
+        /**
+         * Writes integers, in row major order, to a range of cells in a
+         * specified sheet in this workbook.
+         * <p>
+         * Values are set directly, without being converted to and parsed from
+         * strings, so {@link #dataIsInteger()} and the like have no effect.
+         *
+         * @param values - the integers to write, at least one per cell
+         * @return the number of cells dirtied
+         * @throws IllegalArgumentException if there are fewer values than cells
+         *         in the range
+         */
+        public int write(int[] values) {
+            throwNPEIfSheetOrNameOfSheetAreNull();
+            throwIfFewerValuesThanCells(values.length);
+            
+            return dirtied((new RangeWriter(sheet, range, cellStyle()))
+                .writeRange(values));
+        }
+        
+        /**
+         * Writes a block of values to a range of cells in a specified sheet in
+         * this workbook, {@code block[r][c]} is written to the range's
+         * {@code r}th row and {@code c}th column.
+         * <p>
+         * {@code Number}s are written as numbers, {@code Boolean}s as booleans
+         * and {@code String}s as strings, without any parsing. {@code null}
+         * and {@code NaN} values leave their cell blank.
+         *
+         * @param block - the values to write, at least one row per row in the
+         *        range and at least one value per column in the range
+         * @return the number of cells dirtied
+         * @throws IllegalArgumentException if the block is smaller than the
+         *         range, or contains a value of any other type
+         */
+        public int write(Object[][] block) {
+            throwNPEIfSheetOrNameOfSheetAreNull();
+            
+            boolean tooSmall = block.length < range.numRows();
+            for (int r = 0; !tooSmall && r < range.numRows(); r++) {
+                tooSmall = block[r].length < range.numCols();
+            }
+            
+            if (tooSmall) {
+                throw new IllegalArgumentException(String.format(
+                    "block is smaller than the %d by %d range",
+                    range.numRows(), range.numCols()));
+            }
+            
+            return dirtied((new RangeWriter(sheet, range, cellStyle()))
+                .writeRange(block));
+        }
+        
+        /**
+         * Writes the odds of every match in a date group to a range of cells in
+         * a specified sheet in this workbook.
+         * <p>
+         * Each match takes up two rows of the range, the first holds the
+         * over odds and the second holds the under odds. Each column of the
+         * range holds the odds of the bookie at the same index in
+         * {@code bookies}. Missing odds leave their cell blank.
+         *
+         * @param group - the date group whose odds to write
+         * @param bookies - the bookies, in column order, whose odds to write
+         * @return the number of cells dirtied
+         * @throws IllegalArgumentException if the range does not have two rows
+         *         per match and one column per bookie
+         */
+        public int write(DateGroup group, List<Bookie> bookies) {
+            throwNPEIfSheetOrNameOfSheetAreNull();
+            
+            if (range.numRows() != 2 * group.size()
+                || range.numCols() != bookies.size()) {
+                throw new IllegalArgumentException(String.format(
+                    "a %d by %d range can not hold %d matches of %d bookies",
+                    range.numRows(), range.numCols(), group.size(),
+                    bookies.size()));
+            }
+            
+            return dirtied((new RangeWriter(sheet, range, cellStyle()))
+                .writeRange(group, bookies));
+        }
+        
+        /* helper that counts a write's dirtied cells against its sheet */
+        private int dirtied(int cells) {
+            ref.markDirty(sheet, cells);
+            return cells;
+        }
+        
+        /* helper that gets the shared cell style for this range's attributes */
+        private CellStyle cellStyle() {
+            return ref.styles.get(new StyleCache.Key(fontName, fontSize, bold,
+                italic, hAlign, vAlign, format));
+        }
+        
+        /* helper that checks an array of values can fill this range */
+        private void throwIfFewerValuesThanCells(int length) {
+            if (length < range.numCells()) {
+                throw new IllegalArgumentException(String.format(
+                    "%d values can not fill a range of %d cells", length,
+                    range.numCells()));
+            }
         }
         
         /* helper that checks for null in sheet or sheetName */
@@ -348,14 +583,20 @@ public class WorkbookWriter extends AbstractWorkbook {
         
     }
     
+    /* sets the value of a cell from its offset in the range being written,
+     * returning whether the cell's value changed */
+    private interface CellSetter {
+        boolean set(Cell cell, int rowOffset, int colOffset);
+    }
+    
     /**
      * @author Jonathan Henly
      */
     public class RangeWriter {
-        private XSSFSheet sheet;
+        private Sheet sheet;
         private CellRange range;
         private List<String> out;
-        private XSSFCellStyle cstyle;
+        private CellStyle cstyle;
         private DataType dtype;
         
         /**
@@ -366,18 +607,30 @@ public class WorkbookWriter extends AbstractWorkbook {
          * @param rng - the range to perform actions on
          * @param toWrite
          */
-        protected RangeWriter(XSSFSheet sht, CellRange rng,
-                              List<String> toWrite, XSSFCellStyle style,
+        protected RangeWriter(Sheet sht, CellRange rng,
+                              List<String> toWrite, CellStyle style,
                               DataType dataType)
         {
-            this(sht, rng);
-            
+            this(sht, rng, style);
             
             out = toWrite;
-            cstyle = style;
             dtype = dataType;
         }
         
+        /**
+         * Constructor used to write typed values to a given range of cells in
+         * a specified sheet.
+         *
+         * @param sht - the sheet to perform actions on
+         * @param rng - the range to perform actions on
+         * @param style - the cell style to give every cell in the range
+         */
+        protected RangeWriter(Sheet sht, CellRange rng, CellStyle style) {
+            this(sht, rng);
+            
+            cstyle = style;
+        }
+        
         /**
          * Constructor used to call methods that don't write anything, like
          * {@link #autoSizeColumns()}.
@@ -385,7 +638,7 @@ public class WorkbookWriter extends AbstractWorkbook {
          * @param sht - the sheet to perform actions on
          * @param rng - the range to perform actions on
          */
-        protected RangeWriter(XSSFSheet sht, CellRange rng) {
+        protected RangeWriter(Sheet sht, CellRange rng) {
             sheet = sht;
             range = rng;
         }
@@ -400,139 +653,231 @@ public class WorkbookWriter extends AbstractWorkbook {
         }
         
         /**
+         * Writes the list of strings passed to the constructor, parsing them
+         * as this writer's data type.
          *
+         * @return the number of cells dirtied
          */
-        protected void writeRange() {
+        protected int writeRange() {
+            int width = range.numCols();
+            
+            return writeRange((cell, r, c) -> setValueAndFormatCell(cell,
+                out.get(r * width + c)));
+        }
+        
+        /**
+         * Writes numbers in row major order, {@code NaN}s are left blank.
+         *
+         * @param values - the numbers to write
+         * @return the number of cells dirtied
+         */
+        protected int writeRange(double[] values) {
+            int width = range.numCols();
+            
+            return writeRange(
+                (cell, r, c) -> setNumber(cell, values[r * width + c]));
+        }
+        
+        /**
+         * Writes integers in row major order.
+         *
+         * @param values - the integers to write
+         * @return the number of cells dirtied
+         */
+        protected int writeRange(int[] values) {
+            int width = range.numCols();
+            
+            return writeRange(
+                (cell, r, c) -> setNumber(cell, values[r * width + c]));
+        }
+        
+        /**
+         * Writes a block of values, {@code block[r][c]} to the range's
+         * {@code r}th row and {@code c}th column.
+         *
+         * @param block - the values to write
+         * @return the number of cells dirtied
+         */
+        protected int writeRange(Object[][] block) {
+            return writeRange((cell, r, c) -> setObject(cell, block[r][c]));
+        }
+        
+        /**
+         * Writes a date group's odds, over odds then under odds for each
+         * match, with one column per bookie.
+         *
+         * @param group - the date group whose odds to write
+         * @param bookies - the bookies whose odds to write, in column order
+         * @return the number of cells dirtied
+         */
+        protected int writeRange(DateGroup group, List<Bookie> bookies) {
+            int n = bookies.size();
+            double[][] overs = new double[n][];
+            double[][] unders = new double[n][];
+            for (int b = 0; b < n; b++) {
+                overs[b] = group.overColumn(bookies.get(b));
+                unders[b] = group.underColumn(bookies.get(b));
+            }
+            
+            return writeRange((cell, r, c) -> {
+                double[] column = ((r & 1) == 0) ? overs[c] : unders[c];
+                return setNumber(cell, (r >> 1) < column.length
+                    ? column[r >> 1] : Double.NaN);
+            });
+        }
+        
+        /* writes every cell in the range, in row major order */
+        private int writeRange(CellSetter setter) {
             switch (range.type()) {
                 case CELL:
-                    writeCellRange();
-                    break;
-                
                 case ROW:
-                    writeRowRange();
-                    break;
-                
                 case COL:
-                    writeColRange();
-                    break;
-                
                 case ROW_COL:
-                    writeRowColRange();
-                    break;
+                    return writeCells(setter);
                 
-                default:// we should never get here
-                    break;  // make compiler happy
+                default: // open ranges can't be written
+                    return 0;
             }
         }
         
-        /* writes a list containing a single value to a cell */
-        private void writeCellRange() {
-            XSSFRow rs =
-                getRowOrReturnNewRowIfRowIsNull(sheet, range.rowStart());
-            XSSFCell cell = getCellOrCreateNewIfNull(rs, range.colStart());
+        /* sets and styles every cell, fetching each row only once */
+        private int writeCells(CellSetter setter) {
+            int rowStart = range.rowStart();
+            int colStart = range.colStart();
+            int colEnd = range.colEnd();
+            int styleIndex = cstyle.getIndex();
+            int dirty = 0;
             
-            setValueAndFormatCell(cell, out.get(0));
+            for (int r = rowStart, rn = range.rowEnd(); r <= rn; r++) {
+                Row curRow = getRowOrReturnNewRowIfRowIsNull(sheet, r);
+                
+                for (int c = colStart; c <= colEnd; c++) {
+                    Cell cell = getCellOrCreateNewIfNull(curRow, c);
+                    
+                    boolean changed = setter.set(cell, r - rowStart,
+                        c - colStart);
+                    if (!skipUnchanged || styleIndexOf(cell) != styleIndex) {
+                        cell.setCellStyle(cstyle);
+                        changed = true;
+                    }
+                    
+                    if (changed) { dirty += 1; }
+                }
+            }
+            
+            return dirty;
         }
         
-        /* writes a list containing values to a range of cells in a row */
-        private void writeRowRange() {
-            XSSFRow rs =
-                getRowOrReturnNewRowIfRowIsNull(sheet, range.rowStart());
+        /* parses a string as this writer's data type, blank leaves the cell */
+        private boolean setValueAndFormatCell(Cell cell, String value) {
+            if (value.isEmpty()) { return false; }
             
-            int colStart = range.colStart();
-            for (int c = colStart, n = range.colEnd(); c <= n; c++) {
-                XSSFCell cell = getCellOrCreateNewIfNull(rs, c);
+            switch (dtype) {
+                case INTEGER:
+                    return setNumber(cell, Integer.parseInt(value));
+                
+                case DOUBLE:
+                    return setNumber(cell, Double.parseDouble(value));
                 
-                setValueAndFormatCell(cell, out.get(c - colStart));
+                default: // STRING
+                    return setString(cell, value);
             }
+        }
+        
+        /* sets a cell's value, or blanks the cell if the value is NaN */
+        private boolean setNumber(Cell cell, double value) {
+            if (Double.isNaN(value)) { return setBlank(cell); }
+            
+            if (skipUnchanged && holdsNumber(cell, value)) { return false; }
             
+            cell.setCellValue(value);
+            return true;
         }
         
-        /* writes a list containing values to a range of cells in a col */
-        private void writeColRange() {
-            int column = range.colStart();
-            int rowStart = range.rowStart();
+        /* whether a cell holds a number, read from its XML when it can be */
+        private boolean holdsNumber(Cell cell, double value) {
+            if (!(cell instanceof XSSFCell)) {
+                return cell.getCellType() == CellType.NUMERIC
+                    && cell.getNumericCellValue() == value;
+            }
             
-            for (int r = rowStart, n = range.rowEnd(); r <= n; r++) {
-                XSSFRow curRow = getRowOrReturnNewRowIfRowIsNull(sheet, r);
-                XSSFCell cell = getCellOrCreateNewIfNull(curRow, column);
-                
-                setValueAndFormatCell(cell, out.get(r - rowStart));
+            CTCell ct = ((XSSFCell) cell).getCTCell();
+            if (ct.isSetF() || ct.getT() != STCellType.N) { return false; }
+            
+            String v = ct.getV();
+            return v != null && !v.isEmpty() && Double.parseDouble(v) == value;
+        }
+        
+        /* sets a cell's string value, unless it already holds the string */
+        private boolean setString(Cell cell, String value) {
+            if (skipUnchanged && cell.getCellType() == CellType.STRING
+                && value.equals(cell.getStringCellValue())) {
+                return false;
             }
             
+            cell.setCellValue(value);
+            return true;
         }
         
-        /* writes a list containing values to a range of cells in a row_col */
-        private void writeRowColRange() {
-            int rowStart = range.rowStart();
-            int rowEnd = range.rowEnd();
-            int colStart = range.colStart();
-            int colEnd = range.colEnd();
+        /* blanks a cell, unless it's already blank */
+        private boolean setBlank(Cell cell) {
+            if (skipUnchanged && cell.getCellType() == CellType.BLANK) {
+                return false;
+            }
             
-            for (int r = rowStart, rn = rowEnd; r <= rn; r++) {
-                XSSFRow curRow = getRowOrReturnNewRowIfRowIsNull(sheet, r);
-                
-                for (int c = colStart; c <= colEnd; c++) {
-                    XSSFCell cell = getCellOrCreateNewIfNull(curRow, c);
-                    
-                    int outIndex = ((r - rowStart) * (colEnd - colStart + 1))
-                                   + (c - colStart);
-                    
-                    setValueAndFormatCell(cell, out.get(outIndex));
-                }
+            cell.setBlank();
+            return true;
+        }
+        
+        /* a cell's style index, without building a style object for it */
+        private int styleIndexOf(Cell cell) {
+            if (cell instanceof XSSFCell) {
+                CTCell ct = ((XSSFCell) cell).getCTCell();
+                return ct.isSetS() ? (int) ct.getS() : 0;
             }
             
+            return cell.getCellStyle().getIndex();
         }
         
-        /* */
-        private void setValueAndFormatCell(XSSFCell cell, String value) {
-            if (!value.equals("")) {
-                switch (dtype) {
-                    case INTEGER:
-                        cell.setCellValue(Integer.parseInt(value));
-                        cell.setCellType(CellType.NUMERIC);
-                        break;
-                    
-                    case DOUBLE:
-                        cell.setCellValue(Double.parseDouble(value));
-                        cell.setCellType(CellType.NUMERIC);
-                        break;
-                    
-                    default: // STRING
-                        cell.setCellValue(value);
+        /* sets a cell's value from a Number, Boolean, String or null */
+        private boolean setObject(Cell cell, Object value) {
+            if (value == null) {
+                return setBlank(cell);
+            } else if (value instanceof Number) {
+                return setNumber(cell, ((Number) value).doubleValue());
+            } else if (value instanceof String) {
+                return setString(cell, (String) value);
+            } else if (value instanceof Boolean) {
+                boolean b = (Boolean) value;
+                if (skipUnchanged && cell.getCellType() == CellType.BOOLEAN
+                    && cell.getBooleanCellValue() == b) {
+                    return false;
                 }
+                
+                cell.setCellValue(b);
+                return true;
+            } else {
+                throw new IllegalArgumentException(
+                    "can not write a value of type "
+                        + value.getClass().getName());
             }
-            cell.setCellStyle(cstyle);
         }
         
         /* */
-        private XSSFRow
-        getRowOrReturnNewRowIfRowIsNull(XSSFSheet sheet, int rowIndex)
+        private Row
+        getRowOrReturnNewRowIfRowIsNull(Sheet sheet, int rowIndex)
         {
-            XSSFRow row = sheet.getRow(rowIndex);
+            Row row = sheet.getRow(rowIndex);
             if (row == null) {
                 row = sheet.createRow(rowIndex);
             }
             return row;
         }
         
-        /* */
-        private XSSFCell getCellOrCreateNewIfNull(XSSFRow row, int cellIndex) {
-            XSSFCell cell = row.getCell(cellIndex);
-            
-            if (row.getCell(cellIndex) == null) {
-                switch (dtype) {
-                    case STRING:
-                        cell = row.createCell(cellIndex, CellType.BLANK);
-                        break;
-                    
-                    default:
-                        cell = row.createCell(cellIndex, CellType.NUMERIC);
-                        break;
-                }
-            }
-            
-            return cell;
+        /* a cell's type is set along with its value, so create it blank */
+        private Cell getCellOrCreateNewIfNull(Row row, int cellIndex) {
+            return row.getCell(cellIndex,
+                MissingCellPolicy.CREATE_NULL_AS_BLANK);
         }
         
     }
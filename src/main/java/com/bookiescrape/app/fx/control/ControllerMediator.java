@@ -348,6 +348,10 @@ public class ControllerMediator {
         dashSubView = new SubView(dashboardReference.getView(), DASH_TITLE);
         dashController = dashboardReference.getController();
         dashController.setControllerMediator(this);
+        
+        if (appMediator != null && appMediator.getScrapeScheduler() != null) {
+            dashController.showSchedule(appMediator.getScrapeScheduler());
+        }
     }
     
     /**
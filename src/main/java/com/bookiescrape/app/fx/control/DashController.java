@@ -1,10 +1,24 @@
 package com.bookiescrape.app.fx.control;
 
+import java.util.concurrent.TimeUnit;
+
+import com.bookiescrape.app.sample.ScrapeScheduler;
+
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
+import javafx.scene.control.Label;
+import javafx.util.Duration;
 
 
 /**
  * The controller class associated with the {@code DashView.fxml} view.
+ * <p>
+ * Once a {@link ScrapeScheduler} is {@linkplain #showSchedule(ScrapeScheduler)
+ * shown}, the dashboard counts down to the scheduler's next scrape and shows
+ * how long its last scrape took.
  *
  * @author Jonathan Henly
  */
@@ -16,6 +30,19 @@ public class DashController extends MediatableController {
      *                                                                        *
      *************************************************************************/
     
+    @FXML
+    private Label daysText;
+    @FXML
+    private Label hoursTensText;
+    @FXML
+    private Label hoursOnesText;
+    @FXML
+    private Label minutesTensText;
+    @FXML
+    private Label minutesOnesText;
+    @FXML
+    private Label lastScrapeLabel;
+    
     
     /**************************************************************************
      *                                                                        *
@@ -23,6 +50,11 @@ public class DashController extends MediatableController {
      *                                                                        *
      *************************************************************************/
     
+    /* ticks the countdown down between scheduler updates */
+    private Timeline countdown;
+    /* the latest stats sent by the scheduler, only used on the FX thread */
+    private ScrapeScheduler.Stats stats;
+    
     
     /**************************************************************************
      *                                                                        *
@@ -54,4 +86,72 @@ public class DashController extends MediatableController {
         // cellData.getValue().lastNameProperty());
     }
     
-}
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     * Public API                                                             *
+     *                                                                        *
+     *************************************************************************/
+    
+    /**
+     * Shows the time till the scheduler's next scrape and the duration of its
+     * last scrape, and keeps them up to date.
+     * <p>
+     * This method must be called on the JavaFX application thread.
+     *
+     * @param scheduler - the scheduler whose schedule is shown
+     */
+    public void showSchedule(final ScrapeScheduler scheduler) {
+        scheduler.addListener(update -> Platform.runLater(() -> showStats(update)));
+        showStats(scheduler.getStats());
+        
+        if (countdown == null) {
+            countdown = new Timeline(new KeyFrame(Duration.seconds(1), e -> showCountdown()));
+            countdown.setCycleCount(Animation.INDEFINITE);
+            countdown.play();
+        }
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     * Private API                                                            *
+     *                                                                        *
+     *************************************************************************/
+    
+    /** Shows a stats update from the scheduler. */
+    private void showStats(final ScrapeScheduler.Stats update) {
+        stats = update;
+        showCountdown();
+        
+        if (update.running()) {
+            lastScrapeLabel.setText("Scraping now");
+        } else if (update.cycles() == 0) {
+            lastScrapeLabel.setText("No scrapes yet");
+        } else {
+            lastScrapeLabel.setText(String.format("Last scrape took %.1f seconds",
+                update.lastDurationMillis() / 1000.0));
+        }
+    }
+    
+    /** Shows the days, hours and minutes till the next scrape, rounded up. */
+    private void showCountdown() {
+        if (stats == null) { return; }
+        
+        long untilNext = Math.max(0, stats.nextRunMillis() - System.currentTimeMillis());
+        long minutes = TimeUnit.MILLISECONDS.toMinutes(untilNext + TimeUnit.MINUTES.toMillis(1) - 1);
+        if (stats.nextRunMillis() == 0 || stats.running()) { minutes = 0; }
+        
+        long days = minutes / TimeUnit.DAYS.toMinutes(1);
+        long hours = (minutes / 60) % 24;
+        minutes %= 60;
+        
+        daysText.setText(Long.toString(days));
+        hoursTensText.setText(Long.toString(hours / 10));
+        hoursOnesText.setText(Long.toString(hours % 10));
+        minutesTensText.setText(Long.toString(minutes / 10));
+        minutesOnesText.setText(Long.toString(minutes % 10));
+    }
+    
+} // class DashController
@@ -2,15 +2,21 @@ package com.bookiescrape.app.fx.control;
 
 import java.util.List;
 
+import org.apache.log4j.Level;
 import org.slf4j.Logger;
 
 import com.bookiescrape.app.fx.log.LogAppender;
+import com.bookiescrape.app.fx.log.LogBuffer;
+import com.bookiescrape.app.fx.log.LogEntry;
 import com.bookiescrape.app.util.LogUtils;
 
+import javafx.collections.transformation.FilteredList;
 import javafx.fxml.FXML;
 import javafx.scene.control.ComboBox;
+import javafx.scene.control.IndexedCell;
 import javafx.scene.control.Label;
-import javafx.scene.control.TextArea;
+import javafx.scene.control.ListView;
+import javafx.scene.control.skin.VirtualFlow;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
@@ -18,6 +24,14 @@ import javafx.scene.layout.VBox;
 
 /**
  * The controller class associated with the {@code LogView.fxml} view.
+ * <p>
+ * Logging events are kept in a bounded {@link LogBuffer} and shown by a
+ * virtualized {@code ListView}, so only the visible entries are rendered, no
+ * matter how long the application runs. The filter by combo box limits the
+ * shown entries to those at, or above, the selected level.
+ * <p>
+ * New entries are only followed while the newest entry is on screen, so
+ * scrolling up to read older entries isn't undone by the next batch.
  *
  * @author Jonathan Henly
  */
@@ -34,7 +48,7 @@ public class LogController extends MediatableController {
      *************************************************************************/
     
     @FXML
-    private TextArea rawLogTextArea;
+    private ListView<LogEntry> logListView;
     @FXML
     private VBox logAreaVbox;
     @FXML
@@ -51,6 +65,11 @@ public class LogController extends MediatableController {
      *                                                                        *
      *************************************************************************/
     
+    private final LogBuffer logBuffer = new LogBuffer();
+    private final FilteredList<LogEntry> filteredLog = new FilteredList<>(logBuffer);
+    /* the number of shown entries as of the list's last layout */
+    private int laidOutSize;
+    
     
     /**************************************************************************
      *                                                                        *
@@ -64,11 +83,7 @@ public class LogController extends MediatableController {
      * This constructor is automatically called before this controller's
      * associated view ({@code LogView.fxml}) has been loaded.
      */
-    public LogController() {
-        System.out.println("LogController::LogController()");
-        System.out.println("    logTextArea = " + rawLogTextArea);
-        
-    }
+    public LogController() {}
     
     /**
      * Log controller's initializer.
@@ -78,19 +93,65 @@ public class LogController extends MediatableController {
      */
     @FXML
     private void initialize() {
-        System.out.println("LogController::initialize()");
-        System.out.println("    logTextArea = " + rawLogTextArea);
+        logListView.setItems(filteredLog);
         
-        // connect raw log text area with the log appender
-        LogAppender.setTextArea(rawLogTextArea);
+        // connect the log buffer with the log appender, follow new entries
+        LogAppender.setLogBuffer(logBuffer, this::followNewEntries);
         
         // add log levels and raw log output to log view's choice box
         filterByComboBox.getItems().add(RAW_LOG_OUTPUT);
         filterByComboBox.getItems().addAll(LOG_LEVELS);
+        filterByComboBox.valueProperty().addListener((obs, old, choice) -> filterBy(choice));
     }
     
     @FXML
     void onFilterByLabelMouseSelectAction(MouseEvent event) { filterByComboBox.show(); }
     
     
+    /**************************************************************************
+     *                                                                        *
+     * Private API                                                            *
+     *                                                                        *
+     *************************************************************************/
+    
+    /** Shows every entry, or only entries at or above the chosen level. */
+    private void filterBy(final String choice) {
+        if (choice == null || RAW_LOG_OUTPUT.equals(choice)) {
+            filteredLog.setPredicate(null);
+        } else {
+            final Level threshold = Level.toLevel(choice, Level.ALL);
+            filteredLog.setPredicate(entry -> entry.isAtLeast(threshold));
+        }
+        
+        scrollToLastEntry();
+    }
+    
+    /** Scrolls to the newest entry, if the newest entry was on screen before the batch. */
+    private void followNewEntries() {
+        if (wasLastEntryVisible()) { scrollToLastEntry(); }
+        
+        laidOutSize = filteredLog.size();
+    }
+    
+    /**
+     * Checks whether the list's last laid out entry is on screen. The list isn't laid out again until
+     * after the pulse that appended a batch, so its cells still show the entries from before the batch.
+     */
+    private boolean wasLastEntryVisible() {
+        VirtualFlow<?> flow = (VirtualFlow<?>) logListView.lookup(".virtual-flow");
+        if (flow == null) { return true; }
+        
+        IndexedCell<?> last = flow.getLastVisibleCell();
+        return last == null || last.getIndex() >= laidOutSize - 1;
+    }
+    
+    /** Scrolls the log list to its newest shown entry. */
+    private void scrollToLastEntry() {
+        int last = filteredLog.size() - 1;
+        if (last >= 0) { logListView.scrollTo(last); }
+        
+        laidOutSize = filteredLog.size();
+    }
+    
+    
 }
@@ -1,25 +1,91 @@
 package com.bookiescrape.app.fx.log;
 
-import java.util.function.Consumer;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
-import org.apache.log4j.WriterAppender;
+import org.apache.log4j.Appender;
+import org.apache.log4j.Layout;
+import org.apache.log4j.Level;
+import org.apache.log4j.helpers.OnlyOnceErrorHandler;
+import org.apache.log4j.spi.ErrorCode;
+import org.apache.log4j.spi.ErrorHandler;
+import org.apache.log4j.spi.Filter;
 import org.apache.log4j.spi.LoggingEvent;
+import org.apache.log4j.spi.OptionHandler;
 
-import javafx.scene.control.TextArea;
+import javafx.animation.AnimationTimer;
 
 /**
- * Log4J {@code WriterAppender} implementation that appends
- * {@code LoggingEvent} messages to the log view's logging text area.
- * 
+ * Log4J {@code Appender} implementation that hands {@code LoggingEvent}s to a
+ * drain thread, which formats them and fans them out to the log view's
+ * {@link LogBuffer} and, optionally, a log file.
+ * <p>
+ * Logging never takes a lock, or touches the UI. Each event is offered to a
+ * bounded, lock-free queue shared by every logging thread, and a single drain
+ * thread per appender takes events off of the queue, formats them with the
+ * appender's layout and passes the formatted entries to each sink. Once per
+ * JavaFX pulse, the entries waiting for the UI are moved to the log buffer as
+ * a single batch, on the JavaFX application thread.
+ * <p>
+ * When the queue is full, an event is either dropped, the default, or the
+ * logging thread waits for room, see {@link #setOverflow(String)}. Dropped
+ * events are counted, and the count is logged once the queue has drained.
+ * <p>
+ * The following options can be set in the Log4J configuration:
+ * <ul>
+ * <li>{@code BufferSize} - the capacity of the queue, {@code 8192} by
+ * default</li>
+ * <li>{@code Overflow} - {@code drop} or {@code block}</li>
+ * <li>{@code File} - a file that entries are also appended to</li>
+ * </ul>
+ *
  * @author Jonathan Henly
  */
-public class LogAppender extends WriterAppender {
+public class LogAppender implements Appender, OptionHandler {
     
-    private static volatile TextArea textArea;
+    /** What logging an event does when the appender's queue is full. */
+    public enum Overflow {
+        /** The event is dropped and counted, logging never waits. */
+        DROP,
+        /** The logging thread waits until there's room for the event. */
+        BLOCK
+    }
+    
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    /* longest the drain thread sleeps without being woken up */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    /* how often a blocked logging thread checks for room */
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+    
+    /* entries formatted by drain threads, waiting for the next pulse */
+    private static final LogQueue<LogEntry> uiQueue = new LogQueue<>(LogBuffer.DEFAULT_CAPACITY);
+    private static final LongAdder uiDropped = new LongAdder();
+    private static LogPump pump;
+    
+    /* configuration */
+    private String name;
+    private Layout layout;
+    private ErrorHandler errorHandler = new OnlyOnceErrorHandler();
+    private volatile Filter headFilter;
+    private Filter tailFilter;
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private volatile Overflow overflow = Overflow.DROP;
+    private String file;
     
-    // start out appending logging event messages to a string builder
-    private static volatile StringBuilder preLoadLogMsgQueue = new StringBuilder();
-    private static volatile Consumer<String> currentAppendMethod = preLoadLogMsgQueue::append;
+    /* pipeline */
+    private volatile LogQueue<LoggingEvent> queue;
+    private final LongAdder dropped = new LongAdder();
+    private final List<LogSink> sinks = new ArrayList<>();
+    private volatile Thread drainer;
+    private volatile boolean drainerParked;
+    private volatile boolean closed;
     
     
     /**************************************************************************
@@ -28,44 +94,346 @@ public class LogAppender extends WriterAppender {
      *                                                                        *
      *************************************************************************/
     
+    /**
+     * Offers an event to this appender's queue, without taking a lock.
+     * <p>
+     * If the queue is full then the event is dropped, or the calling thread
+     * waits for room, depending on this appender's overflow policy.
+     */
     @Override
-    public void append(final LoggingEvent loggingEvent) {
-        /* if the log text area has not been loaded, then append the logging event
-         * message to the pre log string builder, otherwise append the logging event
-         * message to the log text area */
-        currentAppendMethod.accept(this.layout.format(loggingEvent));
+    public void doAppend(final LoggingEvent event) {
+        if (closed || !isAccepted(event)) { return; }
+        
+        final LogQueue<LoggingEvent> q = queue;
+        if (q == null) {
+            errorHandler.error("appender [" + name + "] has not been activated");
+            return;
+        }
+        
+        // capture thread bound state now, the event is formatted on another thread
+        event.getThreadName();
+        event.getNDC();
+        event.getMDCCopy();
+        
+        if (!q.offer(event) && !waitForRoom(q, event)) {
+            dropped.increment();
+            return;
+        }
+        
+        if (drainerParked) { LockSupport.unpark(drainer); }
     }
     
-    /** 
-     * Sets the logging event text area where logging messages are appended.
-     * <p>
-     * This method also appends any queued logging event messages that occurred
-     * prior to invoking this method.
-     * @param textArea - where the logs are appended to
+    /**
+     * Starts this appender's drain thread, opening its log file, if one has
+     * been set.
      */
-    public static void setTextArea(final TextArea textArea) {
-        LogAppender.textArea = textArea;
+    @Override
+    public void activateOptions() {
+        if (drainer != null) { return; }
         
-        // append any queued logging event messages to the specified text area
-        appendToTextArea(preLoadLogMsgQueue.toString());
-        preLoadLogMsgQueue.setLength(0);
-        preLoadLogMsgQueue = null;
+        sinks.add(LogAppender::offerToUi);
+        if (file != null && !file.isBlank()) {
+            try {
+                sinks.add(new LogFileSink(Paths.get(file)));
+            } catch (IOException ioe) {
+                errorHandler.error("could not open log file [" + file + "]", ioe,
+                    ErrorCode.FILE_OPEN_FAILURE);
+            }
+        }
         
-        // switch to appending logging event messages to the log text area
-        currentAppendMethod = LogAppender::appendToTextArea;
+        start();
+    }
+    
+    /**
+     * Stops accepting events, waits for the drain thread to write every queued
+     * event and closes the log file.
+     */
+    @Override
+    public void close() {
+        if (closed) { return; }
+        closed = true;
+        
+        Thread t = drainer;
+        if (t == null) { return; }
+        
+        LockSupport.unpark(t);
+        try {
+            t.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /** @return the number of events dropped because the queue was full */
+    public long getDroppedCount() { return dropped.sum(); }
+    
+    /**
+     * @return the number of entries dropped because the log view fell behind,
+     *         or hadn't been loaded yet
+     */
+    public static long getDroppedUiCount() { return uiDropped.sum(); }
+    
+    /**
+     * Sets the log buffer that logging events are appended to, and starts
+     * appending formatted entries to it once per pulse.
+     * <p>
+     * This method must be called on the JavaFX application thread. Any entries
+     * waiting prior to invoking this method are appended on the next pulse.
+     *
+     * @param buffer - where logging events are appended to
+     * @param onAppended - run, on the JavaFX application thread, after each
+     *        batch of events is appended, or {@code null}
+     */
+    public static void setLogBuffer(final LogBuffer buffer, final Runnable onAppended) {
+        if (pump != null) { pump.stop(); }
+        pump = new LogPump(buffer, onAppended);
+        pump.start();
     }
     
     
+    /**************************************************************************
+     *                                                                        *
+     * Options                                                                *
+     *                                                                        *
+     *************************************************************************/
+    
+    /**
+     * Sets the capacity of this appender's queue, must be set before the
+     * appender is activated.
+     *
+     * @param bufferSize - the maximum number of queued events
+     */
+    public void setBufferSize(final int bufferSize) { this.bufferSize = bufferSize; }
+    
+    /** @return the maximum number of queued events */
+    public int getBufferSize() { return bufferSize; }
+    
+    /**
+     * Sets what logging an event does when this appender's queue is full.
+     * <p>
+     * <b>Note:</b> blocking makes a logging thread wait on the drain thread,
+     * don't block if the JavaFX application thread logs much.
+     *
+     * @param overflow - {@code "drop"}, the default, or {@code "block"}
+     * @throws IllegalArgumentException if {@code overflow} is neither
+     */
+    public void setOverflow(final String overflow) {
+        this.overflow = Overflow.valueOf(overflow.trim().toUpperCase(Locale.ROOT));
+    }
+    
+    /** @return what logging an event does when the queue is full */
+    public String getOverflow() { return overflow.name().toLowerCase(Locale.ROOT); }
+    
+    /**
+     * Sets a file that entries are also appended to, must be set before the
+     * appender is activated.
+     *
+     * @param file - the path of the log file, or {@code null} for none
+     */
+    public void setFile(final String file) { this.file = file; }
+    
+    /** @return the path of the log file, or {@code null} if there is none */
+    public String getFile() { return file; }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     * Appender API                                                           *
+     *                                                                        *
+     *************************************************************************/
+    
+    @Override
+    public synchronized void addFilter(final Filter filter) {
+        if (headFilter == null) {
+            headFilter = filter;
+        } else {
+            tailFilter.setNext(filter);
+        }
+        tailFilter = filter;
+    }
+    
+    @Override
+    public Filter getFilter() { return headFilter; }
+    
+    @Override
+    public synchronized void clearFilters() {
+        headFilter = null;
+        tailFilter = null;
+    }
+    
+    @Override
+    public String getName() { return name; }
+    
+    @Override
+    public void setName(final String name) { this.name = name; }
+    
+    @Override
+    public void setErrorHandler(final ErrorHandler errorHandler) {
+        if (errorHandler != null) { this.errorHandler = errorHandler; }
+    }
+    
+    @Override
+    public ErrorHandler getErrorHandler() { return errorHandler; }
+    
+    @Override
+    public void setLayout(final Layout layout) { this.layout = layout; }
+    
+    @Override
+    public Layout getLayout() { return layout; }
+    
+    @Override
+    public boolean requiresLayout() { return true; }
+    
+    
     /**************************************************************************
      *                                                                        *
      * Private API                                                            *
      *                                                                        *
      *************************************************************************/
     
-    /** Appends a logging event message to the end of the log text area. */
-    private static void appendToTextArea(final String message) {
-        textArea.selectEnd();
-        textArea.insertText(textArea.getText().length(), message);
+    /** Adds a sink, used by tests to observe the drain thread. */
+    void addSink(final LogSink sink) { sinks.add(sink); }
+    
+    /** Creates the queue and starts the drain thread. */
+    void start() {
+        queue = new LogQueue<>(Math.max(1, bufferSize));
+        
+        Thread t = new Thread(this::drain, "log-drain-" + name);
+        t.setDaemon(true);
+        drainer = t;
+        t.start();
+    }
+    
+    /** Runs the event through the filter chain, like {@code AppenderSkeleton}. */
+    private boolean isAccepted(final LoggingEvent event) {
+        for (Filter f = headFilter; f != null; f = f.getNext()) {
+            switch (f.decide(event)) {
+                case Filter.DENY:
+                    return false;
+                case Filter.ACCEPT:
+                    return true;
+                default: // NEUTRAL
+            }
+        }
+        
+        return true;
+    }
+    
+    /** Waits for room in a full queue, if blocking, returns false if the event was not queued. */
+    private boolean waitForRoom(final LogQueue<LoggingEvent> q, final LoggingEvent event) {
+        // the drain thread can't wait on itself, e.g. if a sink logs
+        if (overflow != Overflow.BLOCK || Thread.currentThread() == drainer) { return false; }
+        
+        do {
+            if (drainerParked) { LockSupport.unpark(drainer); }
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            if (closed) { return false; }
+        } while (!q.offer(event));
+        
+        return true;
+    }
+    
+    /** The drain thread's loop, formats and fans out events until closed and drained. */
+    private void drain() {
+        final LogQueue<LoggingEvent> q = queue;
+        long reportedDrops = 0;
+        
+        while (true) {
+            LoggingEvent event = q.poll();
+            if (event != null) {
+                fanOut(format(event));
+                continue;
+            }
+            
+            // the queue is empty, report drops and flush before sleeping
+            long drops = dropped.sum();
+            if (drops > reportedDrops) {
+                fanOut(new LogEntry(Level.WARN, System.currentTimeMillis(),
+                    (drops - reportedDrops) + " log events were dropped, the log queue was full"));
+                reportedDrops = drops;
+            }
+            flushSinks();
+            
+            if (closed && q.isEmpty()) { break; }
+            
+            // loggers unpark this thread if they see it parked
+            drainerParked = true;
+            if (q.isEmpty() && !closed) { LockSupport.parkNanos(this, MAX_PARK_NANOS); }
+            drainerParked = false;
+        }
+        
+        closeSinks();
+    }
+    
+    /** Formats an event with this appender's layout. */
+    private LogEntry format(final LoggingEvent event) {
+        String message = layout.format(event).stripTrailing();
+        String[] stackTrace = layout.ignoresThrowable() ? event.getThrowableStrRep() : null;
+        
+        return new LogEntry(event.getLevel(), event.getTimeStamp(), message, stackTrace);
+    }
+    
+    /** Passes an entry to every sink, a failing sink doesn't stop the others. */
+    private void fanOut(final LogEntry entry) {
+        for (LogSink sink : sinks) {
+            try {
+                sink.accept(entry);
+            } catch (IOException | RuntimeException e) {
+                errorHandler.error("log sink failed", e, ErrorCode.WRITE_FAILURE);
+            }
+        }
+    }
+    
+    /** Flushes every sink. */
+    private void flushSinks() {
+        for (LogSink sink : sinks) {
+            try {
+                sink.flush();
+            } catch (IOException | RuntimeException e) {
+                errorHandler.error("log sink failed to flush", e, ErrorCode.FLUSH_FAILURE);
+            }
+        }
+    }
+    
+    /** Closes every sink. */
+    private void closeSinks() {
+        for (LogSink sink : sinks) {
+            try {
+                sink.close();
+            } catch (IOException | RuntimeException e) {
+                errorHandler.error("log sink failed to close", e, ErrorCode.CLOSE_FAILURE);
+            }
+        }
+    }
+    
+    /** The sink that hands entries to the log view, drops them if it fell behind. */
+    private static void offerToUi(final LogEntry entry) {
+        if (!uiQueue.offer(entry)) { uiDropped.increment(); }
+    }
+    
+    /** Moves formatted entries to the log buffer, once per pulse. */
+    private static class LogPump extends AnimationTimer {
+        private final LogBuffer buffer;
+        private final Runnable onAppended;
+        
+        LogPump(final LogBuffer buffer, final Runnable onAppended) {
+            this.buffer = buffer;
+            this.onAppended = onAppended;
+        }
+        
+        @Override
+        public void handle(final long now) {
+            List<LogEntry> batch = new ArrayList<>();
+            LogEntry entry;
+            while ((entry = uiQueue.poll()) != null) {
+                batch.add(entry);
+            }
+            
+            if (batch.isEmpty()) { return; }
+            
+            buffer.append(batch);
+            if (onAppended != null) { onAppended.run(); }
+        }
     }
     
     
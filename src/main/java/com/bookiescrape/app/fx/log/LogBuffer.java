@@ -0,0 +1,120 @@
+package com.bookiescrape.app.fx.log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.collections.ObservableListBase;
+
+/**
+ * A fixed capacity, observable ring buffer of log entries, backing the log
+ * view's list.
+ * <p>
+ * Entries are appended in batches, once the buffer is full each batch evicts
+ * the oldest entries to make room. Appending never copies the entries already
+ * in the buffer, and each batch is reported to listeners as a single change,
+ * so a virtualized {@code ListView} only lays out the cells it shows.
+ * <p>
+ * <b>Note:</b> like any list shown by a JavaFX control, this buffer must only
+ * be modified on the JavaFX application thread.
+ *
+ * @author Jonathan Henly
+ */
+public class LogBuffer extends ObservableListBase<LogEntry> {
+    
+    /** The default maximum number of entries kept. */
+    public static final int DEFAULT_CAPACITY = 10_000;
+    
+    private final LogEntry[] ring;
+    private int head;
+    private int size;
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     * Constructor(s)                                                         *
+     *                                                                        *
+     *************************************************************************/
+    
+    /** Creates a log buffer that keeps the {@link #DEFAULT_CAPACITY} newest entries. */
+    public LogBuffer() { this(DEFAULT_CAPACITY); }
+    
+    /**
+     * Creates a log buffer that keeps, at most, the specified number of the
+     * newest entries.
+     *
+     * @param capacity - the maximum number of entries kept
+     * @throws IllegalArgumentException if {@code capacity} is less than one
+     */
+    public LogBuffer(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be greater than zero, but was " + capacity);
+        }
+        
+        ring = new LogEntry[capacity];
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     * Public API                                                             *
+     *                                                                        *
+     *************************************************************************/
+    
+    /** @return the maximum number of entries kept */
+    public int capacity() { return ring.length; }
+    
+    /**
+     * Appends a batch of entries, evicting the oldest entries if the buffer
+     * would overflow.
+     * <p>
+     * If the batch alone holds more entries than the buffer's capacity, then
+     * only its newest entries are kept.
+     *
+     * @param entries - the entries to append, oldest first
+     */
+    public void append(final List<LogEntry> entries) {
+        final int n = entries.size();
+        if (n == 0) { return; }
+        
+        final int capacity = ring.length;
+        final int first = Math.max(0, n - capacity);
+        final int adding = n - first;
+        final int evicting = Math.max(0, size + adding - capacity);
+        
+        beginChange();
+        try {
+            if (evicting > 0) {
+                List<LogEntry> evicted = new ArrayList<>(evicting);
+                for (int i = 0; i < evicting; i++) {
+                    evicted.add(ring[head]);
+                    ring[head] = null;
+                    head = (head + 1) % capacity;
+                }
+                size -= evicting;
+                nextRemove(0, evicted);
+            }
+            
+            final int from = size;
+            for (int i = first; i < n; i++) {
+                ring[(head + size) % capacity] = entries.get(i);
+                size += 1;
+            }
+            nextAdd(from, size);
+        } finally {
+            endChange();
+        }
+    }
+    
+    @Override
+    public LogEntry get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+        
+        return ring[(head + index) % ring.length];
+    }
+    
+    @Override
+    public int size() { return size; }
+    
+} // class LogBuffer
@@ -0,0 +1,78 @@
+package com.bookiescrape.app.fx.log;
+
+import org.apache.log4j.Level;
+
+/**
+ * A single logging event, as shown in the log view.
+ * <p>
+ * The event's message is formatted by the appender's layout once, when the
+ * event is logged, so rendering an entry never formats it again.
+ *
+ * @author Jonathan Henly
+ */
+public final class LogEntry {
+    
+    private final Level level;
+    private final long timeStamp;
+    private final String message;
+    private final String[] throwableLines;
+    
+    /**
+     * Creates a log entry.
+     *
+     * @param level - the level the event was logged at
+     * @param timeStamp - when the event was logged, in milliseconds since the
+     *        epoch
+     * @param message - the event's formatted message
+     */
+    public LogEntry(final Level level, final long timeStamp, final String message) {
+        this(level, timeStamp, message, null);
+    }
+    
+    /**
+     * Creates a log entry for an event that was logged with a throwable.
+     *
+     * @param level - the level the event was logged at
+     * @param timeStamp - when the event was logged, in milliseconds since the
+     *        epoch
+     * @param message - the event's formatted message
+     * @param throwableLines - the lines of the throwable's stack trace, or
+     *        {@code null}
+     */
+    public LogEntry(final Level level, final long timeStamp, final String message,
+        final String[] throwableLines) {
+        this.level = level;
+        this.timeStamp = timeStamp;
+        this.message = message;
+        this.throwableLines = throwableLines;
+    }
+    
+    /** @return the level the event was logged at */
+    public Level getLevel() { return level; }
+    
+    /** @return when the event was logged, in milliseconds since the epoch */
+    public long getTimeStamp() { return timeStamp; }
+    
+    /** @return the event's formatted message */
+    public String getMessage() { return message; }
+    
+    /**
+     * @return the lines of the stack trace of the throwable the event was
+     *         logged with, or {@code null} if it wasn't logged with one
+     */
+    public String[] getThrowableLines() { return throwableLines; }
+    
+    /**
+     * Gets whether this entry was logged at, or above, the specified level.
+     *
+     * @param threshold - the level to compare against
+     * @return {@code true} if this entry's level is greater than or equal to
+     *         {@code threshold}, otherwise {@code false}
+     */
+    public boolean isAtLeast(final Level threshold) { return level.isGreaterOrEqual(threshold); }
+    
+    /** @return this entry's formatted message, as shown by list cells */
+    @Override
+    public String toString() { return message; }
+    
+} // class LogEntry
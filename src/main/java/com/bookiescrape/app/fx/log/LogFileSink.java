@@ -0,0 +1,62 @@
+package com.bookiescrape.app.fx.log;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A log sink that appends log entries, one per line followed by any stack
+ * trace, to a file.
+ * <p>
+ * Entries are written through a buffer that's only flushed when the drain
+ * thread has emptied its queue, so a burst of events costs one write.
+ *
+ * @author Jonathan Henly
+ */
+final class LogFileSink implements LogSink {
+    
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    private final Writer out;
+    
+    /**
+     * Opens a file sink, creating the file and its parent directories if they
+     * don't exist.
+     *
+     * @param file - the file to append log entries to
+     * @throws IOException if the file can't be opened
+     */
+    LogFileSink(final Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) { Files.createDirectories(dir); }
+        
+        out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+    
+    @Override
+    public void accept(final LogEntry entry) throws IOException {
+        out.write(entry.getMessage());
+        out.write(System.lineSeparator());
+        
+        String[] stackTrace = entry.getThrowableLines();
+        if (stackTrace == null) { return; }
+        
+        for (String line : stackTrace) {
+            out.write(line);
+            out.write(System.lineSeparator());
+        }
+    }
+    
+    @Override
+    public void flush() throws IOException { out.flush(); }
+    
+    @Override
+    public void close() throws IOException { out.close(); }
+    
+} // class LogFileSink
@@ -0,0 +1,115 @@
+package com.bookiescrape.app.fx.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free, multiple producer single consumer queue.
+ * <p>
+ * The queue is a ring of slots, each with a sequence number that says whether
+ * the slot is free for the producer claiming that position, or holds an
+ * element for the consumer. Producers claim positions with a single
+ * compare-and-set on the tail, so a producer never waits on another producer,
+ * or on the consumer, and a full queue is reported instead of waited on. Only
+ * one thread may poll the queue.
+ *
+ * @param <E> the type of elements held in this queue
+ * @author Jonathan Henly
+ */
+final class LogQueue<E> {
+    
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    /* only read and written by the consumer */
+    private long head;
+    
+    /**
+     * Creates a queue that holds, at least, the specified number of elements.
+     *
+     * @param capacity - the minimum capacity, rounded up to a power of two, of
+     *        at least two
+     * @throws IllegalArgumentException if {@code capacity} is less than one
+     */
+    LogQueue(final int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30, but was " + capacity);
+        }
+        
+        // with one slot, a full slot would look free to the next position
+        int size = Math.max(2, Integer.highestOneBit(capacity));
+        if (size < capacity) { size <<= 1; }
+        
+        slots = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i); // slot i is free for position i
+        }
+        mask = size - 1;
+    }
+    
+    /** @return the number of elements this queue can hold */
+    int capacity() { return mask + 1; }
+    
+    /**
+     * Adds an element to the tail of this queue, unless the queue is full.
+     * <p>
+     * This method is safe to call from any thread.
+     *
+     * @param element - the element to add, not {@code null}
+     * @return {@code true} if the element was added, {@code false} if the queue
+     *         is full
+     */
+    boolean offer(final E element) {
+        long pos = tail.get();
+        while (true) {
+            int slot = (int) (pos & mask);
+            long diff = sequences.get(slot) - pos;
+            
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.set(slot, element);
+                    // publishes the element to the consumer
+                    sequences.set(slot, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false; // the consumer hasn't freed this slot yet
+            } else {
+                pos = tail.get(); // another producer claimed this position
+            }
+        }
+    }
+    
+    /**
+     * Removes the element at the head of this queue.
+     * <p>
+     * This method must only be called by the queue's single consumer.
+     *
+     * @return the head of this queue, or {@code null} if it's empty
+     */
+    E poll() {
+        int slot = (int) (head & mask);
+        if (sequences.get(slot) != head + 1) { return null; }
+        
+        E element = slots.get(slot);
+        slots.set(slot, null);
+        // frees the slot for the producer that wraps around to it
+        sequences.set(slot, head + mask + 1);
+        head += 1;
+        
+        return element;
+    }
+    
+    /**
+     * Gets whether this queue is empty, as seen by the consumer.
+     *
+     * @return {@code true} if the next {@link #poll()} would return
+     *         {@code null}
+     */
+    boolean isEmpty() { return sequences.get((int) (head & mask)) != head + 1; }
+    
+} // class LogQueue
@@ -0,0 +1,39 @@
+package com.bookiescrape.app.fx.log;
+
+import java.io.IOException;
+
+/**
+ * A destination that the log appender's drain thread fans log entries out to.
+ * <p>
+ * Sinks are only ever called by the drain thread, so they don't need to be
+ * thread safe.
+ *
+ * @author Jonathan Henly
+ */
+interface LogSink extends AutoCloseable {
+    
+    /**
+     * Accepts a formatted log entry.
+     *
+     * @param entry - the entry to accept
+     * @throws IOException if an I/O error occurs
+     */
+    void accept(LogEntry entry) throws IOException;
+    
+    /**
+     * Called once the drain thread has emptied the queue, so sinks that buffer
+     * entries can flush them in one go.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    default void flush() throws IOException {}
+    
+    /**
+     * Releases any resources held by this sink.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    default void close() throws IOException {}
+    
+} // interface LogSink
@@ -66,6 +66,7 @@ public final class ApplicationBooter {
     private static FileAppender bootLog;
     private static Properties bootProps;
     private static ApplicationMediator appMediator;
+    private static ScrapeScheduler scrapeScheduler;
     private static Consumer<Exception> fatalHook;
     
     
@@ -144,6 +145,12 @@ public final class ApplicationBooter {
         LOG.info("finished application boot sequence\n");
         
         ApplicationLauncher.launchApplication(appMediator);
+        
+        // the application has exited, let a running cycle finish saving the workbook
+        if (scrapeScheduler != null) {
+            LOG.info("closing scrape scheduler, waiting for any running scrape cycle");
+            scrapeScheduler.close();
+        }
     }
     
     
@@ -208,6 +215,11 @@ public final class ApplicationBooter {
         LOG.info("creating application mediator with user settings");
         // create application mediator with user settings
         appMediator = new ApplicationMediator(userSettings);
+        
+        // schedule scrape cycles, the dashboard shows the scheduler's next run
+        scrapeScheduler = AutoScrape.createScheduler(propFilePath);
+        appMediator.setScrapeScheduler(scrapeScheduler);
+        if (scrapeScheduler != null) { scrapeScheduler.start(); }
     }
     
     private static void createBootProperties() throws IOException {
@@ -17,6 +17,7 @@ public class ApplicationMediator {
     private static final Logger LOG = LoggerFactory.getLogger(ApplicationMediator.class);
     
     private Settings settings;
+    private ScrapeScheduler scrapeScheduler;
     
     /**************************************************************************
      *                                                                        *
@@ -46,6 +47,21 @@ public class ApplicationMediator {
      */
     public Settings getUserSettings() { return settings; }
     
+    /**
+     * Sets the scheduler that runs scrape cycles, the dashboard shows its
+     * next run and the duration of its last cycle.
+     * @param scheduler - the scrape scheduler, or {@code null} if scrapes
+     *        aren't scheduled
+     */
+    public void setScrapeScheduler(ScrapeScheduler scheduler) { scrapeScheduler = scheduler; }
+    
+    /**
+     * Gets the scheduler that runs scrape cycles.
+     * @return the scrape scheduler, or {@code null} if scrapes aren't
+     *         scheduled
+     */
+    public ScrapeScheduler getScrapeScheduler() { return scrapeScheduler; }
+    
     /**
      * 
      * @param <T>
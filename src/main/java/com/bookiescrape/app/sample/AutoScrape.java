@@ -0,0 +1,77 @@
+package com.bookiescrape.app.sample;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.prefs.BackingStoreException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bookiescrape.app.config.RequiredSettingNotFoundException;
+import com.bookiescrape.app.config.Settings;
+import com.bookiescrape.app.config.UserSettings;
+
+
+/**
+ * Creates the scheduler that runs the GUI's scrape cycles at the user's auto
+ * scrape interval.
+ * <p>
+ * The GUI loads its own settings through the {@code app.settings} package,
+ * while scrape cycles run on the {@code app.config} package's
+ * {@link Settings}. Both packages have a {@code Settings} and a
+ * {@code UserSettings} class, so the scrape side is kept in this class,
+ * rather than in {@link ApplicationBooter}.
+ *
+ * @author Jonathan Henly
+ */
+final class AutoScrape {
+    private static final Logger LOG = LoggerFactory.getLogger(AutoScrape.class);
+    
+    private AutoScrape() {}
+    
+    /**
+     * Creates a scheduler that runs scrape cycles at the auto scrape interval
+     * of the specified properties file. The start of each sheet's scrape is
+     * staggered like the headless application does by default.
+     * <p>
+     * Scraping isn't required to run the application, so if the scrape
+     * settings can't be loaded, or the interval is {@code 0}, then this method
+     * logs why and returns {@code null}.
+     *
+     * @param propFilePath
+     *                     - path of the user's properties file
+     * @return a scheduler that hasn't been started, or {@code null}
+     */
+    static ScrapeScheduler createScheduler(String propFilePath) {
+        Settings settings;
+        try {
+            LOG.info("loading scrape settings from user settings file path");
+            settings = UserSettings.loadSettings(propFilePath);
+        } catch (RequiredSettingNotFoundException | IOException
+            | BackingStoreException e) {
+            LOG.error("could not load scrape settings, scrapes will not be"
+                + " scheduled", e);
+            return null;
+        }
+        
+        int interval = settings.getAutoScrapeInterval();
+        if (interval <= 0) {
+            LOG.info("auto scrape interval is 0, scrapes will not be"
+                + " scheduled");
+            return null;
+        }
+        
+        Mediator mediator = new Mediator(settings);
+        mediator.setStagger(Mediator.DEF_STAGGER_MILLIS,
+            Mediator.DEF_JITTER_MILLIS);
+        
+        ScrapeScheduler scheduler = new ScrapeScheduler(
+            mediator::runScrapeCycle, TimeUnit.MINUTES.toMillis(interval));
+        scheduler.setLastScrapeTime(settings.getLastScrapeTime());
+        scheduler.setLastScrapeStore(UserSettings::saveLastScrapeTime);
+        
+        LOG.info("scheduling scrapes every {} minute(s)", interval);
+        return scheduler;
+    }
+    
+} // class AutoScrape
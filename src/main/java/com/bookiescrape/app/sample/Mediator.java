@@ -5,18 +5,19 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.prefs.BackingStoreException;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.bookiescrape.app.config.RequiredSettingNotFoundException;
 import com.bookiescrape.app.config.Settings;
 import com.bookiescrape.app.config.UserSettings;
 import com.bookiescrape.app.config.Settings.SheetSettings;
 import com.bookiescrape.app.excel.SheetNotFoundException;
 import com.bookiescrape.app.excel.WorkbookFactory;
-import com.bookiescrape.app.excel.WorkbookReader;
+import com.bookiescrape.app.excel.WorkbookSession;
 import com.bookiescrape.app.scrape.Bookie;
-import com.bookiescrape.app.scrape.Scraper;
 
 
 /**
@@ -26,38 +27,49 @@ import com.bookiescrape.app.scrape.Scraper;
  * @author Jonathan Henly
  */
 public class Mediator {
+    private static final Logger LOG = LoggerFactory.getLogger(Mediator.class);
     
+    /** Default time between the start of consecutive sheets' scrapes. */
+    public static final long DEF_STAGGER_MILLIS = 2_000L;
+    /** Default maximum random delay added to each sheet's scrape start. */
+    public static final long DEF_JITTER_MILLIS = 1_000L;
     
     // private constants
-    private static final String DEF_PROPS_FILE = "config.properties";
-    private static final String DEF_EXCEL_FILE = "src/test/resources/excel/test.xlsx";
+    private static final int DEF_SCRAPE_POOL_SIZE = 4;
     
     // private members
-    private String excelFilePath;
-    private List<String> sheetNames;
-    private Scraper scraper;
-    private Settings settings;
+    private final String excelFilePath;
+    private final List<String> sheetNames;
+    private final Settings settings;
+    private final int scrapePoolSize;
+    // outlives each scrape cycle, so stale rows and columns can be cleared
+    private final OddsSheetWriter oddsSheets = new OddsSheetWriter();
+    private long staggerMillis;
+    private long jitterMillis;
     
     /**
-     * TODO DELETE THIS METHOD AFTER DEBBUGGING
+     * Constructor that uses already loaded settings and the settings' Excel
+     * file.
      *
-     * @param args
-     *             - command line arguments
+     * @param settings
+     *                 - the loaded user settings
      */
-    public static void main(String[] args) {
-        Mediator mediator = new Mediator();
+    public Mediator(Settings settings) {
+        this(settings, DEF_SCRAPE_POOL_SIZE);
     }
     
     /**
-     * TODO DELETE THIS DEBUGGIN CONSTRUCTOR
-     * <p>
-     * Constructor that uses default properties file and default Excel file.
+     * Constructor that uses already loaded settings and the settings' Excel
+     * file, and scrapes the url of each sheet concurrently, on at most
+     * {@code scrapePoolSize} scrapers.
+     *
+     * @param settings
+     *                       - the loaded user settings
+     * @param scrapePoolSize
+     *                       - the maximum number of sheets to scrape at once
      */
-    public Mediator() { this(DEF_PROPS_FILE, DEF_EXCEL_FILE); }
-    
-    public Mediator(Settings settings) {
-        excelFilePath = settings.getExcelFilePath();
-        
+    public Mediator(Settings settings, int scrapePoolSize) {
+        this(settings, settings.getExcelFilePath(), scrapePoolSize);
     }
     
     /**
@@ -69,50 +81,120 @@ public class Mediator {
      *                       -
      */
     public Mediator(String propertiesPath, String excelFilePath) {
-        this.excelFilePath = excelFilePath;
-        try {
-            settings = UserSettings.loadUserSettings(propertiesPath,
-                excelFilePath);
-        } catch (RequiredSettingNotFoundException | IOException e) {
-            e.printStackTrace();
-        } catch (BackingStoreException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
-        }
+        this(propertiesPath, excelFilePath, DEF_SCRAPE_POOL_SIZE);
+    }
+    
+    /**
+     * Constructor that scrapes the url of each sheet concurrently, on at most
+     * {@code scrapePoolSize} scrapers.
+     *
+     * @param propertiesPath
+     *                       -
+     * @param excelFilePath
+     *                       -
+     * @param scrapePoolSize
+     *                       - the maximum number of sheets to scrape at once
+     */
+    public Mediator(String propertiesPath, String excelFilePath,
+        int scrapePoolSize) {
+        this(loadSettings(propertiesPath, excelFilePath), excelFilePath,
+            scrapePoolSize);
         
-        settings.listSettings(System.out);
-        System.out.println("ExcelFilePath: " + excelFilePath);
+        LOG.debug("loaded settings from '{}' for workbook '{}'",
+            propertiesPath, excelFilePath);
+    }
+    
+    /* every constructor ends up here, sets up each sheet's data store once */
+    private Mediator(Settings settings, String excelFilePath,
+        int scrapePoolSize) {
+        this.settings = settings;
+        this.excelFilePath = excelFilePath;
+        this.scrapePoolSize = scrapePoolSize;
         sheetNames = settings.getSheetNames();
         
-        
-        // create data store for each sheet
+        // create data store for each sheet, sheet data outlives each scrape
+        // cycle so that a cycle's changes are relative to the previous cycle
         createSheetDataForEachSheet();
         // add sheet settings to sheet data stores
         addSheetSettingsToEachSheetData();
-        // add existing bookies to sheet data if keep order is true
-        addExistingBookiesFromSheetToSheetData();
-        System.exit(1);
-        
-        scraper = new Scraper();
-        for (String sheet : sheetNames) {
+    }
+    
+    /* loads settings for the properties file constructors */
+    private static Settings loadSettings(String propertiesPath,
+        String excelFilePath) {
+        try {
+            return UserSettings.loadUserSettings(propertiesPath,
+                excelFilePath);
+        } catch (RequiredSettingNotFoundException | IOException
+            | BackingStoreException e) {
+            throw new IllegalStateException("could not load user settings",
+                e);
+        }
+    }
+    
+    /**
+     * Spreads out the start of each sheet's scrape in every following scrape
+     * cycle, so the sites being scraped aren't all hit at once.
+     *
+     * @param staggerMillis
+     *                      - the time between the start of consecutive
+     *                      sheets' scrapes, in milliseconds
+     * @param jitterMillis
+     *                      - the maximum random delay added to each sheet's
+     *                      start, in milliseconds
+     */
+    public void setStagger(long staggerMillis, long jitterMillis) {
+        this.staggerMillis = staggerMillis;
+        this.jitterMillis = jitterMillis;
+    }
+    
+    /**
+     * Runs a single scrape cycle, scrapes the url of every sheet and writes
+     * the results to the Excel workbook.
+     * <p>
+     * The workbook is opened once per cycle, for every sheet's reads and
+     * writes, and saved when the cycle ends. This method can be called any
+     * number of times, but not concurrently.
+     *
+     * @return {@code true} if every sheet was scraped and the workbook was
+     *         saved, otherwise {@code false}
+     */
+    public boolean runScrapeCycle() {
+        // open the workbook once, for every sheet's reads and writes
+        try (WorkbookSession session =
+            WorkbookFactory.openWorkbookSession(excelFilePath)) {
+            // add existing bookies to sheet data if keep order is true
+            addExistingBookiesFromSheetToSheetData(session);
             
-            // TODO remove this debugging conditional
-            if (!sheet.equals("NFL")) {
-                continue;
+            // scrape every sheet's url concurrently, no need for more scrapers
+            // than there are sheets
+            int poolSize =
+                Math.max(1, Math.min(scrapePoolSize, sheetNames.size()));
+            ScrapeSummary summary;
+            WriteBehindQueue persister = WriteBehindQueue
+                .forSession(session, oddsSheets, sheetNames.size(), true);
+            // finished sheets are written while others are still scraping,
+            // the engine closes first, then the queue writes what's pending
+            try (persister; ScrapeEngine engine = new ScrapeEngine(poolSize)) {
+                engine.setWriteBehind(persister);
+                engine.setStagger(staggerMillis, jitterMillis);
+                summary = engine.scrapeSheets(sheetNames);
             }
             
-            SheetData sd = SheetData.getSheetData(sheet);
-            SheetSettings ss = sd.getSheetSettings();
+            LOG.info("workbook '{}' opened in {} ms, saved {} bytes in {} ms",
+                excelFilePath, session.openMillis(), session.savedBytes(),
+                session.saveMillis());
             
-            System.out.println("Scraping bookies for sheet: " + sheet);
-            sd.setCurrentBookies(
-                getCurrentBookies(scraper, ss.getScrapeUrl(), sheet));
+            return summary.numFailed() == 0 && persister.failures() == 0;
+        } catch (IOException ioe) {
+            LOG.error("scrape cycle failed for workbook '{}'", excelFilePath,
+                ioe);
+            return false;
         }
-        
-        // outputBookiesFromSheets(sheetData);
     }
     
-    private void addExistingBookiesFromSheetToSheetData() {
+    private void addExistingBookiesFromSheetToSheetData(WorkbookSession session)
+        throws IOException {
         for (String sheetName : sheetNames) {
             SheetData sd = SheetData.getSheetData(sheetName);
             SheetSettings ss = sd.getSheetSettings();
@@ -125,15 +207,10 @@ public class Mediator {
             int brow = ss.getTableRow();
             int bcol = ss.getBookieCol();
             
-            try (WorkbookReader reader = WorkbookFactory
-                .newWorkbookReader(excelFilePath)) {
-                sd.setExistingBookies(
-                    getBookiesFromSheet(reader, sheetName, brow, bcol));
-            } catch (IOException ioe) {
-                ioe.printStackTrace();
-            }
+            sd.setExistingBookies(
+                getBookiesFromSheet(session, sheetName, brow, bcol));
             
-            System.out.println("Added existing bookies for sheet " + sheetName);
+            LOG.debug("added existing bookies for sheet '{}'", sheetName);
         }
     }
     
@@ -151,37 +228,6 @@ public class Mediator {
         }
     }
     
-    
-    private List<Bookie> getCurrentBookies(Scraper scraper, String url,
-        String sheetName) {
-        // TODO change this from debugging
-        scraper.debugScrape(url, sheetName);
-        return scraper.getBookies();
-    }
-    
-    
-    private void outputBookiesFromSheets(Map<String, SheetData> map) {
-        for (String sheet : sheetNames) {
-            SheetData cur = map.get(sheet);
-            System.out
-                .println("Printing existing bookies from sheet: " + sheet);
-            
-            Map<String, Bookie> bookies = cur.getExistingBookies();
-            for (Entry<String, Bookie> bookie : bookies.entrySet()) {
-                Bookie b = bookie.getValue();
-                
-                System.out.print(b + "   ");
-            }
-            
-            System.out.println("Printing current bookies from sheet: " + sheet);
-            
-            for (Bookie bookie : cur.getCurrentBookies()) {
-                System.out.print(bookie + "   ");
-            }
-        }
-        
-    }
-    
     /**
      * Retrieves any bookies that are already listed in the Excel sheet, as well
      * as their column index. This method is useful for retaining the order of
@@ -205,18 +251,19 @@ public class Mediator {
      *         Excel sheet does not exist
      * @throws IOException
      */
-    private Map<String, Bookie> getBookiesFromSheet(WorkbookReader reader,
-        String sheetName, int bRow, int bCol) {
+    private Map<String, Bookie> getBookiesFromSheet(WorkbookSession session,
+        String sheetName, int bRow, int bCol) throws IOException {
         // read bookies names from Excel sheet
         List<String> bNames = null;
         try {
-            bNames = reader.forOpenRowRange(bRow, bCol).in(sheetName).read();
+            bNames = session.forOpenRowRange(bRow, bCol).in(sheetName).read();
         } catch (SheetNotFoundException e) {
             // TODO either throw SNFException or return Collections.emptyMap()
             
             bNames = Collections.emptyList();
             
-            e.printStackTrace();
+            LOG.warn("could not read existing bookies of sheet '{}'",
+                sheetName, e);
         }
         
         // return map of bookies read from Excel
@@ -0,0 +1,294 @@
+package com.bookiescrape.app.sample;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.bookiescrape.app.config.Settings.SheetSettings;
+import com.bookiescrape.app.excel.CellRange;
+import com.bookiescrape.app.excel.WorkbookWriter;
+import com.bookiescrape.app.scrape.Bookie;
+import com.bookiescrape.app.scrape.ChangeSet;
+import com.bookiescrape.app.scrape.DateGroup;
+import com.bookiescrape.app.scrape.Match;
+import com.bookiescrape.app.scrape.OddsSnapshot;
+
+/**
+ * Writes {@link SheetUpdate}s to their sheets, laid out like the sheets of the
+ * odds workbook.
+ * <p>
+ * The sheet's title is written to its title cell and the bookies' names to
+ * the table row, from the bookie column on. Below the table row, each match
+ * takes up two rows, the away team's row holds the over odds and the home
+ * team's row holds the under odds, of the opener, if the sheet has one, and of
+ * every bookie. Date groups follow one another without a gap.
+ * <p>
+ * Each writer remembers how many match rows and bookie columns it last wrote
+ * to each sheet, so rows and columns left over from a longer update are
+ * cleared. A writer should therefore outlive each scrape cycle, one writer per
+ * workbook. Until {@link #committed()} is called, the rows and columns of
+ * earlier updates are still cleared too, as a failed commit may have left them
+ * in the workbook file. Only the cells of an update that differ from the sheet
+ * are dirtied, if the workbook writer
+ * {@link WorkbookWriter#setSkipUnchangedCells(boolean) skips unchanged cells}.
+ * <p>
+ * An update whose {@link ChangeSet} is relative to the snapshot last
+ * committed to its sheet, and {@link ChangeSet#keepsLayout() keeps the
+ * layout}, is written by only writing the cells of its moved odds. Every
+ * other update is written in full.
+ *
+ * @author Jonathan Henly
+ */
+final class OddsSheetWriter {
+    private static final String ODDS_FORMAT = "0.00";
+    
+    /* the match rows and bookie columns an update took up in a sheet */
+    private static final class Extent {
+        private final int rows;
+        private final int bookies;
+        
+        private Extent(int rows, int bookies) {
+            this.rows = rows;
+            this.bookies = bookies;
+        }
+        
+        /* the extent covering both this extent and another */
+        private Extent union(Extent other) {
+            return new Extent(Math.max(rows, other.rows),
+                Math.max(bookies, other.bookies));
+        }
+    }
+    
+    // what may be in the workbook file, and what was written since committed
+    private final Map<String, Extent> extents = new HashMap<>();
+    private final Map<String, Extent> uncommitted = new HashMap<>();
+    // the snapshots the sheets were last laid out from, and since committed
+    private final Map<String, OddsSnapshot> snapshots = new HashMap<>();
+    private final Map<String, OddsSnapshot> uncommittedSnapshots =
+        new HashMap<>();
+    
+    /**
+     * Writes an update to its sheet, the workbook is not saved.
+     *
+     * @param writer
+     *               - the writer of the workbook holding the sheet
+     * @param update
+     *               - the update to write
+     * @return the number of cells dirtied
+     */
+    int write(WorkbookWriter writer, SheetUpdate update) {
+        String sheet = update.sheetName();
+        ChangeSet changes = update.changes();
+        // until committed, the sheet may not hold the last snapshot
+        OddsSnapshot last = snapshots.remove(sheet);
+        
+        int dirty = (changes != null && changes.keepsLayout()
+            && changes.previous() == last)
+                ? writeMovedOdds(writer, update, changes)
+                : writeAll(writer, update);
+        if (changes != null) {
+            uncommittedSnapshots.put(sheet, changes.current());
+        }
+        
+        int rows = 0;
+        for (DateGroup group : update.dateGroups()) {
+            rows += 2 * group.size();
+        }
+        
+        Extent now = new Extent(rows, update.bookies().size());
+        Extent lastExtent = extents.get(sheet);
+        if (lastExtent != null) {
+            dirty += clearStale(writer, update, lastExtent, now);
+            extents.put(sheet, lastExtent.union(now));
+        } else {
+            extents.put(sheet, now);
+        }
+        uncommitted.put(sheet, now);
+        
+        return dirty;
+    }
+    
+    /**
+     * Marks every update written since the last call as committed to the
+     * workbook file, from then on only the rows and columns left over from
+     * those updates are cleared.
+     */
+    void committed() {
+        extents.putAll(uncommitted);
+        uncommitted.clear();
+        snapshots.putAll(uncommittedSnapshots);
+        uncommittedSnapshots.clear();
+    }
+    
+    /**
+     * Forgets every update written since the last commit, as none of them may
+     * have made it to the workbook file. Their rows and columns are still
+     * cleared by later updates, and their sheets are next written in full.
+     */
+    void invalidate() {
+        uncommitted.clear();
+        uncommittedSnapshots.clear();
+    }
+    
+    /* writes an update's title, bookie names and every match */
+    private static int writeAll(WorkbookWriter writer, SheetUpdate update) {
+        SheetSettings ss = update.settings();
+        String sheet = update.sheetName();
+        List<Bookie> bookies = update.bookies();
+        
+        int dirty = writer
+            .forRange(CellRange.cell(ss.getTitleRow(), ss.getTitleCol()))
+            .in(sheet).write(List.of(ss.getSheetTitle()));
+        
+        if (!bookies.isEmpty()) {
+            List<String> names = new ArrayList<>(bookies.size());
+            for (Bookie bookie : bookies) {
+                names.add(bookie.name());
+            }
+            
+            dirty += writer.forRange(CellRange.rowRange(ss.getTableRow(),
+                ss.getBookieCol(), ss.getBookieCol() + bookies.size() - 1))
+                .in(sheet).write(names);
+        }
+        
+        int row = ss.getTableRow() + 1;
+        for (DateGroup group : update.dateGroups()) {
+            if (group.size() > 0) {
+                dirty += writeDateGroup(writer, update, group, row);
+                row += 2 * group.size();
+            }
+        }
+        
+        return dirty;
+    }
+    
+    /* writes only the opener and bookie cells of an update's moved odds */
+    private static int writeMovedOdds(WorkbookWriter writer,
+        SheetUpdate update, ChangeSet changes) {
+        List<ChangeSet.Change> moved =
+            changes.changes(ChangeSet.Type.ODDS_MOVED);
+        if (moved.isEmpty()) { return 0; }
+        
+        SheetSettings ss = update.settings();
+        String sheet = update.sheetName();
+        
+        // the layout is unchanged, so each match is on the row it was on
+        Map<Long, Integer> rowOf = new HashMap<>();
+        int row = ss.getTableRow() + 1;
+        for (DateGroup group : update.dateGroups()) {
+            for (int m = 0; m < group.size(); m++, row += 2) {
+                rowOf.put(group.getMatch(m).rotationKey(), row);
+            }
+        }
+        
+        int dirty = 0;
+        for (ChangeSet.Change change : moved) {
+            Integer at = rowOf.get(change.match().rotationKey());
+            if (at == null) { continue; }
+            
+            Match match = change.match();
+            double[] odds;
+            int col;
+            if (change.bookieIndex() == ChangeSet.OPENER) {
+                if (!ss.hasOpener()) { continue; }
+                
+                Match.Odds opener = match.opener();
+                odds = new double[] {
+                    (opener == null) ? Double.NaN : opener.overValue(),
+                    (opener == null) ? Double.NaN : opener.underValue() };
+                col = ss.getOpenerCol();
+            } else {
+                int index = update.bookies().get(change.bookieIndex()).index();
+                odds = new double[] { match.bookieOver(index),
+                    match.bookieUnder(index) };
+                col = ss.getBookieCol() + change.bookieIndex();
+            }
+            
+            dirty += writer.forRange(CellRange.colRange(col, at, at + 1))
+                .withFormat(ODDS_FORMAT).in(sheet).write(odds);
+        }
+        
+        return dirty;
+    }
+    
+    /* writes a date group's teams, opener and bookie odds from a row on */
+    private static int writeDateGroup(WorkbookWriter writer,
+        SheetUpdate update, DateGroup group, int row) {
+        SheetSettings ss = update.settings();
+        String sheet = update.sheetName();
+        int rows = 2 * group.size();
+        int lastRow = row + rows - 1;
+        
+        List<String> teams = new ArrayList<>(rows);
+        double[] opener = new double[rows];
+        for (int m = 0; m < group.size(); m++) {
+            Match match = group.getMatch(m);
+            teams.add(match.away());
+            teams.add(match.home());
+            
+            Match.Odds odds = match.opener();
+            opener[2 * m] = (odds == null) ? Double.NaN : odds.overValue();
+            opener[2 * m + 1] = (odds == null) ? Double.NaN
+                : odds.underValue();
+        }
+        
+        int dirty = writer
+            .forRange(CellRange.colRange(ss.getTeamsCol(), row, lastRow))
+            .in(sheet).write(teams);
+        
+        if (ss.hasOpener()) {
+            dirty += writer
+                .forRange(CellRange.colRange(ss.getOpenerCol(), row, lastRow))
+                .withFormat(ODDS_FORMAT).in(sheet).write(opener);
+        }
+        
+        List<Bookie> bookies = update.bookies();
+        if (!bookies.isEmpty()) {
+            dirty += writer.forRange(CellRange.range(row, lastRow,
+                ss.getBookieCol(), ss.getBookieCol() + bookies.size() - 1))
+                .withFormat(ODDS_FORMAT).in(sheet).write(group, bookies);
+        }
+        
+        return dirty;
+    }
+    
+    /* blanks match rows and bookie columns left over from a longer update */
+    private static int clearStale(WorkbookWriter writer, SheetUpdate update,
+        Extent last, Extent now) {
+        SheetSettings ss = update.settings();
+        int firstRow = ss.getTableRow() + 1;
+        int dirty = 0;
+        
+        if (last.rows > now.rows) {
+            int firstCol = Math.min(ss.getTeamsCol(), ss.getBookieCol());
+            int lastCol = Math.max(ss.getTeamsCol(), ss.getBookieCol()
+                + Math.max(0, Math.max(last.bookies, now.bookies) - 1));
+            if (ss.hasOpener()) {
+                firstCol = Math.min(firstCol, ss.getOpenerCol());
+                lastCol = Math.max(lastCol, ss.getOpenerCol());
+            }
+            
+            dirty += clear(writer, update, firstRow + now.rows,
+                firstRow + last.rows - 1, firstCol, lastCol);
+        }
+        
+        // the bookie names on the table row, down to the last match row
+        if (last.bookies > now.bookies) {
+            dirty += clear(writer, update, ss.getTableRow(),
+                firstRow + now.rows - 1, ss.getBookieCol() + now.bookies,
+                ss.getBookieCol() + last.bookies - 1);
+        }
+        
+        return dirty;
+    }
+    
+    /* blanks a range of cells */
+    private static int clear(WorkbookWriter writer, SheetUpdate update,
+        int firstRow, int lastRow, int firstCol, int lastCol) {
+        return writer.forRange(CellRange.range(firstRow, lastRow, firstCol,
+            lastCol)).in(update.sheetName())
+            .write(new Object[lastRow - firstRow + 1][lastCol - firstCol + 1]);
+    }
+    
+} // class OddsSheetWriter
@@ -0,0 +1,323 @@
+package com.bookiescrape.app.sample;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bookiescrape.app.config.Settings.SheetSettings;
+import com.bookiescrape.app.scrape.Bookie;
+import com.bookiescrape.app.scrape.DateGroup;
+import com.bookiescrape.app.scrape.OddsSnapshot;
+import com.bookiescrape.app.scrape.PreferenceCookieStore;
+import com.bookiescrape.app.scrape.Scraper;
+import com.bookiescrape.app.scrape.ScraperPool;
+
+/**
+ * Scrapes the urls of multiple sheets concurrently, on a bounded pool of
+ * independent {@link Scraper} instances.
+ * <p>
+ * Each sheet's url, retrieved from its {@link SheetSettings#getScrapeUrl()},
+ * is scraped on its own worker thread with a scraper borrowed from a
+ * {@link ScraperPool}. The scraped bookies and date groups are stored in the
+ * sheet's {@link SheetData}, along with the changes since the sheet's last
+ * scrape, and published to a {@link WriteBehindQueue}, if one has been set.
+ *
+ * @author Jonathan Henly
+ */
+class ScrapeEngine implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(ScrapeEngine.class);
+    
+    /**
+     * Scrapes a single sheet, once its staggered start time has come.
+     *
+     * @author Jonathan Henly
+     */
+    @FunctionalInterface
+    interface SheetScrape {
+        
+        /**
+         * Scrapes the specified sheet's url.
+         *
+         * @param sheetName
+         *                  - the name of the sheet to scrape
+         * @return the outcome of the sheet's scrape
+         * @throws Exception
+         *                   if the sheet's scrape fails
+         */
+        ScrapeSummary.SheetResult scrape(String sheetName) throws Exception;
+    }
+    
+    private final ScraperPool pool;
+    private final SheetScrape sheetScrape;
+    private final ExecutorService workers;
+    private final PreferenceCookieStore cookieStore;
+    private volatile WriteBehindQueue writeBehind;
+    private volatile long staggerNanos;
+    private volatile long jitterNanos;
+    
+    /**
+     * Creates a scrape engine that scrapes, at most, {@code poolSize} sheets
+     * at the same time.
+     *
+     * @param poolSize
+     *                 - the maximum number of sheets to scrape concurrently
+     */
+    ScrapeEngine(int poolSize) { this(poolSize, null); }
+    
+    /**
+     * Creates a scrape engine that scrapes, at most, {@code poolSize} sheets
+     * at the same time, with the specified sheet scrape standing in for
+     * scraping each sheet's url on a pooled scraper.
+     *
+     * @param poolSize
+     *                    - the maximum number of sheets to scrape
+     *                    concurrently
+     * @param sheetScrape
+     *                    - scrapes a single sheet, or {@code null} to scrape
+     *                    each sheet's url on a pooled scraper
+     */
+    ScrapeEngine(int poolSize, SheetScrape sheetScrape) {
+        pool = new ScraperPool(poolSize);
+        cookieStore = new PreferenceCookieStore();
+        workers = Executors.newFixedThreadPool(poolSize, new WorkerFactory());
+        this.sheetScrape =
+            (sheetScrape == null) ? this::scrapeOnPooledScraper : sheetScrape;
+    }
+    
+    /**
+     * Sets the queue each sheet's finished scrape is published to, so it can
+     * be written to the workbook while other sheets are still being scraped.
+     *
+     * @param queue
+     *              - the write-behind queue, or {@code null} to not publish
+     *              scrapes
+     */
+    void setWriteBehind(WriteBehindQueue queue) { writeBehind = queue; }
+    
+    /**
+     * Spreads out the start of each sheet's scrape, so the sites being
+     * scraped aren't all hit at once.
+     * <p>
+     * The scrape of the {@code i}th sheet starts no sooner than
+     * {@code i * staggerMillis}, plus a random jitter of up to
+     * {@code jitterMillis}, after {@link #scrapeSheets(List)} is called.
+     *
+     * @param staggerMillis
+     *                      - the time between the start of consecutive
+     *                      sheets' scrapes, in milliseconds
+     * @param jitterMillis
+     *                      - the maximum random delay added to each sheet's
+     *                      start, in milliseconds
+     */
+    void setStagger(long staggerMillis, long jitterMillis) {
+        TimeUnit ms = TimeUnit.MILLISECONDS;
+        staggerNanos = ms.toNanos(Math.max(0, staggerMillis));
+        jitterNanos = ms.toNanos(Math.max(0, jitterMillis));
+    }
+    
+    /**
+     * Concurrently scrapes the url of each specified sheet and stores the
+     * results in each sheet's {@link SheetData}.
+     * <p>
+     * This method blocks until every sheet has been scraped. A sheet whose
+     * scrape fails does not stop the other sheets from being scraped, the
+     * failure is recorded in the returned summary instead.
+     *
+     * @param sheetNames
+     *                   - the names of the sheets to scrape
+     * @return a throughput and latency summary of the scrape
+     */
+    ScrapeSummary scrapeSheets(List<String> sheetNames) {
+        long start = System.nanoTime();
+        
+        List<Future<ScrapeSummary.SheetResult>> futures =
+            new ArrayList<>(sheetNames.size());
+        for (int i = 0, n = sheetNames.size(); i < n; i++) {
+            String sheetName = sheetNames.get(i);
+            long startAt = start + startOffset(i);
+            futures.add(workers.submit(() -> scrapeSheet(sheetName, startAt)));
+        }
+        
+        List<ScrapeSummary.SheetResult> results =
+            new ArrayList<>(sheetNames.size());
+        for (int i = 0, n = futures.size(); i < n; i++) {
+            results.add(awaitResult(sheetNames.get(i), futures.get(i)));
+        }
+        
+        long wallMillis = (System.nanoTime() - start) / 1_000_000L;
+        ScrapeSummary summary =
+            new ScrapeSummary(results, wallMillis, pool.size());
+        
+        LOG.info("{}", summary);
+        return summary;
+    }
+    
+    /**
+     * Shuts down this engine's worker threads and closes its scrapers.
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+        pool.close();
+    }
+    
+    /* how long after the first sheet the ith sheet's scrape starts */
+    private long startOffset(int i) {
+        long jitter = jitterNanos;
+        long offset = i * staggerNanos;
+        if (jitter > 0) {
+            offset += ThreadLocalRandom.current().nextLong(jitter + 1);
+        }
+        return offset;
+    }
+    
+    /* scrapes a single sheet, once it's due */
+    private ScrapeSummary.SheetResult scrapeSheet(String sheetName,
+        long startAt) throws Exception {
+        long untilStart = startAt - System.nanoTime();
+        if (untilStart > 0) { TimeUnit.NANOSECONDS.sleep(untilStart); }
+        
+        return sheetScrape.scrape(sheetName);
+    }
+    
+    /* scrapes a single sheet's url on a borrowed scraper */
+    private ScrapeSummary.SheetResult scrapeOnPooledScraper(String sheetName)
+        throws InterruptedException, IOException {
+        SheetData sd = SheetData.getSheetData(sheetName);
+        SheetSettings ss = sd.getSheetSettings();
+        
+        Scraper scraper = pool.borrow();
+        // start timing after borrowing, so time spent waiting isn't counted
+        long start = System.nanoTime();
+        SheetUpdate update = null;
+        ScrapeSummary.SheetResult result;
+        try {
+            LOG.debug("scraping sheet '{}' from '{}'", sheetName,
+                ss.getScrapeUrl());
+            
+            scraper.setCarouselPrefetch(ss.prefetchCarousel());
+            scraper.setRawHtmlFastPath(ss.scrapeRawHtml());
+            scraper.setPreferenceCookieStore(cookieStore);
+            scraper.scrape(ss.getScrapeUrl(), sheetName);
+            
+            // report the failure rather than an empty scrape
+            if (scraper.getFailure() != null) {
+                throw new IOException("could not scrape '" + ss.getScrapeUrl()
+                    + "'", scraper.getFailure());
+            }
+            
+            List<DateGroup> dateGroups = scraper.getDateGroups();
+            List<Bookie> bookies = scraper.getBookies();
+            if (ss.keepOrder() && sd.getExistingBookies() != null
+                && dateGroups != null) {
+                bookies = keepExistingOrder(sd.getExistingBookies(), bookies,
+                    dateGroups);
+            }
+            
+            sd.setCurrentBookies(bookies);
+            sd.setScrapedMatches(dateGroups);
+            
+            // a scrape that found nothing keeps the last snapshot, rather
+            // than reporting every match as removed
+            if (dateGroups != null) {
+                sd.updateOddsSnapshot(OddsSnapshot.of(bookies, dateGroups));
+                LOG.debug("sheet '{}' changes: {}", sheetName,
+                    sd.getChanges());
+                update = new SheetUpdate(sheetName, ss, bookies, dateGroups,
+                    sd.getChanges());
+            }
+            
+            result = new ScrapeSummary.SheetResult(sheetName, elapsed(start),
+                countMatches(dateGroups), null);
+        } finally {
+            pool.release(scraper);
+        }
+        
+        // publish after releasing the scraper, so a full queue doesn't hold it
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null && update != null) {
+            queue.publish(update);
+        }
+        
+        return result;
+    }
+    
+    /* waits for a sheet's scrape to finish and turns failures into results */
+    private ScrapeSummary.SheetResult awaitResult(String sheetName,
+        Future<ScrapeSummary.SheetResult> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException ee) {
+            LOG.error("failed to scrape sheet '" + sheetName + "'",
+                ee.getCause());
+            return new ScrapeSummary.SheetResult(sheetName, 0, 0,
+                ee.getCause());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return new ScrapeSummary.SheetResult(sheetName, 0, 0, ie);
+        }
+    }
+    
+    /* reorders scraped odds so existing bookies keep their sheet order */
+    private static List<Bookie> keepExistingOrder(Map<String, Bookie> existing,
+        List<Bookie> scraped, List<DateGroup> dateGroups) {
+        // existing bookies in sheet order, then new bookies in scraped order
+        List<Bookie> order = new ArrayList<>(scraped);
+        order.sort(Comparator.comparingInt(b -> {
+            Bookie e = existing.get(b.name());
+            return (e == null) ? Integer.MAX_VALUE : e.index();
+        }));
+        
+        for (DateGroup dg : dateGroups) {
+            dg.reorderBookies(order);
+        }
+        
+        List<Bookie> reordered = new ArrayList<>(order.size());
+        for (int i = 0, n = order.size(); i < n; i++) {
+            reordered.add(new Bookie(order.get(i).name(), i));
+        }
+        return reordered;
+    }
+    
+    /* helper that returns milliseconds elapsed since a System.nanoTime() */
+    private static long elapsed(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
+    }
+    
+    /* helper that counts the matches in a list of date groups */
+    private static int countMatches(List<DateGroup> dateGroups) {
+        if (dateGroups == null) { return 0; }
+        
+        int count = 0;
+        for (DateGroup dg : dateGroups) {
+            count += dg.size();
+        }
+        return count;
+    }
+    
+    /* names worker threads and makes sure they don't keep the JVM alive */
+    private static class WorkerFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "scrape-worker-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+    
+} // class ScrapeEngine
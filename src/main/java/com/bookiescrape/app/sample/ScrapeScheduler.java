@@ -0,0 +1,492 @@
+package com.bookiescrape.app.sample;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs scrape cycles on a schedule, one cycle at a time, on a single
+ * scheduler thread.
+ * <p>
+ * Cycles are spaced at a {@link Mode#FIXED_RATE fixed rate}, where each cycle
+ * is due an interval after the previous cycle was due, or a
+ * {@link Mode#FIXED_DELAY fixed delay}, where each cycle is due an interval
+ * after the previous cycle ended. Cycles never overlap. When a fixed rate
+ * cycle runs past the time the next cycle is due, the {@link Overrun} policy
+ * either skips the missed cycles, or runs one of them as soon as the running
+ * cycle ends, so cycles never pile up however tight the interval is.
+ * <p>
+ * The first cycle is due an interval after the last scrape, see
+ * {@link #setLastScrapeTime(long)}, or right away if that has already passed.
+ * The start time of each cycle is handed to a {@link LastScrapeStore}, so the
+ * schedule carries on where it left off after a restart.
+ * <p>
+ * The time of the next cycle and the duration of the last one are available
+ * as {@link Stats}, which are also sent to listeners whenever they change.
+ *
+ * @author Jonathan Henly
+ */
+public class ScrapeScheduler implements AutoCloseable {
+    private static final Logger LOG =
+        LoggerFactory.getLogger(ScrapeScheduler.class);
+    
+    /**
+     * How cycles are spaced.
+     *
+     * @author Jonathan Henly
+     */
+    public enum Mode {
+        /** Each cycle is due an interval after the previous one was due. */
+        FIXED_RATE,
+        /** Each cycle is due an interval after the previous one ended. */
+        FIXED_DELAY
+    }
+    
+    /**
+     * What happens to cycles that were due while another cycle was running.
+     *
+     * @author Jonathan Henly
+     */
+    public enum Overrun {
+        /** Missed cycles are skipped, the next cycle runs on schedule. */
+        SKIP,
+        /** One missed cycle runs as soon as the running cycle ends. */
+        QUEUE
+    }
+    
+    /**
+     * Saves the time of the last scrape, e.g. to the user's settings.
+     *
+     * @author Jonathan Henly
+     */
+    @FunctionalInterface
+    public interface LastScrapeStore {
+        /**
+         * Saves the time of the last scrape.
+         *
+         * @param millis
+         *               - when the last scrape started, in milliseconds since
+         *               the epoch
+         * @throws Exception
+         *                   if the time could not be saved
+         */
+        void save(long millis) throws Exception;
+    }
+    
+    /**
+     * Snapshot of a scheduler's schedule and of the cycles it has run.
+     *
+     * @author Jonathan Henly
+     */
+    public static class Stats {
+        private final long nextRunMillis;
+        private final long lastStartMillis;
+        private final long lastDurationMillis;
+        private final boolean running;
+        private final long cycles;
+        private final long failures;
+        private final long skipped;
+        private final long queued;
+        
+        private Stats(long nextRunMillis, long lastStartMillis,
+            long lastDurationMillis, boolean running, long cycles,
+            long failures, long skipped, long queued) {
+            this.nextRunMillis = nextRunMillis;
+            this.lastStartMillis = lastStartMillis;
+            this.lastDurationMillis = lastDurationMillis;
+            this.running = running;
+            this.cycles = cycles;
+            this.failures = failures;
+            this.skipped = skipped;
+            this.queued = queued;
+        }
+        
+        /**
+         * @return when the next cycle is due, in milliseconds since the
+         *         epoch, or {@code 0} if the scheduler is closed
+         */
+        public long nextRunMillis() { return nextRunMillis; }
+        
+        /**
+         * @return when the last cycle started, in milliseconds since the
+         *         epoch, or {@code 0} if no cycle has run
+         */
+        public long lastStartMillis() { return lastStartMillis; }
+        
+        /** @return how long the last cycle took, in milliseconds */
+        public long lastDurationMillis() { return lastDurationMillis; }
+        
+        /** @return {@code true} if a cycle is running */
+        public boolean running() { return running; }
+        
+        /** @return the number of cycles run */
+        public long cycles() { return cycles; }
+        
+        /** @return the number of cycles that failed */
+        public long failures() { return failures; }
+        
+        /** @return the number of cycles skipped because of an overrun */
+        public long skipped() { return skipped; }
+        
+        /** @return the number of cycles queued because of an overrun */
+        public long queued() { return queued; }
+        
+        @Override
+        public String toString() {
+            return String.format(
+                "cycles=%d failures=%d skipped=%d queued=%d lastDuration=%dms",
+                cycles, failures, skipped, queued, lastDurationMillis);
+        }
+    }
+    
+    private final Object lock = new Object();
+    private final BooleanSupplier cycle;
+    private final long intervalNanos;
+    private final List<Consumer<Stats>> listeners =
+        new CopyOnWriteArrayList<>();
+    private Thread scheduler;
+    
+    // guarded by lock
+    private Mode mode = Mode.FIXED_RATE;
+    private Overrun overrun = Overrun.SKIP;
+    private LastScrapeStore lastScrapeStore;
+    private long lastScrapeMillis;
+    private long dueNanos;
+    private long nominalNanos;
+    private boolean runRequested;
+    private boolean running;
+    private boolean closed;
+    private long lastStartMillis;
+    private long lastDurationMillis;
+    private long cycles;
+    private long failures;
+    private long skipped;
+    private long queued;
+    
+    /**
+     * Creates a scheduler that runs the specified scrape cycle once every
+     * interval, once started.
+     *
+     * @param cycle
+     *                       - runs a single scrape cycle, returns whether it
+     *                       succeeded, e.g. {@link Mediator#runScrapeCycle()}
+     * @param intervalMillis
+     *                       - the time between cycles, in milliseconds
+     * @throws IllegalArgumentException
+     *                                  if {@code intervalMillis} is less than
+     *                                  one
+     */
+    public ScrapeScheduler(BooleanSupplier cycle, long intervalMillis) {
+        if (intervalMillis < 1) {
+            throw new IllegalArgumentException(
+                "interval must be greater than zero, but was "
+                    + intervalMillis);
+        }
+        
+        this.cycle = Objects.requireNonNull(cycle);
+        intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    }
+    
+    /**
+     * Sets how cycles are spaced, {@link Mode#FIXED_RATE} by default.
+     *
+     * @param mode
+     *             - fixed rate or fixed delay
+     */
+    public void setMode(Mode mode) {
+        synchronized (lock) {
+            this.mode = Objects.requireNonNull(mode);
+        }
+    }
+    
+    /**
+     * Sets what happens to cycles that were due while another cycle was
+     * running, {@link Overrun#SKIP} by default.
+     *
+     * @param overrun
+     *                - skip or queue
+     */
+    public void setOverrun(Overrun overrun) {
+        synchronized (lock) {
+            this.overrun = Objects.requireNonNull(overrun);
+        }
+    }
+    
+    /**
+     * Sets when the last scrape started, must be set before the scheduler is
+     * started to have an effect.
+     *
+     * @param millis
+     *               - when the last scrape started, in milliseconds since the
+     *               epoch, or {@code 0} to run the first cycle right away
+     */
+    public void setLastScrapeTime(long millis) {
+        synchronized (lock) {
+            lastScrapeMillis = millis;
+        }
+    }
+    
+    /**
+     * Sets where the start time of each cycle is saved.
+     *
+     * @param store
+     *              - saves the last scrape time, or {@code null} to not save
+     *              it
+     */
+    public void setLastScrapeStore(LastScrapeStore store) {
+        synchronized (lock) {
+            lastScrapeStore = store;
+        }
+    }
+    
+    /**
+     * Adds a listener that's sent this scheduler's stats whenever they
+     * change, on the scheduler thread.
+     *
+     * @param listener
+     *                 - receives stats snapshots
+     */
+    public void addListener(Consumer<Stats> listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+    
+    /**
+     * Removes a listener added by {@link #addListener(Consumer)}.
+     *
+     * @param listener
+     *                 - the listener to remove
+     */
+    public void removeListener(Consumer<Stats> listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Starts the scheduler thread, the first cycle is due an interval after
+     * the last scrape.
+     *
+     * @throws IllegalStateException
+     *                               if this scheduler was already started
+     */
+    public void start() {
+        synchronized (lock) {
+            if (scheduler != null) {
+                throw new IllegalStateException("scheduler already started");
+            }
+            
+            long now = System.nanoTime();
+            long sinceLast = System.currentTimeMillis() - lastScrapeMillis;
+            long wait = 0;
+            if (lastScrapeMillis > 0 && sinceLast >= 0) {
+                wait = Math.max(0,
+                    intervalNanos - TimeUnit.MILLISECONDS.toNanos(sinceLast));
+            }
+            dueNanos = nominalNanos = now + wait;
+            
+            scheduler = new Thread(this::scheduleLoop, "scrape-scheduler");
+            scheduler.setDaemon(true);
+            scheduler.start();
+        }
+        
+        publishStats();
+    }
+    
+    /**
+     * Runs a cycle now, outside of the schedule.
+     * <p>
+     * If a cycle is running, then the requested cycle is queued to run when
+     * it ends, or skipped, depending on the overrun policy. A fixed rate
+     * schedule is not moved by a requested cycle.
+     *
+     * @return {@code true} if a cycle will run, {@code false} if it was
+     *         skipped, or the scheduler is closed
+     */
+    public boolean runNow() {
+        synchronized (lock) {
+            if (closed) { return false; }
+            
+            if (running && overrun == Overrun.SKIP) {
+                skipped += 1;
+                return false;
+            }
+            
+            runRequested = true;
+            lock.notifyAll();
+            return true;
+        }
+    }
+    
+    /** @return a snapshot of this scheduler's schedule and cycles */
+    public Stats getStats() {
+        synchronized (lock) {
+            long nextRunMillis = 0;
+            if (!closed) {
+                long untilDue = Math.max(0, dueNanos - System.nanoTime());
+                nextRunMillis = System.currentTimeMillis()
+                    + TimeUnit.NANOSECONDS.toMillis(untilDue);
+            }
+            
+            return new Stats(nextRunMillis, lastStartMillis,
+                lastDurationMillis, running, cycles, failures, skipped,
+                queued);
+        }
+    }
+    
+    /**
+     * Waits for this scheduler to be closed and for its last cycle to end.
+     *
+     * @throws InterruptedException
+     *                              if interrupted while waiting
+     */
+    public void awaitTermination() throws InterruptedException {
+        Thread t;
+        synchronized (lock) {
+            t = scheduler;
+        }
+        if (t != null) { t.join(); }
+    }
+    
+    /**
+     * Stops scheduling cycles and waits for a running cycle to end.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) { return; }
+            closed = true;
+            lock.notifyAll();
+        }
+        
+        try {
+            awaitTermination();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /* the scheduler thread's loop, waits for each cycle and runs it */
+    private void scheduleLoop() {
+        while (true) {
+            long scheduledNanos;
+            long startMillis;
+            boolean requested;
+            LastScrapeStore store;
+            synchronized (lock) {
+                try {
+                    long wait;
+                    while (!closed && !runRequested
+                        && (wait = dueNanos - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(lock, wait);
+                    }
+                } catch (InterruptedException ie) {
+                    closed = true;
+                }
+                if (closed) { break; }
+                
+                requested = runRequested && dueNanos - System.nanoTime() > 0;
+                runRequested = false;
+                scheduledNanos = nominalNanos;
+                store = lastScrapeStore;
+                
+                running = true;
+                startMillis = lastStartMillis = System.currentTimeMillis();
+            }
+            
+            long start = System.nanoTime();
+            boolean succeeded = runCycle();
+            long end = System.nanoTime();
+            
+            saveLastScrape(store, startMillis);
+            
+            synchronized (lock) {
+                running = false;
+                lastDurationMillis = TimeUnit.NANOSECONDS.toMillis(end - start);
+                cycles += 1;
+                if (!succeeded) { failures += 1; }
+                
+                if (!requested || mode == Mode.FIXED_DELAY) {
+                    reschedule(scheduledNanos, end);
+                } else if (end - dueNanos > 0) {
+                    // a requested cycle ran past the next scheduled one
+                    reschedule(nominalNanos - intervalNanos, end);
+                }
+            }
+            
+            publishStats();
+        }
+        
+        publishStats();
+    }
+    
+    /* runs a single cycle, a failed cycle doesn't stop the schedule */
+    private boolean runCycle() {
+        try {
+            return cycle.getAsBoolean();
+        } catch (RuntimeException e) {
+            LOG.error("scrape cycle failed", e);
+            return false;
+        }
+    }
+    
+    /* works out when the next cycle is due, must hold lock */
+    private void reschedule(long scheduledNanos, long endNanos) {
+        if (mode == Mode.FIXED_DELAY) {
+            dueNanos = nominalNanos = endNanos + intervalNanos;
+            return;
+        }
+        
+        long next = scheduledNanos + intervalNanos;
+        if (endNanos - next <= 0) {
+            dueNanos = nominalNanos = next;
+            return;
+        }
+        
+        // the cycle overran, count the cycles that were due while it ran
+        long missed = (endNanos - scheduledNanos) / intervalNanos;
+        long lastMissed = scheduledNanos + missed * intervalNanos;
+        if (overrun == Overrun.QUEUE) {
+            // run the latest missed cycle now, and stay on the rate's grid
+            queued += 1;
+            skipped += missed - 1;
+            nominalNanos = lastMissed;
+            dueNanos = endNanos;
+        } else {
+            skipped += missed;
+            dueNanos = nominalNanos = lastMissed + intervalNanos;
+        }
+        
+        LOG.warn("scrape cycle overran its interval, {} {} cycle(s)",
+            (overrun == Overrun.QUEUE) ? "queued one of" : "skipped", missed);
+    }
+    
+    /* saves the last scrape time, a failed save doesn't stop the schedule */
+    private static void saveLastScrape(LastScrapeStore store, long millis) {
+        if (store == null) { return; }
+        
+        try {
+            store.save(millis);
+        } catch (Exception e) {
+            LOG.warn("could not save the last scrape time", e);
+        }
+    }
+    
+    /* sends a stats snapshot to each listener */
+    private void publishStats() {
+        if (listeners.isEmpty()) { return; }
+        
+        Stats stats = getStats();
+        for (Consumer<Stats> listener : listeners) {
+            try {
+                listener.accept(stats);
+            } catch (RuntimeException e) {
+                LOG.warn("scheduler stats listener failed", e);
+            }
+        }
+    }
+    
+} // class ScrapeScheduler
@@ -0,0 +1,128 @@
+package com.bookiescrape.app.sample;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Throughput and latency summary of a single multi-sheet scrape, as run by
+ * {@link ScrapeEngine}.
+ *
+ * @author Jonathan Henly
+ */
+class ScrapeSummary {
+    
+    /**
+     * The outcome of scraping a single sheet's url.
+     *
+     * @author Jonathan Henly
+     */
+    static class SheetResult {
+        private final String sheetName;
+        private final long elapsedMillis;
+        private final int numMatches;
+        private final Throwable failure;
+        
+        SheetResult(String sheetName, long elapsedMillis, int numMatches,
+            Throwable failure) {
+            this.sheetName = sheetName;
+            this.elapsedMillis = elapsedMillis;
+            this.numMatches = numMatches;
+            this.failure = failure;
+        }
+        
+        /** @return the name of the scraped sheet */
+        String sheetName() { return sheetName; }
+        
+        /** @return how long the sheet's scrape took, in milliseconds */
+        long elapsedMillis() { return elapsedMillis; }
+        
+        /** @return the number of matches scraped for the sheet */
+        int numMatches() { return numMatches; }
+        
+        /** @return {@code true} if the sheet's scrape did not throw */
+        boolean succeeded() { return failure == null; }
+        
+        /** @return what the sheet's scrape threw, or {@code null} */
+        Throwable failure() { return failure; }
+        
+        @Override
+        public String toString() {
+            return String.format("[%s] %d ms, %d matches%s", sheetName,
+                elapsedMillis, numMatches,
+                succeeded() ? "" : ", failed: " + failure);
+        }
+    }
+    
+    private final List<SheetResult> results;
+    private final long wallMillis;
+    private final int poolSize;
+    
+    ScrapeSummary(List<SheetResult> results, long wallMillis, int poolSize) {
+        this.results = Collections.unmodifiableList(new ArrayList<>(results));
+        this.wallMillis = wallMillis;
+        this.poolSize = poolSize;
+    }
+    
+    /** @return the per sheet results, in the order the sheets were given */
+    List<SheetResult> results() { return results; }
+    
+    /** @return the wall-clock time of the whole scrape, in milliseconds */
+    long wallMillis() { return wallMillis; }
+    
+    /** @return the number of scrapers the sheets were spread across */
+    int poolSize() { return poolSize; }
+    
+    /** @return the number of sheets scraped per second of wall-clock time */
+    double sheetsPerSecond() {
+        return (wallMillis == 0) ? results.size()
+            : results.size() * 1000.0 / wallMillis;
+    }
+    
+    /** @return the sum of every sheet's scrape time, in milliseconds */
+    long totalSheetMillis() {
+        long total = 0;
+        for (SheetResult r : results) {
+            total += r.elapsedMillis();
+        }
+        return total;
+    }
+    
+    /** @return the slowest sheet's scrape time, in milliseconds */
+    long maxSheetMillis() {
+        long max = 0;
+        for (SheetResult r : results) {
+            max = Math.max(max, r.elapsedMillis());
+        }
+        return max;
+    }
+    
+    /** @return the number of sheets whose scrape threw */
+    int numFailed() {
+        int failed = 0;
+        for (SheetResult r : results) {
+            if (!r.succeeded()) { failed += 1; }
+        }
+        return failed;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        int n = results.size();
+        
+        sb.append(String.format(
+            "scraped %d sheet(s) in %d ms on %d scraper(s), %.2f sheets/s,"
+                + " latency avg %d ms max %d ms, %d failed%n",
+            n, wallMillis, poolSize, sheetsPerSecond(),
+            (n == 0) ? 0 : totalSheetMillis() / n, maxSheetMillis(),
+            numFailed()));
+        
+        for (SheetResult r : results) {
+            sb.append("  ").append(r).append(System.lineSeparator());
+        }
+        
+        return sb.toString();
+    }
+    
+} // class ScrapeSummary
@@ -6,7 +6,9 @@ import java.util.Map;
 
 import com.bookiescrape.app.config.Settings.SheetSettings;
 import com.bookiescrape.app.scrape.Bookie;
+import com.bookiescrape.app.scrape.ChangeSet;
 import com.bookiescrape.app.scrape.DateGroup;
+import com.bookiescrape.app.scrape.OddsSnapshot;
 
 // data store for sheets
 class SheetData {
@@ -14,6 +16,8 @@ class SheetData {
     private Map<String, Bookie> existingBookies;
     private List<Bookie> scrapedBookies;
     private List<DateGroup> scrapedMatches;
+    private OddsSnapshot oddsSnapshot;
+    private ChangeSet changes;
     private SheetSettings sheetSettings;
     
     private SheetData(String sheetName) { this.sheetName = sheetName; }
@@ -61,6 +65,28 @@ class SheetData {
         scrapedMatches = matches;
     }
     
+    /**
+     * Gets the odds snapshot of the sheet's last successful scrape.
+     * 
+     * @return the last odds snapshot, or {@code null} if the sheet has not
+     *         been scraped yet
+     */
+    public OddsSnapshot getOddsSnapshot() { return oddsSnapshot; }
+    
+    /**
+     * Gets the changes between the sheet's last two successful scrapes.
+     * 
+     * @return the last scrape's changes, or {@code null} if the sheet has not
+     *         been scraped yet
+     */
+    public ChangeSet getChanges() { return changes; }
+    
+    /* replaces the sheet's snapshot, recording the changes from the last */
+    void updateOddsSnapshot(OddsSnapshot snapshot) {
+        changes = ChangeSet.between(oddsSnapshot, snapshot);
+        oddsSnapshot = snapshot;
+    }
+    
     /**
      * 
      * @return
@@ -0,0 +1,94 @@
+package com.bookiescrape.app.sample;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import com.bookiescrape.app.config.Settings.SheetSettings;
+import com.bookiescrape.app.scrape.Bookie;
+import com.bookiescrape.app.scrape.ChangeSet;
+import com.bookiescrape.app.scrape.DateGroup;
+
+/**
+ * The finished scrape of a single sheet, published by a scrape worker to a
+ * {@link WriteBehindQueue} to be written to the sheet.
+ * <p>
+ * An update is never modified once published, the scraped bookies and date
+ * groups are owned by the update from then on. An update can also carry the
+ * changes since the sheet's previous scrape, which lets the sheet be written
+ * by only touching the cells of odds that moved.
+ *
+ * @author Jonathan Henly
+ */
+final class SheetUpdate {
+    private final String sheetName;
+    private final SheetSettings settings;
+    private final List<Bookie> bookies;
+    private final List<DateGroup> dateGroups;
+    private final ChangeSet changes;
+    
+    /**
+     * Creates an update of a sheet's scraped bookies and date groups.
+     * 
+     * @param sheetName
+     *                   - the name of the scraped sheet
+     * @param settings
+     *                   - the sheet's settings, used to lay out the sheet
+     * @param bookies
+     *                   - the scraped bookies, in sheet column order
+     * @param dateGroups
+     *                   - the scraped date groups
+     */
+    SheetUpdate(String sheetName, SheetSettings settings, List<Bookie> bookies,
+        List<DateGroup> dateGroups) {
+        this(sheetName, settings, bookies, dateGroups, null);
+    }
+    
+    /**
+     * Creates an update of a sheet's scraped bookies and date groups, along
+     * with their changes since the sheet's previous scrape.
+     * 
+     * @param sheetName
+     *                   - the name of the scraped sheet
+     * @param settings
+     *                   - the sheet's settings, used to lay out the sheet
+     * @param bookies
+     *                   - the scraped bookies, in sheet column order
+     * @param dateGroups
+     *                   - the scraped date groups
+     * @param changes
+     *                   - the changes since the previous scrape, whose
+     *                   current snapshot is of these bookies and date groups,
+     *                   or {@code null} if not known
+     */
+    SheetUpdate(String sheetName, SheetSettings settings, List<Bookie> bookies,
+        List<DateGroup> dateGroups, ChangeSet changes) {
+        this.sheetName = Objects.requireNonNull(sheetName);
+        this.settings = settings;
+        this.bookies = Collections.unmodifiableList(bookies);
+        this.dateGroups = Collections.unmodifiableList(dateGroups);
+        this.changes = changes;
+    }
+    
+    /** @return the name of the scraped sheet */
+    String sheetName() { return sheetName; }
+    
+    /** @return the sheet's settings */
+    SheetSettings settings() { return settings; }
+    
+    /** @return the scraped bookies, in sheet column order */
+    List<Bookie> bookies() { return bookies; }
+    
+    /** @return the scraped date groups */
+    List<DateGroup> dateGroups() { return dateGroups; }
+    
+    /** @return the changes since the previous scrape, or {@code null} */
+    ChangeSet changes() { return changes; }
+    
+    @Override
+    public String toString() {
+        return String.format("SheetUpdate[sheet=%s, bookies=%d, groups=%d]",
+            sheetName, bookies.size(), dateGroups.size());
+    }
+    
+} // class SheetUpdate
@@ -0,0 +1,355 @@
+package com.bookiescrape.app.sample;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bookiescrape.app.excel.WorkbookSession;
+import com.bookiescrape.app.excel.WorkbookWriter;
+
+/**
+ * A bounded write-behind queue between scrape workers and the Excel workbook.
+ * <p>
+ * Scrape workers {@link #publish(SheetUpdate) publish} each finished sheet
+ * and move on, instead of waiting on the workbook. A single persistence thread
+ * takes every pending update at once and hands them to a {@link BatchWriter}
+ * as one batch, so a batch of sheets costs a single workbook commit.
+ * <p>
+ * When coalescing is on, an update replaces the pending update of the same
+ * sheet, if there is one, as only the latest scrape of a sheet needs to be
+ * written. Otherwise every update is written, in the order published.
+ * <p>
+ * At most {@code capacity} updates are pending at once, publishing to a full
+ * queue blocks until the persistence thread takes the pending updates. A
+ * batch that fails is logged and counted, and the queue carries on with the
+ * next batch. Closing the queue writes every pending update before returning.
+ *
+ * @author Jonathan Henly
+ */
+final class WriteBehindQueue implements AutoCloseable {
+    private static final Logger LOG =
+        LoggerFactory.getLogger(WriteBehindQueue.class);
+    
+    /**
+     * Writes a batch of sheet updates, called only by the persistence thread.
+     *
+     * @author Jonathan Henly
+     */
+    @FunctionalInterface
+    interface BatchWriter {
+        /**
+         * Writes a batch of sheet updates.
+         *
+         * @param batch
+         *              - the updates to write, in the order published
+         * @throws IOException
+         *                     if an I/O error occurs writing the batch
+         */
+        void write(List<SheetUpdate> batch) throws IOException;
+    }
+    
+    private final Object lock = new Object();
+    private final List<SheetUpdate> pending = new ArrayList<>();
+    private final int capacity;
+    private final boolean coalesce;
+    private final BatchWriter batchWriter;
+    private final Thread persister;
+    
+    // guarded by lock
+    private long lingerMillis;
+    private boolean inFlight;
+    private boolean closed;
+    private long batches;
+    private long persisted;
+    private long coalesced;
+    private long failures;
+    
+    /**
+     * Creates a write-behind queue and starts its persistence thread.
+     *
+     * @param capacity
+     *                    - the maximum number of pending updates
+     * @param coalesce
+     *                    - {@code true} to replace a sheet's pending update
+     *                    with a newer one
+     * @param batchWriter
+     *                    - writes each batch of updates
+     * @throws IllegalArgumentException
+     *                                  if {@code capacity} is less than one
+     */
+    WriteBehindQueue(int capacity, boolean coalesce, BatchWriter batchWriter) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                "capacity must be greater than zero, but was " + capacity);
+        }
+        
+        this.capacity = capacity;
+        this.coalesce = coalesce;
+        this.batchWriter = Objects.requireNonNull(batchWriter);
+        
+        persister = new Thread(this::persistLoop, "write-behind");
+        persister.setDaemon(true);
+        persister.start();
+    }
+    
+    /**
+     * Creates a write-behind queue that writes each batch to the sheets of a
+     * session's workbook and commits the session once per batch.
+     * <p>
+     * Only cells that differ from the workbook are written, so a batch that
+     * changes nothing leaves the workbook file untouched. The sheet writer
+     * remembers what it wrote to each sheet, so it should outlive the session
+     * and be passed to every queue writing to the same workbook.
+     * <p>
+     * The session is not owned by the queue, it must stay open until the
+     * queue has been closed.
+     *
+     * @param session
+     *                 - the session of the workbook to write to
+     * @param sheets
+     *                 - lays out each update on its sheet
+     * @param capacity
+     *                 - the maximum number of pending updates
+     * @param coalesce
+     *                 - {@code true} to replace a sheet's pending update with
+     *                 a newer one
+     * @return a started write-behind queue
+     */
+    static WriteBehindQueue forSession(WorkbookSession session,
+        OddsSheetWriter sheets, int capacity, boolean coalesce) {
+        Objects.requireNonNull(session);
+        Objects.requireNonNull(sheets);
+        
+        return new WriteBehindQueue(capacity, coalesce, batch -> {
+            WorkbookWriter writer = session.writer();
+            writer.setSkipUnchangedCells(true);
+            
+            int dirty = 0;
+            try {
+                for (SheetUpdate update : batch) {
+                    dirty += sheets.write(writer, update);
+                }
+                
+                LOG.debug("batch of {} sheet updates dirtied {} cells",
+                    batch.size(), dirty);
+                session.commit();
+            } catch (IOException | RuntimeException e) {
+                // the file may not hold any of this batch's writes
+                sheets.invalidate();
+                throw e;
+            }
+            sheets.committed();
+        });
+    }
+    
+    /**
+     * Sets how long the persistence thread waits, after an update arrives,
+     * for more updates to join its batch.
+     *
+     * @param millis
+     *               - the linger time in milliseconds, {@code 0}, the
+     *               default, to write each batch right away
+     */
+    void setLingerMillis(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException(
+                "linger time can not be negative, but was " + millis);
+        }
+        
+        synchronized (lock) {
+            lingerMillis = millis;
+        }
+    }
+    
+    /**
+     * Publishes a sheet update to be written, blocking while the queue is
+     * full.
+     *
+     * @param update
+     *               - the finished scrape of a sheet
+     * @throws InterruptedException
+     *                               if interrupted while waiting for room
+     * @throws IllegalStateException
+     *                               if the queue has been closed
+     */
+    void publish(SheetUpdate update) throws InterruptedException {
+        Objects.requireNonNull(update);
+        
+        synchronized (lock) {
+            while (true) {
+                throwIfClosed();
+                
+                // replacing a pending update doesn't need room
+                if (coalesce && replacePending(update)) {
+                    coalesced += 1;
+                    return;
+                }
+                
+                if (pending.size() < capacity) { break; }
+                
+                lock.wait();
+            }
+            
+            pending.add(update);
+            lock.notifyAll();
+        }
+    }
+    
+    /**
+     * Blocks until every update published so far has been written, or has
+     * failed to be.
+     *
+     * @throws InterruptedException
+     *                              if interrupted while waiting
+     */
+    void flush() throws InterruptedException {
+        synchronized (lock) {
+            while (!pending.isEmpty() || inFlight) {
+                lock.wait();
+            }
+        }
+    }
+    
+    /** @return the number of batches written, including failed batches */
+    long batches() {
+        synchronized (lock) {
+            return batches;
+        }
+    }
+    
+    /** @return the number of updates written by successful batches */
+    long persisted() {
+        synchronized (lock) {
+            return persisted;
+        }
+    }
+    
+    /** @return the number of updates replaced by a newer update */
+    long coalesced() {
+        synchronized (lock) {
+            return coalesced;
+        }
+    }
+    
+    /** @return the number of batches that failed to be written */
+    long failures() {
+        synchronized (lock) {
+            return failures;
+        }
+    }
+    
+    /**
+     * Stops accepting updates, writes every pending update and stops the
+     * persistence thread.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) { return; }
+            closed = true;
+            lock.notifyAll();
+        }
+        
+        try {
+            persister.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        
+        LOG.info("write-behind closed, {} updates in {} batches, {} coalesced, "
+            + "{} failed batches", persisted(), batches(), coalesced(),
+            failures());
+    }
+    
+    /* takes and writes batches until closed and drained */
+    private void persistLoop() {
+        try {
+            List<SheetUpdate> batch;
+            while ((batch = takeBatch()) != null) {
+                writeBatch(batch);
+            }
+        } catch (InterruptedException ie) {
+            LOG.warn("write-behind interrupted, pending updates were not "
+                + "written");
+        }
+    }
+    
+    /* waits for pending updates and takes them all, null once drained */
+    private List<SheetUpdate> takeBatch() throws InterruptedException {
+        synchronized (lock) {
+            while (pending.isEmpty() && !closed) {
+                lock.wait();
+            }
+            
+            if (pending.isEmpty()) { return null; }
+            
+            // give other sheets a chance to join this batch
+            long deadline = System.currentTimeMillis() + lingerMillis;
+            long left = lingerMillis;
+            while (left > 0 && !closed && pending.size() < capacity) {
+                lock.wait(left);
+                left = deadline - System.currentTimeMillis();
+            }
+            
+            List<SheetUpdate> batch = new ArrayList<>(pending);
+            pending.clear();
+            inFlight = true;
+            lock.notifyAll(); // wake publishers waiting for room
+            
+            return batch;
+        }
+    }
+    
+    /* writes a batch outside of the lock, so publishers aren't held up */
+    private void writeBatch(List<SheetUpdate> batch) {
+        long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            batchWriter.write(batch);
+        } catch (Exception e) {
+            failed = true;
+            LOG.error("failed to write a batch of " + batch.size()
+                + " sheet updates", e);
+        }
+        
+        long millis = (System.nanoTime() - start) / 1_000_000L;
+        synchronized (lock) {
+            batches += 1;
+            if (failed) {
+                failures += 1;
+            } else {
+                persisted += batch.size();
+                LOG.info("wrote {} sheet updates in {} ms", batch.size(),
+                    millis);
+            }
+            
+            inFlight = false;
+            lock.notifyAll(); // wake flush()
+        }
+    }
+    
+    /* replaces the pending update of the same sheet, if there is one */
+    private boolean replacePending(SheetUpdate update) {
+        for (int i = 0, n = pending.size(); i < n; i++) {
+            if (pending.get(i).sheetName().equals(update.sheetName())) {
+                pending.set(i, update);
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /* helper that throws if close() has been called on this queue */
+    private void throwIfClosed() {
+        if (closed) {
+            throw new IllegalStateException(
+                "this write-behind queue has been closed.");
+        }
+    }
+    
+} // class WriteBehindQueue
@@ -0,0 +1,295 @@
+package com.bookiescrape.app.scrape;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.bookiescrape.app.scrape.Match.Odds;
+
+/**
+ * The changes between two consecutive {@link OddsSnapshot}s of the same sheet.
+ * <p>
+ * Most scrape intervals only move a few lines, so a change set lets the
+ * writers only touch the cells of matches that were added or removed and of
+ * odds that moved, instead of rewriting every match.
+ * <p>
+ * Bookies are matched between the two snapshots by name, so a bookie whose
+ * index changed, because the carousel was reordered, does not show up as
+ * moved odds.
+ *
+ * @author Jonathan Henly
+ * @see OddsSnapshot
+ */
+public final class ChangeSet {
+    
+    /**
+     * The bookie index used by {@link Type#ODDS_MOVED} changes to the opener.
+     */
+    public static final int OPENER = -1;
+    
+    /**
+     * The kinds of changes between two snapshots.
+     */
+    public enum Type {
+        /** a match that was not in the previous snapshot */
+        NEW_MATCH,
+        /** a match that is no longer in the current snapshot */
+        REMOVED_MATCH,
+        /** a bookie's, or the opener's, over-under odds changed */
+        ODDS_MOVED;
+    }
+    
+    /**
+     * A single change between two snapshots.
+     *
+     * @author Jonathan Henly
+     */
+    public static final class Change {
+        private final Type type;
+        private final int rot;
+        private final int bookieIndex;
+        private final Match match;
+        private final String over;
+        private final String under;
+        
+        private Change(Type type, int rot, int bookieIndex, Match match,
+            String over, String under) {
+            this.type = type;
+            this.rot = rot;
+            this.bookieIndex = bookieIndex;
+            this.match = match;
+            this.over = over;
+            this.under = under;
+        }
+        
+        /** @return the kind of change */
+        public Type type() { return type; }
+        
+        /** @return the changed match's home ROT number */
+        public int rot() { return rot; }
+        
+        /**
+         * @return the current index of the bookie whose odds moved,
+         *         {@link ChangeSet#OPENER} if the opener moved, or {@code -1}
+         *         for new and removed matches
+         */
+        public int bookieIndex() { return bookieIndex; }
+        
+        /**
+         * @return the current match, or the previous match if it was removed
+         */
+        public Match match() { return match; }
+        
+        /** @return the new over odds of moved odds, otherwise {@code null} */
+        public String over() { return over; }
+        
+        /** @return the new under odds of moved odds, otherwise {@code null} */
+        public String under() { return under; }
+        
+        @Override
+        public String toString() {
+            return (type == Type.ODDS_MOVED)
+                ? String.format("%s [%d] book[%d]: %s %s", type, rot,
+                    bookieIndex, over, under)
+                : String.format("%s [%d]", type, rot);
+        }
+    }
+    
+    private final OddsSnapshot previous;
+    private final OddsSnapshot current;
+    private final List<Change> changes;
+    private final boolean keepsLayout;
+    
+    private ChangeSet(OddsSnapshot previous, OddsSnapshot current,
+        List<Change> changes, boolean keepsLayout) {
+        this.previous = previous;
+        this.current = current;
+        this.changes = Collections.unmodifiableList(changes);
+        this.keepsLayout = keepsLayout;
+    }
+    
+    /**
+     * Compares two snapshots of the same sheet.
+     * 
+     * @param previous
+     *                 - the previous snapshot, or {@code null} if there is no
+     *                 previous snapshot, in which case every match is new
+     * @param current
+     *                 - the current snapshot
+     * @return the changes from {@code previous} to {@code current}
+     */
+    public static ChangeSet between(OddsSnapshot previous,
+        OddsSnapshot current) {
+        List<Change> changes = new ArrayList<>();
+        Map<Long, OddsSnapshot.Entry> prev = (previous == null)
+            ? Collections.emptyMap()
+            : previous.entries();
+        int[] prevIndexOf = mapBookieIndexes(previous, current);
+        
+        for (Map.Entry<Long, OddsSnapshot.Entry> e : current.entries()
+            .entrySet()) {
+            OddsSnapshot.Entry cur = e.getValue();
+            OddsSnapshot.Entry old = prev.get(e.getKey());
+            int rot = cur.match().homeRot();
+            
+            if (old == null) {
+                changes.add(new Change(Type.NEW_MATCH, rot, -1, cur.match(),
+                    null, null));
+                continue;
+            }
+            
+            if (!sameOdds(old.opener(), cur.opener())) {
+                Odds o = cur.opener();
+                changes.add(new Change(Type.ODDS_MOVED, rot, OPENER,
+                    cur.match(), (o == null) ? null : o.over(),
+                    (o == null) ? null : o.under()));
+            }
+            
+            addMovedBookieOdds(changes, rot, old, cur, prevIndexOf);
+        }
+        
+        for (Map.Entry<Long, OddsSnapshot.Entry> e : prev.entrySet()) {
+            if (!current.entries().containsKey(e.getKey())) {
+                Match removed = e.getValue().match();
+                changes.add(new Change(Type.REMOVED_MATCH, removed.homeRot(),
+                    -1, removed, null, null));
+            }
+        }
+        
+        // matches left out of either snapshot could have moved anywhere
+        boolean keepsLayout = previous != null
+            && previous.hasUniqueRotations() && current.hasUniqueRotations()
+            && previous.bookieNames().equals(current.bookieNames())
+            && sameMatchOrder(prev, current.entries());
+        
+        return new ChangeSet(previous, current, changes, keepsLayout);
+    }
+    
+    /**
+     * @return the previous snapshot, or {@code null} if there was none
+     */
+    public OddsSnapshot previous() { return previous; }
+    
+    /**
+     * @return the current snapshot
+     */
+    public OddsSnapshot current() { return current; }
+    
+    /**
+     * Checks whether both snapshots have the same matches, in the same order,
+     * and the same bookies, in the same order, without any match left out of
+     * either snapshot. If so, a sheet laid out from the previous snapshot only
+     * differs from one laid out from the current snapshot in the cells of this
+     * change set's moved odds.
+     * 
+     * @return {@code true} if only odds changed between the two snapshots
+     */
+    public boolean keepsLayout() { return keepsLayout; }
+    
+    /**
+     * @return every change, new matches and moved odds in scrape order
+     *         followed by removed matches
+     */
+    public List<Change> changes() { return changes; }
+    
+    /**
+     * Gets only the changes of the specified type.
+     * 
+     * @param type
+     *             - the type of changes to get
+     * @return the changes of the specified type, in order
+     */
+    public List<Change> changes(Type type) {
+        List<Change> typed = new ArrayList<>();
+        for (Change c : changes) {
+            if (c.type() == type) { typed.add(c); }
+        }
+        return typed;
+    }
+    
+    /**
+     * @return {@code true} if nothing changed between the two snapshots
+     */
+    public boolean isEmpty() { return changes.isEmpty(); }
+    
+    /**
+     * @return the number of changes
+     */
+    public int size() { return changes.size(); }
+    
+    @Override
+    public String toString() {
+        return String.format("%d new, %d removed, %d moved",
+            changes(Type.NEW_MATCH).size(), changes(Type.REMOVED_MATCH).size(),
+            changes(Type.ODDS_MOVED).size());
+    }
+    
+    /* maps each current bookie index to its previous index, -1 if new */
+    private static int[] mapBookieIndexes(OddsSnapshot previous,
+        OddsSnapshot current) {
+        List<String> curNames = current.bookieNames();
+        int[] prevIndexOf = new int[curNames.size()];
+        
+        Map<String, Integer> prevIndexes = new HashMap<>();
+        if (previous != null) {
+            List<String> prevNames = previous.bookieNames();
+            for (int i = 0, n = prevNames.size(); i < n; i++) {
+                prevIndexes.put(prevNames.get(i), i);
+            }
+        }
+        
+        for (int i = 0; i < prevIndexOf.length; i++) {
+            prevIndexOf[i] = prevIndexes.getOrDefault(curNames.get(i), -1);
+        }
+        
+        return prevIndexOf;
+    }
+    
+    /* adds a change for each bookie whose over-under odds differ */
+    private static void addMovedBookieOdds(List<Change> changes, int rot,
+        OddsSnapshot.Entry old, OddsSnapshot.Entry cur, int[] prevIndexOf) {
+        for (int bi = 0; bi < prevIndexOf.length; bi++) {
+            int pi = prevIndexOf[bi];
+            boolean moved = (pi < 0)
+                ? cur.match().hasBookieOdds(bi)
+                : Double.compare(old.over(pi), cur.over(bi)) != 0
+                    || Double.compare(old.under(pi), cur.under(bi)) != 0
+                    || !sameOdds(old.textOdds(pi), cur.textOdds(bi));
+            
+            if (moved) {
+                Odds text = cur.textOdds(bi);
+                String over = (text != null) ? text.over()
+                    : Match.formatOdds(cur.over(bi));
+                String under = (text != null) ? text.under()
+                    : Match.formatOdds(cur.under(bi));
+                
+                changes.add(new Change(Type.ODDS_MOVED, rot, bi, cur.match(),
+                    over, under));
+            }
+        }
+    }
+    
+    /* true if both snapshots have the same matches in the same order */
+    private static boolean sameMatchOrder(Map<Long, OddsSnapshot.Entry> prev,
+        Map<Long, OddsSnapshot.Entry> cur) {
+        if (prev.size() != cur.size()) { return false; }
+        
+        Iterator<Long> p = prev.keySet().iterator();
+        for (Long key : cur.keySet()) {
+            if (!key.equals(p.next())) { return false; }
+        }
+        return true;
+    }
+    
+    /* compares odds by their text, treating two nulls as the same */
+    private static boolean sameOdds(Odds one, Odds two) {
+        if (one == null || two == null) { return one == two; }
+        
+        return one.over().equals(two.over())
+            && one.under().equals(two.under());
+    }
+    
+}
@@ -10,12 +10,17 @@ import java.util.ListIterator;
  * <p>
  * This class has a {@linkplain #listIterator()} and an {@linkplain #iterator()}
  * method to allow for iterating over the list of scraped matches.
+ * <p>
+ * The bookie odds of every match in a date group are stored in a single
+ * columnar {@link OddsTable}, one column per bookie. Bookie columns can be
+ * swapped or reordered without touching each match's odds.
  * 
  * @author Jonathan Henly
  */
 public class DateGroup implements Iterable<Match> {
     private String date;
     private List<Match> matches;
+    private OddsTable odds; // created when the first match is added
     
     /**
      * Constructs a new {@code DateGroup} instance associated with the passed in
@@ -49,14 +54,27 @@ public class DateGroup implements Iterable<Match> {
     /**
      * Adds a {@code Match} instance to the end of the matches list in this
      * {@code DateGroup} instance.
+     * <p>
+     * The match's odds are moved into this date group's odds table, so a
+     * match should only be added to one date group.
      * 
      * @param match
      *              the match to add
+     * @throws IllegalArgumentException
+     *                                  if the match has a different number of
+     *                                  bookies than the matches already added
      */
-    public void addMatch(Match match) { matches.add(match); }
+    public void addMatch(Match match) {
+        if (odds == null) { odds = new OddsTable(match.numBookies()); }
+        
+        match.moveOddsTo(odds);
+        matches.add(match);
+    }
     
     /**
      * Swaps all match odds between two different bookies.
+     * <p>
+     * This runs in constant time, regardless of the number of matches.
      * 
      * @param one
      *            - the bookie to swap indexes with the other
@@ -64,9 +82,54 @@ public class DateGroup implements Iterable<Match> {
      *            - the other bookie to swap indexes with
      */
     public void swapBookieIndexes(Bookie one, Bookie two) {
-        for (Match m : this) {
-            m.swapBookieOdds(one.index(), two.index());
+        if (odds != null) { odds.swapBookies(one.index(), two.index()); }
+    }
+    
+    /**
+     * Reorders all match odds so the bookie at position {@code i} of the
+     * specified list ends up at bookie index {@code i}.
+     * <p>
+     * This runs in time linear in the number of bookies, regardless of the
+     * number of matches.
+     * 
+     * @param order
+     *              - every bookie, by its current index, in the desired order
+     * @throws IllegalArgumentException
+     *                                  if {@code order} does not have every
+     *                                  bookie exactly once
+     */
+    public void reorderBookies(List<Bookie> order) {
+        if (odds == null) { return; }
+        
+        int[] indexes = new int[order.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = order.get(i).index();
         }
+        
+        odds.reorder(indexes);
+    }
+    
+    /**
+     * Gets a bookie's over odds for every match in this date group.
+     * 
+     * @param bookie
+     *               - the bookie whose odds to get
+     * @return the bookie's over odds in match order, {@code NaN} where missing
+     */
+    public double[] overColumn(Bookie bookie) {
+        return (odds == null) ? new double[0] : odds.overColumn(bookie.index());
+    }
+    
+    /**
+     * Gets a bookie's under odds for every match in this date group.
+     * 
+     * @param bookie
+     *               - the bookie whose odds to get
+     * @return the bookie's under odds in match order, {@code NaN} where missing
+     */
+    public double[] underColumn(Bookie bookie) {
+        return (odds == null) ? new double[0]
+            : odds.underColumn(bookie.index());
     }
     
     /**
@@ -0,0 +1,221 @@
+package com.bookiescrape.app.scrape;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.gargoylesoftware.htmlunit.html.DomElement;
+import com.gargoylesoftware.htmlunit.html.DomNode;
+
+/**
+ * Compiled plan for extracting odds feed cells from a Sports Book Review
+ * page's DOM.
+ * <p>
+ * Every lookup {@link Scraper} needs, such as a match holder's
+ * {@code eventLine-book} cells or a date group's {@code content-scheduled}
+ * div, is compiled once into a selector that walks the DOM directly, instead
+ * of having HtmlUnit parse and interpret an XPath string for every match on
+ * every carousel page.
+ * <p>
+ * Descendant lookups remember the child index path they were last found at.
+ * Since every date group in a feed has the same layout, the remembered path is
+ * checked first and the subtree is only searched again when the path no
+ * longer leads to a matching element.
+ *
+ * @author Jonathan Henly
+ */
+final class ExtractionPlan {
+    
+    /** The plan for the Sports Book Review odds feed layout. */
+    static final ExtractionPlan SPORTS_BOOK_REVIEW = new ExtractionPlan();
+    
+    /* date group cells */
+    private final DescendantSelector date;
+    private final DescendantSelector contentScheduled;
+    
+    /* match holder cells */
+    private final ChildSelector rotation;
+    private final ChildSelector time;
+    private final ChildSelector team;
+    private final ChildSelector opener;
+    private final ChildSelector book;
+    
+    private ExtractionPlan() {
+        date = new DescendantSelector("div", "date");
+        contentScheduled = new DescendantSelector("div",
+            "content-scheduled content-pre-game ");
+        
+        rotation = new ChildSelector("div", "el-div eventLine-rotation");
+        time = new ChildSelector("div", "el-div eventLine-time");
+        team = new ChildSelector("div", "el-div eventLine-team");
+        opener = new ChildSelector("div", "el-div eventLine-opener");
+        book = new ChildSelector("div", "el-div eventLine-book");
+    }
+    
+    /** @return a date group's {@code <div class='date'>} */
+    DomElement date(DomNode dateGroupDiv) { return date.find(dateGroupDiv); }
+    
+    /** @return a date group's div holding all of its matches */
+    DomElement contentScheduled(DomNode dateGroupDiv) {
+        return contentScheduled.find(dateGroupDiv);
+    }
+    
+    /** @return a match holder's rotation numbers cell */
+    DomElement rotation(DomNode holder) { return rotation.first(holder); }
+    
+    /** @return a match holder's match time cell */
+    DomElement time(DomNode holder) { return time.first(holder); }
+    
+    /** @return a match holder's teams cell */
+    DomElement team(DomNode holder) { return team.first(holder); }
+    
+    /** @return a match holder's opener cell */
+    DomElement opener(DomNode holder) { return opener.first(holder); }
+    
+    /** @return a match holder's bookie odds cells, in carousel order */
+    List<DomElement> books(DomNode holder) { return book.all(holder); }
+    
+    /**
+     * Gets the {@code n}th child element of a parent with the specified tag
+     * name, like the XPath {@code ./tag[n]}.
+     * 
+     * @param parent
+     *               - the parent to get the child element from
+     * @param tag
+     *               - the child element's tag name
+     * @param n
+     *               - the one based index of the child among those with the
+     *               same tag name
+     * @return the child element, or {@code null} if there is no such child
+     */
+    static DomElement nthChild(DomNode parent, String tag, int n) {
+        if (parent == null) { return null; }
+        
+        for (DomElement e = firstElement(parent); e != null;
+            e = nextElement(e)) {
+            if (e.getTagName().equals(tag) && --n == 0) { return e; }
+        }
+        
+        return null;
+    }
+    
+    /* the first child element of a node, or null */
+    private static DomElement firstElement(DomNode parent) {
+        return skipToElement(parent.getFirstChild());
+    }
+    
+    /* the next sibling element of a node, or null */
+    private static DomElement nextElement(DomNode node) {
+        return skipToElement(node.getNextSibling());
+    }
+    
+    /* helper that skips over text and comment nodes */
+    private static DomElement skipToElement(DomNode node) {
+        while (node != null && !(node instanceof DomElement)) {
+            node = node.getNextSibling();
+        }
+        return (DomElement) node;
+    }
+    
+    /* matches elements by tag name and exact class attribute value */
+    private static class ChildSelector {
+        private final String tag;
+        private final String cls;
+        
+        private ChildSelector(String tag, String cls) {
+            this.tag = tag;
+            this.cls = cls;
+        }
+        
+        /* whether an element matches this selector */
+        boolean matches(DomElement e) {
+            return e.getTagName().equals(tag)
+                && cls.equals(e.getAttributeDirect("class"));
+        }
+        
+        /* the first matching child element, or null */
+        DomElement first(DomNode parent) {
+            for (DomElement e = firstElement(parent); e != null;
+                e = nextElement(e)) {
+                if (matches(e)) { return e; }
+            }
+            return null;
+        }
+        
+        /* every matching child element, in document order */
+        List<DomElement> all(DomNode parent) {
+            List<DomElement> found = new ArrayList<>();
+            for (DomElement e = firstElement(parent); e != null;
+                e = nextElement(e)) {
+                if (matches(e)) { found.add(e); }
+            }
+            return found;
+        }
+    }
+    
+    /* matches descendant elements, remembering where they were last found */
+    private static class DescendantSelector extends ChildSelector {
+        // child element indexes from the root to the last match, shared by
+        // every scraper thread; a stale read only costs a subtree search
+        private volatile int[] path;
+        
+        private DescendantSelector(String tag, String cls) { super(tag, cls); }
+        
+        /* the first matching descendant element in document order, or null */
+        DomElement find(DomNode root) {
+            DomElement cached = follow(root, path);
+            if (cached != null && matches(cached)) { return cached; }
+            
+            List<Integer> trail = new ArrayList<>();
+            DomElement found = search(root, trail);
+            if (found != null) {
+                int[] p = new int[trail.size()];
+                for (int i = 0; i < p.length; i++) {
+                    p[i] = trail.get(i);
+                }
+                path = p;
+            }
+            
+            return found;
+        }
+        
+        /* walks a child index path from the root, null if it dead ends */
+        private static DomElement follow(DomNode root, int[] p) {
+            if (p == null) { return null; }
+            
+            DomNode node = root;
+            for (int index : p) {
+                DomElement child = null;
+                int i = 0;
+                for (DomElement e = firstElement(node); e != null;
+                    e = nextElement(e)) {
+                    if (i++ == index) {
+                        child = e;
+                        break;
+                    }
+                }
+                
+                if (child == null) { return null; }
+                node = child;
+            }
+            
+            return (DomElement) node;
+        }
+        
+        /* depth first search that records the child index path taken */
+        private DomElement search(DomNode node, List<Integer> trail) {
+            int index = 0;
+            for (DomElement e = firstElement(node); e != null;
+                e = nextElement(e)) {
+                trail.add(index++);
+                if (matches(e)) { return e; }
+                
+                DomElement found = search(e, trail);
+                if (found != null) { return found; }
+                trail.remove(trail.size() - 1);
+            }
+            
+            return null;
+        }
+    }
+    
+}
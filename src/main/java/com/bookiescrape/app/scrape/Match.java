@@ -2,6 +2,14 @@ package com.bookiescrape.app.scrape;
 
 /**
  * Class that holds all of data scraped from a match between two teams.
+ * <p>
+ * Bookie odds are stored packed, as a row of an {@link OddsTable}. Once a
+ * match is added to a {@link DateGroup} its odds are read from, and written
+ * to, a row of the date group's table. A match only gets a single row table
+ * of its own if its odds are set before it is added to a date group. Odds
+ * text is parsed once, when it is set, and is only rendered back into a
+ * string when asked for. Odds text that would not render back the same, like
+ * {@code "1.90"} or text that is not a plain number, is kept as is.
  * 
  * @author Jonathan Henly
  */
@@ -21,7 +29,7 @@ public class Match {
         private String away;
         private String url;
         private Odds opener;
-        private Odds[] odds;
+        private int numBookies;
         
         /**
          * Constructs a {@code MatchBuilder} instance which is used to build a
@@ -31,7 +39,7 @@ public class Match {
          *                   - the number of bookies to be scraped
          */
         private MatchBuilder(int numBookies) {
-            odds = new Odds[numBookies];
+            this.numBookies = numBookies;
             homeRot = -1;
             awayRot = -1;
         }
@@ -80,7 +88,7 @@ public class Match {
          * @return {@code this}, to allow for method chaining
          */
         public MatchBuilder awayRot(int rot) {
-            this.homeRot = rot;
+            this.awayRot = rot;
             return this;
         }
         
@@ -118,7 +126,7 @@ public class Match {
          * @return {@code this}, to allow for method chaining
          */
         public MatchBuilder opener(String over, String under) {
-            this.opener = new Odds(over, under);
+            this.opener = Odds.parse(over, under);
             return this;
         }
         
@@ -138,7 +146,9 @@ public class Match {
     private Team away;
     private String url;
     private Odds opener;
-    private Odds[] odds;
+    private final int numBookies;
+    private OddsTable table; // null until odds are set or the match is added
+    private int row;
     
     
     /* constructs a match from a passed in builder */
@@ -148,7 +158,16 @@ public class Match {
         away = new Team(builder.awayRot, builder.away);
         url = builder.url;
         opener = builder.opener;
-        odds = builder.odds;
+        numBookies = builder.numBookies;
+    }
+    
+    /* gets this match's table, creating a single row one if it has none */
+    private OddsTable table() {
+        if (table == null) {
+            table = new OddsTable(numBookies, 1);
+            row = table.addRow();
+        }
+        return table;
     }
     
     /**
@@ -197,6 +216,28 @@ public class Match {
      */
     public int awayRot() { return away.rot(); }
     
+    /**
+     * Gets the key that identifies this match by both of its ROT numbers.
+     * 
+     * @return this match's rotation key
+     * @see #rotationKey(int, int)
+     */
+    public long rotationKey() { return rotationKey(homeRot(), awayRot()); }
+    
+    /**
+     * Combines a match's home and away ROT numbers into a single key, which
+     * tells matches apart even when two feeds share a home ROT number.
+     * 
+     * @param homeRot
+     *                - the match's home ROT number
+     * @param awayRot
+     *                - the match's away ROT number
+     * @return the match's rotation key
+     */
+    public static long rotationKey(int homeRot, int awayRot) {
+        return ((long) homeRot << 32) | (awayRot & 0xFFFF_FFFFL);
+    }
+    
     /**
      * Gets the {@code Team} instance associated with the away team.
      * 
@@ -225,12 +266,91 @@ public class Match {
      * switching the ordering of bookies.
      * 
      * @param one
+     *            - the first bookie's index
      * @param two
+     *            - the second bookie's index
      */
     void swapBookieOdds(int one, int two) {
-        Odds tmp = odds[one];
-        odds[one] = odds[two];
-        odds[two] = tmp;
+        if (table != null) { table.swapOdds(row, one, two); }
+    }
+    
+    /**
+     * Moves this match's odds into a new row of the specified table, from then
+     * on this match reads and writes its odds through that row.
+     * 
+     * @param dst
+     *            - the table to move this match's odds into
+     * @throws IllegalArgumentException
+     *                                  if the table has a different number of
+     *                                  bookies than this match
+     */
+    void moveOddsTo(OddsTable dst) {
+        if (dst.numBookies() != numBookies) {
+            throw new IllegalArgumentException(
+                "odds table has a different number of bookies than the match.");
+        }
+        
+        int dstRow = dst.addRow();
+        if (table != null) { dst.copyRow(table, row, dstRow); }
+        
+        table = dst;
+        row = dstRow;
+    }
+    
+    /**
+     * Gets the number of bookies this match has room for.
+     * 
+     * @return the number of bookies
+     */
+    public int numBookies() { return numBookies; }
+    
+    /**
+     * Checks whether a bookie's odds have been set for this match.
+     * 
+     * @param bookieIndex
+     *                    - the index of the bookie
+     * @return {@code true} if the bookie's odds have been set
+     */
+    public boolean hasBookieOdds(int bookieIndex) {
+        return table != null && table.has(row, bookieIndex);
+    }
+    
+    /**
+     * Gets a bookie's over odds as a number.
+     * 
+     * @param bookieIndex
+     *                    - the index of the bookie
+     * @return the bookie's over odds, or {@code Double.NaN} if not set or not
+     *         a number
+     */
+    public double bookieOver(int bookieIndex) {
+        return (table == null) ? Double.NaN : table.over(row, bookieIndex);
+    }
+    
+    /**
+     * Gets a bookie's under odds as a number.
+     * 
+     * @param bookieIndex
+     *                    - the index of the bookie
+     * @return the bookie's under odds, or {@code Double.NaN} if not set or not
+     *         a number
+     */
+    public double bookieUnder(int bookieIndex) {
+        return (table == null) ? Double.NaN : table.under(row, bookieIndex);
+    }
+    
+    /**
+     * Sets a specified bookie's already parsed odds for this match.
+     * 
+     * @param bookieIndex
+     *                    - the index of this bookie
+     * @param over
+     *                    - the bookie's over odds
+     * @param under
+     *                    - the bookie's under odds
+     */
+    public void setBookieOdds(int bookieIndex, double over, double under) {
+        table().set(row, bookieIndex, over, under);
     }
     
     /**
@@ -244,18 +364,93 @@ public class Match {
      *                    - the bookie's under odds
      */
     public void setBookieOdds(int bookieIndex, String over, String under) {
-        odds[bookieIndex] = new Odds(over, under);
+        double o = parseOdds(over);
+        double u = parseOdds(under);
+        setBookieOdds(bookieIndex, o, u);
+        
+        // only keep the text of odds that wouldn't render back the same
+        if (keepsText(o, over)) { table.setText(row, bookieIndex, 0, over); }
+        if (keepsText(u, under)) { table.setText(row, bookieIndex, 1, under); }
+    }
+    
+    /**
+     * Checks whether a bookie's scraped odds text, that would not render back
+     * the same from its number, has been kept.
+     * 
+     * @param bookieIndex
+     *                    - the index of the bookie
+     * @return {@code true} if the bookie's over or under text has been kept
+     */
+    boolean hasBookieText(int bookieIndex) {
+        if (table == null) { return false; }
+        
+        return table.text(row, bookieIndex, 0) != null
+            || table.text(row, bookieIndex, 1) != null;
     }
     
     /**
      * Gets the odds associated with a passed in bookie index.
+     * <p>
+     * The returned {@code Odds} is a view created on demand, prefer
+     * {@link #bookieOver(int)} and {@link #bookieUnder(int)} in hot paths.
      * 
      * @param bookieIndex
      *                    - which bookie's odds to get
-     * @return the odds associated with the specified bookie index
+     * @return the odds associated with the specified bookie index, or
+     *         {@code null} if the bookie's odds have not been set
+     */
+    public Odds getBookieOdds(int bookieIndex) {
+        if (!hasBookieOdds(bookieIndex)) { return null; }
+        
+        return new Odds(table.over(row, bookieIndex),
+            table.under(row, bookieIndex), table.text(row, bookieIndex, 0),
+            table.text(row, bookieIndex, 1));
+    }
+    
+    /**
+     * Parses odds text, as shown on the page, into a number.
+     * <p>
+     * Fractional halves, like {@code "44½"}, are parsed as {@code 44.5}.
+     * 
+     * @param text
+     *             - the odds text
+     * @return the odds, or {@code Double.NaN} if the text is blank or is not a
+     *         number
      */
-    public Odds getBookieOdds(int bookieIndex) { return odds[bookieIndex]; }
+    static double parseOdds(String text) {
+        if (isBlank(text)) { return Double.NaN; }
+        
+        String t = text.strip();
+        boolean half = t.endsWith("\u00BD");
+        if (half) { t = t.substring(0, t.length() - 1); }
+        
+        try {
+            double d = t.isEmpty() ? 0.0 : Double.parseDouble(t);
+            return half ? d + Math.copySign(0.5, d) : d;
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+    
+    /* renders parsed odds back into text, "" if missing */
+    static String formatOdds(double odds) {
+        if (Double.isNaN(odds)) { return ""; }
+        if (odds == Math.rint(odds) && !Double.isInfinite(odds)) {
+            return Long.toString((long) odds);
+        }
+        
+        return Double.toString(odds);
+    }
+    
+    /* true if odds text would not render back the same from its number */
+    private static boolean keepsText(double odds, String text) {
+        return !isBlank(text) && !formatOdds(odds).equals(text);
+    }
     
+    /* helper that checks for null or whitespace only text */
+    private static boolean isBlank(String text) {
+        return text == null || text.isBlank();
+    }
     
     /**
      * Mainly used for debugging.
@@ -273,11 +468,12 @@ public class Match {
             opener.under(), time, url);
         
         
-        for (int i = 0; i < odds.length; i++) {
-            if (odds[i] == null) { break; }
+        for (int i = 0, n = numBookies(); i < n; i++) {
+            if (!hasBookieOdds(i)) { break; }
             
-            s += String.format("  book[%d]: %s %s ", i, odds[i].over(),
-                odds[i].under());
+            Odds odds = getBookieOdds(i);
+            s += String.format("  book[%d]: %s %s ", i, odds.over(),
+                odds.under());
         }
         
         return s;
@@ -329,24 +525,45 @@ public class Match {
      * <p>
      * This class contains two methods {@linkplain Odds#over() over()} and
      * {@linkplain Odds#under() under()}, which return the over and under odds
-     * respectively.
+     * respectively. The odds' text is only rendered when one of those methods
+     * is called.
      * 
      * @author Jonathan Henly
      */
     public static class Odds {
-        private String over, under;
+        private final double over, under;
+        private String overText, underText;
         
         /**
          * Constructs a new {@code Odds} instance.
          * 
          * @param over
-         *              - the over odds
+         *                  - the over odds
          * @param under
-         *              - the under odds
+         *                  - the under odds
+         * @param overText
+         *                  - the over odds' scraped text, if it doesn't
+         *                  render back the same from the number, or
+         *                  {@code null}
+         * @param underText
+         *                  - the under odds' scraped text, if it doesn't
+         *                  render back the same from the number, or
+         *                  {@code null}
          */
-        private Odds(String over, String under) {
+        private Odds(double over, double under, String overText,
+            String underText) {
             this.over = over;
             this.under = under;
+            this.overText = overText;
+            this.underText = underText;
+        }
+        
+        /* parses odds text once, keeping text that won't render the same */
+        private static Odds parse(String over, String under) {
+            double o = parseOdds(over);
+            double u = parseOdds(under);
+            return new Odds(o, u, keepsText(o, over) ? over : null,
+                keepsText(u, under) ? under : null);
         }
         
         /**
@@ -354,14 +571,34 @@ public class Match {
          * 
          * @return this {@code Odds} instance's over
          */
-        public String over() { return over; }
+        public String over() {
+            if (overText == null) { overText = formatOdds(over); }
+            return overText;
+        }
         
         /**
          * Gets this {@code Odds} instance's under.
          * 
          * @return this {@code Odds} instance's under
          */
-        public String under() { return under; }
+        public String under() {
+            if (underText == null) { underText = formatOdds(under); }
+            return underText;
+        }
+        
+        /**
+         * Gets this {@code Odds} instance's over as a number.
+         * 
+         * @return the over odds, or {@code Double.NaN} if not a number
+         */
+        public double overValue() { return over; }
+        
+        /**
+         * Gets this {@code Odds} instance's under as a number.
+         * 
+         * @return the under odds, or {@code Double.NaN} if not a number
+         */
+        public double underValue() { return under; }
     }
     
     
@@ -0,0 +1,164 @@
+package com.bookiescrape.app.scrape;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.bookiescrape.app.scrape.Match.Odds;
+
+/**
+ * Every match's odds from a single scrape, keyed by the match's
+ * {@link Match#rotationKey() home and away ROT numbers} and the bookie's
+ * index.
+ * <p>
+ * A snapshot copies the odds out of its matches when it is created, so later
+ * changes to the scraped odds, like swapping bookie indexes, do not change the
+ * snapshot's odds. Each entry still refers to its live {@link Match}, for the
+ * match's teams and for writing it. Two snapshots are compared with
+ * {@link ChangeSet#between(OddsSnapshot, OddsSnapshot)}.
+ * <p>
+ * A match missing a ROT number, or sharing both of its ROT numbers with an
+ * earlier match, can't be told apart from other matches. It is left out of
+ * the snapshot, and the snapshot no longer {@link #hasUniqueRotations() has
+ * unique rotations}.
+ *
+ * @author Jonathan Henly
+ * @see ChangeSet
+ */
+public final class OddsSnapshot {
+    
+    /* one match's odds, copied out of the match */
+    static final class Entry {
+        private final Match match;
+        private final Odds opener;
+        private final double[] overs;
+        private final double[] unders;
+        private final Odds[] textOdds; // only odds with kept scraped text
+        
+        private Entry(Match match, int numBookies) {
+            this.match = match;
+            opener = match.opener();
+            
+            overs = new double[numBookies];
+            unders = new double[numBookies];
+            Odds[] text = null;
+            for (int i = 0; i < numBookies; i++) {
+                overs[i] = match.bookieOver(i);
+                unders[i] = match.bookieUnder(i);
+                
+                // keep scraped text that won't render back from the number
+                if (match.hasBookieText(i)) {
+                    if (text == null) { text = new Odds[numBookies]; }
+                    text[i] = match.getBookieOdds(i);
+                }
+            }
+            textOdds = text;
+        }
+        
+        /** @return the match this entry was copied from */
+        Match match() { return match; }
+        
+        /** @return the opener's odds, or {@code null} */
+        Odds opener() { return opener; }
+        
+        /** @return a bookie's over odds, or {@code NaN} */
+        double over(int bookieIndex) { return overs[bookieIndex]; }
+        
+        /** @return a bookie's under odds, or {@code NaN} */
+        double under(int bookieIndex) { return unders[bookieIndex]; }
+        
+        /** @return a bookie's odds with kept scraped text, or {@code null} */
+        Odds textOdds(int bookieIndex) {
+            return (textOdds == null) ? null : textOdds[bookieIndex];
+        }
+    }
+    
+    private final List<String> bookieNames;
+    private final Map<Long, Entry> entries;
+    private final boolean uniqueRotations;
+    
+    private OddsSnapshot(List<String> bookieNames, Map<Long, Entry> entries,
+        boolean uniqueRotations) {
+        this.bookieNames = bookieNames;
+        this.entries = entries;
+        this.uniqueRotations = uniqueRotations;
+    }
+    
+    /**
+     * Creates a snapshot of the odds of every match in the specified date
+     * groups.
+     * 
+     * @param bookies
+     *                   - the scraped bookies, in bookie index order
+     * @param dateGroups
+     *                   - the scraped date groups
+     * @return a snapshot of the matches' current odds
+     */
+    public static OddsSnapshot of(List<Bookie> bookies,
+        List<DateGroup> dateGroups) {
+        List<String> names = new ArrayList<>();
+        if (bookies != null) {
+            for (Bookie b : bookies) {
+                names.add(b.name());
+            }
+        }
+        
+        Map<Long, Entry> entries = new LinkedHashMap<>();
+        boolean unique = true;
+        if (dateGroups != null) {
+            for (DateGroup dg : dateGroups) {
+                for (Match m : dg) {
+                    // a ROT number that wasn't set is -1, or 0 if unparsed
+                    if (m.homeRot() <= 0 || m.awayRot() <= 0
+                        || entries.containsKey(m.rotationKey())) {
+                        unique = false;
+                        continue;
+                    }
+                    
+                    entries.put(m.rotationKey(), new Entry(m, names.size()));
+                }
+            }
+        }
+        
+        return new OddsSnapshot(Collections.unmodifiableList(names),
+            Collections.unmodifiableMap(entries), unique);
+    }
+    
+    /**
+     * @return the names of the bookies in this snapshot, in bookie index order
+     */
+    public List<String> bookieNames() { return bookieNames; }
+    
+    /**
+     * @return the number of matches in this snapshot
+     */
+    public int size() { return entries.size(); }
+    
+    /**
+     * Checks whether this snapshot has a match with the specified ROT
+     * numbers.
+     * 
+     * @param homeRot
+     *                - the match's home ROT number
+     * @param awayRot
+     *                - the match's away ROT number
+     * @return {@code true} if this snapshot has the match
+     */
+    public boolean contains(int homeRot, int awayRot) {
+        return entries.containsKey(Match.rotationKey(homeRot, awayRot));
+    }
+    
+    /**
+     * Checks whether every scraped match has both ROT numbers, and no two
+     * matches share them, i.e. whether every match is in this snapshot.
+     * 
+     * @return {@code true} if no match was left out of this snapshot
+     */
+    public boolean hasUniqueRotations() { return uniqueRotations; }
+    
+    /* the snapshot's entries, keyed by rotation key in scrape order */
+    Map<Long, Entry> entries() { return entries; }
+    
+}
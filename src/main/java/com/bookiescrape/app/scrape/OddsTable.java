@@ -0,0 +1,287 @@
+package com.bookiescrape.app.scrape;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Columnar store of the bookie odds of every match in a {@link DateGroup}.
+ * <p>
+ * Odds are stored bookie-major, one over column and one under column per
+ * bookie, with each match being a row. Bookie indexes are mapped to physical
+ * columns through an index map, so swapping two bookies or reordering every
+ * bookie only rewrites the index map, instead of moving the odds of every
+ * match.
+ * <p>
+ * Odds text that is not a plain number is kept in per column text arrays,
+ * which are only allocated when needed.
+ *
+ * @author Jonathan Henly
+ * @see Match
+ */
+final class OddsTable {
+    private static final int DEFAULT_ROWS = 16;
+    
+    private final int numBookies;
+    private int[] columnOf; // bookie index -> physical column
+    private double[][] overs; // [column][row]
+    private double[][] unders; // [column][row]
+    private final BitSet[] present; // [column], bit per row
+    private final String[][] texts; // [column], 2 slots per row, lazily
+    private int rows;
+    private int capacity;
+    
+    /**
+     * Creates an empty odds table.
+     * 
+     * @param numBookies
+     *                     - the number of bookie columns
+     * @param initialRows
+     *                     - the number of rows to allocate up front
+     */
+    OddsTable(int numBookies, int initialRows) {
+        this.numBookies = numBookies;
+        capacity = Math.max(1, initialRows);
+        
+        columnOf = new int[numBookies];
+        overs = new double[numBookies][];
+        unders = new double[numBookies][];
+        present = new BitSet[numBookies];
+        texts = new String[numBookies][];
+        
+        for (int c = 0; c < numBookies; c++) {
+            columnOf[c] = c;
+            overs[c] = newColumn(capacity);
+            unders[c] = newColumn(capacity);
+            present[c] = new BitSet(capacity);
+        }
+    }
+    
+    /**
+     * Creates an empty odds table with room for a default number of rows.
+     * 
+     * @param numBookies
+     *                   - the number of bookie columns
+     */
+    OddsTable(int numBookies) { this(numBookies, DEFAULT_ROWS); }
+    
+    /** @return the number of bookie columns */
+    int numBookies() { return numBookies; }
+    
+    /** @return the number of rows */
+    int rows() { return rows; }
+    
+    /**
+     * Appends an empty row, with every bookie's odds missing.
+     * 
+     * @return the new row's index
+     */
+    int addRow() {
+        if (rows == capacity) { grow(); }
+        return rows++;
+    }
+    
+    /** @return a bookie's over odds in a row, or {@code NaN} if missing */
+    double over(int row, int bookie) { return overs[columnOf[bookie]][row]; }
+    
+    /** @return a bookie's under odds in a row, or {@code NaN} if missing */
+    double under(int row, int bookie) { return unders[columnOf[bookie]][row]; }
+    
+    /** @return {@code true} if a bookie's odds in a row have been set */
+    boolean has(int row, int bookie) {
+        return present[columnOf[bookie]].get(row);
+    }
+    
+    /**
+     * Sets a bookie's odds in a row, clearing any kept odds text.
+     * 
+     * @param row
+     *               - the row's index
+     * @param bookie
+     *               - the bookie's index
+     * @param over
+     *               - the bookie's over odds
+     * @param under
+     *               - the bookie's under odds
+     */
+    void set(int row, int bookie, double over, double under) {
+        int c = columnOf[bookie];
+        overs[c][row] = over;
+        unders[c][row] = under;
+        present[c].set(row);
+        
+        if (texts[c] != null) {
+            texts[c][2 * row] = null;
+            texts[c][2 * row + 1] = null;
+        }
+    }
+    
+    /** @return a bookie's kept over ({@code 0}) or under ({@code 1}) text */
+    String text(int row, int bookie, int side) {
+        String[] col = texts[columnOf[bookie]];
+        return (col == null) ? null : col[2 * row + side];
+    }
+    
+    /* keeps a bookie's over (0) or under (1) odds text that isn't a number */
+    void setText(int row, int bookie, int side, String text) {
+        int c = columnOf[bookie];
+        if (texts[c] == null) { texts[c] = new String[2 * capacity]; }
+        texts[c][2 * row + side] = text;
+    }
+    
+    /**
+     * Copies every bookie's odds from a row of another table, that has the
+     * same number of bookies, into a row of this table.
+     * 
+     * @param src
+     *                - the table to copy from
+     * @param srcRow
+     *                - the row to copy from
+     * @param dstRow
+     *                - the row of this table to copy into
+     */
+    void copyRow(OddsTable src, int srcRow, int dstRow) {
+        for (int b = 0; b < numBookies; b++) {
+            if (!src.has(srcRow, b)) { continue; }
+            
+            set(dstRow, b, src.over(srcRow, b), src.under(srcRow, b));
+            for (int side = 0; side < 2; side++) {
+                String text = src.text(srcRow, b, side);
+                if (text != null) { setText(dstRow, b, side, text); }
+            }
+        }
+    }
+    
+    /**
+     * Swaps two bookies' columns, in constant time.
+     * 
+     * @param one
+     *            - the first bookie's index
+     * @param two
+     *            - the second bookie's index
+     */
+    void swapBookies(int one, int two) {
+        int tmp = columnOf[one];
+        columnOf[one] = columnOf[two];
+        columnOf[two] = tmp;
+    }
+    
+    /**
+     * Swaps two bookies' odds, and any kept odds text, in a single row.
+     * 
+     * @param row
+     *            - the row's index
+     * @param one
+     *            - the first bookie's index
+     * @param two
+     *            - the second bookie's index
+     */
+    void swapOdds(int row, int one, int two) {
+        int c1 = columnOf[one];
+        int c2 = columnOf[two];
+        if (c1 == c2) { return; }
+        
+        double tmp = overs[c1][row];
+        overs[c1][row] = overs[c2][row];
+        overs[c2][row] = tmp;
+        
+        tmp = unders[c1][row];
+        unders[c1][row] = unders[c2][row];
+        unders[c2][row] = tmp;
+        
+        boolean had = present[c1].get(row);
+        present[c1].set(row, present[c2].get(row));
+        present[c2].set(row, had);
+        
+        for (int side = 0; side < 2; side++) {
+            String t1 = text(row, one, side);
+            String t2 = text(row, two, side);
+            if (t1 == null && t2 == null) { continue; }
+            
+            setText(row, one, side, t2);
+            setText(row, two, side, t1);
+        }
+    }
+    
+    /**
+     * Reorders every bookie column at once, in time linear in the number of
+     * bookies.
+     * 
+     * @param order
+     *              - {@code order[i]} is the current index of the bookie that
+     *              should end up at index {@code i}, must be a permutation of
+     *              the current bookie indexes
+     * @throws IllegalArgumentException
+     *                                  if {@code order} is not a permutation
+     */
+    void reorder(int[] order) {
+        if (order.length != numBookies) {
+            throw new IllegalArgumentException(
+                "order must have one entry per bookie.");
+        }
+        
+        boolean[] seen = new boolean[numBookies];
+        int[] reordered = new int[numBookies];
+        for (int i = 0; i < numBookies; i++) {
+            int from = order[i];
+            if (from < 0 || from >= numBookies || seen[from]) {
+                throw new IllegalArgumentException(
+                    "order is not a permutation of the bookie indexes.");
+            }
+            
+            seen[from] = true;
+            reordered[i] = columnOf[from];
+        }
+        
+        columnOf = reordered;
+    }
+    
+    /**
+     * Copies a bookie's over odds column, one entry per row.
+     * 
+     * @param bookie
+     *               - the bookie's index
+     * @return the bookie's over odds, {@code NaN} where missing
+     */
+    double[] overColumn(int bookie) {
+        return Arrays.copyOf(overs[columnOf[bookie]], rows);
+    }
+    
+    /**
+     * Copies a bookie's under odds column, one entry per row.
+     * 
+     * @param bookie
+     *               - the bookie's index
+     * @return the bookie's under odds, {@code NaN} where missing
+     */
+    double[] underColumn(int bookie) {
+        return Arrays.copyOf(unders[columnOf[bookie]], rows);
+    }
+    
+    /* doubles the row capacity of every column */
+    private void grow() {
+        int newCapacity = capacity * 2;
+        for (int c = 0; c < numBookies; c++) {
+            overs[c] = growColumn(overs[c], newCapacity);
+            unders[c] = growColumn(unders[c], newCapacity);
+            if (texts[c] != null) {
+                texts[c] = Arrays.copyOf(texts[c], 2 * newCapacity);
+            }
+        }
+        capacity = newCapacity;
+    }
+    
+    /* helper that creates a column of missing odds */
+    private static double[] newColumn(int length) {
+        double[] col = new double[length];
+        Arrays.fill(col, Double.NaN);
+        return col;
+    }
+    
+    /* helper that grows a column, filling the new rows with missing odds */
+    private static double[] growColumn(double[] col, int length) {
+        double[] grown = Arrays.copyOf(col, length);
+        Arrays.fill(grown, col.length, length, Double.NaN);
+        return grown;
+    }
+    
+}
@@ -0,0 +1,272 @@
+package com.bookiescrape.app.scrape;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.gargoylesoftware.htmlunit.html.CharacterDataChangeEvent;
+import com.gargoylesoftware.htmlunit.html.CharacterDataChangeListener;
+import com.gargoylesoftware.htmlunit.html.DomChangeEvent;
+import com.gargoylesoftware.htmlunit.html.DomChangeListener;
+import com.gargoylesoftware.htmlunit.html.DomNode;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+import com.gargoylesoftware.htmlunit.javascript.background.JavaScriptJobManager;
+import com.gargoylesoftware.htmlunit.javascript.background.JavaScriptJobManager.JavaScriptJobFilter;
+
+/**
+ * Waits for a page's JavaScript to settle after an action, like a click or a
+ * select, instead of sleeping for a fixed amount of time.
+ * <p>
+ * A page is considered settled once one of the watched elements (or one of
+ * their descendants) has been mutated and there are no pending, non-periodic
+ * JavaScript jobs due to run. If the page does not settle within the maximum
+ * settle time, then waiting stops anyway.
+ * <p>
+ * Usage:
+ * 
+ * <pre>
+ * PageSettler.Watch watch = settler.watch(page, "sport-4", "booksCarousel");
+ * page = anchor.click();
+ * watch.await(page);
+ * </pre>
+ * 
+ * The time it actually took to settle is recorded, see {@link #getStats()}.
+ *
+ * @author Jonathan Henly
+ */
+public class PageSettler {
+    
+    /** The default maximum time to wait for a page to settle. */
+    public static final long DEFAULT_MAX_SETTLE_MILLIS = 1000;
+    
+    /* how long to wait between checks of a page's state */
+    private static final long POLL_MILLIS = 20;
+    
+    /**
+     * Snapshot of how long pages have actually taken to settle.
+     *
+     * @author Jonathan Henly
+     */
+    public static class SettleStats {
+        private final long count;
+        private final long timeouts;
+        private final long totalMillis;
+        private final long maxMillis;
+        
+        private SettleStats(long count, long timeouts, long totalMillis,
+            long maxMillis) {
+            this.count = count;
+            this.timeouts = timeouts;
+            this.totalMillis = totalMillis;
+            this.maxMillis = maxMillis;
+        }
+        
+        /** @return the number of times a page was waited on */
+        public long count() { return count; }
+        
+        /** @return the number of times a page did not settle in time */
+        public long timeouts() { return timeouts; }
+        
+        /** @return the total time spent waiting, in milliseconds */
+        public long totalMillis() { return totalMillis; }
+        
+        /** @return the longest single wait, in milliseconds */
+        public long maxMillis() { return maxMillis; }
+        
+        /** @return the average wait, in milliseconds */
+        public long averageMillis() {
+            return (count == 0) ? 0 : totalMillis / count;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format(
+                "settled %d time(s), avg %d ms, max %d ms, total %d ms,"
+                    + " %d timeout(s)",
+                count, averageMillis(), maxMillis, totalMillis, timeouts);
+        }
+    }
+    
+    private volatile long maxSettleMillis;
+    
+    // settle metrics
+    private long count;
+    private long timeouts;
+    private long totalNanos;
+    private long maxNanos;
+    
+    /**
+     * Creates a page settler that waits, at most, the specified amount of time
+     * for a page to settle.
+     * 
+     * @param maxSettleMillis
+     *                        - the maximum time to wait for a page to settle
+     */
+    public PageSettler(long maxSettleMillis) {
+        setMaxSettleMillis(maxSettleMillis);
+    }
+    
+    /**
+     * Sets the maximum time to wait for a page to settle.
+     * 
+     * @param millis
+     *               - the maximum settle time, in milliseconds
+     * @throws IllegalArgumentException
+     *                                  if {@code millis} is negative
+     */
+    public void setMaxSettleMillis(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException(
+                "max settle time must not be negative.");
+        }
+        maxSettleMillis = millis;
+    }
+    
+    /** @return the maximum time to wait for a page to settle */
+    public long getMaxSettleMillis() { return maxSettleMillis; }
+    
+    /**
+     * Starts watching elements of a page for mutations, this method must be
+     * called <i>before</i> performing the action that mutates the page.
+     * <p>
+     * If none of the specified elements exist on the page, then the whole
+     * page is watched.
+     * 
+     * @param page
+     *                   - the page to watch
+     * @param elementIds
+     *                   - the ids of the elements whose mutation signals the
+     *                   action has taken effect
+     * @return a watch to {@linkplain Watch#await(HtmlPage) await} once the
+     *         action has been performed
+     */
+    public Watch watch(HtmlPage page, String... elementIds) {
+        return new Watch(page, elementIds);
+    }
+    
+    /**
+     * Gets a snapshot of how long pages have taken to settle.
+     * 
+     * @return this settler's settle metrics
+     */
+    public synchronized SettleStats getStats() {
+        return new SettleStats(count, timeouts,
+            TimeUnit.NANOSECONDS.toMillis(totalNanos),
+            TimeUnit.NANOSECONDS.toMillis(maxNanos));
+    }
+    
+    /* records how long a single settle took */
+    private synchronized void record(long nanos, boolean timedOut) {
+        count += 1;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        if (timedOut) { timeouts += 1; }
+    }
+    
+    /**
+     * A set of watched elements, created by
+     * {@link PageSettler#watch(HtmlPage, String...)}.
+     *
+     * @author Jonathan Henly
+     */
+    public class Watch
+        implements DomChangeListener, CharacterDataChangeListener {
+        private static final long serialVersionUID = 1L;
+        
+        private final HtmlPage page;
+        private final List<DomNode> watched;
+        private volatile boolean mutated;
+        
+        private Watch(HtmlPage page, String... elementIds) {
+            this.page = page;
+            watched = new ArrayList<>(elementIds.length);
+            
+            for (String id : elementIds) {
+                DomNode node = page.getElementById(id);
+                if (node != null) { watched.add(node); }
+            }
+            
+            // fall back to watching the whole page
+            if (watched.isEmpty()) { watched.add(page); }
+            
+            for (DomNode node : watched) {
+                node.addDomChangeListener(this);
+                node.addCharacterDataChangeListener(this);
+            }
+        }
+        
+        /**
+         * Waits until the watched elements have been mutated and no
+         * JavaScript jobs are pending, or until the maximum settle time has
+         * passed.
+         * 
+         * @param result
+         *               - the page returned by the action, if the action
+         *               loaded a different page then it's considered mutated
+         * @return {@code true} if the page settled, {@code false} if waiting
+         *         timed out
+         */
+        public boolean await(HtmlPage result) {
+            long start = System.nanoTime();
+            long deadline = start
+                + TimeUnit.MILLISECONDS.toNanos(maxSettleMillis);
+            
+            HtmlPage target = (result == null) ? page : result;
+            if (target != page) { mutated = true; }
+            
+            JavaScriptJobManager jobs =
+                target.getEnclosingWindow().getJobManager();
+            // jobs become imminent as time passes, so check against the
+            // current time on every poll
+            JavaScriptJobFilter imminent = job -> !job.isPeriodic()
+                && job.getTargetExecutionTime()
+                    <= System.currentTimeMillis() + POLL_MILLIS;
+            
+            boolean settled = false;
+            try {
+                while (true) {
+                    int pending = jobs.getJobCount(imminent);
+                    if (mutated && pending == 0) {
+                        settled = true;
+                        break;
+                    }
+                    
+                    if (System.nanoTime() >= deadline) { break; }
+                    
+                    if (pending > 0) {
+                        jobs.waitForJobsStartingBefore(POLL_MILLIS, imminent);
+                    } else {
+                        Thread.sleep(POLL_MILLIS);
+                    }
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            } finally {
+                stopWatching();
+            }
+            
+            record(System.nanoTime() - start, !settled);
+            return settled;
+        }
+        
+        /* removes this watch's listeners from the watched elements */
+        private void stopWatching() {
+            for (DomNode node : watched) {
+                node.removeDomChangeListener(this);
+                node.removeCharacterDataChangeListener(this);
+            }
+        }
+        
+        @Override
+        public void nodeAdded(DomChangeEvent event) { mutated = true; }
+        
+        @Override
+        public void nodeDeleted(DomChangeEvent event) { mutated = true; }
+        
+        @Override
+        public void characterDataChanged(CharacterDataChangeEvent event) {
+            mutated = true;
+        }
+    }
+    
+}
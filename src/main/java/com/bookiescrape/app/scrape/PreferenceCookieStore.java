@@ -0,0 +1,216 @@
+package com.bookiescrape.app.scrape;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Properties;
+
+import com.gargoylesoftware.htmlunit.CookieManager;
+import com.gargoylesoftware.htmlunit.util.Cookie;
+
+/**
+ * Persists a site's preference cookies to a local file, so they can be
+ * replayed into a {@code WebClient}'s {@link CookieManager} the next time a
+ * {@link Scraper} starts.
+ * <p>
+ * Replaying the preference cookies lets the site render the page with the
+ * options a scraper needs (rotation numbers shown, decimal odds, etc.)
+ * already applied, without having to toggle each option and reload.
+ * <p>
+ * Only cookies whose name starts with this store's prefix are persisted, by
+ * default that is {@value #DEFAULT_PREFIX}. Cookies are stored as a
+ * {@link Properties} file and each save atomically replaces the previous
+ * file, so a single store can safely be shared by many scrapers.
+ *
+ * @author Jonathan Henly
+ */
+public class PreferenceCookieStore {
+    
+    /** The default prefix of persisted cookie names. */
+    public static final String DEFAULT_PREFIX = "usersetting";
+    
+    /** The default file preference cookies are persisted to. */
+    public static final String DEFAULT_STORE_PATH = "./cache/preference-cookies.properties";
+    
+    /* properties keys */
+    private static final String COUNT = "count";
+    private static final String NAME = ".name";
+    private static final String VALUE = ".value";
+    private static final String DOMAIN = ".domain";
+    private static final String PATH = ".path";
+    private static final String EXPIRES = ".expires";
+    private static final String SECURE = ".secure";
+    
+    private final Path storeFile;
+    private final String prefix;
+    
+    /**
+     * Creates a preference cookie store backed by the default store file.
+     * 
+     * @see #DEFAULT_STORE_PATH
+     */
+    public PreferenceCookieStore() { this(Paths.get(DEFAULT_STORE_PATH)); }
+    
+    /**
+     * Creates a preference cookie store backed by the specified file.
+     * 
+     * @param storeFile
+     *                  - the file to persist preference cookies to
+     */
+    public PreferenceCookieStore(Path storeFile) {
+        this(storeFile, DEFAULT_PREFIX);
+    }
+    
+    /**
+     * Creates a preference cookie store backed by the specified file, that only
+     * persists cookies whose name starts with the specified prefix.
+     * 
+     * @param storeFile
+     *                  - the file to persist preference cookies to
+     * @param prefix
+     *                  - the case insensitive prefix of cookie names to
+     *                  persist, the empty string persists every cookie
+     */
+    public PreferenceCookieStore(Path storeFile, String prefix) {
+        this.storeFile = storeFile;
+        this.prefix = prefix.toLowerCase(Locale.ROOT);
+    }
+    
+    /** @return the file preference cookies are persisted to */
+    public Path getStoreFile() { return storeFile; }
+    
+    /**
+     * Adds the persisted preference cookies to a cookie manager.
+     * <p>
+     * Cookies that have expired since they were persisted are not added.
+     * 
+     * @param manager
+     *                - the cookie manager to add the cookies to
+     * @return the number of cookies added, {@code 0} if nothing has been
+     *         persisted yet
+     * @throws IOException
+     *                     if the store file exists but cannot be read
+     */
+    public synchronized int primeInto(CookieManager manager) throws IOException {
+        if (!Files.isRegularFile(storeFile)) { return 0; }
+        
+        Properties props = new Properties();
+        try (BufferedReader in = Files.newBufferedReader(storeFile)) {
+            props.load(in);
+        }
+        
+        long now = System.currentTimeMillis();
+        int count = Integer.parseInt(props.getProperty(COUNT, "0"));
+        int added = 0;
+        for (int i = 0; i < count; i++) {
+            Cookie cookie = readCookie(props, "cookie." + i);
+            if (cookie == null) { continue; }
+            
+            Date expires = cookie.getExpires();
+            if (expires != null && expires.getTime() <= now) { continue; }
+            
+            manager.addCookie(cookie);
+            added += 1;
+        }
+        
+        return added;
+    }
+    
+    /**
+     * Persists a cookie manager's preference cookies, replacing any previously
+     * persisted cookies.
+     * 
+     * @param manager
+     *                - the cookie manager to persist preference cookies from
+     * @return the number of cookies persisted
+     * @throws IOException
+     *                     if the store file cannot be written
+     */
+    public synchronized int saveFrom(CookieManager manager) throws IOException {
+        Properties props = new Properties();
+        
+        int count = 0;
+        for (Cookie cookie : manager.getCookies()) {
+            String name = cookie.getName().toLowerCase(Locale.ROOT);
+            if (!name.startsWith(prefix)) { continue; }
+            
+            writeCookie(props, "cookie." + count, cookie);
+            count += 1;
+        }
+        props.setProperty(COUNT, Integer.toString(count));
+        
+        Path dir = storeFile.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        
+        // write to a temp file and move it over the store, so a crash or a
+        // concurrent reader never sees a half written store
+        Path tmp = Files.createTempFile(dir, storeFile.getFileName().toString(),
+            ".tmp");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(tmp)) {
+                props.store(out, "site preference cookies");
+            }
+            moveOver(tmp, storeFile);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        
+        return count;
+    }
+    
+    /**
+     * Deletes the persisted preference cookies, if any.
+     * 
+     * @throws IOException
+     *                     if the store file cannot be deleted
+     */
+    public synchronized void clear() throws IOException {
+        Files.deleteIfExists(storeFile);
+    }
+    
+    /* reads a single cookie's properties, or null if it has no name */
+    private static Cookie readCookie(Properties props, String key) {
+        String name = props.getProperty(key + NAME);
+        if (name == null) { return null; }
+        
+        String expires = props.getProperty(key + EXPIRES);
+        return new Cookie(props.getProperty(key + DOMAIN), name,
+            props.getProperty(key + VALUE, ""), props.getProperty(key + PATH),
+            (expires == null) ? null : new Date(Long.parseLong(expires)),
+            Boolean.parseBoolean(props.getProperty(key + SECURE)));
+    }
+    
+    /* writes a single cookie's properties */
+    private static void writeCookie(Properties props, String key,
+        Cookie cookie) {
+        props.setProperty(key + NAME, cookie.getName());
+        props.setProperty(key + VALUE, cookie.getValue());
+        props.setProperty(key + DOMAIN, cookie.getDomain());
+        if (cookie.getPath() != null) {
+            props.setProperty(key + PATH, cookie.getPath());
+        }
+        if (cookie.getExpires() != null) {
+            props.setProperty(key + EXPIRES,
+                Long.toString(cookie.getExpires().getTime()));
+        }
+        props.setProperty(key + SECURE, Boolean.toString(cookie.isSecure()));
+    }
+    
+    /* atomically moves a file over another, if the file system allows it */
+    private static void moveOver(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+}
@@ -0,0 +1,385 @@
+package com.bookiescrape.app.scrape;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.bookiescrape.app.scrape.Match.MatchBuilder;
+
+import net.sourceforge.htmlunit.cyberneko.parsers.SAXParser;
+
+/**
+ * Streaming parser that extracts bookies, date groups and matches straight
+ * from a Sports Book Review page's server rendered HTML.
+ * <p>
+ * Unlike {@link Scraper}'s usual path, this parser neither builds a DOM nor
+ * runs any JavaScript. The page's bytes are tokenized by NekoHTML's SAX
+ * parser and the {@code eventLine-rotation}, {@code eventLine-time},
+ * {@code eventLine-team}, {@code eventLine-opener} and
+ * {@code eventLine-book} cells are fed directly into {@link MatchBuilder}s.
+ * <p>
+ * The server rendered HTML is only usable when it already has every option
+ * scraping needs applied (rotation numbers shown and decimal odds), and when
+ * it contains the odds of every bookie in the carousel. A parse that does not
+ * satisfy both is reported as {@linkplain Result#isComplete() incomplete}, so
+ * the caller can fall back to scraping with a full {@code WebClient}.
+ *
+ * @author Jonathan Henly
+ */
+final class RawOddsParser extends DefaultHandler {
+    
+    /**
+     * The bookies, date groups and matches parsed from a page.
+     *
+     * @author Jonathan Henly
+     */
+    static final class Result {
+        private final List<Bookie> bookies;
+        private final List<DateGroup> dateGroups;
+        private final String incompleteReason;
+        
+        private Result(List<Bookie> bookies, List<DateGroup> dateGroups,
+            String incompleteReason) {
+            this.bookies = bookies;
+            this.dateGroups = dateGroups;
+            this.incompleteReason = incompleteReason;
+        }
+        
+        /** @return the bookies listed in the page's carousel */
+        List<Bookie> bookies() { return bookies; }
+        
+        /** @return the date groups, and their matches, parsed from the page */
+        List<DateGroup> dateGroups() { return dateGroups; }
+        
+        /** @return {@code true} if the page had everything scraping needs */
+        boolean isComplete() { return incompleteReason == null; }
+        
+        /** @return why the page was incomplete, or {@code null} */
+        String incompleteReason() { return incompleteReason; }
+    }
+    
+    /* class attribute values of the cells this parser captures */
+    private static final String ROTATION = "el-div eventLine-rotation";
+    private static final String TIME = "el-div eventLine-time";
+    private static final String TEAM = "el-div eventLine-team";
+    private static final String OPENER = "el-div eventLine-opener";
+    private static final String BOOK = "el-div eventLine-book";
+    private static final String DATE = "date";
+    
+    /* ids of the elements this parser looks for */
+    private static final String CAROUSEL_ID = "booksCarousel";
+    private static final String ROTATION_BOX_ID = "usersetting_SHOW_ROTATION";
+    private static final String ODDS_FORMAT_ID = "usersetting_ODDS_FORMAT";
+    private static final String DEC_ODDS_VALUE = "2";
+    
+    /**
+     * Parses a page's HTML.
+     * 
+     * @param html
+     *                - the page's bytes
+     * @param charset
+     *                - the page's character set, or {@code null} to let the
+     *                parser detect it
+     * @return the parsed bookies, date groups and matches
+     * @throws IOException
+     *                     if the html cannot be read or tokenized
+     */
+    static Result parse(InputStream html, String charset) throws IOException {
+        RawOddsParser handler = new RawOddsParser();
+        
+        SAXParser parser = new SAXParser();
+        parser.setContentHandler(handler);
+        
+        InputSource source = new InputSource(html);
+        if (charset != null) { source.setEncoding(charset); }
+        
+        try {
+            parser.parse(source);
+        } catch (SAXException se) {
+            throw new IOException("could not tokenize odds page", se);
+        }
+        
+        return handler.buildResult();
+    }
+    
+    /* a captured cell, holding the text of each of its child elements */
+    private static final class Capture {
+        private final String cls;
+        private final int depth;
+        private final List<StringBuilder> children = new ArrayList<>(4);
+        private final StringBuilder all = new StringBuilder();
+        private String firstHref;
+        
+        private Capture(String cls, int depth) {
+            this.cls = cls;
+            this.depth = depth;
+        }
+        
+        /* the stripped text of a child element, or "" */
+        private String child(int index) {
+            return (index < children.size())
+                ? children.get(index).toString().strip()
+                : "";
+        }
+    }
+    
+    /* a match's cells, built into a Match once the bookie count is known */
+    private static final class RawMatch {
+        private int homeRot;
+        private int awayRot;
+        private String time = "";
+        private String home = "";
+        private String away = "";
+        private String url;
+        private String openOver = "";
+        private String openUnder = "";
+        private final List<String[]> books = new ArrayList<>();
+    }
+    
+    /* a date group's matches */
+    private static final class RawGroup {
+        private final String date;
+        private final List<RawMatch> matches = new ArrayList<>();
+        
+        private RawGroup(String date) { this.date = date; }
+    }
+    
+    // parse state
+    private int depth;
+    private Capture capture;
+    private int carouselDepth = -1;
+    private StringBuilder carouselEntry;
+    private final List<String> bookieNames = new ArrayList<>();
+    private final List<RawGroup> groups = new ArrayList<>();
+    private RawMatch match;
+    private boolean rotationsShown;
+    private boolean inOddsFormat;
+    private boolean decOddsSelected;
+    
+    private RawOddsParser() {}
+    
+    @Override
+    public void startElement(String uri, String localName, String qName,
+        Attributes atts) {
+        depth += 1;
+        String name = localName.toLowerCase();
+        String id = atts.getValue("id");
+        
+        if (capture != null) {
+            if (depth == capture.depth + 1) {
+                capture.children.add(new StringBuilder());
+            }
+            if (capture.firstHref == null && name.equals("a")) {
+                capture.firstHref = atts.getValue("href");
+            }
+            return;
+        }
+        
+        if (carouselDepth >= 0) {
+            if (depth == carouselDepth + 1) {
+                carouselEntry = new StringBuilder();
+            }
+            return;
+        }
+        
+        if (CAROUSEL_ID.equals(id)) {
+            carouselDepth = depth;
+            return;
+        }
+        
+        startOptionElement(name, id, atts);
+        
+        String cls = atts.getValue("class");
+        if (cls != null && name.equals("div") && isCapturedClass(cls.strip())) {
+            capture = new Capture(cls.strip(), depth);
+        }
+    }
+    
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (capture != null) {
+            capture.all.append(ch, start, length);
+            if (depth > capture.depth && !capture.children.isEmpty()) {
+                capture.children.get(capture.children.size() - 1)
+                    .append(ch, start, length);
+            }
+        } else if (carouselEntry != null) {
+            carouselEntry.append(ch, start, length);
+        }
+    }
+    
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        if (capture != null && depth == capture.depth) {
+            endCapture(capture);
+            capture = null;
+        } else if (carouselDepth >= 0) {
+            if (depth == carouselDepth + 1 && carouselEntry != null) {
+                String bookie = carouselEntry.toString().strip();
+                if (!bookie.isEmpty()) { bookieNames.add(bookie); }
+                carouselEntry = null;
+            } else if (depth == carouselDepth) {
+                carouselDepth = -1;
+            }
+        } else if (inOddsFormat && localName.equalsIgnoreCase("select")) {
+            inOddsFormat = false;
+        }
+        
+        depth -= 1;
+    }
+    
+    /* tracks the rotation checkbox and odds format select options */
+    private void startOptionElement(String name, String id, Attributes atts) {
+        if (ROTATION_BOX_ID.equals(id)) {
+            rotationsShown = atts.getValue("checked") != null;
+        } else if (ODDS_FORMAT_ID.equals(id)) {
+            inOddsFormat = true;
+        } else if (inOddsFormat && name.equals("option")
+            && atts.getValue("selected") != null) {
+            decOddsSelected = DEC_ODDS_VALUE.equals(atts.getValue("value"));
+        }
+    }
+    
+    /* whether a div with this class is a cell this parser captures */
+    private static boolean isCapturedClass(String cls) {
+        switch (cls) {
+            case ROTATION:
+            case TIME:
+            case TEAM:
+            case OPENER:
+            case BOOK:
+            case DATE:
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    /* feeds a finished cell into the current date group or match */
+    private void endCapture(Capture c) {
+        switch (c.cls) {
+            case DATE:
+                groups.add(new RawGroup(c.all.toString().strip()));
+                match = null;
+                break;
+            
+            case ROTATION:
+                // a rotation cell is the first cell of a new match
+                match = new RawMatch();
+                if (groups.isEmpty()) { groups.add(new RawGroup("")); }
+                groups.get(groups.size() - 1).matches.add(match);
+                setRotations(match, c);
+                break;
+            
+            case TIME:
+                if (match != null) { match.time = c.child(0); }
+                break;
+            
+            case TEAM:
+                if (match != null) {
+                    match.home = c.child(0);
+                    match.away = c.child(1);
+                    match.url = c.firstHref;
+                }
+                break;
+            
+            case OPENER:
+                if (match != null) {
+                    match.openOver = c.child(0);
+                    match.openUnder = c.child(1);
+                }
+                break;
+            
+            case BOOK:
+                if (match != null) {
+                    int last = Math.max(0, c.children.size() - 1);
+                    match.books.add(new String[] { c.child(0), c.child(last) });
+                }
+                break;
+            
+            default:
+                break;
+        }
+    }
+    
+    /* the first two numeric child cells are the home and away rotations */
+    private static void setRotations(RawMatch m, Capture c) {
+        int found = 0;
+        for (int i = 0; i < c.children.size() && found < 2; i++) {
+            String text = c.child(i);
+            if (text.isEmpty()) { continue; }
+            
+            try {
+                int rot = Integer.parseInt(text);
+                if (found == 0) {
+                    m.homeRot = rot;
+                } else {
+                    m.awayRot = rot;
+                }
+                found += 1;
+            } catch (NumberFormatException e) {}
+        }
+    }
+    
+    /* builds the parse result once the whole page has been tokenized */
+    private Result buildResult() {
+        List<Bookie> bookies = new ArrayList<>(bookieNames.size());
+        for (int i = 0, n = bookieNames.size(); i < n; i++) {
+            bookies.add(new Bookie(bookieNames.get(i), i));
+        }
+        
+        int numBookies = bookies.size();
+        List<DateGroup> dateGroups = new ArrayList<>(groups.size());
+        String incomplete = null;
+        
+        for (RawGroup rg : groups) {
+            DateGroup dg = new DateGroup(rg.date);
+            
+            for (RawMatch rm : rg.matches) {
+                if (rm.books.size() < numBookies) {
+                    incomplete = "page only has " + rm.books.size() + " of "
+                        + numBookies + " bookies' odds";
+                }
+                
+                addMatch(dg, rm, numBookies);
+            }
+            
+            dateGroups.add(dg);
+        }
+        
+        if (numBookies == 0) {
+            incomplete = "page has no bookie carousel";
+        } else if (dateGroups.isEmpty()) {
+            incomplete = "page has no matches";
+        } else if (!rotationsShown) {
+            incomplete = "page does not show rotation numbers";
+        } else if (!decOddsSelected) {
+            incomplete = "page does not show decimal odds";
+        }
+        
+        return new Result(bookies, dateGroups, incomplete);
+    }
+    
+    /* builds a match from its cells, its odds go straight into the group's
+     * table */
+    private static void addMatch(DateGroup dg, RawMatch rm, int numBookies) {
+        MatchBuilder mb = Match.createMatch(numBookies);
+        mb.homeRot(rm.homeRot).awayRot(rm.awayRot);
+        mb.time(rm.time).home(rm.home).away(rm.away).url(rm.url);
+        mb.opener(rm.openOver, rm.openUnder);
+        
+        Match m = mb.build();
+        dg.addMatch(m);
+        for (int i = 0, n = Math.min(numBookies, rm.books.size()); i < n; i++) {
+            String[] odds = rm.books.get(i);
+            m.setBookieOdds(i, odds[0], odds[1]);
+        }
+    }
+    
+}
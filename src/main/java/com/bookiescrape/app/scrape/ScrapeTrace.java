@@ -0,0 +1,242 @@
+package com.bookiescrape.app.scrape;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A trace of a single scrape, written to the scraped sheet's log file, i.e.
+ * {@code ./log/<sheetName>scraper.log}.
+ * <p>
+ * Each event is one compact line, the time of day to the millisecond followed
+ * by the message, stack traces follow their event with one frame per line.
+ * Recording an event only appends to an in-memory buffer, the buffer is
+ * written to the file by a shared background thread every
+ * {@value #FLUSH_MILLIS} milliseconds and when the trace is closed, so a
+ * scraper never waits on the disk.
+ * <p>
+ * Every trace has its own buffer, file and lock, so any number of scrapers
+ * can trace concurrently without contending with each other. Concurrent
+ * traces should be for different sheets though, a trace truncates its file
+ * when it's opened.
+ *
+ * @author Jonathan Henly
+ */
+public final class ScrapeTrace implements AutoCloseable {
+    
+    /** How often buffered events are written to the trace's file. */
+    public static final long FLUSH_MILLIS = 500;
+    
+    /* a trace that records nothing, for scrapes that aren't for a sheet */
+    static final ScrapeTrace NONE = new ScrapeTrace();
+    
+    private static final DateTimeFormatter SECOND_FORMAT = DateTimeFormatter
+        .ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+    
+    /* one daemon thread writes every open trace's buffered events */
+    private static final ScheduledExecutorService FLUSHER = Executors
+        .newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "scrape-trace-flush");
+            t.setDaemon(true);
+            return t;
+        });
+    
+    private final Writer out;
+    private final ScheduledFuture<?> flushTask;
+    /* events recorded since the last flush, guarded by this */
+    private StringBuilder pending = new StringBuilder(4096);
+    private StringBuilder spare = new StringBuilder(4096);
+    /* the formatted second of the last event, reused until the second ends */
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedPrefix;
+    private boolean closed;
+    /* guarded by out */
+    private boolean fileClosed;
+    
+    /* creates the no-op trace */
+    private ScrapeTrace() {
+        out = null;
+        flushTask = null;
+        closed = true;
+    }
+    
+    /* creates a trace that writes to the specified writer */
+    ScrapeTrace(Writer out) {
+        this.out = out;
+        flushTask = FLUSHER.scheduleWithFixedDelay(this::flushQuietly,
+            FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Opens a trace for the specified sheet, truncating the sheet's log file,
+     * {@code ./log/<sheetName>scraper.log}, if it exists.
+     *
+     * @param sheetName
+     *                  - the name of the sheet being scraped
+     * @return the opened trace
+     * @throws IOException
+     *                     if the log file can't be created or opened
+     */
+    public static ScrapeTrace open(String sheetName) throws IOException {
+        return open(Paths.get("log", sheetName + "scraper.log"));
+    }
+    
+    /**
+     * Opens a trace that writes to the specified file, creating the file and
+     * its parent directories if they don't exist.
+     *
+     * @param file
+     *             - the file to write the trace to, it's truncated if it exists
+     * @return the opened trace
+     * @throws IOException
+     *                     if the file can't be created or opened
+     */
+    public static ScrapeTrace open(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) { Files.createDirectories(dir); }
+        
+        return new ScrapeTrace(Files.newBufferedWriter(file,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING));
+    }
+    
+    /**
+     * Records an event.
+     *
+     * @param message
+     *                - what happened
+     */
+    public synchronized void event(String message) {
+        if (closed) { return; }
+        
+        appendPrefix().append(message).append('\n');
+    }
+    
+    /**
+     * Records an event with a single value, without formatting a string.
+     *
+     * @param message
+     *                - what happened
+     * @param value
+     *                - the value to append to the message
+     */
+    public synchronized void event(String message, long value) {
+        if (closed) { return; }
+        
+        appendPrefix().append(message).append(value).append('\n');
+    }
+    
+    /**
+     * Records an event caused by a throwable, followed by the throwable's
+     * stack trace, one frame per line.
+     *
+     * @param message
+     *                  - what happened
+     * @param throwable
+     *                  - what caused it
+     */
+    public synchronized void error(String message, Throwable throwable) {
+        if (closed) { return; }
+        
+        appendPrefix().append("[ERROR] ").append(message).append(": ")
+            .append(throwable).append('\n');
+        for (StackTraceElement frame : throwable.getStackTrace()) {
+            pending.append("\tat ").append(frame).append('\n');
+        }
+    }
+    
+    /**
+     * Writes the recorded events to the trace's file, on the calling thread.
+     * <p>
+     * If writing fails, the events recorded up to the failed write are
+     * dropped, rather than being written out of order by a later flush.
+     *
+     * @throws IOException
+     *                     if writing to the file fails
+     */
+    public void flush() throws IOException {
+        if (out == null) { return; }
+        
+        // writes happen outside of the event lock, so events aren't held up
+        synchronized (out) {
+            if (fileClosed) { return; }
+            
+            StringBuilder toWrite;
+            synchronized (this) {
+                toWrite = pending;
+                pending = spare;
+                spare = toWrite;
+            }
+            
+            try {
+                if (toWrite.length() > 0) { out.append(toWrite); }
+            } finally {
+                // becomes the next pending buffer, so it must be empty
+                toWrite.setLength(0);
+            }
+            out.flush();
+        }
+    }
+    
+    /**
+     * Stops recording events, writes any recorded events and closes the
+     * trace's file. Closing a closed trace has no effect.
+     *
+     * @throws IOException
+     *                     if writing to, or closing, the file fails
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) { return; }
+            closed = true;
+        }
+        
+        flushTask.cancel(false);
+        try {
+            flush();
+        } finally {
+            synchronized (out) {
+                fileClosed = true;
+                out.close();
+            }
+        }
+    }
+    
+    /* appends the time of the event to the pending buffer */
+    private StringBuilder appendPrefix() {
+        long now = System.currentTimeMillis();
+        long second = Math.floorDiv(now, 1000L);
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedPrefix = SECOND_FORMAT.format(Instant.ofEpochSecond(second));
+        }
+        
+        int millis = (int) Math.floorMod(now, 1000L);
+        pending.append(cachedPrefix).append('.');
+        if (millis < 100) { pending.append('0'); }
+        if (millis < 10) { pending.append('0'); }
+        
+        return pending.append(millis).append(' ');
+    }
+    
+    /* the background flush, a failed write's events are dropped */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException ignored) {
+            // close() reports the failure if it persists
+        }
+    }
+    
+} // class ScrapeTrace
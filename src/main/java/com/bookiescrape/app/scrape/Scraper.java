@@ -1,15 +1,20 @@
 package com.bookiescrape.app.scrape;
 
-import java.io.BufferedWriter;
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.OpenOption;
-import java.nio.file.StandardOpenOption;
-import java.text.SimpleDateFormat;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URL;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import org.apache.commons.logging.LogFactory;
@@ -19,12 +24,14 @@ import com.gargoylesoftware.htmlunit.BrowserVersion;
 import com.gargoylesoftware.htmlunit.FailingHttpStatusCodeException;
 import com.gargoylesoftware.htmlunit.NicelyResynchronizingAjaxController;
 import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebConnection;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
 import com.gargoylesoftware.htmlunit.html.DomElement;
 import com.gargoylesoftware.htmlunit.html.DomNode;
 import com.gargoylesoftware.htmlunit.html.DomNodeList;
 import com.gargoylesoftware.htmlunit.html.HtmlAnchor;
 import com.gargoylesoftware.htmlunit.html.HtmlCheckBoxInput;
-import com.gargoylesoftware.htmlunit.html.HtmlDivision;
 import com.gargoylesoftware.htmlunit.html.HtmlElement;
 import com.gargoylesoftware.htmlunit.html.HtmlOption;
 import com.gargoylesoftware.htmlunit.html.HtmlPage;
@@ -32,87 +39,30 @@ import com.gargoylesoftware.htmlunit.html.HtmlSelect;
 
 public class Scraper {
     
-    private static File logFile;
-    private static BufferedWriter logger;
+    /* each scrape has its own trace so scrapers can run concurrently */
+    private ScrapeTrace trace = ScrapeTrace.NONE;
     
-    private static void openLogFile(String sheetName) {
-        String fileName = "./log/" + sheetName + "scraper.log";
-        System.out.println(
-            "\nOpenening [" + sheetName + "] logfile [" + fileName + "]");
-        
-        logFile = new File("./log/" + sheetName + "scraper.log");
-        
-        OpenOption[] options = new StandardOpenOption[] {
-                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
-                StandardOpenOption.TRUNCATE_EXISTING };
-        
-        BufferedWriter tmpLog = null;
+    private void openTrace(String sheetName) {
         try {
-            tmpLog = Files.newBufferedWriter(logFile.toPath(), options);
+            trace = ScrapeTrace.open(sheetName);
         } catch (IOException e) {
+            // the scrape is more important than its trace
             e.printStackTrace();
+            trace = ScrapeTrace.NONE;
+            return;
         }
-        logger = tmpLog;
-        
-        log("created logfile [" + fileName + "] for sheet [" + sheetName + "]");
-    }
-    
-    private static void log(String header, String msg, int data) {
-        System.out.println("Logging [" + header + "] ...");
-        
-        log(String.format("%s %s %d", header, msg, data));
-    }
-    
-    private static void log(String header, int data) {
-        System.out.println("Logging [" + header + "] ...");
-        
-        log(String.format("%s %d", header, data));
-    }
-    
-    private static void log(String header, String msg) {
-        System.out.println("Logging [" + header + "] ...");
         
-        log(header + msg);
+        trace.event("opened trace for sheet [" + sheetName + "]");
     }
     
-    private static void log(String header, boolean msgIsHeader) {
-        System.out.println("Logging [" + header + "] ...");
-        
-        log(header);
-    }
-    
-    private static void log(String msg) {
-        Date now = new Date(System.currentTimeMillis());
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd@hh:mm:ss");
-        String nowStr = sdf.format(now);
-        
-        logMsg(String.format("[%s]:%n%s%n", nowStr, msg));
-    }
-    
-    private static void logMsg(String msg) {
+    private void closeTrace() {
         try {
-            logger.write(msg);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-    
-    private static void log(StackTraceElement[] st) {
-        for (int i = 0, n = st.length; i < n; i++) {
-            if (i == 0)
-                log(st[i].toString());
-            else
-                logMsg(st[i].toString() + "\n");
-        }
-    }
-    
-    private static void flushAndCloseLog() {
-        try {
-            logger.flush();
-            logger.close();
+            trace.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
+        
+        trace = ScrapeTrace.NONE;
     }
     
     static {
@@ -133,10 +83,26 @@ public class Scraper {
     
     private static final int DEFAULT_TIMEOUT = 10000;
     
+    /* bounds the web clients opened to prefetch carousel pages, across every
+     * scraper, so concurrent scrapes can't open an unbounded number of them */
+    private static final int MAX_CAROUSEL_PAGE_THREADS = 4;
+    private static final ExecutorService CAROUSEL_PAGES =
+        newCarouselPagePool();
+    
     private WebClient client;
+    private WebConnection connection;
+    private PageSettler settler;
+    private final ExtractionPlan plan = ExtractionPlan.SPORTS_BOOK_REVIEW;
+    private PreferenceCookieStore cookieStore;
+    private BrowserVersion browser;
     private boolean closed;
+    private boolean prefetchCarousel;
+    private boolean rawHtmlFirst;
+    private String site;
+    private int timeout;
     private List<Bookie> bookies;
     private List<DateGroup> matchGroups;
+    private Throwable failure;
     
     /**
      * Creates a {@code Scraper} instance backed by a {@code WebClient} using
@@ -155,7 +121,9 @@ public class Scraper {
      *                {@code BrowserVersion.FIREFOX}.
      */
     public Scraper(BrowserVersion browser) {
+        this.browser = browser;
         client = new WebClient(browser);
+        settler = new PageSettler(PageSettler.DEFAULT_MAX_SETTLE_MILLIS);
         
         closed = false;
         
@@ -180,6 +148,111 @@ public class Scraper {
      */
     public List<Bookie> getBookies() { return bookies; }
     
+    /**
+     * Sets whether the bookie carousel pages should be scraped concurrently.
+     * <p>
+     * When enabled, each carousel page after the first is opened in its own
+     * {@code WebClient} on its own thread, rather than walking the carousel by
+     * clicking "next" and waiting after every click. The odds from every
+     * carousel page are merged into the same date groups by each match's
+     * rotation numbers.
+     * <p>
+     * If a carousel page fails to load, or does not hold the same matches as
+     * the first page, then the carousel is walked by clicking "next" instead.
+     * 
+     * @param prefetch
+     *                 - {@code true} to scrape carousel pages concurrently,
+     *                 {@code false} (the default) to walk them one at a time
+     */
+    public void setCarouselPrefetch(boolean prefetch) {
+        prefetchCarousel = prefetch;
+    }
+    
+    /**
+     * Sets whether a page's raw html should be scraped before loading the page
+     * in this scraper's {@code WebClient}.
+     * <p>
+     * When enabled, the page's html is streamed through {@link RawOddsParser}
+     * without building a DOM or running any JavaScript. If the raw html does
+     * not already show the correct options, or does not hold every bookie's
+     * odds, then the page is scraped with the {@code WebClient} as usual.
+     * 
+     * @param rawHtml
+     *                - {@code true} to try the raw html first, {@code false}
+     *                (the default) to always use the {@code WebClient}
+     */
+    public void setRawHtmlFastPath(boolean rawHtml) { rawHtmlFirst = rawHtml; }
+    
+    /**
+     * Sets the store used to persist and replay the site's preference cookies.
+     * <p>
+     * When set, the persisted preference cookies are replayed into this
+     * scraper's {@code WebClient} before a page is loaded. If the loaded page
+     * already shows the correct options, then the option toggling and page
+     * reloads are skipped. Otherwise the options are set by clicking through
+     * the page, and the resulting cookies are persisted for next time.
+     * 
+     * @param store
+     *              - the preference cookie store, or {@code null} (the
+     *              default) to always set options by clicking through the
+     *              page
+     */
+    public void setPreferenceCookieStore(PreferenceCookieStore store) {
+        cookieStore = store;
+    }
+    
+    /**
+     * Sets the maximum time to wait for a page's JavaScript to settle after
+     * toggling an option or clicking through the bookie carousel.
+     * 
+     * @param millis
+     *               - the maximum settle time, in milliseconds
+     * @see PageSettler
+     */
+    public void setMaxSettleMillis(long millis) {
+        settler.setMaxSettleMillis(millis);
+    }
+    
+    /**
+     * Gets how long this scraper's pages have actually taken to settle.
+     * 
+     * @return this scraper's page settle metrics
+     */
+    public PageSettler.SettleStats getSettleStats() {
+        return settler.getStats();
+    }
+    
+    /**
+     * Gets the date groups, and their matches, from the last scrape.
+     * 
+     * @return the date groups from the last scrape, or {@code null} if the
+     *         last scrape did not find any matches
+     */
+    public List<DateGroup> getDateGroups() { return matchGroups; }
+    
+    /**
+     * Gets what caused the last scrape to fail.
+     * 
+     * @return the exception or error thrown by the last scrape, or
+     *         {@code null} if the last scrape did not fail
+     */
+    public Throwable getFailure() { return failure; }
+    
+    /**
+     * Sets the connection this scraper's {@code WebClient}, and the
+     * {@code WebClient} of every carousel page it prefetches, loads pages
+     * with.
+     * <p>
+     * This is used by tests to scrape pages without a network.
+     * 
+     * @param connection
+     *                   - the web connection to load pages with
+     */
+    void setWebConnection(WebConnection connection) {
+        this.connection = connection;
+        client.setWebConnection(connection);
+    }
+    
     /**
      * 
      * @param site
@@ -200,7 +273,24 @@ public class Scraper {
      * @param sheetName
      */
     public void debugScrape(String site, String sheetName) {
-        openLogFile(sheetName);
+        scrape(site, sheetName);
+    }
+    
+    /**
+     * Scrapes a Sports Book Review site and logs the scrape to the specified
+     * sheet's log file, i.e. {@code ./log/<sheetName>scraper.log}.
+     * <p>
+     * The scraped bookies and date groups can be retrieved via
+     * {@link #getBookies()} and {@link #getDateGroups()} once this method
+     * returns.
+     * 
+     * @param site
+     *                  - the Sports Book Review site to scrape
+     * @param sheetName
+     *                  - the name of the sheet the site is being scraped for
+     */
+    public void scrape(String site, String sheetName) {
+        openTrace(sheetName);
         scrape(site, DEFAULT_TIMEOUT);
     }
     
@@ -221,29 +311,31 @@ public class Scraper {
                     "this scraper instance has been closed.");
             }
             
-            log("Scraping from url: ", site);
+            // clear out any results left over from a previous scrape
+            bookies = null;
+            matchGroups = null;
+            failure = null;
             
-            HtmlPage page = openHtmlPage(site, timeout);
+            this.site = site;
+            this.timeout = timeout;
             
-            // set page up for scraping
-            // try {
-            log("scrape: enabling correct options", true);
-            page = enableCorrectOptionsOnPage(page, true);
-            // } catch (IOException e) {
-            // e.printStackTrace();
-            // }
+            trace.event("Scraping from url: " + site);
             
-            // get list of all bookies
-            bookies = scrapeBookies(page);
+            // the raw html fast path falls back to the browser when unusable
+            if (rawHtmlFirst && scrapeRawHtml(site, timeout)) { return; }
             
+            // open the page and set it up for scraping
+            HtmlPage page = openPageWithCorrectOptions(site, timeout);
             
+            // the page didn't load or isn't displaying any matches
             if (page == null) {
-                /* TODO actually check why page is null, does it actually not
-                 * contain any matches */
-                // the page probably doesn't have any matches, so return
+                trace.event("scrape: no matches to scrape");
                 return;
             }
             
+            // get list of all bookies
+            bookies = scrapeBookies(page);
+            
             // try {
             // scrapeMatches(page, bookies.size());
             scrapeMatches(page, bookies.size());
@@ -258,19 +350,13 @@ public class Scraper {
         } catch (Error er) {
             err = er;
         } finally {
-            if (exc != null) {
-                System.out.println("An exception occured, logging it.");
-                log(exc.getStackTrace());
-                log(exc.getMessage());
-            }
-            if (err != null) {
-                System.out.println("An error occured, trying to log it.");
-                log(err.getStackTrace());
-                log(err.getMessage());
-            }
+            failure = (exc != null) ? exc : err;
+            if (exc != null) { trace.error("scrape failed", exc); }
+            if (err != null) { trace.error("scrape failed", err); }
             
-            System.out.println("Flushing and closing logger.\n");
-            flushAndCloseLog();
+            trace.event("page settle stats: " + settler.getStats());
+            
+            closeTrace();
             
             if (exc != null)
                 exc.printStackTrace();
@@ -281,23 +367,144 @@ public class Scraper {
         
     }
     
-    /* scrape helper that enables all needed options on page before scraping */
+    /* scrapes a page's raw html, returns false if the html was unusable */
+    private boolean scrapeRawHtml(String site, int timeout) {
+        primePreferenceCookies();
+        client.getOptions().setTimeout(timeout);
+        
+        WebResponse response = null;
+        try {
+            response = client.loadWebResponse(new WebRequest(new URL(site)));
+            if (response.getStatusCode() != 200) {
+                trace.event("raw html: unexpected status code ",
+                    response.getStatusCode());
+                return false;
+            }
+            
+            RawOddsParser.Result result;
+            try (InputStream html = response.getContentAsStream()) {
+                result = RawOddsParser.parse(html,
+                    response.getContentCharset().name());
+            }
+            
+            if (!result.isComplete()) {
+                trace.event("raw html: falling back to browser, "
+                    + result.incompleteReason());
+                return false;
+            }
+            
+            bookies = result.bookies();
+            matchGroups = result.dateGroups();
+            trace.event("raw html: scraped date groups: ", matchGroups.size());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            trace.event("raw html: falling back to browser, " + e);
+            return false;
+        } finally {
+            if (response != null) { response.cleanUp(); }
+        }
+    }
+    
+    /* opens a page, replaying preference cookies or setting options by hand,
+     * returns null if the page didn't load or has no matches */
+    private HtmlPage openPageWithCorrectOptions(String site, int timeout)
+        throws IOException {
+        boolean primed = primePreferenceCookies();
+        
+        HtmlPage page = openHtmlPage(site, timeout);
+        if (page == null) { return null; }
+        
+        if (primed && pageHasCorrectOptions(page)) {
+            // the page can't tell whether it's sorted by ROT, so always sort
+            // it, only the refreshes after setting options are skipped
+            trace.event("scrape: preference cookies applied, sorting by ROT");
+            return clickNumberSortRotText(page);
+        }
+        
+        trace.event("scrape: enabling correct options");
+        page = enableCorrectOptionsOnPage(page, true);
+        if (page == null) { return null; }
+        
+        savePreferenceCookies();
+        return page;
+    }
+    
+    /* replays persisted preference cookies, true if any were replayed */
+    private boolean primePreferenceCookies() {
+        if (cookieStore == null) { return false; }
+        
+        try {
+            int primed = cookieStore.primeInto(client.getCookieManager());
+            trace.event("primed preference cookies: ", primed);
+            return primed > 0;
+        } catch (IOException | RuntimeException e) {
+            // a bad store just means setting options the slow way
+            trace.event("[ERROR] could not prime preference cookies: " + e);
+            return false;
+        }
+    }
+    
+    /* persists the preference cookies set while enabling options */
+    private void savePreferenceCookies() {
+        if (cookieStore == null) { return; }
+        
+        try {
+            int saved = cookieStore.saveFrom(client.getCookieManager());
+            trace.event("saved preference cookies: ", saved);
+        } catch (IOException e) {
+            trace.event("[ERROR] could not save preference cookies: " + e);
+        }
+    }
+    
+    /* checks that a rendered page already shows the rotation and odds format
+     * options scraping needs, and has a ROT sort link, but not that the
+     * matches are sorted by ROT */
+    private boolean pageHasCorrectOptions(HtmlPage page) {
+        if (page == null) { return false; }
+        
+        DomElement rotBox = page.getElementById("usersetting_SHOW_ROTATION");
+        DomElement format = page.getElementById("usersetting_ODDS_FORMAT");
+        
+        // rotation numbers must be shown
+        if (!(rotBox instanceof HtmlCheckBoxInput)
+            || !((HtmlCheckBoxInput) rotBox).isChecked()) {
+            return false;
+        }
+        
+        // odds must be in the DEC format
+        if (!(format instanceof HtmlSelect)) { return false; }
+        List<HtmlOption> selected = ((HtmlSelect) format).getSelectedOptions();
+        if (selected.size() != 1
+            || !"2".equals(selected.get(0).getValueAttribute())) {
+            return false;
+        }
+        
+        // the ROT sort link only exists when matches are being displayed
+        return !page.getElementsById("rotText").isEmpty();
+    }
+    
+    /* scrape helper that enables all needed options on page before scraping,
+     * returns null if the page is null or isn't displaying any matches */
     private HtmlPage enableCorrectOptionsOnPage(HtmlPage page, boolean refresh)
         throws IOException {
+        if (page == null) { return null; }
+        
         // check the 'ROT #' checkbox so we can sort teams on their ROT's
         page = checkShowRotationsCheckBox(page);
         // need a page reload after checking this box
         if (refresh)
-            page.refresh();
+            page = (HtmlPage) page.refresh();
         
         // click on far most '#' icon to sort teams by ROT
         page = clickNumberSortRotText(page);
+        // there's no sort link when no matches are being displayed
+        if (page == null) { return null; }
         
         // choose DEC from odds format drop down menu
         page = selectUserSettingsOddsFormatDec(page);
         // for some reason select won't take effect without a page refresh
         if (refresh)
-            page.refresh();
+            page = (HtmlPage) page.refresh();
         
         // all done setting options on page, time to scrape
         return page;
@@ -317,6 +524,34 @@ public class Scraper {
         }
     }
     
+    /**
+     * Scrapes the bookies, date groups and the first carousel page's odds from
+     * an already loaded page, without setting options or clicking through the
+     * bookie carousel.
+     * <p>
+     * This is the DOM extraction part of a scrape on its own, it is used by
+     * the benchmarks to measure extraction against a saved page.
+     * 
+     * @param page
+     *             - a page that already shows the correct options
+     * @return the scraped date groups
+     */
+    List<DateGroup> scrapeLoadedPage(HtmlPage page) {
+        bookies = scrapeBookies(page);
+        
+        DomNodeList<DomNode> dateGroupDivs = getDateGroupDivs(page);
+        List<DateGroup> dateGroups = new ArrayList<>(dateGroupDivs.size());
+        for (DomNode dateGroupDiv : dateGroupDivs) {
+            String date = scrapeDateFromDateGroupsDateDiv(dateGroupDiv);
+            dateGroups.add(createAllDateGroupMatches(dateGroupDiv, date));
+        }
+        
+        scrapeCarouselBatch(dateGroupDivs, dateGroups, 0, 0);
+        
+        matchGroups = dateGroups;
+        return dateGroups;
+    }
+    
     /* helper function to get HtmlPage from WebClient and handle exceptions */
     private HtmlPage openHtmlPage(String site, int timeout) {
         
@@ -336,7 +571,7 @@ public class Scraper {
     /* */
     private List<Bookie> scrapeBookies(HtmlPage page) {
         List<Bookie> tmpBookies = new ArrayList<Bookie>();
-        DomElement divElementsColumn = page.getElementById("booksCarousel");
+        DomElement divElementsColumn = page.getElementById(CAROUSEL_DIV_ID);
         
         
         int index = 0;
@@ -359,7 +594,7 @@ public class Scraper {
             .getElementById("usersetting_SHOW_ROTATION");
         rotCheckBox.setChecked(true);
         
-        log("checkShowRotationsCheckBox: ", " - checked it");
+        trace.event("checkShowRotationsCheckBox: checked it");
         return page;
     }
     
@@ -368,7 +603,7 @@ public class Scraper {
         List<DomElement> divSortLink = page.getElementsById("rotText");
         
         if (divSortLink.isEmpty()) {
-            log("No matches being displayed at this time.", true);
+            trace.event("No matches being displayed at this time.");
             return null;
         }
         
@@ -377,7 +612,7 @@ public class Scraper {
         
         HtmlPage newPage = sortAnchor.click();
         
-        log("clickNumberSortRotText: ", " - clicked it");
+        trace.event("clickNumberSortRotText: clicked it");
         
         return newPage;
     }
@@ -388,6 +623,9 @@ public class Scraper {
         HtmlSelect userSettingsOddsFormatSelect = (HtmlSelect) page
             .getElementById("usersetting_ODDS_FORMAT");
         
+        // watch the odds for the switch to DEC before selecting it
+        PageSettler.Watch watch = settler.watch(page, SPORT_DIV_ID);
+        
         HtmlOption option = userSettingsOddsFormatSelect.getOptionByValue("2");
         HtmlPage newPage = userSettingsOddsFormatSelect
             .setSelectedAttribute(option, true);
@@ -396,9 +634,9 @@ public class Scraper {
         newPage = userSettingsOddsFormatSelect.setSelectedAttribute(option,
             false);
         
-        client.waitForBackgroundJavaScript(1000);
+        watch.await(newPage);
         
-        log("selectUserSettingsOddsFormatDec: ", " - selected DEC");
+        trace.event("selectUserSettingsOddsFormatDec: selected DEC");
         return newPage;
     }
     
@@ -406,11 +644,11 @@ public class Scraper {
     private List<DateGroup> scrapeMatches(HtmlPage page, int numBookies)
         throws IOException {
         if (page == null) {
-            log("scrapeMatches: page is null", true);
+            trace.event("scrapeMatches: page is null");
             return null;
         }
         DomNodeList<DomNode> dateGroupDivs = getDateGroupDivs(page);
-        log("dateGroupDivs.size() =" + dateGroupDivs.size(), true);
+        trace.event("dateGroupDivs.size() =" + dateGroupDivs.size());
         
         List<DateGroup> dateGroups = new ArrayList<DateGroup>();
         
@@ -418,22 +656,28 @@ public class Scraper {
         for (DomNode dateGroupDiv : dateGroupDivs) {
             String date = scrapeDateFromDateGroupsDateDiv(dateGroupDiv);
             
-            log("dateGroup date: " + date, true);
+            trace.event("dateGroup date: " + date);
             
             // create and add a date group with initial matches
             dateGroups.add(createAllDateGroupMatches(dateGroupDiv, date));
         }
         
-        log("Created initial matches, now scraping bookie odds", true);
+        trace.event("Created initial matches, now scraping bookie odds");
         
-        // now we scrape each bookies shown odds, then click next and repeat
-        scrapeBookieOverUnders(page, dateGroups);
+        if (prefetchCarousel) {
+            // scrape every carousel page at once, each in its own web client
+            prefetchBookieOverUnders(page, dateGroups);
+        } else {
+            // now we scrape each bookies shown odds, then click next and repeat
+            scrapeBookieOverUnders(page, dateGroups);
+        }
         
         for (DateGroup dg : dateGroups) {
-            log("logging date group\n", dg.toString());
+            trace.event("date group: " + dg);
         }
         
-        return null;
+        matchGroups = dateGroups;
+        return dateGroups;
     }
     
     /* the number of bookies listed per next click */
@@ -452,9 +696,9 @@ public class Scraper {
             * BOOKIES_PER_NEXT_CLICK) - 1;
         int prevCount = bookiesSize / BOOKIES_PER_NEXT_CLICK;
         
-        log(String.format(
-            "scrapeBookieOverUnders: bsize=%d  skipCount=%d  needSkip=%d  prevCount=%d",
-            bookiesSize, skipCount, needSkip, prevCount), true);
+        trace.event("scrapeBookieOverUnders: bsize=" + bookiesSize
+            + " skipCount=" + skipCount + " needSkip=" + needSkip
+            + " prevCount=" + prevCount);
         
         DomNodeList<DomNode> dateGroupDivs = getDateGroupDivs(page);
         
@@ -462,53 +706,279 @@ public class Scraper {
         int bIndex = 0; // bookie index
         while (bIndex < bookiesSize) {
             whileRuns += 1;
-            log("Scraping batch " + whileRuns + " of bookies", true);
+            trace.event("Scraping batch " + whileRuns + " of bookies");
+            
+            // don't skip unless bIndex is to the last next carousel page
+            int skip = (bIndex >= needSkip) ? skipCount : 0;
+            
+            // number of bookies scraped
+            int bScraped = scrapeCarouselBatch(dateGroupDivs, dateGroups,
+                bIndex, skip);
+            
+            trace.event("Scraped " + bScraped
+                + " bookies this batch, total scraped is " + bIndex);
+            
+            bIndex += bScraped;
             
-            int bScraped = 0; // number of bookies scraped
-            for (int dgi = 0, n = dateGroupDivs.size(); dgi < n; dgi++) {
-                DomNode dgdiv = dateGroupDivs.get(dgi);
-                DateGroup dg = dateGroups.get(dgi);
+            dateGroupDivs = clickCarouselNextAndGetDateGroupDivs(page);
+        }
+        
+    }
+    
+    /* scrapes every carousel page concurrently and merges them by match */
+    private void prefetchBookieOverUnders(HtmlPage page,
+        List<DateGroup> dateGroups) throws IOException {
+        int bookiesSize = getBookies().size();
+        int numPages = (bookiesSize + BOOKIES_PER_NEXT_CLICK - 1)
+            / BOOKIES_PER_NEXT_CLICK;
+        
+        trace.event("prefetchBookieOverUnders: bsize=" + bookiesSize
+            + " pages=" + numPages);
+        
+        Map<Long, Match> byRotation = indexByRotation(dateGroups);
+        if (numPages > 1 && byRotation == null) {
+            trace.event("Matches share rotation numbers, clicking through"
+                + " the carousel instead");
+            scrapeBookieOverUnders(page, dateGroups);
+            return;
+        }
+        
+        // open carousel pages 1..n-1 in their own web clients
+        List<Future<CarouselPage>> futures = new ArrayList<>(numPages);
+        for (int p = 1; p < numPages; p++) {
+            final int pageIndex = p;
+            futures.add(CAROUSEL_PAGES.submit(
+                () -> scrapeCarouselPage(pageIndex, numPages)));
+        }
+        
+        try {
+            // meanwhile, scrape carousel page 0 from the already loaded page
+            scrapeCarouselBatch(getDateGroupDivs(page), dateGroups, 0,
+                carouselSkip(0, numPages));
+            
+            // only merge once every page is known to hold the same matches
+            List<CarouselPage> pages = new ArrayList<>(numPages);
+            for (int p = 1; p < numPages; p++) {
+                CarouselPage cp = awaitCarouselPage(p, futures.get(p - 1));
+                int bIndex = p * BOOKIES_PER_NEXT_CLICK;
                 
-                // don't skip unless bIndex is to the last next carousel page
-                int skip = (bIndex >= needSkip) ? skipCount : 0;
+                if (cp == null
+                    || !cp.fits(byRotation, bIndex, bookiesSize)) {
+                    trace.event("Carousel page " + p + " could not be"
+                        + " merged, clicking through the carousel instead");
+                    scrapeBookieOverUnders(page, dateGroups);
+                    return;
+                }
                 
-                bScraped = scrapeOddsFromDateGroupDiv(dgdiv, dg, bIndex, skip);
+                pages.add(cp);
             }
             
-            log("Scraped " + bScraped + " bookies this batch, total scraped is "
-                + bIndex, true);
+            for (int p = 1; p < numPages; p++) {
+                pages.get(p - 1).mergeInto(byRotation,
+                    p * BOOKIES_PER_NEXT_CLICK);
+                trace.event("Prefetched carousel page " + p);
+            }
+        } finally {
+            for (Future<CarouselPage> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+    
+    /* opens a carousel page in a new web client and reads its odds */
+    private CarouselPage scrapeCarouselPage(int pageIndex, int numPages)
+        throws IOException {
+        Scraper child = new Scraper(browser);
+        child.setMaxSettleMillis(settler.getMaxSettleMillis());
+        child.setPreferenceCookieStore(cookieStore);
+        if (connection != null) { child.setWebConnection(connection); }
+        try {
+            HtmlPage page = child.openPageWithCorrectOptions(site, timeout);
+            if (page == null) {
+                throw new IOException("carousel page " + pageIndex
+                    + " did not load or has no matches");
+            }
+            page = child.advanceCarousel(page, pageIndex);
             
-            bIndex += bScraped;
+            // advancing can reload the page without the options set
+            if (!child.pageHasCorrectOptions(page)) {
+                throw new IOException("carousel page " + pageIndex
+                    + " does not show the correct options");
+            }
             
-            try {
-                logger.flush();
-            } catch (IOException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
+            return readCarouselPage(getDateGroupDivs(page),
+                carouselSkip(pageIndex, numPages));
+        } finally {
+            child.close();
+        }
+    }
+    
+    /* clicks the carousel's next anchor, settling only after the last click */
+    private HtmlPage advanceCarousel(HtmlPage page, int clicks)
+        throws IOException {
+        PageSettler.Watch watch = settler.watch(page, SPORT_DIV_ID,
+            CAROUSEL_DIV_ID);
+        
+        for (int i = 0; i < clicks; i++) {
+            DomElement carouselNext = getCarouselAnchor(page, 2);
+            
+            if (!(carouselNext instanceof HtmlAnchor)) {
+                throw new IOException("carousel next is not an HtmlAnchor");
             }
             
-            dateGroupDivs = clickCarouselNextAndGetDateGroupDivs(page);
+            page = ((HtmlAnchor) carouselNext).click();
+        }
+        
+        watch.await(page);
+        return page;
+    }
+    
+    /* the number of already seen bookies to skip on a carousel page */
+    private int carouselSkip(int pageIndex, int numPages) {
+        int remainder = getBookies().size() % BOOKIES_PER_NEXT_CLICK;
+        
+        // the last page is filled with already seen bookies, skip them
+        boolean lastPage = pageIndex == numPages - 1;
+        return (lastPage && remainder != 0)
+            ? BOOKIES_PER_NEXT_CLICK - remainder
+            : 0;
+    }
+    
+    /* scrapes one carousel page's worth of odds into the date groups */
+    private int scrapeCarouselBatch(DomNodeList<DomNode> dateGroupDivs,
+        List<DateGroup> dateGroups, int bIndex, int skip) {
+        if (dateGroupDivs.size() != dateGroups.size()) {
+            trace.event("[ERROR] dateGroupDivs.size() != dateGroups.size()");
+        }
+        
+        int bScraped = 0;
+        int n = Math.min(dateGroupDivs.size(), dateGroups.size());
+        for (int dgi = 0; dgi < n; dgi++) {
+            bScraped = scrapeOddsFromDateGroupDiv(dateGroupDivs.get(dgi),
+                dateGroups.get(dgi), bIndex, skip);
+        }
+        
+        return bScraped;
+    }
+    
+    /* waits for a prefetched carousel page, null if it failed */
+    private CarouselPage awaitCarouselPage(int pageIndex,
+        Future<CarouselPage> future) throws InterruptedIOException {
+        try {
+            return future.get();
+        } catch (ExecutionException ee) {
+            trace.error("failed to prefetch carousel page " + pageIndex,
+                ee.getCause());
+            return null;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                "interrupted while prefetching carousel pages");
+        }
+    }
+    
+    /* reads a carousel page's odds, keyed by each match's rotation numbers */
+    private CarouselPage readCarouselPage(DomNodeList<DomNode> dateGroupDivs,
+        int skip) throws IOException {
+        CarouselPage cp = new CarouselPage();
+        for (DomNode dateGroupDiv : dateGroupDivs) {
+            for (DomNode matchDiv : plan.contentScheduled(dateGroupDiv)
+                .getChildren()) {
+                DomNode holder = matchDiv.getFirstChild();
+                DomElement rots = plan.rotation(holder);
+                
+                List<DomElement> books = plan.books(holder);
+                List<String[]> odds = new ArrayList<>(books.size());
+                // skip already seen bookies on the last carousel page
+                for (int oi = skip, n = books.size(); oi < n; oi++) {
+                    DomElement overUnder = books.get(oi);
+                    odds.add(new String[] {
+                        overUnder.getFirstChild().getTextContent().strip(),
+                        overUnder.getLastChild().getTextContent().strip() });
+                }
+                
+                long key = Match.rotationKey(parseRot(rots, 1),
+                    parseRot(rots, 2));
+                if (cp.odds.put(key, odds) != null) {
+                    throw new IOException("carousel page has more than one"
+                        + " match with rotation numbers " + rots
+                            .asNormalizedText());
+                }
+            }
+        }
+        
+        return cp;
+    }
+    
+    /* maps each match's rotation numbers to it, null if any are shared */
+    private static Map<Long, Match> indexByRotation(
+        List<DateGroup> dateGroups) {
+        Map<Long, Match> byRotation = new HashMap<>();
+        for (DateGroup dg : dateGroups) {
+            for (int mi = 0, n = dg.size(); mi < n; mi++) {
+                Match match = dg.getMatch(mi);
+                if (byRotation.put(match.rotationKey(), match) != null) {
+                    return null;
+                }
+            }
         }
         
+        return byRotation;
+    }
+    
+    /**
+     * The odds read from a single prefetched carousel page, keyed by each
+     * match's rotation numbers rather than by its position on the page, since
+     * a page opened in another {@code WebClient} can order and group its
+     * matches differently.
+     */
+    private static final class CarouselPage {
+        /* each match's over and under odds, in carousel order */
+        private final Map<Long, List<String[]>> odds = new HashMap<>();
+        
+        /* whether this page holds exactly the indexed matches */
+        boolean fits(Map<Long, Match> byRotation, int bIndex,
+            int numBookies) {
+            if (!odds.keySet().equals(byRotation.keySet())) { return false; }
+            
+            for (List<String[]> matchOdds : odds.values()) {
+                if (bIndex + matchOdds.size() > numBookies) { return false; }
+            }
+            
+            return true;
+        }
+        
+        /* sets this page's odds on the indexed matches */
+        void mergeInto(Map<Long, Match> byRotation, int bIndex) {
+            for (Map.Entry<Long, List<String[]>> e : odds.entrySet()) {
+                Match match = byRotation.get(e.getKey());
+                List<String[]> matchOdds = e.getValue();
+                for (int i = 0, n = matchOdds.size(); i < n; i++) {
+                    String[] overUnder = matchOdds.get(i);
+                    match.setBookieOdds(bIndex + i, overUnder[0],
+                        overUnder[1]);
+                }
+            }
+        }
     }
     
     /* */
     private int scrapeOddsFromDateGroupDiv(DomNode dgdiv, DateGroup dg,
         int bindex, int skipCount) {
-        DomNodeList<DomNode> matchHolders = getContentScheduledDiv(dgdiv)
+        DomNodeList<DomNode> matchHolders = plan.contentScheduled(dgdiv)
             .getChildNodes();
         
         if (matchHolders.size() != dg.size()) {
-            log("[ERROR] matchHolders.size() != dg.size()", true);
+            trace.event("[ERROR] matchHolders.size() != dg.size()");
         }
         
         int oddsScraped = 0;
+        int n = Math.min(matchHolders.size(), dg.size());
         // 'mi' is match index
-        for (int mi = 0; mi < matchHolders.size(); mi++) {
+        for (int mi = 0; mi < n; mi++) {
             DomNode matchDiv = matchHolders.get(mi).getFirstChild();
-            List<HtmlDivision> odds = matchDiv
-                .getByXPath("./div[@class='el-div eventLine-book']");
-            // log(" ODDS DIV SIZE = " + odds.size(), true);
+            List<DomElement> odds = plan.books(matchDiv);
+            // trace.event(" ODDS DIV SIZE = " + odds.size());
             Match match = dg.getMatch(mi);
             
             oddsScraped = scrapeOddsToMatch(odds, match, bindex, skipCount);
@@ -519,7 +989,7 @@ public class Scraper {
     }
     
     /* */
-    private int scrapeOddsToMatch(List<HtmlDivision> odds, Match match,
+    private int scrapeOddsToMatch(List<DomElement> odds, Match match,
         int bindex, int skipCount) {
         
         int oddsScraped = 0;
@@ -527,7 +997,7 @@ public class Scraper {
         for (int oi = 0, n = odds.size(); oi < n; oi++) {
             // skip already seen bookies on last next click
             if (skipCount > 0) {
-                log("skipping bookie " + skipCount, true);
+                trace.event("skipping bookie " + skipCount);
                 skipCount -= 1;
                 continue;
             }
@@ -539,8 +1009,8 @@ public class Scraper {
         return oddsScraped;
     }
     
-    /* helper function used to scrape a single bookie odds */
-    private void scrapeSingleBookieOdds(HtmlDivision overUnder, Match match,
+    /* scrapes a single bookie's odds, parsing the text only once */
+    private void scrapeSingleBookieOdds(DomElement overUnder, Match match,
         int bIndex) {
         DomNode eOver = overUnder.getFirstChild();
         DomNode eUnder = overUnder.getLastChild();
@@ -552,26 +1022,47 @@ public class Scraper {
     }
     
     private String scrapeDateFromDateGroupsDateDiv(DomNode dateGroupDiv) {
-        DomNode dateDiv = dateGroupDiv.getFirstByXPath(".//div[@class='date']");
+        DomNode dateDiv = plan.date(dateGroupDiv);
         
         return dateDiv.getTextContent().strip();
     }
     
+    /* creates the shared pool of daemon threads carousel pages load on */
+    private static ExecutorService newCarouselPagePool() {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            MAX_CAROUSEL_PAGE_THREADS, MAX_CAROUSEL_PAGE_THREADS, 30,
+            TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r,
+                    "carousel-page-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        // don't hold idle threads between scrapes
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+    
+    /* ids of the divs holding the odds table and the bookie carousel */
+    private static final String SPORT_DIV_ID = "sport-4";
+    private static final String CAROUSEL_DIV_ID = "booksCarousel";
+    
     /* gets the date group divs from the <div id='sport-4'> div */
     private DomNodeList<DomNode> getDateGroupDivs(HtmlPage page) {
-        return page.getElementById("sport-4").getFirstChild().getChildNodes();
+        return page.getElementById(SPORT_DIV_ID).getFirstChild()
+            .getChildNodes();
     }
     
-    /* gets the content scheduled div where all of the matches are */
-    private DomNode getContentScheduledDiv(DomNode dateGroupDiv) {
-        String conSchedXpath = ".//div[@class='content-scheduled content-pre-game ']";
-        return dateGroupDiv.getFirstByXPath(conSchedXpath);
+    /* gets the carousel's prev (1) or next (2) anchor */
+    private DomElement getCarouselAnchor(HtmlPage page, int n) {
+        return ExtractionPlan.nthChild(page.getElementById("feedHeaderCarousel")
+            .getFirstElementChild(), "a", n);
     }
     
     /* */
     private DateGroup createAllDateGroupMatches(DomNode dateGroupDiv,
         String date) {
-        DomNode conSched = getContentScheduledDiv(dateGroupDiv);
+        DomNode conSched = plan.contentScheduled(dateGroupDiv);
         
         // create a new date group to store matches in
         DateGroup dateGroup = new DateGroup(date);
@@ -598,32 +1089,25 @@ public class Scraper {
     
     /* scrapes and sets the home and away ROT numbers */
     private void scrapeRotNumbers(DomNode holder, MatchBuilder mb) {
-        HtmlDivision rots = holder
-            .getFirstByXPath("./div[@class='el-div eventLine-rotation']");
+        DomElement rots = plan.rotation(holder);
         
+        mb.homeRot(parseRot(rots, 1)).awayRot(parseRot(rots, 2));
+    }
+    
+    /* parses the home (1) or away (2) ROT number, 0 if it's not a number */
+    private static int parseRot(DomElement rots, int n) {
+        String rot = rots.getChildNodes().get(n).getTextContent().strip();
         
-        // HtmlDivision homeRot = rot.getFirstByXPath("./div[1]");
-        String homeRot = rots.getChildNodes().get(1).getTextContent().strip();
-        // HtmlDivision awayRot = teams.getFirstByXPath("./div[2]");
-        String awayRot = rots.getChildNodes().get(2).getTextContent().strip();
-        
-        int hrot = 0;
-        try {
-            hrot = Integer.parseInt(homeRot);
-        } catch (NumberFormatException e) {}
-        
-        int arot = 0;
         try {
-            arot = Integer.parseInt(homeRot);
-        } catch (NumberFormatException e) {}
-        
-        mb.homeRot(hrot).awayRot(arot);
+            return Integer.parseInt(rot);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
     }
     
     /* scrapes and set the match time */
     private void scrapeMatchTime(DomNode holder, MatchBuilder mb) {
-        HtmlDivision matchTime = holder
-            .getFirstByXPath("./div[@class='el-div eventLine-time']");
+        DomElement matchTime = plan.time(holder);
         String time = matchTime.getFirstChild().getTextContent().strip();
         
         mb.time(time);
@@ -631,11 +1115,10 @@ public class Scraper {
     
     /* scrapes and sets the team names as well as the match's URL */
     private void scrapeTeamsAndUrl(DomNode holder, MatchBuilder mb) {
-        HtmlElement teams = holder
-            .getFirstByXPath("./div[@class='el-div eventLine-team']");
+        DomElement teams = plan.team(holder);
         
-        HtmlAnchor home = (HtmlAnchor) teams.getFirstByXPath("./div[1]/span/a");
-        HtmlAnchor away = (HtmlAnchor) teams.getFirstByXPath("./div[2]/span/a");
+        HtmlAnchor home = (HtmlAnchor) teamAnchor(teams, 1);
+        HtmlAnchor away = (HtmlAnchor) teamAnchor(teams, 2);
         
         mb.home(home.getTextContent().strip());
         mb.away(away.getTextContent().strip());
@@ -643,12 +1126,18 @@ public class Scraper {
         
     }
     
+    /* gets the anchor of a team cell's nth team, i.e. ./div[n]/span/a */
+    private static DomElement teamAnchor(DomElement teams, int n) {
+        DomElement span = ExtractionPlan.nthChild(
+            ExtractionPlan.nthChild(teams, "div", n), "span", 1);
+        return ExtractionPlan.nthChild(span, "a", 1);
+    }
+    
     /* scrapes and sets the opener's over-under odds */
     private void scrapeOpener(DomNode holder, MatchBuilder mb) {
-        HtmlElement opener = holder
-            .getFirstByXPath("./div[@class='el-div eventLine-opener']");
-        HtmlElement eOver = opener.getFirstByXPath("./div[1]");
-        HtmlElement eUnder = opener.getFirstByXPath("./div[2]");
+        DomElement opener = plan.opener(holder);
+        DomElement eOver = ExtractionPlan.nthChild(opener, "div", 1);
+        DomElement eUnder = ExtractionPlan.nthChild(opener, "div", 2);
         
         String over = eOver.getTextContent().strip();
         String under = eUnder.getTextContent().strip();
@@ -659,14 +1148,15 @@ public class Scraper {
     /* */
     private DomNodeList<DomNode> clickCarouselNextAndGetDateGroupDivs(
         HtmlPage page) {
-        DomElement carouselNext = page.getElementById("feedHeaderCarousel")
-            .getFirstElementChild().getFirstByXPath("./a[2]");
+        DomElement carouselNext = getCarouselAnchor(page, 2);
         
         if (carouselNext == null) {
-            log("[ERROR] carouselNext is null!", true);
+            trace.event("[ERROR] carouselNext is null!");
         }
         
         if (carouselNext instanceof HtmlAnchor) {
+            PageSettler.Watch watch = settler.watch(page, SPORT_DIV_ID,
+                CAROUSEL_DIV_ID);
             try {
                 page = ((HtmlAnchor) carouselNext).click();
             } catch (IOException e) {
@@ -674,9 +1164,9 @@ public class Scraper {
                 e.printStackTrace();
             }
             
-            client.waitForBackgroundJavaScript(1000);
+            watch.await(page);
         } else {
-            log("[ERROR] carouselNext is not an HtmlAnchor!", true);
+            trace.event("[ERROR] carouselNext is not an HtmlAnchor!");
         }
         
         try {
@@ -691,14 +1181,15 @@ public class Scraper {
     
     /* */
     private HtmlElement clickCarouselPrev(HtmlPage page) {
-        DomElement carouselPrev = page.getElementById("feedHeaderCarousel")
-            .getFirstElementChild().getFirstByXPath("./a[1]");
+        DomElement carouselPrev = getCarouselAnchor(page, 1);
         
         if (carouselPrev == null) {
-            log("[ERROR] carouselPrev is null!", true);
+            trace.event("[ERROR] carouselPrev is null!");
         }
         
         if (carouselPrev instanceof HtmlAnchor) {
+            PageSettler.Watch watch = settler.watch(page, SPORT_DIV_ID,
+                CAROUSEL_DIV_ID);
             try {
                 page = ((HtmlAnchor) carouselPrev).click();
             } catch (IOException e) {
@@ -706,9 +1197,9 @@ public class Scraper {
                 e.printStackTrace();
             }
             
-            client.waitForBackgroundJavaScript(1000);
+            watch.await(page);
         } else {
-            log("[ERROR] carouselPrev is not an HtmlAnchor!", true);
+            trace.event("[ERROR] carouselPrev is not an HtmlAnchor!");
         }
         
         // String conSchedXpath = "//div[@class='content-scheduled
@@ -718,10 +1209,4 @@ public class Scraper {
         return null;
     }
     
-    /* returns a DomNode's text content as a double, or 0.0 if no text */
-    private double domNodeTextToDouble(DomNode node) {
-        String nodeText = node.getTextContent().strip();
-        return nodeText.isEmpty() ? 0.0 : Double.parseDouble(nodeText);
-    }
-    
 }
@@ -0,0 +1,142 @@
+package com.bookiescrape.app.scrape;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.gargoylesoftware.htmlunit.BrowserVersion;
+
+/**
+ * A bounded pool of independent {@link Scraper} instances.
+ * <p>
+ * Each {@code Scraper} is backed by its own {@code WebClient}, so scrapers
+ * borrowed from this pool can be used concurrently by different threads.
+ * Scrapers are created lazily, the first time they are needed, up to the size
+ * of the pool. Once every scraper has been created, {@link #borrow()} blocks
+ * until another thread {@linkplain #release(Scraper) releases} one.
+ *
+ * @author Jonathan Henly
+ * @see Scraper
+ */
+public class ScraperPool implements AutoCloseable {
+    
+    private final BrowserVersion browser;
+    private final BlockingQueue<Scraper> idle;
+    private final List<Scraper> created;
+    private final int size;
+    private boolean closed;
+    
+    /**
+     * Creates a pool of, at most, {@code size} scrapers using the default
+     * {@code BrowserVersion}.
+     *
+     * @param size
+     *             - the maximum number of scrapers in this pool
+     * @see Scraper#DEFAULT_BROWSER
+     */
+    public ScraperPool(int size) { this(size, Scraper.DEFAULT_BROWSER); }
+    
+    /**
+     * Creates a pool of, at most, {@code size} scrapers using the specified
+     * {@code BrowserVersion}.
+     *
+     * @param size
+     *                - the maximum number of scrapers in this pool
+     * @param browser
+     *                - the browser version each scraper's {@code WebClient}
+     *                should use
+     * @throws IllegalArgumentException
+     *                                  if {@code size} is less than one
+     */
+    public ScraperPool(int size, BrowserVersion browser) {
+        if (size < 1) {
+            throw new IllegalArgumentException(
+                "scraper pool size must be greater than zero.");
+        }
+        
+        this.size = size;
+        this.browser = browser;
+        idle = new ArrayBlockingQueue<>(size);
+        created = new ArrayList<>(size);
+    }
+    
+    /**
+     * @return the maximum number of scrapers in this pool
+     */
+    public int size() { return size; }
+    
+    /**
+     * Borrows a scraper from this pool, creating a new scraper if one is not
+     * idle and the pool is not yet full, otherwise waiting for a scraper to be
+     * released.
+     * <p>
+     * Every borrowed scraper must be given back to this pool via
+     * {@link #release(Scraper)}.
+     *
+     * @return a scraper that is not in use by any other thread
+     * @throws InterruptedException
+     *                              if interrupted while waiting for a scraper
+     * @throws IllegalStateException
+     *                              if this pool has been closed
+     */
+    public Scraper borrow() throws InterruptedException {
+        Scraper scraper = idle.poll();
+        if (scraper != null) { return scraper; }
+        
+        synchronized (this) {
+            throwIfClosed();
+            
+            if (created.size() < size) {
+                scraper = new Scraper(browser);
+                created.add(scraper);
+                return scraper;
+            }
+        }
+        
+        return idle.take();
+    }
+    
+    /**
+     * Gives a borrowed scraper back to this pool.
+     * <p>
+     * If this pool has been closed then the released scraper is closed.
+     *
+     * @param scraper
+     *                - the scraper to give back to this pool
+     */
+    public synchronized void release(Scraper scraper) {
+        if (closed) {
+            scraper.close();
+            return;
+        }
+        
+        idle.offer(scraper);
+    }
+    
+    /**
+     * Closes every idle scraper in this pool, any scraper that is still
+     * borrowed will be closed when it is released.
+     * <p>
+     * <b>Note:</b> multiple calls to this method have no effect, only the first
+     * call to {@code close()} has an effect.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) { return; }
+        closed = true;
+        
+        Scraper scraper;
+        while ((scraper = idle.poll()) != null) {
+            scraper.close();
+        }
+    }
+    
+    /* helper that throws if close() has been called on this pool */
+    private void throwIfClosed() {
+        if (closed) {
+            throw new IllegalStateException("this scraper pool has been closed.");
+        }
+    }
+    
+}
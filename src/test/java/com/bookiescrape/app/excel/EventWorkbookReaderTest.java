@@ -0,0 +1,114 @@
+package com.bookiescrape.app.excel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+public class EventWorkbookReaderTest {
+    private static final String ODDS_PATH = "src/test/resources/excel/Odds.xlsx";
+    private static final String NFL = "NFL";
+    
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+    
+    /* reads a range with both readers and checks they agree */
+    private static void assertSameAsWorkbookReader(CellRange range)
+        throws IOException
+    {
+        try (WorkbookReader dom = WorkbookFactory.newWorkbookReader(ODDS_PATH);
+        EventWorkbookReader events =
+            WorkbookFactory.newEventWorkbookReader(ODDS_PATH))
+        {
+            assertEquals(dom.forRange(range).in(NFL).read(),
+                events.forRange(range).in(NFL).read());
+        }
+    }
+    
+    @Test
+    public void cell_row_col_and_row_col_ranges_should_match_workbook_reader()
+        throws IOException
+    {
+        assertSameAsWorkbookReader(CellRange.cell(0, 0));
+        assertSameAsWorkbookReader(CellRange.rowRange(1, 0, 11));
+        assertSameAsWorkbookReader(CellRange.colRange(0, 1, 25));
+        assertSameAsWorkbookReader(CellRange.range(1, 25, 0, 11));
+        assertSameAsWorkbookReader(CellRange.openRowRange(1, 1));
+    }
+    
+    @Test
+    public void open_row_range_should_end_at_last_cell() throws IOException {
+        try (EventWorkbookReader reader =
+            WorkbookFactory.newEventWorkbookReader(ODDS_PATH))
+        {
+            List<String> bookies = reader.forOpenRowRange(1, 1).in(NFL).read();
+            List<String> closed =
+                reader.forRange(CellRange.rowRange(1, 1, 11)).in(NFL).read();
+            
+            assertEquals(closed, bookies);
+        }
+    }
+    
+    @Test
+    public void missing_rows_and_cells_should_be_empty_strings()
+        throws IOException
+    {
+        String path = tmp.getRoot().toPath().resolve("sparse.xlsx").toString();
+        try (XSSFWorkbook wb = new XSSFWorkbook();
+        OutputStream out = new FileOutputStream(path))
+        {
+            XSSFSheet sheet = wb.createSheet("Sparse");
+            XSSFRow row = sheet.createRow(1);
+            row.createCell(0).setCellValue("a");
+            row.createCell(2).setCellValue(1.5);
+            sheet.createRow(3).createCell(1).setCellValue(true);
+            wb.createSheet("Other").createRow(0).createCell(0)
+                .setCellValue("other");
+            wb.write(out);
+        }
+        
+        try (EventWorkbookReader reader =
+            WorkbookFactory.newEventWorkbookReader(path))
+        {
+            assertEquals(
+                Arrays.asList("", "", "", "a", "", "1.5", "", "", "", "",
+                    "true", "", "", "", ""),
+                reader.forRange(CellRange.range(0, 4, 0, 2)).in("Sparse")
+                    .read());
+            
+            assertEquals(Arrays.asList("", "", "", "true"),
+                reader.forOpenColRange(1, 0).in("Sparse").read());
+            
+            assertEquals(Arrays.asList("other"),
+                reader.forOpenRowRange(0, 0).in("Other").read());
+            
+            assertTrue(reader.hasSheet("Other"));
+            assertFalse(reader.hasSheet("Missing"));
+        }
+    }
+    
+    @Test(expected = SheetNotFoundException.class)
+    public void reading_a_missing_sheet_should_throw_snfexception()
+        throws IOException
+    {
+        try (EventWorkbookReader reader =
+            WorkbookFactory.newEventWorkbookReader(ODDS_PATH))
+        {
+            reader.forOpenRowRange(0, 0).in("Missing").read();
+        }
+    }
+    
+}
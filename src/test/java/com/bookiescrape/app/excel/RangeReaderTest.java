@@ -0,0 +1,120 @@
+package com.bookiescrape.app.excel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+public class RangeReaderTest {
+    private static final String SHEET = "History";
+    private static final double NaN = Double.NaN;
+    
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+    
+    private WorkbookReader reader;
+    
+    /*
+     * A sheet with a team name column and two odds columns, row 2 is missing
+     * and row 3 has a text odd and a formula:
+     * 
+     * Bears    1.5   2.5
+     * Lions    1.75
+     * 
+     * Packers  n/a   =B1+B2
+     */
+    @Before
+    public void openReader() throws IOException {
+        Path file = tmp.getRoot().toPath().resolve("history.xlsx");
+        try (XSSFWorkbook wb = new XSSFWorkbook();
+            OutputStream out = Files.newOutputStream(file))
+        {
+            Sheet sheet = wb.createSheet(SHEET);
+            Row row = sheet.createRow(0);
+            row.createCell(0).setCellValue("Bears");
+            row.createCell(1).setCellValue(1.5);
+            row.createCell(2).setCellValue(2.5);
+            
+            row = sheet.createRow(1);
+            row.createCell(0).setCellValue("Lions");
+            row.createCell(1).setCellValue(1.75);
+            
+            row = sheet.createRow(3);
+            row.createCell(0).setCellValue("Packers");
+            row.createCell(1).setCellValue("n/a");
+            row.createCell(2).setCellFormula("B1+B2");
+            
+            wb.getCreationHelper().createFormulaEvaluator()
+                .evaluateAllFormulaCells(wb);
+            wb.write(out);
+        }
+        
+        reader = WorkbookFactory.newWorkbookReader(file.toString());
+    }
+    
+    @After
+    public void closeReader() throws IOException { reader.close(); }
+    
+    @Test
+    public void doubles_should_be_read_without_strings() {
+        double[] col = reader.forRange(CellRange.colRange(1, 0, 3)).in(SHEET)
+            .readDoubles();
+        
+        assertArrayEquals(new double[] { 1.5, 1.75, NaN, NaN }, col, 0.0);
+    }
+    
+    @Test
+    public void formulas_should_be_read_as_their_cached_result() {
+        double[] row = reader.forRange(CellRange.rowRange(3, 0, 2)).in(SHEET)
+            .readDoubles();
+        
+        assertArrayEquals(new double[] { NaN, NaN, 3.25 }, row, 0.0);
+    }
+    
+    @Test
+    public void ints_should_use_the_missing_value_for_non_numbers() {
+        int[] col = reader.forRange(CellRange.colRange(2, 0, 3)).in(SHEET)
+            .readInts(-1);
+        
+        assertArrayEquals(new int[] { 2, -1, -1, 3 }, col);
+    }
+    
+    @Test
+    public void blocks_should_hold_one_array_per_row() {
+        double[][] block = reader.forRange(CellRange.range(0, 1, 1, 2))
+            .in(SHEET).readDoubleBlock();
+        
+        assertEquals(2, block.length);
+        assertArrayEquals(new double[] { 1.5, 2.5 }, block[0], 0.0);
+        assertArrayEquals(new double[] { 1.75, NaN }, block[1], 0.0);
+    }
+    
+    @Test
+    public void open_col_ranges_should_read_to_the_last_row() {
+        assertArrayEquals(new double[] { 1.75, NaN, NaN },
+            reader.forOpenColRange(1, 1).in(SHEET).readDoubles(), 0.0);
+        assertEquals(Arrays.asList("Lions", "", "Packers"),
+            reader.forOpenColRange(0, 1).in(SHEET).read());
+    }
+    
+    @Test
+    public void open_row_ranges_should_read_to_the_last_cell() {
+        assertArrayEquals(new double[] { 1.5, 2.5 },
+            reader.forOpenRowRange(0, 1).in(SHEET).readDoubles(), 0.0);
+    }
+    
+}
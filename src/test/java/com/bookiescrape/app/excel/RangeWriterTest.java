@@ -0,0 +1,212 @@
+package com.bookiescrape.app.excel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bookiescrape.app.scrape.Bookie;
+import com.bookiescrape.app.scrape.DateGroup;
+import com.bookiescrape.app.scrape.Match;
+
+
+public class RangeWriterTest {
+    private static final String SHEET = "Odds";
+    
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+    
+    private WorkbookWriter writer;
+    
+    @Before
+    public void openWriter() throws IOException {
+        Path file = tmp.getRoot().toPath().resolve("odds.xlsx");
+        try (XSSFWorkbook wb = new XSSFWorkbook();
+            OutputStream out = Files.newOutputStream(file))
+        {
+            wb.createSheet(SHEET);
+            wb.write(out);
+        }
+        
+        writer = WorkbookFactory.newWorkbookWriter(file.toString());
+    }
+    
+    @After
+    public void closeWriter() throws IOException { writer.close(); }
+    
+    /* a cell of the writer's sheet */
+    private Cell cell(int r, int c) {
+        return writer.workbook.getSheet(SHEET).getRow(r).getCell(c);
+    }
+    
+    @Test
+    public void doubles_should_be_written_as_numbers_in_row_major_order() {
+        writer.forRange(CellRange.range(0, 1, 0, 1)).in(SHEET)
+            .write(new double[] { 1.5, 2.5, 3.5, 4.5 });
+        
+        assertEquals(CellType.NUMERIC, cell(0, 0).getCellType());
+        assertEquals(1.5, cell(0, 0).getNumericCellValue(), 0.0);
+        assertEquals(2.5, cell(0, 1).getNumericCellValue(), 0.0);
+        assertEquals(3.5, cell(1, 0).getNumericCellValue(), 0.0);
+        assertEquals(4.5, cell(1, 1).getNumericCellValue(), 0.0);
+    }
+    
+    @Test
+    public void nan_should_blank_a_previously_written_cell() {
+        CellRange range = CellRange.rowRange(0, 0, 1);
+        writer.forRange(range).in(SHEET).write(new double[] { 1.0, 2.0 });
+        writer.forRange(range).in(SHEET).write(new double[] { Double.NaN, 3 });
+        
+        assertEquals(CellType.BLANK, cell(0, 0).getCellType());
+        assertEquals(3.0, cell(0, 1).getNumericCellValue(), 0.0);
+    }
+    
+    @Test
+    public void ints_should_be_written_as_numbers() {
+        writer.forRange(CellRange.colRange(0, 0, 2)).in(SHEET)
+            .write(new int[] { 7, -110, 0 });
+        
+        assertEquals(7.0, cell(0, 0).getNumericCellValue(), 0.0);
+        assertEquals(-110.0, cell(1, 0).getNumericCellValue(), 0.0);
+        assertEquals(CellType.NUMERIC, cell(2, 0).getCellType());
+    }
+    
+    @Test
+    public void blocks_should_keep_the_type_of_each_value() {
+        writer.forRange(CellRange.range(0, 1, 0, 1)).in(SHEET)
+            .write(new Object[][] { { "Bears", 1.91 }, { null, true } });
+        
+        assertEquals("Bears", cell(0, 0).getStringCellValue());
+        assertEquals(1.91, cell(0, 1).getNumericCellValue(), 0.0);
+        assertEquals(CellType.BLANK, cell(1, 0).getCellType());
+        assertTrue(cell(1, 1).getBooleanCellValue());
+    }
+    
+    @Test
+    public void every_cell_should_share_the_range_style() {
+        writer.forRange(CellRange.rowRange(0, 0, 2)).withFormat("0.00")
+            .in(SHEET).write(new double[] { 1, 2, 3 });
+        
+        assertEquals(cell(0, 0).getCellStyle().getIndex(),
+            cell(0, 2).getCellStyle().getIndex());
+        assertEquals("0.00", cell(0, 1).getCellStyle().getDataFormatString());
+    }
+    
+    @Test
+    public void date_group_odds_should_fill_two_rows_per_match() {
+        DateGroup group = new DateGroup("Sunday");
+        for (int m = 0; m < 2; m++) {
+            Match match = Match.createMatch(2).away("away " + m)
+                .home("home " + m).build();
+            match.setBookieOdds(0, 1.5 + m, 2.5 + m);
+            if (m == 0) { match.setBookieOdds(1, 1.25, 3.75); }
+            group.addMatch(match);
+        }
+        
+        List<Bookie> bookies =
+            Arrays.asList(new Bookie("B", 1), new Bookie("A", 0));
+        writer.forRange(CellRange.range(2, 5, 1, 2)).in(SHEET).write(group,
+            bookies);
+        
+        assertEquals(1.25, cell(2, 1).getNumericCellValue(), 0.0);
+        assertEquals(3.75, cell(3, 1).getNumericCellValue(), 0.0);
+        assertEquals(CellType.BLANK, cell(4, 1).getCellType());
+        assertEquals(1.5, cell(2, 2).getNumericCellValue(), 0.0);
+        assertEquals(2.5, cell(3, 2).getNumericCellValue(), 0.0);
+        assertEquals(2.5, cell(4, 2).getNumericCellValue(), 0.0);
+        assertEquals(3.5, cell(5, 2).getNumericCellValue(), 0.0);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void too_few_values_should_throw() {
+        writer.forRange(CellRange.rowRange(0, 0, 2)).in(SHEET)
+            .write(new double[] { 1, 2 });
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void a_range_not_shaped_like_the_date_group_should_throw() {
+        DateGroup group = new DateGroup("Sunday");
+        group.addMatch(Match.createMatch(1).build());
+        
+        writer.forRange(CellRange.range(0, 2, 0, 0)).in(SHEET).write(group,
+            Arrays.asList(new Bookie("A", 0)));
+    }
+    
+    @Test
+    public void skipping_unchanged_cells_should_only_dirty_changed_cells() {
+        CellRange range = CellRange.rowRange(0, 0, 3);
+        writer.setSkipUnchangedCells(true);
+        
+        // a new cell is already blank, in the default style
+        assertEquals(3, writer.forRange(range).in(SHEET)
+            .write(new Object[][] { { 1.5, "a", true, null } }));
+        assertEquals(0, writer.forRange(range).in(SHEET)
+            .write(new Object[][] { { 1.5, "a", true, null } }));
+        assertEquals(2, writer.forRange(range).in(SHEET)
+            .write(new Object[][] { { 2.5, "a", false, null } }));
+        
+        assertEquals(2.5, cell(0, 0).getNumericCellValue(), 0.0);
+        assertFalse(cell(0, 2).getBooleanCellValue());
+        assertEquals(5, writer.getDirtyCellCount(SHEET));
+    }
+    
+    @Test
+    public void skipping_unchanged_cells_should_still_restyle_cells() {
+        CellRange range = CellRange.rowRange(0, 0, 1);
+        writer.setSkipUnchangedCells(true);
+        writer.forRange(range).in(SHEET).write(new double[] { 1, 2 });
+        
+        assertEquals(2, writer.forRange(range).withFormat("0.00").in(SHEET)
+            .write(new double[] { 1, 2 }));
+        assertEquals("0.00", cell(0, 1).getCellStyle().getDataFormatString());
+    }
+    
+    @Test
+    public void every_written_cell_should_be_dirty_by_default() {
+        CellRange range = CellRange.rowRange(0, 0, 1);
+        writer.forRange(range).in(SHEET).write(new int[] { 1, 2 });
+        
+        assertEquals(2, writer.forRange(range).in(SHEET)
+            .write(new int[] { 1, 2 }));
+        assertEquals(4, writer.getDirtyCellCount());
+    }
+    
+    @Test
+    public void saving_without_dirty_cells_should_leave_the_file_untouched()
+        throws IOException {
+        Path file = tmp.getRoot().toPath().resolve("odds.xlsx");
+        CellRange range = CellRange.rowRange(0, 0, 1);
+        writer.setSkipUnchangedCells(true);
+        writer.forRange(range).in(SHEET).write(new double[] { 1, 2 });
+        writer.saveChangesToWorkbook();
+        
+        FileTime saved = Files.getLastModifiedTime(file);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+        
+        writer.forRange(range).in(SHEET).write(new double[] { 1, 2 });
+        writer.saveChangesToWorkbook();
+        assertEquals(0, Files.getLastModifiedTime(file).toMillis());
+        
+        writer.forRange(range).in(SHEET).write(new double[] { 1, 3 });
+        writer.saveChangesToWorkbook();
+        assertTrue(Files.getLastModifiedTime(file).compareTo(saved) >= 0);
+        assertEquals(0, writer.getDirtyCellCount());
+    }
+    
+}
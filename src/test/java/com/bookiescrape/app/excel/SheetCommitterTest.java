@@ -0,0 +1,189 @@
+package com.bookiescrape.app.excel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+public class SheetCommitterTest {
+    private static final int NUM_SHEETS = 12;
+    
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+    
+    private Path file;
+    
+    /* the name of the i-th league sheet */
+    private static String league(int i) { return "League " + i; }
+    
+    /* a workbook of league sheets, each with a column of odds */
+    @Before
+    public void createWorkbook() throws IOException {
+        file = tmp.getRoot().toPath().resolve("leagues.xlsx");
+        
+        try (XSSFWorkbook wb = new XSSFWorkbook();
+            OutputStream out = Files.newOutputStream(file))
+        {
+            for (int i = 0; i < NUM_SHEETS; i++) {
+                Sheet sheet = wb.createSheet(league(i));
+                for (int r = 0; r < 50; r++) {
+                    sheet.createRow(r).createCell(0)
+                        .setCellValue(i + r / 100.0);
+                }
+            }
+            wb.write(out);
+        }
+    }
+    
+    /* the bytes of a zip entry */
+    private static byte[] entry(Path zip, String name) throws IOException {
+        try (ZipFile zf = new ZipFile(zip.toFile())) {
+            ZipEntry ze = zf.getEntry(name);
+            try (InputStream in = zf.getInputStream(ze)) {
+                return IOUtils.toByteArray(in);
+            }
+        }
+    }
+    
+    /* the value of a cell in the saved workbook */
+    private double saved(int sheet, int row) throws IOException {
+        try (WorkbookReader reader =
+            WorkbookFactory.newWorkbookReader(file.toString()))
+        {
+            return reader.forRange(CellRange.cell(row, 0)).in(league(sheet))
+                .readDoubles()[0];
+        }
+    }
+    
+    @Test
+    public void unchanged_sheets_should_keep_their_content() throws IOException {
+        byte[] untouched = entry(file, "xl/worksheets/sheet2.xml");
+        
+        try (WorkbookWriter writer =
+            WorkbookFactory.newWorkbookWriter(file.toString()))
+        {
+            writer.forRange(CellRange.cell(0, 0)).in(league(0))
+                .write(new double[] { 99 });
+            writer.saveChangesToWorkbook();
+        }
+        
+        assertArrayEquals(untouched, entry(file, "xl/worksheets/sheet2.xml"));
+        assertEquals(99.0, saved(0, 0), 0.0);
+        assertEquals(1.49, saved(1, 49), 0.0);
+    }
+    
+    @Test
+    public void only_changed_and_new_sheets_should_be_serialized()
+        throws IOException
+    {
+        try (InputStream in = Files.newInputStream(file);
+            XSSFWorkbook wb = new XSSFWorkbook(in))
+        {
+            wb.createSheet("New");
+            
+            assertEquals(3, SheetCommitter.commitChanged(wb,
+                Arrays.asList(league(3), league(5))));
+            
+            // only the serialized sheets are marked, POI commits the rest
+            assertTrue(wb.getSheet(league(3)).isCommitted());
+            assertTrue(wb.getSheet("New").isCommitted());
+            assertFalse(wb.getSheet(league(4)).isCommitted());
+            SheetCommitter.reset(wb);
+        }
+    }
+    
+    @Test
+    public void unmarked_changes_should_still_be_saved() throws IOException {
+        try (WorkbookWriter writer =
+            WorkbookFactory.newWorkbookWriter(file.toString()))
+        {
+            // changed around the writer, so POI serializes the sheet itself
+            writer.workbook.getSheet(league(1)).getRow(0).getCell(0)
+                .setCellValue(-1);
+            writer.saveChangesToWorkbook();
+        }
+        
+        assertEquals(-1.0, saved(1, 0), 0.0);
+    }
+    
+    @Test
+    public void changed_sheets_should_be_saved_concurrently()
+        throws IOException
+    {
+        try (WorkbookWriter writer =
+            WorkbookFactory.newWorkbookWriter(file.toString()))
+        {
+            for (int i = 0; i < NUM_SHEETS; i += 2) {
+                writer.forRange(CellRange.cell(10, 0)).in(league(i))
+                    .write(new double[] { 100 + i });
+            }
+            writer.saveChangesToWorkbook();
+        }
+        
+        for (int i = 0; i < NUM_SHEETS; i++) {
+            double expected = (i % 2 == 0) ? 100 + i : i + 0.1;
+            assertEquals(expected, saved(i, 10), 0.0);
+        }
+    }
+    
+    @Test
+    public void sheets_should_be_unmarked_after_each_save() throws IOException {
+        try (WorkbookWriter writer =
+            WorkbookFactory.newWorkbookWriter(file.toString()))
+        {
+            writer.forRange(CellRange.cell(0, 0)).in(league(0))
+                .write(new double[] { 1 });
+            writer.saveChangesToWorkbook();
+            
+            for (Sheet sheet : writer.workbook) {
+                assertFalse(((XSSFSheet) sheet).isCommitted());
+            }
+            
+            writer.forRange(CellRange.cell(0, 0)).in(league(1))
+                .write(new double[] { 2 });
+            writer.saveChangesToWorkbook();
+        }
+        
+        assertEquals(1.0, saved(0, 0), 0.0);
+        assertEquals(2.0, saved(1, 0), 0.0);
+    }
+    
+    @Test
+    public void new_sheets_should_always_be_serialized() throws IOException {
+        try (WorkbookWriter writer =
+            WorkbookFactory.newWorkbookWriter(file.toString()))
+        {
+            // written around the writer, so the sheet is never marked changed
+            writer.workbook.createSheet("New").createRow(0).createCell(0)
+                .setCellValue(7);
+            writer.saveChangesToWorkbook();
+        }
+        
+        try (WorkbookReader reader =
+            WorkbookFactory.newWorkbookReader(file.toString()))
+        {
+            assertEquals(7.0, reader.forRange(CellRange.cell(0, 0)).in("New")
+                .readDoubles()[0], 0.0);
+        }
+    }
+    
+}
@@ -0,0 +1,96 @@
+package com.bookiescrape.app.excel;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+public class StreamingWorkbookWriterTest {
+    private static final String SHEET = "History";
+    
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+    
+    /* the values of a row of odds */
+    private static List<String> row(int r) {
+        return Arrays.asList("team " + r, r + ".5", "-" + r + ".5");
+    }
+    
+    @Test
+    public void rows_beyond_the_window_should_be_saved() throws IOException {
+        String path = tmp.getRoot().toPath().resolve("history.xlsx").toString();
+        
+        try (StreamingWorkbookWriter writer =
+            WorkbookFactory.newStreamingWorkbookWriter(path, 10))
+        {
+            for (int r = 0; r < 1000; r++) {
+                writer.forRange(CellRange.rowRange(r, 0, 2)).in(SHEET)
+                    .write(row(r));
+            }
+            writer.saveChangesToWorkbook();
+        }
+        
+        try (WorkbookReader reader = WorkbookFactory.newWorkbookReader(path)) {
+            assertEquals(row(0),
+                reader.forRange(CellRange.rowRange(0, 0, 2)).in(SHEET).read());
+            assertEquals(row(999), reader
+                .forRange(CellRange.rowRange(999, 0, 2)).in(SHEET).read());
+        }
+    }
+    
+    @Test
+    public void rows_should_be_appended_to_an_existing_workbook()
+        throws IOException
+    {
+        String path = tmp.getRoot().toPath().resolve("append.xlsx").toString();
+        
+        try (StreamingWorkbookWriter writer =
+            WorkbookFactory.newStreamingWorkbookWriter(path))
+        {
+            writer.forRange(CellRange.rowRange(0, 0, 2)).in(SHEET)
+                .write(row(0));
+            writer.saveChangesToWorkbook();
+        }
+        
+        try (StreamingWorkbookWriter writer =
+            WorkbookFactory.newStreamingWorkbookWriter(path))
+        {
+            writer.forRange(CellRange.rowRange(1, 0, 2)).in(SHEET)
+                .write(row(1));
+            writer.saveChangesToWorkbook();
+        }
+        
+        try (WorkbookReader reader = WorkbookFactory.newWorkbookReader(path)) {
+            assertEquals(row(0),
+                reader.forRange(CellRange.rowRange(0, 0, 2)).in(SHEET).read());
+            assertEquals(row(1),
+                reader.forRange(CellRange.rowRange(1, 0, 2)).in(SHEET).read());
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void writing_a_flushed_row_should_throw_iaexception()
+        throws IOException
+    {
+        String path = tmp.getRoot().toPath().resolve("flushed.xlsx").toString();
+        
+        try (StreamingWorkbookWriter writer =
+            WorkbookFactory.newStreamingWorkbookWriter(path, 10))
+        {
+            for (int r = 0; r < 20; r++) {
+                writer.forRange(CellRange.rowRange(r, 0, 2)).in(SHEET)
+                    .write(row(r));
+            }
+            
+            writer.forRange(CellRange.rowRange(0, 0, 2)).in(SHEET)
+                .write(row(0));
+        }
+    }
+    
+}
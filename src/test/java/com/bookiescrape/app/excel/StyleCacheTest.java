@@ -0,0 +1,82 @@
+package com.bookiescrape.app.excel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+
+public class StyleCacheTest {
+    
+    private static StyleCache.Key key(boolean bold, String format) {
+        return new StyleCache.Key("Calibri", 11, bold, false,
+            HorizontalAlignment.CENTER, VerticalAlignment.BOTTOM, format);
+    }
+    
+    @Test
+    public void equal_keys_should_share_one_cell_style() throws IOException {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            StyleCache cache = new StyleCache(wb);
+            int numStyles = wb.getNumCellStyles();
+            
+            XSSFCellStyle first = cache.get(key(false, "0.00"));
+            for (int i = 0; i < 100; i++) {
+                assertSame(first, cache.get(key(false, "0.00")));
+            }
+            
+            assertEquals(numStyles + 1, wb.getNumCellStyles());
+            assertEquals(1, cache.size());
+        }
+    }
+    
+    @Test
+    public void different_keys_should_get_different_cell_styles()
+        throws IOException
+    {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            StyleCache cache = new StyleCache(wb);
+            
+            XSSFCellStyle plain = cache.get(key(false, "0.00"));
+            XSSFCellStyle bold = cache.get(key(true, "0.00"));
+            XSSFCellStyle general = cache.get(key(false, "General"));
+            
+            assertNotSame(plain, bold);
+            assertNotSame(plain, general);
+            assertSame(plain.getFont(), general.getFont());
+            assertEquals(3, cache.size());
+        }
+    }
+    
+    @Test
+    public void new_cache_should_reuse_styles_already_in_workbook()
+        throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            new StyleCache(wb).get(key(true, "0.00"));
+            wb.write(out);
+        }
+        
+        try (XSSFWorkbook wb = new XSSFWorkbook(
+            new ByteArrayInputStream(out.toByteArray())))
+        {
+            int numStyles = wb.getNumCellStyles();
+            int numFonts = wb.getNumberOfFonts();
+            
+            new StyleCache(wb).get(key(true, "0.00"));
+            
+            assertEquals(numStyles, wb.getNumCellStyles());
+            assertEquals(numFonts, wb.getNumberOfFonts());
+        }
+    }
+    
+}
@@ -0,0 +1,145 @@
+package com.bookiescrape.app.excel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+public class WorkbookSaverTest {
+    private static final Path ODDS =
+        Paths.get("src/test/resources/excel/Odds.xlsx");
+    private static final List<String> NEW_TITLE = Arrays.asList("New Title");
+    
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+    
+    /* copies the odds workbook into the temporary folder */
+    private Path copyOdds(String name) throws IOException {
+        Path copy = tmp.getRoot().toPath().resolve(name);
+        Files.copy(ODDS, copy);
+        return copy;
+    }
+    
+    /* the number of files in the temporary folder */
+    private long numFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tmp.getRoot().toPath())) {
+            return files.count();
+        }
+    }
+    
+    @Test
+    public void save_should_replace_file_and_report_its_size()
+        throws IOException
+    {
+        Path odds = copyOdds("Odds.xlsx");
+        
+        try (WorkbookWriter writer =
+            WorkbookFactory.newWorkbookWriter(odds.toString()))
+        {
+            writer.forRange(CellRange.cell(0, 0)).in("NFL").write(NEW_TITLE);
+            WorkbookSaver.SaveStats stats = writer.saveChangesToWorkbook();
+            
+            assertEquals(odds.toAbsolutePath(), stats.path());
+            assertEquals(Files.size(odds), stats.bytesWritten());
+        }
+        
+        try (WorkbookReader reader =
+            WorkbookFactory.newWorkbookReader(odds.toString()))
+        {
+            assertEquals(NEW_TITLE,
+                reader.forRange(CellRange.cell(0, 0)).in("NFL").read());
+        }
+        // the temporary file was moved, not left behind
+        assertEquals(1, numFiles());
+    }
+    
+    @Test
+    public void no_compression_should_save_a_larger_readable_workbook()
+        throws IOException
+    {
+        Path deflated = tmp.getRoot().toPath().resolve("deflated.xlsx");
+        Path stored = tmp.getRoot().toPath().resolve("stored.xlsx");
+        
+        try (XSSFWorkbook wb = new XSSFWorkbook(Files.newInputStream(ODDS))) {
+            WorkbookSaver.save(wb, deflated);
+            WorkbookSaver.save(wb, stored, WorkbookSaver.Compression.NONE);
+        }
+        
+        assertTrue(Files.size(stored) > Files.size(deflated));
+        
+        try (WorkbookReader a =
+            WorkbookFactory.newWorkbookReader(deflated.toString());
+        WorkbookReader b = WorkbookFactory.newWorkbookReader(stored.toString()))
+        {
+            CellRange all = CellRange.range(0, 25, 0, 11);
+            assertEquals(a.forRange(all).in("NFL").read(),
+                b.forRange(all).in("NFL").read());
+        }
+    }
+    
+    @Test
+    public void failed_save_should_leave_file_untouched() throws IOException {
+        Path odds = copyOdds("Odds.xlsx");
+        byte[] before = Files.readAllBytes(odds);
+        
+        // a workbook that fails part way through writing itself
+        Workbook failing = (Workbook) Proxy.newProxyInstance(
+            Workbook.class.getClassLoader(), new Class<?>[] { Workbook.class },
+            (proxy, method, args) -> {
+                if (method.getName().equals("write")) {
+                    ((OutputStream) args[0]).write(new byte[4096]);
+                    throw new IOException("disk full");
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+        
+        try {
+            WorkbookSaver.save(failing, odds);
+            fail("save should have thrown");
+        } catch (IOException expected) {
+            // expected
+        }
+        
+        assertArrayEquals(before, Files.readAllBytes(odds));
+        assertEquals(1, numFiles());
+    }
+    
+    @Test
+    public void closing_without_saving_should_leave_file_untouched()
+        throws IOException
+    {
+        Path odds = copyOdds("Odds.xlsx");
+        byte[] before = Files.readAllBytes(odds);
+        
+        try (WorkbookWriter writer =
+            WorkbookFactory.newWorkbookWriter(odds.toString()))
+        {
+            writer.forRange(CellRange.cell(0, 0)).in("NFL").write(NEW_TITLE);
+        }
+        try (WorkbookReader reader =
+            WorkbookFactory.newWorkbookReader(odds.toString()))
+        {
+            reader.forRange(CellRange.cell(0, 0)).in("NFL").read();
+        }
+        
+        assertArrayEquals(before, Files.readAllBytes(odds));
+    }
+    
+}
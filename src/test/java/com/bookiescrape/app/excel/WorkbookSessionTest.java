@@ -0,0 +1,114 @@
+package com.bookiescrape.app.excel;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+public class WorkbookSessionTest {
+    private static final String NFL = "NFL";
+    private static final CellRange TITLE = CellRange.cell(0, 0);
+    private static final List<String> NEW_TITLE = Arrays.asList("New Title");
+    
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+    
+    private String path;
+    private List<String> title;
+    
+    @Before
+    public void copyOddsWorkbook() throws IOException {
+        Path copy = tmp.getRoot().toPath().resolve("Odds.xlsx");
+        Files.copy(Paths.get("src/test/resources/excel/Odds.xlsx"), copy);
+        path = copy.toString();
+        
+        try (EventWorkbookReader reader =
+            WorkbookFactory.newEventWorkbookReader(path))
+        {
+            title = reader.forRange(TITLE).in(NFL).read();
+        }
+    }
+    
+    /* reads the title cell straight from the workbook file */
+    private List<String> titleInFile() throws IOException {
+        try (EventWorkbookReader reader =
+            WorkbookFactory.newEventWorkbookReader(path))
+        {
+            return reader.forRange(TITLE).in(NFL).read();
+        }
+    }
+    
+    @Test
+    public void reads_should_see_uncommitted_writes() throws IOException {
+        try (WorkbookSession session =
+            WorkbookFactory.openWorkbookSession(path))
+        {
+            assertEquals(title, session.forRange(TITLE).in(NFL).read());
+            
+            session.writer().forRange(TITLE).in(NFL).write(NEW_TITLE);
+            
+            assertEquals(NEW_TITLE, session.forRange(TITLE).in(NFL).read());
+        }
+    }
+    
+    @Test
+    public void closing_without_commit_should_discard_writes()
+        throws IOException
+    {
+        try (WorkbookSession session =
+            WorkbookFactory.openWorkbookSession(path))
+        {
+            session.writer().forRange(TITLE).in(NFL).write(NEW_TITLE);
+        }
+        
+        assertEquals(title, titleInFile());
+    }
+    
+    @Test
+    public void commit_should_save_writes_to_every_sheet() throws IOException {
+        try (WorkbookSession session =
+            WorkbookFactory.openWorkbookSession(path))
+        {
+            session.writer().forRange(TITLE).in(NFL).write(NEW_TITLE);
+            session.writer().forRange(TITLE).in("Test").write(NEW_TITLE);
+            session.commit();
+        }
+        
+        assertEquals(NEW_TITLE, titleInFile());
+        try (EventWorkbookReader reader =
+            WorkbookFactory.newEventWorkbookReader(path))
+        {
+            assertEquals(NEW_TITLE, reader.forRange(TITLE).in("Test").read());
+        }
+    }
+    
+    @Test
+    public void commit_without_writes_should_not_touch_file()
+        throws IOException
+    {
+        long modified = Files.getLastModifiedTime(Paths.get(path)).toMillis();
+        
+        try (WorkbookSession session =
+            WorkbookFactory.openWorkbookSession(path))
+        {
+            session.forOpenRowRange(1, 1).in(NFL).read();
+            session.commit();
+            
+            assertEquals(0, session.saveMillis());
+        }
+        
+        assertEquals(modified,
+            Files.getLastModifiedTime(Paths.get(path)).toMillis());
+    }
+    
+}
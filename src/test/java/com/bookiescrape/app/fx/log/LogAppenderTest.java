@@ -0,0 +1,178 @@
+package com.bookiescrape.app.fx.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Contains JUnit4 tests for
+ * {@linkplain com.bookiescrape.app.fx.log.LogAppender}.
+ *
+ * @author Jonathan Henly
+ */
+public class LogAppenderTest {
+    
+    private static final Logger LOGGER = Logger.getLogger(LogAppenderTest.class);
+    
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+    
+    private LogAppender appender;
+    
+    @After
+    public void closeAppender() {
+        if (appender != null) { appender.close(); }
+    }
+    
+    /** Creates an appender that formats events as their level and message. */
+    private static LogAppender appender(int bufferSize) {
+        LogAppender appender = new LogAppender();
+        appender.setName("test");
+        appender.setLayout(new PatternLayout("%p %m%n"));
+        appender.setBufferSize(bufferSize);
+        return appender;
+    }
+    
+    /** Creates an event, without going through a logger. */
+    private static LoggingEvent event(Level level, String message) {
+        return event(level, message, null);
+    }
+    
+    /** Creates an event logged with a throwable, without going through a logger. */
+    private static LoggingEvent event(Level level, String message, Throwable thrown) {
+        return new LoggingEvent(Logger.class.getName(), LOGGER, level, message, thrown);
+    }
+    
+    @Test
+    public void entries_should_be_formatted_and_written_to_the_file() throws IOException {
+        Path file = tmp.getRoot().toPath().resolve("logs").resolve("test.log");
+        appender = appender(16);
+        appender.setFile(file.toString());
+        appender.activateOptions();
+        
+        appender.doAppend(event(Level.INFO, "one"));
+        appender.doAppend(event(Level.WARN, "two"));
+        appender.close();
+        
+        assertEquals(List.of("INFO one", "WARN two"), Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+    
+    @Test
+    public void a_stack_trace_should_follow_its_entry_in_the_file() throws IOException {
+        Path file = tmp.getRoot().toPath().resolve("trace.log");
+        appender = appender(16);
+        appender.setFile(file.toString());
+        appender.activateOptions();
+        
+        appender.doAppend(event(Level.ERROR, "failed", new IllegalStateException("boom")));
+        appender.doAppend(event(Level.INFO, "after"));
+        appender.close();
+        
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals("ERROR failed", lines.get(0));
+        assertEquals("java.lang.IllegalStateException: boom", lines.get(1));
+        assertTrue(lines.get(2).trim().startsWith("at "));
+        assertEquals("INFO after", lines.get(lines.size() - 1));
+    }
+    
+    @Test
+    public void a_full_queue_should_drop_and_count_events() throws InterruptedException {
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> accepted = Collections.synchronizedList(new ArrayList<>());
+        
+        appender = appender(2);
+        appender.addSink(entry -> {
+            accepted.add(entry.getMessage());
+            if (held.getCount() > 0) {
+                held.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        appender.start();
+        
+        // hold up the drain thread on the first event, then overflow the queue
+        appender.doAppend(event(Level.INFO, "first"));
+        assertTrue(held.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 10; i++) {
+            appender.doAppend(event(Level.INFO, "event " + i));
+        }
+        
+        assertEquals(8, appender.getDroppedCount());
+        
+        release.countDown();
+        appender.close();
+        
+        // the first event, the two queued events and the dropped count
+        assertEquals(4, accepted.size());
+        assertEquals("INFO event 0", accepted.get(1));
+        assertEquals("INFO event 1", accepted.get(2));
+        assertTrue(accepted.get(3).contains("8 log events were dropped"));
+    }
+    
+    @Test
+    public void a_full_blocking_queue_should_wait_for_room() throws InterruptedException {
+        List<String> accepted = Collections.synchronizedList(new ArrayList<>());
+        
+        appender = appender(1);
+        appender.setOverflow("block");
+        appender.addSink(entry -> {
+            accepted.add(entry.getMessage());
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        });
+        appender.start();
+        
+        for (int i = 0; i < 50; i++) {
+            appender.doAppend(event(Level.INFO, "event " + i));
+        }
+        appender.close();
+        
+        assertEquals(0, appender.getDroppedCount());
+        assertEquals(50, accepted.size());
+        assertEquals("INFO event 49", accepted.get(49));
+    }
+    
+    @Test
+    public void events_below_a_filter_should_not_be_queued() throws IOException {
+        Path file = tmp.getRoot().toPath().resolve("filtered.log");
+        appender = appender(16);
+        appender.setFile(file.toString());
+        appender.addFilter(new org.apache.log4j.varia.LevelRangeFilter() {
+            {
+                setLevelMin(Level.WARN);
+            }
+        });
+        appender.activateOptions();
+        
+        appender.doAppend(event(Level.INFO, "quiet"));
+        appender.doAppend(event(Level.ERROR, "loud"));
+        appender.close();
+        
+        assertEquals(List.of("ERROR loud"), Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+    
+}
@@ -0,0 +1,107 @@
+package com.bookiescrape.app.fx.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Level;
+import org.junit.Test;
+
+import javafx.collections.ListChangeListener;
+
+
+/**
+ * Contains JUnit4 tests for {@linkplain com.bookiescrape.app.fx.log.LogBuffer}.
+ *
+ * @author Jonathan Henly
+ */
+public class LogBufferTest {
+    
+    /** Creates entries whose messages are their numbers, from first to last. */
+    private static List<LogEntry> entries(int first, int last) {
+        List<LogEntry> entries = new ArrayList<>();
+        for (int i = first; i <= last; i++) {
+            entries.add(new LogEntry(Level.INFO, i, Integer.toString(i)));
+        }
+        return entries;
+    }
+    
+    /** Gets the messages of the entries in a buffer, oldest first. */
+    private static List<String> messages(LogBuffer buffer) {
+        List<String> messages = new ArrayList<>();
+        for (LogEntry entry : buffer) {
+            messages.add(entry.getMessage());
+        }
+        return messages;
+    }
+    
+    @Test
+    public void appended_entries_should_be_kept_in_order() {
+        LogBuffer buffer = new LogBuffer(5);
+        buffer.append(entries(1, 2));
+        buffer.append(entries(3, 4));
+        
+        assertEquals(List.of("1", "2", "3", "4"), messages(buffer));
+    }
+    
+    @Test
+    public void a_full_buffer_should_evict_its_oldest_entries() {
+        LogBuffer buffer = new LogBuffer(3);
+        buffer.append(entries(1, 2));
+        buffer.append(entries(3, 5));
+        buffer.append(entries(6, 6));
+        
+        assertEquals(List.of("4", "5", "6"), messages(buffer));
+    }
+    
+    @Test
+    public void a_batch_larger_than_the_buffer_should_keep_its_newest_entries() {
+        LogBuffer buffer = new LogBuffer(3);
+        buffer.append(entries(1, 10));
+        
+        assertEquals(List.of("8", "9", "10"), messages(buffer));
+    }
+    
+    @Test
+    public void each_batch_should_be_reported_as_one_change() {
+        LogBuffer buffer = new LogBuffer(3);
+        buffer.append(entries(1, 2));
+        
+        List<String> changes = new ArrayList<>();
+        buffer.addListener((ListChangeListener<LogEntry>) c -> {
+            changes.add("change");
+            while (c.next()) {
+                if (c.wasRemoved()) {
+                    changes.add("removed " + c.getRemovedSize() + " at " + c.getFrom());
+                }
+                if (c.wasAdded()) {
+                    changes.add("added " + c.getAddedSize() + " at " + c.getFrom());
+                }
+            }
+        });
+        buffer.append(entries(3, 4));
+        
+        assertEquals(List.of("change", "removed 1 at 0", "added 2 at 1"), changes);
+    }
+    
+    @Test
+    public void entries_should_compare_their_level_to_a_threshold() {
+        LogEntry warn = new LogEntry(Level.WARN, 0, "warn");
+        
+        assertTrue(warn.isAtLeast(Level.INFO));
+        assertTrue(warn.isAtLeast(Level.WARN));
+        assertFalse(warn.isAtLeast(Level.ERROR));
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getting_past_the_newest_entry_should_throw() {
+        LogBuffer buffer = new LogBuffer(3);
+        buffer.append(entries(1, 2));
+        
+        buffer.get(2);
+    }
+    
+}
@@ -0,0 +1,106 @@
+package com.bookiescrape.app.fx.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+
+/**
+ * Contains JUnit4 tests for {@linkplain com.bookiescrape.app.fx.log.LogQueue}.
+ *
+ * @author Jonathan Henly
+ */
+public class LogQueueTest {
+    
+    @Test
+    public void capacity_should_be_rounded_up_to_a_power_of_two_of_at_least_two() {
+        assertEquals(8, new LogQueue<String>(5).capacity());
+        assertEquals(8, new LogQueue<String>(8).capacity());
+        assertEquals(2, new LogQueue<String>(1).capacity());
+    }
+    
+    @Test
+    public void elements_should_be_polled_in_the_order_offered() {
+        LogQueue<Integer> queue = new LogQueue<>(4);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(queue.offer(i));
+            }
+            for (int i = 0; i < 4; i++) {
+                assertEquals(Integer.valueOf(i), queue.poll());
+            }
+        }
+        
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+    
+    @Test
+    public void offering_to_a_full_queue_should_fail_until_polled() {
+        LogQueue<String> queue = new LogQueue<>(2);
+        assertTrue(queue.offer("a"));
+        assertTrue(queue.offer("b"));
+        assertFalse(queue.offer("c"));
+        
+        assertEquals("a", queue.poll());
+        assertTrue(queue.offer("c"));
+        assertEquals("b", queue.poll());
+        assertEquals("c", queue.poll());
+    }
+    
+    @Test
+    public void concurrent_producers_should_not_lose_or_reorder_elements()
+        throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 50_000;
+        LogQueue<int[]> queue = new LogQueue<>(1024);
+        CountDownLatch start = new CountDownLatch(1);
+        
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int id = p;
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    while (!queue.offer(new int[] { id, i })) {
+                        Thread.yield();
+                    }
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+        start.countDown();
+        
+        // each producer's elements must arrive in the order it offered them
+        int[] next = new int[producers];
+        int received = 0;
+        while (received < producers * perProducer) {
+            int[] element = queue.poll();
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+            assertEquals(next[element[0]], element[1]);
+            next[element[0]] += 1;
+            received += 1;
+        }
+        
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertTrue(queue.isEmpty());
+    }
+    
+}
@@ -0,0 +1,281 @@
+package com.bookiescrape.app.sample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bookiescrape.app.config.Settings.SheetSettings;
+import com.bookiescrape.app.excel.WorkbookFactory;
+import com.bookiescrape.app.excel.WorkbookSession;
+import com.bookiescrape.app.scrape.Bookie;
+import com.bookiescrape.app.scrape.ChangeSet;
+import com.bookiescrape.app.scrape.DateGroup;
+import com.bookiescrape.app.scrape.Match;
+import com.bookiescrape.app.scrape.OddsSnapshot;
+
+
+public class OddsSheetWriterTest {
+    private static final String SHEET = "NFL";
+    
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+    
+    private Path file;
+    
+    @Before
+    public void createWorkbook() throws IOException {
+        file = tmp.getRoot().toPath().resolve("odds.xlsx");
+        try (XSSFWorkbook wb = new XSSFWorkbook();
+            OutputStream out = Files.newOutputStream(file)) {
+            wb.createSheet(SHEET);
+            wb.write(out);
+        }
+    }
+    
+    /* title at A1, table header on row 3, teams, opener then bookies */
+    private static SheetSettings settings() {
+        Map<String, Object> values = Map.of("getSheetTitle", "NFL Totals",
+            "getTitleRow", 0, "getTitleCol", 0, "getTableRow", 2,
+            "getTeamsCol", 0, "hasOpener", true, "getOpenerCol", 1,
+            "getBookieCol", 2, "getSheetName", SHEET);
+        
+        return (SheetSettings) Proxy.newProxyInstance(
+            SheetSettings.class.getClassLoader(),
+            new Class<?>[] { SheetSettings.class },
+            (proxy, method, args) -> values.get(method.getName()));
+    }
+    
+    /* a date group of matches with a single bookie's odds */
+    private static DateGroup group(int matches) { return group(matches, 1); }
+    
+    /* a date group of matches with every bookie's odds */
+    private static DateGroup group(int matches, int bookies) {
+        DateGroup group = new DateGroup("Sunday");
+        for (int m = 0; m < matches; m++) {
+            Match match = Match.createMatch(bookies).homeRot(101 + 2 * m)
+                .awayRot(102 + 2 * m).away("away " + m).home("home " + m)
+                .opener("4" + m, "5" + m).build();
+            for (int b = 0; b < bookies; b++) {
+                match.setBookieOdds(b, 1.5 + m + b, 2.5 + m + b);
+            }
+            group.addMatch(match);
+        }
+        
+        return group;
+    }
+    
+    /* asserts every cell in a range of the saved sheet is blank */
+    private static void assertBlank(XSSFSheet sheet, int firstRow,
+        int lastRow, int firstCol, int lastCol) {
+        for (int r = firstRow; r <= lastRow; r++) {
+            Row row = sheet.getRow(r);
+            for (int c = firstCol; c <= lastCol; c++) {
+                Cell cell = (row == null) ? null : row.getCell(c);
+                assertTrue("row " + r + ", col " + c, cell == null
+                    || cell.getCellType() == CellType.BLANK);
+            }
+        }
+    }
+    
+    /* writes updates through a session, committing after each */
+    private void write(OddsSheetWriter sheets, SheetUpdate... updates)
+        throws IOException {
+        try (WorkbookSession session =
+            WorkbookFactory.openWorkbookSession(file.toString())) {
+            for (SheetUpdate update : updates) {
+                sheets.write(session.writer(), update);
+                session.commit();
+                sheets.committed();
+            }
+        }
+    }
+    
+    /* a match like those of group(), with its away team renamed */
+    private static Match renamed(int rot, double over, double under) {
+        int m = (rot - 101) / 2;
+        Match match = Match.createMatch(1).homeRot(rot).awayRot(rot + 1)
+            .away("renamed")
+            .home("home " + m).opener("4" + m, "5" + m).build();
+        match.setBookieOdds(0, over, under);
+        
+        return match;
+    }
+    
+    /* an update of a single date group, with its changes since a snapshot */
+    private static SheetUpdate update(DateGroup group, OddsSnapshot since) {
+        List<Bookie> bookies = List.of(new Bookie("Pinnacle", 0));
+        OddsSnapshot now = OddsSnapshot.of(bookies, List.of(group));
+        
+        return new SheetUpdate(SHEET, settings(), bookies, List.of(group),
+            ChangeSet.between(since, now));
+    }
+    
+    /* reads the saved workbook */
+    private XSSFWorkbook saved() throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return new XSSFWorkbook(in);
+        }
+    }
+    
+    @Test
+    public void matches_should_be_written_below_the_table_row()
+        throws IOException {
+        List<Bookie> bookies = List.of(new Bookie("Pinnacle", 0));
+        write(new OddsSheetWriter(), new SheetUpdate(SHEET, settings(),
+            bookies, Arrays.asList(group(1), group(1))));
+        
+        try (XSSFWorkbook wb = saved()) {
+            XSSFSheet sheet = wb.getSheet(SHEET);
+            assertEquals("NFL Totals",
+                sheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("Pinnacle",
+                sheet.getRow(2).getCell(2).getStringCellValue());
+            
+            // first group's match on rows 4 and 5, second's on 6 and 7
+            assertEquals("away 0",
+                sheet.getRow(3).getCell(0).getStringCellValue());
+            assertEquals("home 0",
+                sheet.getRow(4).getCell(0).getStringCellValue());
+            assertEquals("away 0",
+                sheet.getRow(5).getCell(0).getStringCellValue());
+            
+            assertEquals(40.0, sheet.getRow(3).getCell(1).getNumericCellValue(),
+                0.0);
+            assertEquals(50.0, sheet.getRow(4).getCell(1).getNumericCellValue(),
+                0.0);
+            assertEquals(1.5, sheet.getRow(3).getCell(2).getNumericCellValue(),
+                0.0);
+            assertEquals(2.5, sheet.getRow(4).getCell(2).getNumericCellValue(),
+                0.0);
+        }
+    }
+    
+    @Test
+    public void rows_left_over_from_a_longer_update_should_be_cleared()
+        throws IOException {
+        List<Bookie> bookies = List.of(new Bookie("Pinnacle", 0));
+        write(new OddsSheetWriter(),
+            new SheetUpdate(SHEET, settings(), bookies, List.of(group(2))),
+            new SheetUpdate(SHEET, settings(), bookies, List.of(group(1))));
+        
+        try (XSSFWorkbook wb = saved()) {
+            XSSFSheet sheet = wb.getSheet(SHEET);
+            assertEquals("home 0",
+                sheet.getRow(4).getCell(0).getStringCellValue());
+            
+            assertBlank(sheet, 5, 6, 0, 2);
+        }
+    }
+    
+    @Test
+    public void rows_left_over_from_an_earlier_session_should_be_cleared()
+        throws IOException {
+        List<Bookie> bookies = List.of(new Bookie("Pinnacle", 0));
+        OddsSheetWriter sheets = new OddsSheetWriter();
+        // each write opens its own session, like each scrape cycle does
+        write(sheets,
+            new SheetUpdate(SHEET, settings(), bookies, List.of(group(3))));
+        write(sheets,
+            new SheetUpdate(SHEET, settings(), bookies, List.of(group(1))));
+        
+        try (XSSFWorkbook wb = saved()) {
+            XSSFSheet sheet = wb.getSheet(SHEET);
+            assertEquals("home 0",
+                sheet.getRow(4).getCell(0).getStringCellValue());
+            assertBlank(sheet, 5, 8, 0, 2);
+        }
+    }
+    
+    @Test
+    public void bookie_columns_left_over_should_be_cleared()
+        throws IOException {
+        OddsSheetWriter sheets = new OddsSheetWriter();
+        write(sheets, new SheetUpdate(SHEET, settings(),
+            List.of(new Bookie("Pinnacle", 0), new Bookie("Bovada", 1)),
+            List.of(group(2, 2))));
+        write(sheets, new SheetUpdate(SHEET, settings(),
+            List.of(new Bookie("Pinnacle", 0)), List.of(group(2, 1))));
+        
+        try (XSSFWorkbook wb = saved()) {
+            XSSFSheet sheet = wb.getSheet(SHEET);
+            assertEquals("Pinnacle",
+                sheet.getRow(2).getCell(2).getStringCellValue());
+            assertEquals(2.5, sheet.getRow(5).getCell(2).getNumericCellValue(),
+                0.0);
+            // the second bookie's name and odds
+            assertBlank(sheet, 2, 6, 3, 3);
+        }
+    }
+    
+    @Test
+    public void only_moved_odds_should_be_written_when_the_layout_is_kept()
+        throws IOException {
+        OddsSheetWriter sheets = new OddsSheetWriter();
+        SheetUpdate first = update(group(2), null);
+        write(sheets, first);
+        
+        // a renamed team isn't a change, so it's only written in full writes
+        DateGroup moved = new DateGroup("Sunday");
+        moved.addMatch(renamed(101, 1.5, 2.5));
+        moved.addMatch(renamed(103, 9.5, 9.75));
+        
+        SheetUpdate second = update(moved, first.changes().current());
+        assertTrue(second.changes().keepsLayout());
+        write(sheets, second);
+        
+        try (XSSFWorkbook wb = saved()) {
+            XSSFSheet sheet = wb.getSheet(SHEET);
+            assertEquals("away 0",
+                sheet.getRow(3).getCell(0).getStringCellValue());
+            assertEquals(9.5, sheet.getRow(5).getCell(2).getNumericCellValue(),
+                0.0);
+            assertEquals(9.75,
+                sheet.getRow(6).getCell(2).getNumericCellValue(), 0.0);
+        }
+    }
+    
+    @Test
+    public void changes_since_an_unwritten_snapshot_should_be_written_in_full()
+        throws IOException {
+        OddsSheetWriter sheets = new OddsSheetWriter();
+        SheetUpdate first = update(group(1), null);
+        try (WorkbookSession session =
+            WorkbookFactory.openWorkbookSession(file.toString())) {
+            sheets.write(session.writer(), first);
+            // as if the commit failed
+            sheets.invalidate();
+        }
+        
+        DateGroup renamed = new DateGroup("Sunday");
+        renamed.addMatch(renamed(101, 1.5, 2.5));
+        write(sheets, update(renamed, first.changes().current()));
+        
+        try (XSSFWorkbook wb = saved()) {
+            XSSFSheet sheet = wb.getSheet(SHEET);
+            assertEquals("renamed",
+                sheet.getRow(3).getCell(0).getStringCellValue());
+            assertEquals("Pinnacle",
+                sheet.getRow(2).getCell(2).getStringCellValue());
+        }
+    }
+    
+}
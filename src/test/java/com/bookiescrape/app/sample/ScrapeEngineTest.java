@@ -0,0 +1,170 @@
+package com.bookiescrape.app.sample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bookiescrape.app.config.Settings.SheetSettings;
+
+
+public class ScrapeEngineTest {
+    
+    private ScrapeEngine engine;
+    
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+    
+    @After
+    public void closeEngine() {
+        if (engine != null) { engine.close(); }
+    }
+    
+    /* a stub sheet scrape that finds the specified number of matches */
+    private static ScrapeSummary.SheetResult found(String sheet, int matches) {
+        return new ScrapeSummary.SheetResult(sheet, 1, matches, null);
+    }
+    
+    /* a sheet that scrapes the specified url with the browser */
+    private static void createSheet(String sheet, String url) {
+        Map<String, Object> values = Map.of("getSheetName", sheet,
+            "getScrapeUrl", url, "scrapeRawHtml", false, "prefetchCarousel",
+            false, "keepOrder", false);
+        
+        SheetData.createSheetData(sheet);
+        SheetData.getSheetData(sheet).setSheetSettings(
+            (SheetSettings) Proxy.newProxyInstance(
+                SheetSettings.class.getClassLoader(),
+                new Class<?>[] { SheetSettings.class },
+                (proxy, method, args) -> values.get(method.getName())));
+    }
+    
+    @Test
+    public void a_failing_sheet_should_not_stop_the_other_sheets() {
+        engine = new ScrapeEngine(2, sheet -> {
+            if (sheet.equals("NBA")) {
+                throw new IllegalStateException("page never loaded");
+            }
+            return found(sheet, 3);
+        });
+        
+        ScrapeSummary summary =
+            engine.scrapeSheets(List.of("NFL", "NBA", "NHL"));
+        
+        List<ScrapeSummary.SheetResult> results = summary.results();
+        assertEquals(3, results.size());
+        assertEquals(1, summary.numFailed());
+        
+        assertEquals("NFL", results.get(0).sheetName());
+        assertTrue(results.get(0).succeeded());
+        assertEquals(3, results.get(0).numMatches());
+        
+        assertEquals("NBA", results.get(1).sheetName());
+        assertFalse(results.get(1).succeeded());
+        assertEquals("page never loaded",
+            results.get(1).failure().getMessage());
+        
+        assertTrue(results.get(2).succeeded());
+    }
+    
+    @Test
+    public void sheets_should_be_scraped_concurrently_up_to_the_pool_size()
+        throws InterruptedException {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        engine = new ScrapeEngine(2, sheet -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            bothStarted.countDown();
+            bothStarted.await(5, TimeUnit.SECONDS);
+            Thread.sleep(20);
+            active.decrementAndGet();
+            return found(sheet, 1);
+        });
+        
+        ScrapeSummary summary =
+            engine.scrapeSheets(List.of("NFL", "NBA", "NHL", "MLB"));
+        
+        assertEquals(0, summary.numFailed());
+        assertEquals(2, maxActive.get());
+        assertEquals(2, summary.poolSize());
+    }
+    
+    @Test
+    public void staggered_sheets_should_start_apart() {
+        Map<String, Long> started = new ConcurrentHashMap<>();
+        engine = new ScrapeEngine(3, sheet -> {
+            started.put(sheet, System.nanoTime());
+            return found(sheet, 1);
+        });
+        engine.setStagger(100, 0);
+        
+        long before = System.nanoTime();
+        engine.scrapeSheets(List.of("NFL", "NBA", "NHL"));
+        
+        assertTrue(started.containsKey("NFL"));
+        long nba = TimeUnit.NANOSECONDS.toMillis(started.get("NBA") - before);
+        long nhl = TimeUnit.NANOSECONDS.toMillis(started.get("NHL") - before);
+        assertTrue("NBA started at " + nba, nba >= 100);
+        assertTrue("NHL started at " + nhl, nhl >= 200);
+    }
+    
+    @Test
+    public void jitter_should_never_start_a_sheet_early() {
+        Map<String, Long> started = new ConcurrentHashMap<>();
+        engine = new ScrapeEngine(2, sheet -> {
+            started.put(sheet, System.nanoTime());
+            return found(sheet, 1);
+        });
+        engine.setStagger(50, 50);
+        
+        long before = System.nanoTime();
+        engine.scrapeSheets(List.of("NFL", "NBA"));
+        
+        long nba = TimeUnit.NANOSECONDS.toMillis(started.get("NBA") - before);
+        assertTrue("NBA started at " + nba, nba >= 50);
+    }
+    
+    @Test
+    public void a_page_without_matches_should_be_an_empty_scrape()
+        throws IOException {
+        // the odds feed's options are shown, but no sort link or matches
+        File page = tmp.newFile("empty.html");
+        Files.write(page.toPath(), ("<!DOCTYPE html><html><head>"
+            + "<title>Odds</title></head><body>"
+            + "<input type=\"checkbox\" id=\"usersetting_SHOW_ROTATION\"/>"
+            + "<select id=\"usersetting_ODDS_FORMAT\">"
+            + "<option value=\"1\" selected=\"selected\">American</option>"
+            + "<option value=\"2\">Decimal</option></select>"
+            + "<div>No matches being displayed at this time.</div>"
+            + "</body></html>").getBytes(StandardCharsets.UTF_8));
+        createSheet("Empty", page.toURI().toString());
+        
+        engine = new ScrapeEngine(1);
+        ScrapeSummary summary = engine.scrapeSheets(List.of("Empty"));
+        
+        ScrapeSummary.SheetResult result = summary.results().get(0);
+        assertEquals(0, summary.numFailed());
+        assertTrue(result.succeeded());
+        assertEquals(0, result.numMatches());
+        assertNull(SheetData.getSheetData("Empty").getScrapedMatches());
+    }
+    
+}
@@ -0,0 +1,223 @@
+package com.bookiescrape.app.sample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Test;
+
+
+/**
+ * Contains JUnit4 tests for
+ * {@linkplain com.bookiescrape.app.sample.ScrapeScheduler}.
+ *
+ * @author Jonathan Henly
+ */
+public class ScrapeSchedulerTest {
+    
+    private ScrapeScheduler scheduler;
+    
+    @After
+    public void closeScheduler() {
+        if (scheduler != null) { scheduler.close(); }
+    }
+    
+    /* a cycle that takes the specified time and counts its overlaps */
+    private static BooleanSupplier sleepingCycle(long millis,
+        AtomicInteger active, AtomicInteger maxActive) {
+        return () -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            active.decrementAndGet();
+            return true;
+        };
+    }
+    
+    /* waits until the scheduler has run the specified number of cycles */
+    private void awaitCycles(long cycles) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (scheduler.getStats().cycles() < cycles
+            && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(scheduler.getStats().toString(),
+            scheduler.getStats().cycles() >= cycles);
+    }
+    
+    @Test
+    public void overrunning_cycles_should_be_skipped_and_never_overlap()
+        throws InterruptedException {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        scheduler = new ScrapeScheduler(
+            sleepingCycle(120, active, maxActive), 50);
+        scheduler.start();
+        
+        awaitCycles(3);
+        scheduler.close();
+        
+        ScrapeScheduler.Stats stats = scheduler.getStats();
+        assertEquals(1, maxActive.get());
+        assertTrue(stats.toString(), stats.skipped() >= 2);
+        assertEquals(0, stats.queued());
+    }
+    
+    @Test
+    public void queued_overruns_should_run_right_after_the_overrunning_cycle()
+        throws InterruptedException {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        scheduler = new ScrapeScheduler(
+            sleepingCycle(120, active, maxActive), 50);
+        scheduler.setOverrun(ScrapeScheduler.Overrun.QUEUE);
+        scheduler.start();
+        
+        awaitCycles(3);
+        scheduler.close();
+        
+        ScrapeScheduler.Stats stats = scheduler.getStats();
+        assertEquals(1, maxActive.get());
+        assertTrue(stats.toString(), stats.queued() >= 2);
+    }
+    
+    @Test
+    public void the_start_of_each_cycle_should_be_stored()
+        throws InterruptedException {
+        List<Long> stored = new CopyOnWriteArrayList<>();
+        scheduler = new ScrapeScheduler(() -> true, 20);
+        scheduler.setLastScrapeStore(stored::add);
+        long before = System.currentTimeMillis();
+        scheduler.start();
+        
+        awaitCycles(2);
+        scheduler.close();
+        
+        assertTrue(stored.size() >= 2);
+        assertTrue(stored.get(0) >= before);
+        assertTrue(stored.get(1) > stored.get(0));
+        assertEquals(scheduler.getStats().lastStartMillis(),
+            (long) stored.get(stored.size() - 1));
+    }
+    
+    @Test
+    public void a_failing_store_should_not_stop_the_schedule()
+        throws InterruptedException {
+        scheduler = new ScrapeScheduler(() -> true, 20);
+        scheduler.setLastScrapeStore(millis -> {
+            throw new IllegalStateException("disk full");
+        });
+        scheduler.start();
+        
+        awaitCycles(2);
+    }
+    
+    @Test
+    public void the_first_cycle_should_wait_an_interval_after_the_last_scrape()
+        throws InterruptedException {
+        AtomicInteger cycles = new AtomicInteger();
+        long interval = TimeUnit.MINUTES.toMillis(10);
+        scheduler = new ScrapeScheduler(() -> cycles.incrementAndGet() > 0,
+            interval);
+        long lastScrape = System.currentTimeMillis();
+        scheduler.setLastScrapeTime(lastScrape);
+        scheduler.start();
+        
+        Thread.sleep(100);
+        
+        long nextRun = scheduler.getStats().nextRunMillis();
+        assertEquals(0, cycles.get());
+        assertTrue(nextRun >= lastScrape + interval - 1_000);
+        assertTrue(nextRun <= lastScrape + interval + 1_000);
+    }
+    
+    @Test
+    public void run_now_should_be_skipped_while_a_cycle_is_running()
+        throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler = new ScrapeScheduler(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        }, TimeUnit.MINUTES.toMillis(10));
+        scheduler.start();
+        
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(scheduler.getStats().running());
+        assertFalse(scheduler.runNow());
+        assertEquals(1, scheduler.getStats().skipped());
+        
+        release.countDown();
+        awaitCycles(1);
+        assertTrue(scheduler.runNow());
+        awaitCycles(2);
+    }
+    
+    @Test
+    public void stats_should_record_the_last_cycle()
+        throws InterruptedException {
+        List<ScrapeScheduler.Stats> sent = new CopyOnWriteArrayList<>();
+        AtomicInteger cycles = new AtomicInteger();
+        scheduler = new ScrapeScheduler(() -> {
+            try {
+                Thread.sleep(60);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            // every other cycle fails
+            return cycles.incrementAndGet() % 2 == 1;
+        }, TimeUnit.MINUTES.toMillis(10));
+        scheduler.addListener(sent::add);
+        scheduler.start();
+        
+        awaitCycles(1);
+        scheduler.runNow();
+        awaitCycles(2);
+        
+        ScrapeScheduler.Stats stats = scheduler.getStats();
+        assertFalse(stats.running());
+        assertEquals(1, stats.failures());
+        assertTrue(stats.toString(), stats.lastDurationMillis() >= 50);
+        assertTrue(stats.nextRunMillis() > System.currentTimeMillis());
+        assertFalse(sent.isEmpty());
+    }
+    
+    @Test
+    public void closing_should_stop_cycles() throws InterruptedException {
+        AtomicInteger cycles = new AtomicInteger();
+        scheduler = new ScrapeScheduler(() -> cycles.incrementAndGet() > 0,
+            20);
+        scheduler.start();
+        
+        awaitCycles(1);
+        scheduler.close();
+        int ran = cycles.get();
+        Thread.sleep(100);
+        
+        assertEquals(ran, cycles.get());
+        assertFalse(scheduler.runNow());
+        assertEquals(0, scheduler.getStats().nextRunMillis());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void an_interval_below_one_millisecond_should_throw() {
+        new ScrapeScheduler(() -> true, 0);
+    }
+    
+}
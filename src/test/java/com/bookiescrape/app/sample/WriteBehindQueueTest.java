@@ -0,0 +1,179 @@
+package com.bookiescrape.app.sample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+
+public class WriteBehindQueueTest {
+    private static final long TIMEOUT_SECONDS = 5;
+    
+    private final List<List<SheetUpdate>> batches =
+        Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+    
+    private WriteBehindQueue queue;
+    
+    @After
+    public void closeQueue() {
+        releaseFirstBatch.countDown();
+        if (queue != null) { queue.close(); }
+    }
+    
+    /* an update of a sheet, with nothing scraped */
+    private static SheetUpdate update(String sheet) {
+        return new SheetUpdate(sheet, null, List.of(), List.of());
+    }
+    
+    /* records each batch, holding up the first until it's released */
+    private void record(List<SheetUpdate> batch) {
+        batches.add(batch);
+        
+        if (firstBatchStarted.getCount() > 0) {
+            firstBatchStarted.countDown();
+            try {
+                releaseFirstBatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /* publishes an update and waits for its batch to be held up */
+    private void holdUpFirstBatch() throws InterruptedException {
+        queue.publish(update("first"));
+        assertTrue(firstBatchStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void coalescing_should_only_write_the_latest_update_of_a_sheet()
+        throws InterruptedException {
+        queue = new WriteBehindQueue(8, true, this::record);
+        holdUpFirstBatch();
+        
+        SheetUpdate nfl = update("NFL");
+        SheetUpdate nba = update("NBA");
+        queue.publish(update("NFL"));
+        queue.publish(nba);
+        queue.publish(nfl);
+        
+        releaseFirstBatch.countDown();
+        queue.flush();
+        
+        assertEquals(2, batches.size());
+        List<SheetUpdate> second = batches.get(1);
+        assertEquals(2, second.size());
+        assertSame(nfl, second.get(0));
+        assertSame(nba, second.get(1));
+        assertEquals(1, queue.coalesced());
+        assertEquals(3, queue.persisted());
+    }
+    
+    @Test
+    public void without_coalescing_every_update_should_be_written_in_order()
+        throws InterruptedException {
+        queue = new WriteBehindQueue(8, false, this::record);
+        holdUpFirstBatch();
+        
+        SheetUpdate one = update("NFL");
+        SheetUpdate two = update("NFL");
+        queue.publish(one);
+        queue.publish(two);
+        
+        releaseFirstBatch.countDown();
+        queue.flush();
+        
+        List<SheetUpdate> second = batches.get(1);
+        assertEquals(2, second.size());
+        assertSame(one, second.get(0));
+        assertSame(two, second.get(1));
+        assertEquals(0, queue.coalesced());
+    }
+    
+    @Test
+    public void publishing_to_a_full_queue_should_block_until_there_is_room()
+        throws InterruptedException {
+        queue = new WriteBehindQueue(1, false, this::record);
+        holdUpFirstBatch();
+        queue.publish(update("NFL"));
+        
+        CountDownLatch published = new CountDownLatch(1);
+        Thread publisher = new Thread(() -> {
+            try {
+                queue.publish(update("NBA"));
+                published.countDown();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        publisher.start();
+        
+        // the queue is full until the held up batch finishes
+        assertFalse(published.await(200, TimeUnit.MILLISECONDS));
+        
+        releaseFirstBatch.countDown();
+        assertTrue(published.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        publisher.join();
+        queue.flush();
+        
+        assertEquals(3, queue.persisted());
+    }
+    
+    @Test
+    public void close_should_write_every_pending_update()
+        throws InterruptedException {
+        queue = new WriteBehindQueue(8, false, this::record);
+        holdUpFirstBatch();
+        queue.publish(update("NFL"));
+        queue.publish(update("NBA"));
+        
+        releaseFirstBatch.countDown();
+        queue.close();
+        
+        assertEquals(3, queue.persisted());
+        assertEquals(0, queue.failures());
+    }
+    
+    @Test
+    public void a_failed_batch_should_not_stop_later_batches()
+        throws InterruptedException {
+        queue = new WriteBehindQueue(8, false, batch -> {
+            if (batches.isEmpty()) {
+                batches.add(batch);
+                throw new IOException("disk full");
+            }
+            batches.add(batch);
+        });
+        
+        queue.publish(update("NFL"));
+        queue.flush();
+        queue.publish(update("NBA"));
+        queue.flush();
+        
+        assertEquals(2, queue.batches());
+        assertEquals(1, queue.failures());
+        assertEquals(1, queue.persisted());
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void publishing_to_a_closed_queue_should_throw()
+        throws InterruptedException {
+        queue = new WriteBehindQueue(8, true, this::record);
+        queue.close();
+        
+        queue.publish(update("NFL"));
+    }
+    
+}
@@ -0,0 +1,183 @@
+package com.bookiescrape.app.scrape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.bookiescrape.app.scrape.ChangeSet.Change;
+import com.bookiescrape.app.scrape.ChangeSet.Type;
+
+
+public class ChangeSetTest {
+    
+    private static Match match(int rot, String... odds) {
+        Match m = Match.createMatch(odds.length / 2).homeRot(rot)
+            .awayRot(rot + 1).home("home" + rot).away("away" + rot)
+            .opener("44", "1.9").build();
+        
+        for (int i = 0; i < odds.length / 2; i++) {
+            m.setBookieOdds(i, odds[2 * i], odds[2 * i + 1]);
+        }
+        return m;
+    }
+    
+    private static OddsSnapshot snapshot(List<Bookie> bookies,
+        Match... matches) {
+        DateGroup dg = new DateGroup("Sunday");
+        for (Match m : matches) {
+            dg.addMatch(m);
+        }
+        return OddsSnapshot.of(bookies, Arrays.asList(dg));
+    }
+    
+    private static final List<Bookie> BOOKIES = Arrays
+        .asList(new Bookie("Pinnacle", 0), new Bookie("5Dimes", 1));
+    
+    
+    @Test
+    public void testMatchBuilderSetsAwayRot() {
+        Match m = match(101, "45", "1.9", "45", "1.9");
+        assertEquals(101, m.homeRot());
+        assertEquals(102, m.awayRot());
+    }
+    
+    @Test
+    public void testNoPreviousSnapshotReportsEveryMatchAsNew() {
+        OddsSnapshot cur = snapshot(BOOKIES, match(101, "45", "1.9", "45",
+            "1.9"), match(103, "38", "1.9", "38", "1.9"));
+        
+        ChangeSet cs = ChangeSet.between(null, cur);
+        
+        assertEquals(2, cs.size());
+        assertEquals(2, cs.changes(Type.NEW_MATCH).size());
+    }
+    
+    @Test
+    public void testUnchangedSnapshotsHaveNoChanges() {
+        OddsSnapshot prev = snapshot(BOOKIES,
+            match(101, "45", "1.9", "45", "1.9"));
+        OddsSnapshot cur = snapshot(BOOKIES,
+            match(101, "45", "1.9", "45", "1.9"));
+        
+        assertTrue(ChangeSet.between(prev, cur).isEmpty());
+    }
+    
+    @Test
+    public void testMovedOddsAreReportedByRotAndBookieIndex() {
+        OddsSnapshot prev = snapshot(BOOKIES,
+            match(101, "45", "1.9", "45", "1.9"));
+        OddsSnapshot cur = snapshot(BOOKIES,
+            match(101, "45", "1.9", "45.5", "1.95"));
+        
+        ChangeSet cs = ChangeSet.between(prev, cur);
+        
+        assertEquals(1, cs.size());
+        Change c = cs.changes().get(0);
+        assertEquals(Type.ODDS_MOVED, c.type());
+        assertEquals(101, c.rot());
+        assertEquals(1, c.bookieIndex());
+        assertEquals("45.5", c.over());
+        assertEquals("1.95", c.under());
+    }
+    
+    @Test
+    public void testNewAndRemovedMatchesAreReported() {
+        OddsSnapshot prev = snapshot(BOOKIES,
+            match(101, "45", "1.9", "45", "1.9"));
+        OddsSnapshot cur = snapshot(BOOKIES,
+            match(103, "38", "1.9", "38", "1.9"));
+        
+        ChangeSet cs = ChangeSet.between(prev, cur);
+        
+        assertEquals(103, cs.changes(Type.NEW_MATCH).get(0).rot());
+        assertEquals(101, cs.changes(Type.REMOVED_MATCH).get(0).rot());
+        assertEquals(2, cs.size());
+    }
+    
+    @Test
+    public void testReorderedBookiesAreNotReportedAsMovedOdds() {
+        List<Bookie> reordered = Arrays.asList(new Bookie("5Dimes", 0),
+            new Bookie("Pinnacle", 1));
+        OddsSnapshot prev = snapshot(BOOKIES,
+            match(101, "45", "1.9", "46", "1.8"));
+        OddsSnapshot cur = snapshot(reordered,
+            match(101, "46", "1.8", "45", "1.9"));
+        
+        ChangeSet cs = ChangeSet.between(prev, cur);
+        assertTrue(cs.isEmpty());
+        // the sheet's bookie columns still have to be rewritten
+        assertFalse(cs.keepsLayout());
+    }
+    
+    @Test
+    public void testOnlyMovedOddsKeepTheLayout() {
+        OddsSnapshot prev = snapshot(BOOKIES,
+            match(101, "45", "1.9", "45", "1.9"),
+            match(103, "38", "1.9", "38", "1.9"));
+        OddsSnapshot moved = snapshot(BOOKIES,
+            match(101, "45", "1.9", "45.5", "1.95"),
+            match(103, "38", "1.9", "38", "1.9"));
+        OddsSnapshot swapped = snapshot(BOOKIES,
+            match(103, "38", "1.9", "38", "1.9"),
+            match(101, "45", "1.9", "45", "1.9"));
+        
+        ChangeSet cs = ChangeSet.between(prev, moved);
+        assertTrue(cs.keepsLayout());
+        assertSame(prev, cs.previous());
+        assertSame(moved, cs.current());
+        
+        // same matches, but on other rows
+        assertTrue(ChangeSet.between(prev, swapped).isEmpty());
+        assertFalse(ChangeSet.between(prev, swapped).keepsLayout());
+        assertFalse(ChangeSet.between(null, prev).keepsLayout());
+    }
+    
+    @Test
+    public void testMatchesSharingAHomeRotAreToldApart() {
+        Match first = match(101, "45", "1.9", "45", "1.9");
+        Match second = Match.createMatch(2).homeRot(101).awayRot(202)
+            .home("home202").away("away202").opener("38", "1.9").build();
+        OddsSnapshot prev = snapshot(BOOKIES, first, second);
+        OddsSnapshot cur = snapshot(BOOKIES, first,
+            match(303, "38", "1.9", "38", "1.9"));
+        
+        assertEquals(2, prev.size());
+        assertTrue(prev.hasUniqueRotations());
+        assertTrue(prev.contains(101, 102));
+        assertTrue(prev.contains(101, 202));
+        
+        ChangeSet cs = ChangeSet.between(prev, cur);
+        assertEquals(1, cs.changes(Type.NEW_MATCH).size());
+        assertEquals(1, cs.changes(Type.REMOVED_MATCH).size());
+        assertSame(second, cs.changes(Type.REMOVED_MATCH).get(0).match());
+    }
+    
+    @Test
+    public void testCollidingOrMissingRotsDoNotKeepTheLayout() {
+        OddsSnapshot prev = snapshot(BOOKIES,
+            match(101, "45", "1.9", "45", "1.9"));
+        OddsSnapshot collided = snapshot(BOOKIES,
+            match(101, "45", "1.9", "45.5", "1.95"),
+            match(101, "38", "1.9", "38", "1.9"));
+        Match unparsed = Match.createMatch(2).homeRot(101).home("home101")
+            .away("away101").opener("44", "1.9").build();
+        unparsed.setBookieOdds(0, "45", "1.9");
+        unparsed.setBookieOdds(1, "45", "1.9");
+        OddsSnapshot missing = snapshot(BOOKIES, unparsed);
+        
+        assertFalse(collided.hasUniqueRotations());
+        assertEquals(1, collided.size());
+        assertFalse(ChangeSet.between(prev, collided).keepsLayout());
+        assertFalse(ChangeSet.between(collided, prev).keepsLayout());
+        
+        assertFalse(missing.hasUniqueRotations());
+        assertFalse(ChangeSet.between(prev, missing).keepsLayout());
+    }
+    
+}
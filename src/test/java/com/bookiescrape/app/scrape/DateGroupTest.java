@@ -0,0 +1,137 @@
+package com.bookiescrape.app.scrape;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class DateGroupTest {
+    private static final double DELTA = 0.0;
+    
+    private Bookie one;
+    private Bookie two;
+    private Bookie three;
+    private DateGroup dg;
+    
+    /**
+     * Sets up the test fixture. (Called before every test case method.)
+     */
+    @Before
+    public void setUp() {
+        one = new Bookie("one", 0);
+        two = new Bookie("two", 1);
+        three = new Bookie("three", 2);
+        
+        dg = new DateGroup("Sunday");
+        // more matches than the odds table's default row capacity
+        for (int rot = 0; rot < 40; rot++) {
+            Match m = Match.createMatch(3).homeRot(rot).build();
+            m.setBookieOdds(0, "1" + rot, "1.1");
+            m.setBookieOdds(1, "2" + rot, "2.2");
+            dg.addMatch(m);
+        }
+    }
+    
+    
+    @Test
+    public void testAddedMatchesKeepTheirOdds() {
+        Match m = dg.getMatch(39);
+        assertEquals(139, m.bookieOver(0), DELTA);
+        assertEquals("239", m.getBookieOdds(1).over());
+        assertFalse(m.hasBookieOdds(2));
+    }
+    
+    @Test
+    public void testMatchWithoutOddsCanBeAdded() {
+        Match m = Match.createMatch(3).homeRot(99).build();
+        assertEquals(3, m.numBookies());
+        assertFalse(m.hasBookieOdds(0));
+        assertTrue(Double.isNaN(m.bookieOver(0)));
+        assertNull(m.getBookieOdds(0));
+        m.swapBookieOdds(0, 1);
+        
+        dg.addMatch(m);
+        m.setBookieOdds(0, "4.5", "4.25");
+        assertEquals(4.5, dg.overColumn(one)[40], DELTA);
+    }
+    
+    @Test
+    public void testOddsSetAfterAddingAreStoredInTheColumn() {
+        dg.getMatch(5).setBookieOdds(2, "3.5", "3.25");
+        
+        assertEquals(3.5, dg.overColumn(three)[5], DELTA);
+        assertTrue(Double.isNaN(dg.overColumn(three)[4]));
+    }
+    
+    @Test
+    public void testSwapBookieIndexesSwapsEveryMatch() {
+        dg.swapBookieIndexes(one, two);
+        
+        for (int i = 0; i < dg.size(); i++) {
+            Match m = dg.getMatch(i);
+            assertEquals(Double.parseDouble("2" + i), m.bookieOver(0), DELTA);
+            assertEquals(Double.parseDouble("1" + i), m.bookieOver(1), DELTA);
+        }
+    }
+    
+    @Test
+    public void testReorderBookiesMovesColumns() {
+        dg.reorderBookies(Arrays.asList(three, one, two));
+        
+        Match m = dg.getMatch(7);
+        assertFalse(m.hasBookieOdds(0));
+        assertEquals("17", m.getBookieOdds(1).over());
+        assertEquals("27", m.getBookieOdds(2).over());
+    }
+    
+    @Test
+    public void testColumnProjectionHasOneEntryPerMatch() {
+        double[] unders = dg.underColumn(two);
+        
+        double[] expected = new double[40];
+        Arrays.fill(expected, 2.2);
+        assertArrayEquals(expected, unders, DELTA);
+    }
+    
+    @Test
+    public void testScrapedOddsTextIsKept() {
+        Match m = dg.getMatch(3);
+        m.setBookieOdds(2, "1.90", "2.00");
+        
+        assertEquals("1.90", m.getBookieOdds(2).over());
+        assertEquals("2.00", m.getBookieOdds(2).under());
+        assertEquals(1.9, m.bookieOver(2), DELTA);
+        // text that renders back the same isn't kept
+        assertFalse(m.hasBookieText(0));
+        assertTrue(m.hasBookieText(2));
+    }
+    
+    @Test
+    public void testSwapBookieOddsSwapsOnlyThatMatch() {
+        dg.getMatch(4).setBookieOdds(2, "3.50", "N/A");
+        dg.getMatch(4).swapBookieOdds(0, 2);
+        
+        Match m = dg.getMatch(4);
+        assertEquals("3.50", m.getBookieOdds(0).over());
+        assertEquals("N/A", m.getBookieOdds(0).under());
+        assertEquals(14, m.bookieOver(2), DELTA);
+        assertFalse(m.hasBookieText(2));
+        
+        Match other = dg.getMatch(5);
+        assertEquals(15, other.bookieOver(0), DELTA);
+        assertFalse(other.hasBookieOdds(2));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testReorderBookiesThrowsOnDuplicateBookie() {
+        dg.reorderBookies(Arrays.asList(one, one, two));
+    }
+    
+}
@@ -0,0 +1,141 @@
+package com.bookiescrape.app.scrape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.gargoylesoftware.htmlunit.MockWebConnection;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.html.DomElement;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+
+
+public class ExtractionPlanTest {
+    
+    private static final String ADDRESS = "http://localhost/odds";
+    
+    private static final String HOLDER = "<div id='holder'>"
+        + "<div class='el-div eventLine-rotation'>451 452</div>"
+        + "<div class='el-div eventLine-time'>1:00 PM</div>"
+        + "<div class='el-div eventLine-team'>A @ B</div>"
+        + "<div class='el-div eventLine-opener'>1.90</div>"
+        + "<!-- a comment between cells -->"
+        + "<div class='el-div eventLine-book'>1.91</div>"
+        + "<div class='el-div eventLine-book selected'>9.99</div>"
+        + "<div class='el-div eventLine-book'>1.95</div>"
+        + "</div>";
+    
+    private final ExtractionPlan plan = ExtractionPlan.SPORTS_BOOK_REVIEW;
+    
+    private WebClient client;
+    private MockWebConnection connection;
+    
+    @Before
+    public void createClient() {
+        client = new WebClient();
+        client.getOptions().setJavaScriptEnabled(false);
+        client.getOptions().setCssEnabled(false);
+        connection = new MockWebConnection();
+        client.setWebConnection(connection);
+    }
+    
+    @After
+    public void closeClient() { client.close(); }
+    
+    private HtmlPage page(String body) throws IOException {
+        connection.setResponse(new URL(ADDRESS),
+            "<html><body>" + body + "</body></html>");
+        return client.getPage(ADDRESS);
+    }
+    
+    /* a date group div with its date nested the specified levels deep */
+    private static String dateGroup(String id, String date, int depth) {
+        return "<div id='" + id + "'>"
+            + "<div>".repeat(depth)
+            + "<div class='date'>" + date + "</div>"
+            + "</div>".repeat(depth)
+            + "<div><div class='content-scheduled content-pre-game '>"
+            + "<div>match</div>"
+            + "</div></div>"
+            + "</div>";
+    }
+    
+    @Test
+    public void match_holder_cells_should_be_found_by_exact_class()
+        throws IOException {
+        HtmlPage page = page(HOLDER);
+        DomElement holder = page.getElementById("holder");
+        
+        assertEquals("451 452", plan.rotation(holder).asNormalizedText());
+        assertEquals("1:00 PM", plan.time(holder).asNormalizedText());
+        assertEquals("A @ B", plan.team(holder).asNormalizedText());
+        assertEquals("1.90", plan.opener(holder).asNormalizedText());
+        
+        List<DomElement> books = plan.books(holder);
+        assertEquals(2, books.size());
+        assertEquals("1.91", books.get(0).asNormalizedText());
+        assertEquals("1.95", books.get(1).asNormalizedText());
+    }
+    
+    @Test
+    public void missing_cells_should_be_null() throws IOException {
+        HtmlPage page = page("<div id='holder'><span>empty</span></div>");
+        DomElement holder = page.getElementById("holder");
+        
+        assertNull(plan.rotation(holder));
+        assertNull(plan.opener(holder));
+        assertEquals(0, plan.books(holder).size());
+    }
+    
+    @Test
+    public void date_groups_should_be_found_at_any_depth() throws IOException {
+        HtmlPage page = page(dateGroup("a", "Sunday", 1)
+            + dateGroup("b", "Monday", 1)
+            + dateGroup("c", "Tuesday", 3));
+        
+        assertEquals("Sunday",
+            plan.date(page.getElementById("a")).asNormalizedText());
+        // same layout, found along the remembered path
+        assertEquals("Monday",
+            plan.date(page.getElementById("b")).asNormalizedText());
+        // different layout, the remembered path no longer leads to a date
+        assertEquals("Tuesday",
+            plan.date(page.getElementById("c")).asNormalizedText());
+        
+        DomElement content = plan.contentScheduled(page.getElementById("c"));
+        assertEquals("match", content.asNormalizedText());
+    }
+    
+    @Test
+    public void date_groups_without_a_date_should_be_null() throws IOException {
+        HtmlPage page = page(dateGroup("a", "Sunday", 0)
+            + "<div id='b'><div><div>no date</div></div></div>");
+        
+        plan.date(page.getElementById("a"));
+        assertNull(plan.date(page.getElementById("b")));
+    }
+    
+    @Test
+    public void nth_child_should_count_only_children_with_the_tag()
+        throws IOException {
+        HtmlPage page = page("<div id='parent'>"
+            + "<span>s1</span><div>d1</div>text<span>s2</span><div>d2</div>"
+            + "</div>");
+        DomElement parent = page.getElementById("parent");
+        
+        assertEquals("d2",
+            ExtractionPlan.nthChild(parent, "div", 2).asNormalizedText());
+        assertEquals("s1",
+            ExtractionPlan.nthChild(parent, "span", 1).asNormalizedText());
+        assertNull(ExtractionPlan.nthChild(parent, "div", 3));
+        assertNull(ExtractionPlan.nthChild(null, "div", 1));
+    }
+    
+}
@@ -0,0 +1,219 @@
+package com.bookiescrape.app.scrape;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generates Sports Book Review style odds pages, with the same layout the
+ * {@link Scraper} and {@link RawOddsParser} extract from, for tests and the
+ * extraction benchmarks.
+ * <p>
+ * Each match is identified by its home rotation number, its away rotation
+ * number is one more. Every bookie's odds of a match are derived from the
+ * match's rotation number and the bookie's index, see {@link #over(int, int)}
+ * and {@link #under(int, int)}, so a test can tell which bookie's odds ended
+ * up on which match.
+ * <p>
+ * Pages are written without whitespace between tags, like the live site's
+ * odds feed, since the scraper navigates the odds table by child index.
+ *
+ * @author Jonathan Henly
+ */
+final class OddsPageFixture {
+    
+    /** The number of bookies shown on each carousel page. */
+    static final int BOOKIES_PER_PAGE = 10;
+    
+    private OddsPageFixture() {}
+    
+    /**
+     * @param rot
+     *               - the match's home rotation number
+     * @param bookie
+     *               - the bookie's index
+     * @return the bookie's over odds text for the match
+     */
+    static String over(int rot, int bookie) {
+        return (40 + bookie) + "." + (rot % 10) + "5";
+    }
+    
+    /**
+     * @param rot
+     *               - the match's home rotation number
+     * @param bookie
+     *               - the bookie's index
+     * @return the bookie's under odds text for the match
+     */
+    static String under(int rot, int bookie) {
+        return "1." + (10 + (rot + bookie) % 90);
+    }
+    
+    /**
+     * Generates an odds page showing the first carousel page.
+     *
+     * @param groups
+     *                - the home rotation numbers of each date group's matches
+     * @param bookies
+     *                - the number of bookies
+     * @return the odds page's html
+     */
+    static String html(int[][] groups, int bookies) {
+        return html(new int[][][] { groups }, bookies);
+    }
+    
+    /**
+     * Generates an odds page showing the first carousel page, with the
+     * specified number of date groups and matches. Matches are numbered from
+     * rotation number {@code 101} on.
+     *
+     * @param dateGroups
+     *                        - the number of date groups
+     * @param matchesPerGroup
+     *                        - the number of matches in each date group
+     * @param bookies
+     *                        - the number of bookies
+     * @return the odds page's html
+     */
+    static String html(int dateGroups, int matchesPerGroup, int bookies) {
+        int[][] groups = new int[dateGroups][matchesPerGroup];
+        int rot = 101;
+        for (int[] group : groups) {
+            for (int m = 0; m < matchesPerGroup; m++, rot += 2) {
+                group[m] = rot;
+            }
+        }
+        
+        return html(groups, bookies);
+    }
+    
+    /**
+     * Writes a generated odds page to a temporary file.
+     *
+     * @param dateGroups
+     *                        - the number of date groups
+     * @param matchesPerGroup
+     *                        - the number of matches in each date group
+     * @param bookies
+     *                        - the number of bookies
+     * @return the temporary file, deleted when the JVM exits
+     * @throws IOException
+     *                     if the file cannot be written
+     * @see #html(int, int, int)
+     */
+    static Path write(int dateGroups, int matchesPerGroup, int bookies)
+        throws IOException {
+        Path page = Files.createTempFile("odds-page", ".html");
+        page.toFile().deleteOnExit();
+        
+        Files.write(page, html(dateGroups, matchesPerGroup, bookies)
+            .getBytes(StandardCharsets.UTF_8));
+        return page;
+    }
+    
+    /**
+     * Generates an odds page whose carousel "next" anchor shows each of the
+     * specified carousel pages in turn.
+     * <p>
+     * The matches on every carousel page are laid out as specified, which
+     * lets a test lay out a later carousel page differently than the first.
+     *
+     * @param pages
+     *                - for each carousel page, the home rotation numbers of
+     *                each date group's matches
+     * @param bookies
+     *                - the number of bookies
+     * @return the odds page's html
+     */
+    static String html(int[][][] pages, int bookies) {
+        StringBuilder sb = new StringBuilder();
+        
+        sb.append("<!DOCTYPE html><html><head><title>Odds</title></head>")
+            .append("<body>");
+        sb.append("<input type=\"checkbox\" id=\"usersetting_SHOW_ROTATION\"")
+            .append(" checked=\"checked\"/>");
+        sb.append("<select id=\"usersetting_ODDS_FORMAT\">")
+            .append("<option value=\"1\">American</option>")
+            .append("<option value=\"2\" selected=\"selected\">Decimal")
+            .append("</option></select>");
+        sb.append("<div id=\"rotText\"><a href=\"javascript:void(0)\">#</a>")
+            .append("</div>");
+        
+        sb.append("<div id=\"feedHeaderCarousel\"><div>")
+            .append("<a href=\"javascript:void(0)\">prev</a>")
+            .append("<a href=\"javascript:void(0)\" onclick=\"next()\">next")
+            .append("</a></div></div>");
+        
+        sb.append("<div id=\"booksCarousel\">");
+        for (int b = 0; b < bookies; b++) {
+            sb.append("<div>Bookie ").append(b).append("</div>");
+        }
+        sb.append("</div>");
+        
+        sb.append("<div id=\"sport-4\">").append(feed(pages[0], bookies, 0))
+            .append("</div>");
+        
+        // the next anchor swaps in the following carousel page's feed
+        sb.append("<script>var page = 0; var feeds = [");
+        for (int p = 0; p < pages.length; p++) {
+            if (p > 0) { sb.append(','); }
+            sb.append('\'').append(feed(pages[p], bookies, p)).append('\'');
+        }
+        sb.append("];function next() {")
+            .append(" page = Math.min(page + 1, feeds.length - 1);")
+            .append(" document.getElementById('sport-4').innerHTML")
+            .append(" = feeds[page]; }</script>");
+        
+        sb.append("</body></html>");
+        return sb.toString();
+    }
+    
+    /* the odds feed of a single carousel page */
+    private static String feed(int[][] groups, int bookies, int page) {
+        // the last page is filled with already seen bookies
+        int first = Math.max(0, Math.min(page * BOOKIES_PER_PAGE,
+            bookies - BOOKIES_PER_PAGE));
+        int last = Math.min(first + BOOKIES_PER_PAGE, bookies);
+        
+        StringBuilder sb = new StringBuilder("<div>");
+        for (int g = 0; g < groups.length; g++) {
+            sb.append("<div><div class=\"date\">Day ").append(g)
+                .append("</div>");
+            sb.append("<div class=\"content-scheduled content-pre-game \">");
+            for (int rot : groups[g]) {
+                appendMatch(sb, rot, first, last);
+            }
+            sb.append("</div></div>");
+        }
+        return sb.append("</div>").toString();
+    }
+    
+    /* appends a single match holder */
+    private static void appendMatch(StringBuilder sb, int rot, int first,
+        int last) {
+        sb.append("<div><div>");
+        
+        sb.append("<div class=\"el-div eventLine-rotation\"><div></div><div>")
+            .append(rot).append("</div><div>").append(rot + 1)
+            .append("</div></div>");
+        sb.append("<div class=\"el-div eventLine-time\"><div>1:00 PM</div>")
+            .append("</div>");
+        sb.append("<div class=\"el-div eventLine-team\">")
+            .append("<div><span><a href=\"/match/").append(rot)
+            .append("\">Home ").append(rot).append("</a></span></div>")
+            .append("<div><span><a href=\"/match/").append(rot)
+            .append("\">Away ").append(rot).append("</a></span></div></div>");
+        sb.append("<div class=\"el-div eventLine-opener\">")
+            .append("<div>44.5</div><div>1.91</div></div>");
+        
+        for (int b = first; b < last; b++) {
+            sb.append("<div class=\"el-div eventLine-book\"><div>")
+                .append(over(rot, b)).append("</div><div>")
+                .append(under(rot, b)).append("</div></div>");
+        }
+        
+        sb.append("</div></div>");
+    }
+    
+}
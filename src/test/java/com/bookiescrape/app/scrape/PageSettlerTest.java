@@ -0,0 +1,116 @@
+package com.bookiescrape.app.scrape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URL;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.gargoylesoftware.htmlunit.MockWebConnection;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+
+
+public class PageSettlerTest {
+    
+    private static final String ADDRESS = "http://localhost/odds";
+    
+    private WebClient client;
+    private MockWebConnection connection;
+    
+    @Before
+    public void createClient() {
+        client = new WebClient();
+        client.getOptions().setCssEnabled(false);
+        connection = new MockWebConnection();
+        client.setWebConnection(connection);
+    }
+    
+    @After
+    public void closeClient() { client.close(); }
+    
+    /* loads a page whose body runs the specified script */
+    private HtmlPage page(String script) throws IOException {
+        connection.setResponse(new URL(ADDRESS), "<html><body>"
+            + "<div id='sport-4'></div>"
+            + "<script>"
+            + "function add(text) {"
+            + "  var div = document.createElement('div');"
+            + "  div.textContent = text;"
+            + "  document.getElementById('sport-4').appendChild(div);"
+            + "}"
+            + script
+            + "</script></body></html>");
+        return client.getPage(ADDRESS);
+    }
+    
+    private static int children(HtmlPage page) {
+        return page.getElementById("sport-4").getChildElementCount();
+    }
+    
+    @Test
+    public void a_delayed_mutation_should_settle_the_page() throws IOException {
+        HtmlPage page = page("setTimeout(function() { add('a'); }, 100);");
+        PageSettler settler = new PageSettler(5_000);
+        
+        PageSettler.Watch watch = settler.watch(page, "sport-4");
+        assertTrue(watch.await(page));
+        
+        assertEquals(1, children(page));
+        assertEquals(1, settler.getStats().count());
+        assertEquals(0, settler.getStats().timeouts());
+        assertTrue(settler.getStats().maxMillis() < 5_000);
+    }
+    
+    @Test
+    public void an_unmutated_page_should_time_out() throws IOException {
+        HtmlPage page = page("");
+        PageSettler settler = new PageSettler(100);
+        
+        PageSettler.Watch watch = settler.watch(page, "sport-4");
+        assertFalse(watch.await(page));
+        
+        assertEquals(1, settler.getStats().timeouts());
+        assertTrue(settler.getStats().maxMillis() >= 100);
+    }
+    
+    @Test
+    public void jobs_scheduled_after_waiting_began_should_be_waited_on()
+        throws IOException {
+        // the first job schedules a second one before it mutates the page,
+        // the second job only becomes imminent well after waiting began
+        HtmlPage page = page("setTimeout(function() {"
+            + "  setTimeout(function() { add('b'); }, 10);"
+            + "  add('a');"
+            + "}, 200);");
+        PageSettler settler = new PageSettler(5_000);
+        
+        PageSettler.Watch watch = settler.watch(page, "sport-4");
+        assertTrue(watch.await(page));
+        
+        assertEquals(2, children(page));
+    }
+    
+    @Test
+    public void a_different_result_page_should_count_as_mutated()
+        throws IOException {
+        HtmlPage page = page("");
+        HtmlPage other = page("");
+        PageSettler settler = new PageSettler(5_000);
+        
+        PageSettler.Watch watch = settler.watch(page, "sport-4");
+        assertTrue(watch.await(other));
+        assertEquals(0, settler.getStats().timeouts());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void a_negative_max_settle_time_should_throw() {
+        new PageSettler(-1);
+    }
+    
+}
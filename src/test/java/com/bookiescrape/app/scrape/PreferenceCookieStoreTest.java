@@ -0,0 +1,141 @@
+package com.bookiescrape.app.scrape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.gargoylesoftware.htmlunit.CookieManager;
+import com.gargoylesoftware.htmlunit.util.Cookie;
+
+
+public class PreferenceCookieStoreTest {
+    
+    private static final String DOMAIN = "www.sportsbookreview.com";
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+    
+    private PreferenceCookieStore store() {
+        return new PreferenceCookieStore(
+            tmp.getRoot().toPath().resolve("cache").resolve("cookies"));
+    }
+    
+    private static Cookie cookie(String name, String value, Date expires) {
+        return new Cookie(DOMAIN, name, value, "/", expires, false);
+    }
+    
+    @Test
+    public void saved_cookies_should_be_primed_into_a_new_manager()
+        throws IOException {
+        Date expires = new Date(System.currentTimeMillis() + DAY);
+        CookieManager from = new CookieManager();
+        from.addCookie(cookie("usersetting_odds", "decimal", expires));
+        from.addCookie(cookie("usersetting_rot", "show", null));
+        
+        PreferenceCookieStore store = store();
+        assertEquals(2, store.saveFrom(from));
+        
+        CookieManager into = new CookieManager();
+        assertEquals(2, store.primeInto(into));
+        
+        Cookie odds = into.getCookie("usersetting_odds");
+        assertNotNull(odds);
+        assertEquals("decimal", odds.getValue());
+        assertEquals("/", odds.getPath());
+        assertEquals(expires.getTime(), odds.getExpires().getTime());
+        assertNull(into.getCookie("usersetting_rot").getExpires());
+    }
+    
+    @Test
+    public void only_cookies_with_the_prefix_should_be_saved()
+        throws IOException {
+        CookieManager from = new CookieManager();
+        from.addCookie(cookie("UserSetting_odds", "decimal", null));
+        from.addCookie(cookie("session", "abc123", null));
+        
+        PreferenceCookieStore store = store();
+        assertEquals(1, store.saveFrom(from));
+        
+        CookieManager into = new CookieManager();
+        assertEquals(1, store.primeInto(into));
+        assertNotNull(into.getCookie("UserSetting_odds"));
+        assertNull(into.getCookie("session"));
+    }
+    
+    @Test
+    public void expired_cookies_should_not_be_primed() throws IOException {
+        CookieManager from = new CookieManager();
+        from.addCookie(cookie("usersetting_odds", "decimal", null));
+        from.addCookie(cookie("usersetting_rot", "show",
+            new Date(System.currentTimeMillis() + 200)));
+        
+        PreferenceCookieStore store = store();
+        assertEquals(2, store.saveFrom(from));
+        
+        // let the second cookie expire on disk
+        try {
+            Thread.sleep(300);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        
+        CookieManager into = new CookieManager();
+        assertEquals(1, store.primeInto(into));
+        assertNull(into.getCookie("usersetting_rot"));
+    }
+    
+    @Test
+    public void priming_from_a_missing_store_should_add_nothing()
+        throws IOException {
+        CookieManager into = new CookieManager();
+        
+        assertEquals(0, store().primeInto(into));
+        assertTrue(into.getCookies().isEmpty());
+    }
+    
+    @Test
+    public void saving_should_replace_the_previous_cookies()
+        throws IOException {
+        PreferenceCookieStore store = store();
+        CookieManager first = new CookieManager();
+        first.addCookie(cookie("usersetting_odds", "american", null));
+        first.addCookie(cookie("usersetting_rot", "show", null));
+        store.saveFrom(first);
+        
+        CookieManager second = new CookieManager();
+        second.addCookie(cookie("usersetting_odds", "decimal", null));
+        store.saveFrom(second);
+        
+        CookieManager into = new CookieManager();
+        assertEquals(1, store.primeInto(into));
+        assertEquals("decimal", into.getCookie("usersetting_odds").getValue());
+    }
+    
+    @Test
+    public void clearing_should_delete_the_store_file() throws IOException {
+        PreferenceCookieStore store = store();
+        CookieManager from = new CookieManager();
+        from.addCookie(cookie("usersetting_odds", "decimal", null));
+        store.saveFrom(from);
+        assertTrue(Files.isRegularFile(store.getStoreFile()));
+        
+        store.clear();
+        
+        Path file = store.getStoreFile();
+        assertFalse(Files.exists(file));
+        assertEquals(0, store.primeInto(new CookieManager()));
+    }
+    
+}
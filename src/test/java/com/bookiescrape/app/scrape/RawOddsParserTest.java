@@ -0,0 +1,161 @@
+package com.bookiescrape.app.scrape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.gargoylesoftware.htmlunit.MockWebConnection;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+
+
+public class RawOddsParserTest {
+    
+    private static final String ADDRESS = "http://localhost/odds";
+    private static final int[][] LAYOUT = { { 101, 103, 105 }, { 107 } };
+    
+    private static RawOddsParser.Result parse(String html) throws IOException {
+        return RawOddsParser.parse(new ByteArrayInputStream(
+            html.getBytes(StandardCharsets.UTF_8)), "UTF-8");
+    }
+    
+    /* scrapes a page's first carousel page through the DOM */
+    private static List<DateGroup> scrapeDom(String html, Scraper scraper)
+        throws IOException {
+        try (WebClient client = new WebClient()) {
+            client.getOptions().setJavaScriptEnabled(false);
+            client.getOptions().setCssEnabled(false);
+            MockWebConnection connection = new MockWebConnection();
+            connection.setResponse(new URL(ADDRESS), html);
+            client.setWebConnection(connection);
+            
+            HtmlPage page = client.getPage(ADDRESS);
+            return scraper.scrapeLoadedPage(page);
+        }
+    }
+    
+    @Test
+    public void raw_and_dom_scrapes_should_produce_the_same_date_groups()
+        throws IOException {
+        String html = OddsPageFixture.html(LAYOUT, 8);
+        
+        RawOddsParser.Result raw = parse(html);
+        Scraper scraper = new Scraper();
+        List<DateGroup> dom;
+        try {
+            dom = scrapeDom(html, scraper);
+        } finally {
+            scraper.close();
+        }
+        
+        assertTrue(raw.incompleteReason(), raw.isComplete());
+        
+        assertEquals(scraper.getBookies().size(), raw.bookies().size());
+        for (int b = 0; b < raw.bookies().size(); b++) {
+            assertEquals(scraper.getBookies().get(b).name(),
+                raw.bookies().get(b).name());
+            assertEquals(b, raw.bookies().get(b).index());
+        }
+        
+        assertEquals(dom.size(), raw.dateGroups().size());
+        for (int g = 0; g < dom.size(); g++) {
+            DateGroup expected = dom.get(g);
+            DateGroup actual = raw.dateGroups().get(g);
+            
+            assertEquals(expected.getDate(), actual.getDate());
+            assertEquals(expected.size(), actual.size());
+            // every parsed field shows up in a match's string
+            assertEquals(expected.toString(), actual.toString());
+            
+            for (int mi = 0; mi < expected.size(); mi++) {
+                Match e = expected.getMatch(mi);
+                Match a = actual.getMatch(mi);
+                for (int b = 0; b < raw.bookies().size(); b++) {
+                    assertEquals(e.bookieOver(b), a.bookieOver(b), 0);
+                    assertEquals(e.bookieUnder(b), a.bookieUnder(b), 0);
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void pages_missing_bookies_odds_should_be_incomplete()
+        throws IOException {
+        // only the first carousel page's odds are rendered
+        RawOddsParser.Result raw = parse(OddsPageFixture.html(LAYOUT, 25));
+        
+        assertFalse(raw.isComplete());
+        assertEquals("page only has 10 of 25 bookies' odds",
+            raw.incompleteReason());
+    }
+    
+    @Test
+    public void pages_without_a_bookie_carousel_should_be_incomplete()
+        throws IOException {
+        String html = OddsPageFixture.html(LAYOUT, 8)
+            .replace("id=\"booksCarousel\"", "id=\"otherCarousel\"");
+        
+        RawOddsParser.Result raw = parse(html);
+        
+        assertFalse(raw.isComplete());
+        assertEquals("page has no bookie carousel", raw.incompleteReason());
+    }
+    
+    @Test
+    public void pages_without_matches_should_be_incomplete()
+        throws IOException {
+        RawOddsParser.Result raw = parse(OddsPageFixture.html(new int[0][], 8));
+        
+        assertFalse(raw.isComplete());
+        assertEquals("page has no matches", raw.incompleteReason());
+    }
+    
+    @Test
+    public void pages_hiding_rotation_numbers_should_be_incomplete()
+        throws IOException {
+        String html = OddsPageFixture.html(LAYOUT, 8)
+            .replace(" checked=\"checked\"", "");
+        
+        RawOddsParser.Result raw = parse(html);
+        
+        assertFalse(raw.isComplete());
+        assertEquals("page does not show rotation numbers",
+            raw.incompleteReason());
+    }
+    
+    @Test
+    public void pages_showing_american_odds_should_be_incomplete()
+        throws IOException {
+        String html = OddsPageFixture.html(LAYOUT, 8)
+            .replace(" selected=\"selected\"", "")
+            .replace("<option value=\"1\">",
+                "<option value=\"1\" selected=\"selected\">");
+        
+        RawOddsParser.Result raw = parse(html);
+        
+        assertFalse(raw.isComplete());
+        assertEquals("page does not show decimal odds",
+            raw.incompleteReason());
+    }
+    
+    @Test
+    public void complete_pages_should_have_no_incomplete_reason()
+        throws IOException {
+        RawOddsParser.Result raw = parse(OddsPageFixture.html(LAYOUT, 10));
+        
+        assertTrue(raw.isComplete());
+        assertNull(raw.incompleteReason());
+        assertEquals(2, raw.dateGroups().size());
+        assertEquals(3, raw.dateGroups().get(0).size());
+    }
+    
+}
@@ -0,0 +1,186 @@
+package com.bookiescrape.app.scrape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+public class ScrapeTraceTest {
+    
+    /* e.g. "2026-10-17 14:03:22.007 " */
+    private static final String PREFIX =
+        "\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}\\.\\d{3} ";
+    
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+    
+    /* a writer that fails to write any text containing "lost" */
+    private static class LosingWriter extends Writer {
+        private final StringBuilder written = new StringBuilder();
+        
+        @Override
+        public synchronized void write(char[] buf, int off, int len)
+            throws IOException {
+            String text = new String(buf, off, len);
+            if (text.contains("lost")) { throw new IOException("disk full"); }
+            
+            written.append(text);
+        }
+        
+        @Override
+        public void flush() {}
+        
+        @Override
+        public void close() {}
+        
+        synchronized String written() { return written.toString(); }
+    }
+    
+    @Test
+    public void each_event_should_be_one_line_with_a_time_prefix()
+        throws IOException {
+        Path file = tmp.getRoot().toPath().resolve("log").resolve("a.log");
+        try (ScrapeTrace trace = ScrapeTrace.open(file)) {
+            trace.event("opened");
+            trace.event("bookies: ", 42);
+        }
+        
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0), lines.get(0).matches(PREFIX + "opened"));
+        assertTrue(lines.get(1), lines.get(1).matches(PREFIX + "bookies: 42"));
+    }
+    
+    @Test
+    public void errors_should_be_followed_by_their_stack_trace()
+        throws IOException {
+        Path file = tmp.newFile().toPath();
+        Exception e = new IllegalStateException("boom");
+        try (ScrapeTrace trace = ScrapeTrace.open(file)) {
+            trace.error("scrape failed", e);
+        }
+        
+        List<String> lines = Files.readAllLines(file);
+        assertTrue(lines.get(0), lines.get(0).matches(PREFIX + "\\[ERROR\\] "
+            + "scrape failed: java.lang.IllegalStateException: boom"));
+        assertEquals(1 + e.getStackTrace().length, lines.size());
+        assertEquals("\tat " + e.getStackTrace()[0], lines.get(1));
+    }
+    
+    @Test
+    public void events_should_be_written_without_closing_the_trace()
+        throws Exception {
+        Path file = tmp.newFile().toPath();
+        try (ScrapeTrace trace = ScrapeTrace.open(file)) {
+            trace.event("still scraping");
+            
+            long deadline = System.currentTimeMillis()
+                + 10 * ScrapeTrace.FLUSH_MILLIS;
+            while (Files.size(file) == 0
+                && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            
+            assertEquals(1, Files.readAllLines(file).size());
+        }
+    }
+    
+    @Test
+    public void opening_a_trace_should_truncate_its_file() throws IOException {
+        Path file = tmp.newFile().toPath();
+        try (ScrapeTrace trace = ScrapeTrace.open(file)) {
+            trace.event("first scrape");
+        }
+        try (ScrapeTrace trace = ScrapeTrace.open(file)) {
+            trace.event("second scrape");
+        }
+        
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).endsWith("second scrape"));
+    }
+    
+    @Test
+    public void events_after_close_should_be_ignored() throws IOException {
+        Path file = tmp.newFile().toPath();
+        ScrapeTrace trace = ScrapeTrace.open(file);
+        trace.event("before");
+        trace.close();
+        trace.event("after");
+        trace.close();
+        
+        assertEquals(1, Files.readAllLines(file).size());
+    }
+    
+    @Test
+    public void concurrent_traces_should_each_keep_their_own_events()
+        throws Exception {
+        final int traces = 4;
+        final int events = 5_000;
+        ExecutorService pool = Executors.newFixedThreadPool(traces);
+        try {
+            List<Future<Path>> written = new ArrayList<>();
+            for (int t = 0; t < traces; t++) {
+                final Path file = tmp.getRoot().toPath().resolve(t + ".log");
+                final String name = "sheet" + t;
+                written.add(pool.submit(() -> {
+                    try (ScrapeTrace trace = ScrapeTrace.open(file)) {
+                        for (int i = 0; i < events; i++) {
+                            trace.event(name + " event ", i);
+                        }
+                    }
+                    return file;
+                }));
+            }
+            
+            for (int t = 0; t < traces; t++) {
+                List<String> lines = Files.readAllLines(written.get(t).get());
+                assertEquals(events, lines.size());
+                for (int i = 0; i < events; i++) {
+                    String expected = "sheet" + t + " event " + i;
+                    assertTrue(lines.get(i).endsWith(expected));
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void events_of_a_failed_write_should_not_be_written_later()
+        throws IOException {
+        LosingWriter out = new LosingWriter();
+        try (ScrapeTrace trace = new ScrapeTrace(out)) {
+            trace.event("lost");
+            try {
+                trace.flush();
+            } catch (IOException expected) {
+                // unless the background flush already failed to write it
+            }
+            
+            trace.event("first");
+            trace.flush();
+            trace.event("second");
+            trace.flush();
+        }
+        
+        String[] lines = out.written().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0], lines[0].matches(PREFIX + "first"));
+        assertTrue(lines[1], lines[1].matches(PREFIX + "second"));
+    }
+    
+}
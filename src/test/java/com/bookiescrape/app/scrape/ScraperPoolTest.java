@@ -0,0 +1,94 @@
+package com.bookiescrape.app.scrape;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Test;
+
+
+public class ScraperPoolTest {
+    
+    private ScraperPool pool;
+    private final ExecutorService borrower =
+        Executors.newSingleThreadExecutor();
+    
+    @After
+    public void closePool() {
+        borrower.shutdownNow();
+        if (pool != null) { pool.close(); }
+    }
+    
+    @Test
+    public void released_scrapers_should_be_reused() throws Exception {
+        pool = new ScraperPool(2);
+        
+        Scraper first = pool.borrow();
+        pool.release(first);
+        
+        assertSame(first, pool.borrow());
+    }
+    
+    @Test
+    public void scrapers_should_be_created_up_to_the_pool_size()
+        throws Exception {
+        pool = new ScraperPool(2);
+        
+        Scraper first = pool.borrow();
+        Scraper second = pool.borrow();
+        
+        assertNotSame(first, second);
+        assertEquals(2, pool.size());
+    }
+    
+    @Test
+    public void borrowing_from_a_full_pool_should_block_until_a_release()
+        throws Exception {
+        pool = new ScraperPool(1);
+        Scraper only = pool.borrow();
+        
+        Future<Scraper> waiting = borrower.submit(pool::borrow);
+        try {
+            waiting.get(200, TimeUnit.MILLISECONDS);
+            throw new AssertionError("borrow should have blocked");
+        } catch (TimeoutException expected) {
+            assertFalse(waiting.isDone());
+        }
+        
+        pool.release(only);
+        assertSame(only, waiting.get(5, TimeUnit.SECONDS));
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void borrowing_from_a_closed_pool_should_throw() throws Exception {
+        pool = new ScraperPool(1);
+        pool.close();
+        
+        pool.borrow();
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void scrapers_released_into_a_closed_pool_should_not_be_reused()
+        throws Exception {
+        pool = new ScraperPool(1);
+        Scraper scraper = pool.borrow();
+        pool.close();
+        pool.release(scraper);
+        
+        pool.borrow();
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void a_pool_size_below_one_should_throw() {
+        new ScraperPool(0);
+    }
+    
+}
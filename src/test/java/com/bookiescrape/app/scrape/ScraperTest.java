@@ -0,0 +1,165 @@
+package com.bookiescrape.app.scrape;
+
+import static com.bookiescrape.app.scrape.OddsPageFixture.over;
+import static com.bookiescrape.app.scrape.OddsPageFixture.under;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.gargoylesoftware.htmlunit.MockWebConnection;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+
+
+public class ScraperTest {
+    
+    private static final String ADDRESS = "http://localhost/odds";
+    private static final int BOOKIES = 25;
+    
+    /* the first carousel page's layout */
+    private static final int[][] LAYOUT = { { 101, 103 }, { 105, 107 } };
+    
+    private Scraper scraper;
+    
+    @After
+    public void closeScraper() {
+        if (scraper != null) { scraper.close(); }
+    }
+    
+    /* a mock connection that fails every prefetched carousel page's load */
+    private static class FailingCarouselPages extends MockWebConnection {
+        @Override
+        public WebResponse getResponse(WebRequest request) throws IOException {
+            if (Thread.currentThread().getName().startsWith("carousel-page")) {
+                throw new IOException("connection reset");
+            }
+            return super.getResponse(request);
+        }
+    }
+    
+    /* scrapes the specified page with carousel prefetching enabled */
+    private List<DateGroup> prefetch(MockWebConnection connection,
+        String html) throws IOException {
+        connection.setResponse(new URL(ADDRESS), html);
+        
+        scraper = new Scraper();
+        scraper.setWebConnection(connection);
+        scraper.setMaxSettleMillis(100);
+        scraper.setCarouselPrefetch(true);
+        scraper.scrape(ADDRESS);
+        
+        assertNull(scraper.getFailure());
+        return scraper.getDateGroups();
+    }
+    
+    /* asserts every bookie's odds ended up on the right match */
+    private static void assertOddsMatchRotations(List<DateGroup> dateGroups) {
+        int matches = 0;
+        for (DateGroup dg : dateGroups) {
+            for (int mi = 0; mi < dg.size(); mi++) {
+                Match match = dg.getMatch(mi);
+                int rot = match.homeRot();
+                for (int b = 0; b < BOOKIES; b++) {
+                    String at = "match " + rot + ", bookie " + b;
+                    assertEquals(at, Double.parseDouble(over(rot, b)),
+                        match.bookieOver(b), 0);
+                    assertEquals(at, Double.parseDouble(under(rot, b)),
+                        match.bookieUnder(b), 0);
+                }
+                matches += 1;
+            }
+        }
+        
+        assertEquals(4, matches);
+    }
+    
+    @Test
+    public void reordered_carousel_pages_should_be_merged_by_rotation()
+        throws IOException {
+        // later pages order and group the same matches differently
+        int[][][] pages = { LAYOUT,
+            { { 107 }, { 105, 103 }, { 101 } },
+            { { 103, 101, 107, 105 } } };
+        
+        List<DateGroup> dateGroups = prefetch(new MockWebConnection(),
+            OddsPageFixture.html(pages, BOOKIES));
+        
+        assertEquals(2, dateGroups.size());
+        assertOddsMatchRotations(dateGroups);
+    }
+    
+    @Test
+    public void failing_carousel_pages_should_fall_back_to_clicking_next()
+        throws IOException {
+        int[][][] pages = { LAYOUT, LAYOUT, LAYOUT };
+        
+        List<DateGroup> dateGroups = prefetch(new FailingCarouselPages(),
+            OddsPageFixture.html(pages, BOOKIES));
+        
+        assertOddsMatchRotations(dateGroups);
+    }
+    
+    @Test
+    public void complete_raw_html_should_be_scraped_without_the_browser()
+        throws IOException {
+        MockWebConnection connection = new MockWebConnection();
+        connection.setResponse(new URL(ADDRESS),
+            OddsPageFixture.html(LAYOUT, 10));
+        
+        scraper = new Scraper();
+        scraper.setWebConnection(connection);
+        scraper.setRawHtmlFastPath(true);
+        scraper.scrape(ADDRESS);
+        
+        assertNull(scraper.getFailure());
+        assertEquals(1, connection.getRequestCount());
+        assertEquals(2, scraper.getDateGroups().size());
+    }
+    
+    @Test
+    public void incomplete_raw_html_should_fall_back_to_the_browser()
+        throws IOException {
+        MockWebConnection connection = new MockWebConnection();
+        connection.setResponse(new URL(ADDRESS),
+            OddsPageFixture.html(new int[][][] { LAYOUT, LAYOUT, LAYOUT },
+                BOOKIES));
+        
+        scraper = new Scraper();
+        scraper.setWebConnection(connection);
+        scraper.setMaxSettleMillis(100);
+        scraper.setRawHtmlFastPath(true);
+        scraper.scrape(ADDRESS);
+        
+        // the raw html only holds the first carousel page's odds
+        assertNull(scraper.getFailure());
+        assertTrue(connection.getRequestCount() > 1);
+        assertOddsMatchRotations(scraper.getDateGroups());
+    }
+    
+    @Test
+    public void carousel_pages_with_other_matches_should_fall_back()
+        throws IOException {
+        // the second page is missing a match, the third has an extra one
+        int[][][] pages = { LAYOUT,
+            { { 101, 103 }, { 105 } },
+            { { 101, 103 }, { 105, 107, 109 } } };
+        
+        List<DateGroup> dateGroups = prefetch(new MockWebConnection(),
+            OddsPageFixture.html(pages, BOOKIES));
+        
+        // clicking through reads the first page's matches by position
+        Match first = dateGroups.get(0).getMatch(0);
+        for (int b = 0; b < BOOKIES; b++) {
+            assertEquals(Double.parseDouble(over(101, b)),
+                first.bookieOver(b), 0);
+        }
+    }
+    
+}